@@ -27,21 +27,28 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import org.springframework.cloud.skipper.domain.AboutInfo;
+import org.springframework.cloud.skipper.domain.BatchRequest;
 import org.springframework.cloud.skipper.domain.Deployer;
 import org.springframework.cloud.skipper.domain.Info;
 import org.springframework.cloud.skipper.domain.InstallRequest;
+import org.springframework.cloud.skipper.domain.Operation;
 import org.springframework.cloud.skipper.domain.PackageMetadata;
+import org.springframework.cloud.skipper.domain.PackageSearchResult;
 import org.springframework.cloud.skipper.domain.Release;
 import org.springframework.cloud.skipper.domain.Repository;
+import org.springframework.cloud.skipper.domain.Rollout;
+import org.springframework.cloud.skipper.domain.RolloutRequest;
 import org.springframework.cloud.skipper.domain.Template;
 import org.springframework.cloud.skipper.domain.UpgradeRequest;
 import org.springframework.cloud.skipper.domain.UploadRequest;
 import org.springframework.core.ParameterizedTypeReference;
 import org.springframework.core.io.ClassPathResource;
 import org.springframework.hateoas.MediaTypes;
+import org.springframework.hateoas.PagedResources;
 import org.springframework.hateoas.Resource;
 import org.springframework.hateoas.Resources;
 import org.springframework.hateoas.client.Traverson;
+import org.springframework.http.HttpEntity;
 import org.springframework.http.HttpMethod;
 import org.springframework.util.Assert;
 import org.springframework.util.StreamUtils;
@@ -169,6 +176,19 @@ public class DefaultSkipperClient implements SkipperClient {
 		return traversalBuilder.withTemplateParameters(parameters).toObject(typeReference);
 	}
 
+	@Override
+	public PagedResources<PackageSearchResult> search(String query, int page, int size) {
+		ParameterizedTypeReference<PagedResources<PackageSearchResult>> typeReference = new ParameterizedTypeReference<PagedResources<PackageSearchResult>>() {
+		};
+		Map<String, Object> parameters = new HashMap<>();
+		parameters.put("page", page);
+		parameters.put("size", size);
+		if (StringUtils.hasText(query)) {
+			parameters.put("query", query);
+		}
+		return this.traverson.follow("search").withTemplateParameters(parameters).toObject(typeReference);
+	}
+
 	public Release install(InstallRequest installRequest) {
 		String url = String.format("%s/%s", baseUri, "install");
 		return this.restTemplate.postForObject(url, installRequest, Release.class);
@@ -193,6 +213,89 @@ public class DefaultSkipperClient implements SkipperClient {
 		return this.restTemplate.postForObject(url, null, Release.class);
 	}
 
+	@Override
+	public Operation installAsync(InstallRequest installRequest) {
+		String url = String.format("%s/%s?async=true", baseUri, "install");
+		return this.restTemplate.postForObject(url, installRequest, Operation.class);
+	}
+
+	@Override
+	public Operation upgradeAsync(UpgradeRequest upgradeRequest) {
+		String url = String.format("%s/%s?async=true", baseUri, "upgrade");
+		log.debug("Posting asynchronous UpgradeRequest to " + url + ". UpgradeRequest = " + upgradeRequest);
+		return this.restTemplate.postForObject(url, upgradeRequest, Operation.class);
+	}
+
+	@Override
+	public Operation deleteAsync(String releaseName) {
+		String url = String.format("%s/%s/%s?async=true", baseUri, "delete", releaseName);
+		return this.restTemplate.postForObject(url, null, Operation.class);
+	}
+
+	@Override
+	public Operation rollbackAsync(String releaseName, int releaseVersion) {
+		String url = String.format("%s/%s/%s/%s?async=true", baseUri, "rollback", releaseName, releaseVersion);
+		return this.restTemplate.postForObject(url, null, Operation.class);
+	}
+
+	@Override
+	public Operation getOperation(String operationId) {
+		Map<String, String> uriVariables = new HashMap<String, String>();
+		uriVariables.put("operationId", operationId);
+		return this.restTemplate.getForObject(baseUri + "/operations/{operationId}", Operation.class, uriVariables);
+	}
+
+	@Override
+	public Operation getOperation(String operationId, long waitMillis) {
+		Map<String, String> uriVariables = new HashMap<String, String>();
+		uriVariables.put("operationId", operationId);
+		uriVariables.put("wait", Long.toString(waitMillis));
+		return this.restTemplate.getForObject(baseUri + "/operations/{operationId}?wait={wait}", Operation.class,
+				uriVariables);
+	}
+
+	@Override
+	public List<Operation> batch(BatchRequest batchRequest) {
+		ParameterizedTypeReference<List<Operation>> typeReference = new ParameterizedTypeReference<List<Operation>>() {
+		};
+		String url = String.format("%s/%s", baseUri, "batch");
+		log.debug("Posting BatchRequest of " + batchRequest.getOperations().size() + " operations to " + url);
+		return this.restTemplate.exchange(url, HttpMethod.POST, new HttpEntity<>(batchRequest), typeReference)
+				.getBody();
+	}
+
+	@Override
+	public Rollout rollout(RolloutRequest rolloutRequest) {
+		String url = String.format("%s/%s", baseUri, "rollouts");
+		log.debug("Posting RolloutRequest of package " + rolloutRequest.getPackageName() + " to " + url);
+		return this.restTemplate.postForObject(url, rolloutRequest, Rollout.class);
+	}
+
+	@Override
+	public Rollout getRollout(String rolloutId) {
+		return this.restTemplate.getForObject(baseUri + "/rollouts/{rolloutId}", Rollout.class, rolloutId);
+	}
+
+	@Override
+	public List<Rollout> listRollouts() {
+		ParameterizedTypeReference<List<Rollout>> typeReference = new ParameterizedTypeReference<List<Rollout>>() {
+		};
+		String url = String.format("%s/%s", baseUri, "rollouts");
+		return this.restTemplate.exchange(url, HttpMethod.GET, null, typeReference).getBody();
+	}
+
+	@Override
+	public Rollout resumeRollout(String rolloutId) {
+		return this.restTemplate.postForObject(baseUri + "/rollouts/{rolloutId}/resume", null, Rollout.class,
+				rolloutId);
+	}
+
+	@Override
+	public Rollout abortRollout(String rolloutId) {
+		return this.restTemplate.postForObject(baseUri + "/rollouts/{rolloutId}/abort", null, Rollout.class,
+				rolloutId);
+	}
+
 	@Override
 	public List<Release> list(String releaseNameLike) {
 		ParameterizedTypeReference<List<Release>> typeReference = new ParameterizedTypeReference<List<Release>>() {
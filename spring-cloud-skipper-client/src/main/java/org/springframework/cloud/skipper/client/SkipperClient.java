@@ -18,15 +18,21 @@ package org.springframework.cloud.skipper.client;
 import java.util.List;
 
 import org.springframework.cloud.skipper.domain.AboutInfo;
+import org.springframework.cloud.skipper.domain.BatchRequest;
 import org.springframework.cloud.skipper.domain.Deployer;
 import org.springframework.cloud.skipper.domain.Info;
 import org.springframework.cloud.skipper.domain.InstallRequest;
+import org.springframework.cloud.skipper.domain.Operation;
 import org.springframework.cloud.skipper.domain.PackageMetadata;
+import org.springframework.cloud.skipper.domain.PackageSearchResult;
 import org.springframework.cloud.skipper.domain.Release;
 import org.springframework.cloud.skipper.domain.Repository;
+import org.springframework.cloud.skipper.domain.Rollout;
+import org.springframework.cloud.skipper.domain.RolloutRequest;
 import org.springframework.cloud.skipper.domain.Template;
 import org.springframework.cloud.skipper.domain.UpgradeRequest;
 import org.springframework.cloud.skipper.domain.UploadRequest;
+import org.springframework.hateoas.PagedResources;
 import org.springframework.hateoas.Resources;
 
 /**
@@ -60,6 +66,16 @@ public interface SkipperClient {
 	 */
 	Resources<PackageMetadata> search(String name, boolean details);
 
+	/**
+	 * Search for packages using the search index of the server.
+	 * @param query the terms to match against the name, description, tags and maintainer of
+	 * the packages, all packages are returned if empty
+	 * @param page the zero based number of the page to return
+	 * @param size the size of the page to return
+	 * @return the matching packages grouped by name, most relevant first
+	 */
+	PagedResources<PackageSearchResult> search(String query, int page, int size);
+
 	/**
 	 * Install the package
 	 * @param installRequest the package install request
@@ -74,6 +90,20 @@ public interface SkipperClient {
 	 */
 	Release upgrade(UpgradeRequest upgradeRequest);
 
+	/**
+	 * Install the package without waiting for the install to complete.
+	 * @param installRequest the package install request
+	 * @return the pending install {@link Operation}
+	 */
+	Operation installAsync(InstallRequest installRequest);
+
+	/**
+	 * Upgrade a release without waiting for the upgraded apps to be deployed.
+	 * @param upgradeRequest the request to upgrade the release
+	 * @return the pending upgrade {@link Operation}
+	 */
+	Operation upgradeAsync(UpgradeRequest upgradeRequest);
+
 	/*
 	 * Upload the package.
 	 *
@@ -99,6 +129,91 @@ public interface SkipperClient {
 	 */
 	Release rollback(String releaseName, int releaseVersion);
 
+	/**
+	 * Delete a specific release without waiting for the delete to complete.
+	 *
+	 * @param releaseName the release name
+	 * @return the pending delete {@link Operation}
+	 */
+	Operation deleteAsync(String releaseName);
+
+	/**
+	 * Rollback a specific release without waiting for the rollback to complete.
+	 *
+	 * @param releaseName the release name
+	 * @param releaseVersion the release version
+	 * @return the pending rollback {@link Operation}
+	 */
+	Operation rollbackAsync(String releaseName, int releaseVersion);
+
+	/**
+	 * Return the current state of an asynchronous operation.
+	 *
+	 * @param operationId the operation id
+	 * @return the operation
+	 */
+	Operation getOperation(String operationId);
+
+	/**
+	 * Return the state of an asynchronous operation once it is done, or once the given wait
+	 * has elapsed if it is still pending.
+	 *
+	 * @param operationId the operation id
+	 * @param waitMillis the maximum time in milliseconds the server waits for the
+	 * operation to be done
+	 * @return the operation
+	 */
+	Operation getOperation(String operationId, long waitMillis);
+
+	/**
+	 * Run a batch of install, upgrade and delete operations, waiting for all of them to be
+	 * done.
+	 *
+	 * @param batchRequest the batch request
+	 * @return the resulting operations, in the order they were done
+	 */
+	List<Operation> batch(BatchRequest batchRequest);
+
+	/**
+	 * Start upgrading all deployed releases of a package to another version of it, in
+	 * waves.
+	 *
+	 * @param rolloutRequest the rollout request
+	 * @return the planned rollout
+	 */
+	Rollout rollout(RolloutRequest rolloutRequest);
+
+	/**
+	 * Get the progress of a rollout.
+	 *
+	 * @param rolloutId the rollout id
+	 * @return the rollout
+	 */
+	Rollout getRollout(String rolloutId);
+
+	/**
+	 * List the rollouts known to the server, oldest first.
+	 *
+	 * @return the rollouts
+	 */
+	List<Rollout> listRollouts();
+
+	/**
+	 * Resume a rollout paused after a wave exceeded its failure rate.
+	 *
+	 * @param rolloutId the rollout id
+	 * @return the rollout
+	 */
+	Rollout resumeRollout(String rolloutId);
+
+	/**
+	 * Abort a rollout, a running rollout stops once its current wave is done.
+	 *
+	 * @param rolloutId the rollout id
+	 * @return the rollout
+	 */
+	Rollout abortRollout(String rolloutId);
+
 	/**
 	 * List the latest version of releases with status of deployed or failed.
 	 *
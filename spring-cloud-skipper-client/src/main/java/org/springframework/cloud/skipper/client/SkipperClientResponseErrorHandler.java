@@ -21,7 +21,9 @@ import java.util.Map;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 
+import org.springframework.cloud.skipper.OperationRejectedException;
 import org.springframework.cloud.skipper.ReleaseNotFoundException;
+import org.springframework.cloud.skipper.ReleaseNotOwnedException;
 import org.springframework.cloud.skipper.SkipperException;
 import org.springframework.http.client.ClientHttpResponse;
 import org.springframework.util.Assert;
@@ -68,6 +70,10 @@ public class SkipperClientResponseErrorHandler extends DefaultResponseErrorHandl
 		if (ObjectUtils.nullSafeEquals(exceptionClazz, ReleaseNotFoundException.class.getName())) {
 			handleReleaseNotFoundException(map);
 		}
+		else if (ObjectUtils.nullSafeEquals(exceptionClazz, OperationRejectedException.class.getName())
+				|| ObjectUtils.nullSafeEquals(exceptionClazz, ReleaseNotOwnedException.class.getName())) {
+			handleOperationRejectedException(map);
+		}
 		else if (ObjectUtils.nullSafeEquals(exceptionClazz, SkipperException.class.getName())) {
 			handleSkipperException(map);
 		}
@@ -94,6 +100,11 @@ public class SkipperClientResponseErrorHandler extends DefaultResponseErrorHandl
 		}
 	}
 
+	private void handleOperationRejectedException(Map<String, String> map) {
+		String message = map.get("message");
+		throw new OperationRejectedException(StringUtils.hasText(message) ? message : "");
+	}
+
 	private void handleSkipperException(Map<String, String> map) {
 		String message = map.get("message");
 		throw new SkipperException(StringUtils.hasText(message) ? message : "");
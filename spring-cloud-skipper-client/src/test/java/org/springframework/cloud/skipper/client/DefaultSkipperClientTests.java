@@ -15,18 +15,32 @@
  */
 package org.springframework.cloud.skipper.client;
 
+import java.util.List;
+
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.Test;
 
+import org.springframework.cloud.skipper.OperationRejectedException;
 import org.springframework.cloud.skipper.ReleaseNotFoundException;
 import org.springframework.cloud.skipper.SkipperException;
+import org.springframework.cloud.skipper.domain.BatchOperationRequest;
+import org.springframework.cloud.skipper.domain.BatchRequest;
 import org.springframework.cloud.skipper.domain.Info;
+import org.springframework.cloud.skipper.domain.Operation;
+import org.springframework.cloud.skipper.domain.OperationState;
+import org.springframework.cloud.skipper.domain.Rollout;
+import org.springframework.cloud.skipper.domain.RolloutItem;
+import org.springframework.cloud.skipper.domain.RolloutRequest;
+import org.springframework.cloud.skipper.domain.RolloutState;
+import org.springframework.http.HttpMethod;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.client.MockRestServiceServer;
 import org.springframework.web.client.RestTemplate;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.jsonPath;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.method;
 import static org.springframework.test.web.client.match.MockRestRequestMatchers.requestTo;
 import static org.springframework.test.web.client.response.MockRestResponseCreators.withStatus;
 import static org.springframework.test.web.client.response.MockRestResponseCreators.withSuccess;
@@ -51,6 +65,12 @@ public class DefaultSkipperClientTests {
 			"\"exception\":\"org.springframework.cloud.skipper.SkipperException\"," +
 			"\"message\":\"Some skipper message\",\"path\":\"/api/status/mylog\"}";
 
+	private final String ERROR3 = "{\"timestamp\":1508161424577," +
+			"\"status\":429," +
+			"\"error\":\"Too Many Requests\"," +
+			"\"exception\":\"org.springframework.cloud.skipper.OperationRejectedException\"," +
+			"\"message\":\"Can't delete release 'mylog', retry later\",\"path\":\"/api/delete/mylog\"}";
+
 	@Test
 	public void genericTemplateTest() {
 		SkipperClient skipperClient = new DefaultSkipperClient("http://localhost:7577");
@@ -73,6 +93,81 @@ public class DefaultSkipperClientTests {
 		assertThat(status).isInstanceOf(Info.class);
 	}
 
+	@Test
+	public void testAsyncDeleteAndOperation() {
+		RestTemplate restTemplate = new RestTemplate();
+		SkipperClient skipperClient = new DefaultSkipperClient("", restTemplate);
+
+		MockRestServiceServer mockServer = MockRestServiceServer.bindTo(restTemplate).build();
+		mockServer.expect(requestTo("/delete/mylog?async=true")).andExpect(method(HttpMethod.POST))
+				.andRespond(withStatus(HttpStatus.ACCEPTED).contentType(MediaType.APPLICATION_JSON)
+						.body("{\"id\":\"op1\",\"type\":\"delete\",\"releaseName\":\"mylog\",\"state\":\"PENDING\"}"));
+		mockServer.expect(requestTo("/operations/op1?wait=1000")).andExpect(method(HttpMethod.GET))
+				.andRespond(withSuccess("{\"id\":\"op1\",\"state\":\"COMPLETED\",\"machineState\":\"INITIAL\"}",
+						MediaType.APPLICATION_JSON));
+
+		Operation operation = skipperClient.deleteAsync("mylog");
+		assertThat(operation.getId()).isEqualTo("op1");
+		assertThat(operation.getState()).isEqualTo(OperationState.PENDING);
+		Operation completed = skipperClient.getOperation(operation.getId(), 1000);
+		mockServer.verify();
+
+		assertThat(completed.getState()).isEqualTo(OperationState.COMPLETED);
+		assertThat(completed.isDone()).isTrue();
+	}
+
+	@Test
+	public void testBatch() {
+		RestTemplate restTemplate = new RestTemplate();
+		SkipperClient skipperClient = new DefaultSkipperClient("", restTemplate);
+
+		MockRestServiceServer mockServer = MockRestServiceServer.bindTo(restTemplate).build();
+		mockServer.expect(requestTo("/batch")).andExpect(method(HttpMethod.POST))
+				.andExpect(jsonPath("$.operations[0].type").value("delete"))
+				.andExpect(jsonPath("$.operations[1].releaseName").value("mytime"))
+				.andRespond(withSuccess("[{\"id\":\"op2\",\"type\":\"delete\",\"releaseName\":\"mytime\","
+						+ "\"state\":\"FAILED\",\"message\":\"Release not found\"},"
+						+ "{\"id\":\"op1\",\"type\":\"delete\",\"releaseName\":\"mylog\",\"state\":\"COMPLETED\"}]",
+						MediaType.APPLICATION_JSON));
+
+		BatchRequest batchRequest = new BatchRequest();
+		batchRequest.getOperations().add(BatchOperationRequest.delete("mylog"));
+		batchRequest.getOperations().add(BatchOperationRequest.delete("mytime"));
+		List<Operation> operations = skipperClient.batch(batchRequest);
+		mockServer.verify();
+
+		assertThat(operations).extracting(Operation::getReleaseName).containsExactly("mytime", "mylog");
+		assertThat(operations).extracting(Operation::getState).containsExactly(OperationState.FAILED,
+				OperationState.COMPLETED);
+	}
+
+	@Test
+	public void testRollout() {
+		RestTemplate restTemplate = new RestTemplate();
+		SkipperClient skipperClient = new DefaultSkipperClient("", restTemplate);
+
+		MockRestServiceServer mockServer = MockRestServiceServer.bindTo(restTemplate).build();
+		mockServer.expect(requestTo("/rollouts")).andExpect(method(HttpMethod.POST))
+				.andExpect(jsonPath("$.packageName").value("log"))
+				.andExpect(jsonPath("$.waveSize").value(2))
+				.andRespond(withSuccess("{\"id\":\"r1\",\"packageName\":\"log\",\"packageVersion\":\"1.1.0\","
+						+ "\"state\":\"RUNNING\",\"waveCount\":1,\"items\":[{\"releaseName\":\"mylog\","
+						+ "\"packageVersion\":\"1.0.0\",\"wave\":1,\"applicationNames\":[\"log\"]}],"
+						+ "\"upToDateReleases\":[\"yourlog\"]}", MediaType.APPLICATION_JSON));
+		mockServer.expect(requestTo("/rollouts/r1/abort")).andExpect(method(HttpMethod.POST))
+				.andRespond(withSuccess("{\"id\":\"r1\",\"state\":\"ABORTED\"}", MediaType.APPLICATION_JSON));
+
+		RolloutRequest rolloutRequest = new RolloutRequest();
+		rolloutRequest.setPackageName("log");
+		rolloutRequest.setWaveSize(2);
+		Rollout rollout = skipperClient.rollout(rolloutRequest);
+		assertThat(rollout.getState()).isEqualTo(RolloutState.RUNNING);
+		assertThat(rollout.getItems()).extracting(RolloutItem::getReleaseName).containsExactly("mylog");
+		assertThat(rollout.getUpToDateReleases()).containsExactly("yourlog");
+		assertThat(skipperClient.abortRollout("r1").getState()).isEqualTo(RolloutState.ABORTED);
+		mockServer.verify();
+	}
+
 	@Test(expected = ReleaseNotFoundException.class)
 	public void testStatusReleaseNameNotFound() {
 		RestTemplate restTemplate = new RestTemplate();
@@ -98,4 +193,17 @@ public class DefaultSkipperClientTests {
 
 		skipperClient.status("mylog");
 	}
+
+	@Test(expected = OperationRejectedException.class)
+	public void testOperationRejectedException() {
+		RestTemplate restTemplate = new RestTemplate();
+		restTemplate.setErrorHandler(new SkipperClientResponseErrorHandler(new ObjectMapper()));
+		SkipperClient skipperClient = new DefaultSkipperClient("", restTemplate);
+
+		MockRestServiceServer mockServer = MockRestServiceServer.bindTo(restTemplate).build();
+		mockServer.expect(requestTo("/delete/mylog"))
+				.andRespond(withStatus(HttpStatus.TOO_MANY_REQUESTS).body(ERROR3).contentType(MediaType.APPLICATION_JSON));
+
+		skipperClient.delete("mylog");
+	}
 }
@@ -0,0 +1,82 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.cloud.skipper.server.cluster;
+
+import java.util.UUID;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.cloud.skipper.server.config.SkipperServerProperties;
+import org.springframework.cloud.skipper.server.repository.ClusterNodeRepository;
+import org.springframework.cloud.skipper.server.repository.PartitionLeaseRepository;
+import org.springframework.cloud.skipper.server.statemachine.SkipperStateMachineService;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.SimpleClientHttpRequestFactory;
+import org.springframework.util.Assert;
+import org.springframework.util.StringUtils;
+import org.springframework.web.client.RestTemplate;
+
+/**
+ * Configuration splitting the releases between the nodes of a Skipper cluster, enabled
+ * with {@code spring.cloud.skipper.server.cluster-enabled}.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "spring.cloud.skipper.server", name = "cluster-enabled", havingValue = "true")
+public class ClusterConfiguration {
+
+	@Bean
+	public ReleaseOwnershipService releaseOwnershipService(ClusterNodeRepository clusterNodeRepository,
+			PartitionLeaseRepository partitionLeaseRepository, SkipperStateMachineService skipperStateMachineService,
+			SkipperServerProperties properties) {
+		Assert.hasText(properties.getClusterNodeUrl(),
+				"'spring.cloud.skipper.server.cluster-node-url' must be set when the cluster is enabled");
+		String nodeId = StringUtils.hasText(properties.getClusterNodeId()) ? properties.getClusterNodeId()
+				: UUID.randomUUID().toString();
+		ReleaseOwnershipService releaseOwnershipService = new ReleaseOwnershipService(clusterNodeRepository,
+				partitionLeaseRepository, skipperStateMachineService, nodeId,
+				StringUtils.trimTrailingCharacter(properties.getClusterNodeUrl(), '/'),
+				properties.getClusterPartitionCount(), properties.getClusterLeaseDuration());
+		skipperStateMachineService.setReleaseOwnershipService(releaseOwnershipService);
+		return releaseOwnershipService;
+	}
+
+	@Bean
+	public FilterRegistrationBean releaseOwnershipFilter(ReleaseOwnershipService releaseOwnershipService,
+			ObjectMapper objectMapper, SkipperServerProperties properties) {
+		FilterRegistrationBean registration = new FilterRegistrationBean(new ReleaseOwnershipFilter(
+				releaseOwnershipService, objectMapper, new RestTemplate(forwardingRequestFactory(properties))));
+		// runs after the security filters, the owning node checks the credentials again
+		registration.addUrlPatterns("/api/install", "/api/install/*", "/api/upgrade", "/api/delete/*",
+				"/api/rollback/*", "/api/batch", "/api/operations/*");
+		return registration;
+	}
+
+	private static SimpleClientHttpRequestFactory forwardingRequestFactory(SkipperServerProperties properties) {
+		long leaseDuration = properties.getClusterLeaseDuration();
+		// a node not answering within a lease is about to lose its partitions, while the
+		// response of synchronous operations and batches only comes once they are done
+		long maxWait = properties.getOperationMaxWait() > 0 && properties.getBatchMaxWait() > 0
+				? Math.max(properties.getOperationMaxWait(), properties.getBatchMaxWait())
+				: 0;
+		SimpleClientHttpRequestFactory requestFactory = new SimpleClientHttpRequestFactory();
+		requestFactory.setConnectTimeout((int) Math.min(leaseDuration, Integer.MAX_VALUE));
+		requestFactory.setReadTimeout(maxWait > 0 ? (int) Math.min(leaseDuration + maxWait, Integer.MAX_VALUE) : 0);
+		return requestFactory;
+	}
+}
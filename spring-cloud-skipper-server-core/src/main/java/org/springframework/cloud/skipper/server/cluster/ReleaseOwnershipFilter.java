@@ -0,0 +1,326 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.cloud.skipper.server.cluster;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ReadListener;
+import javax.servlet.ServletException;
+import javax.servlet.ServletInputStream;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletRequestWrapper;
+import javax.servlet.http.HttpServletResponse;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.MissingNode;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.util.Assert;
+import org.springframework.util.StreamUtils;
+import org.springframework.util.StringUtils;
+import org.springframework.web.client.DefaultResponseErrorHandler;
+import org.springframework.web.client.RestClientException;
+import org.springframework.web.client.RestTemplate;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.UrlPathHelper;
+
+/**
+ * Forwards the requests starting an operation of a release to the node of the cluster
+ * handling the release, and relays its response. Requests for releases handled by this
+ * node, requests already forwarded by another node and requests whose release can't be
+ * determined are passed on, the state machine service rejects them if the release is
+ * not handled by this node.
+ *
+ * The release name is taken from the path of delete and rollback requests, and from the
+ * body of install and upgrade requests. Batches are forwarded if all of their releases
+ * are handled by the same other node, otherwise their operations on releases handled by
+ * other nodes fail. Lookups of operations are forwarded to the node named by the
+ * operation id, which is the only one tracking the operation.
+ */
+public class ReleaseOwnershipFilter extends OncePerRequestFilter {
+
+	/**
+	 * Header carrying the id of the node a request has been forwarded by.
+	 */
+	public static final String FORWARDED_BY_HEADER = "X-Skipper-Forwarded-By";
+
+	private static final Logger log = LoggerFactory.getLogger(ReleaseOwnershipFilter.class);
+
+	private static final String OPERATIONS_PATH = "/api/operations/";
+
+	private static final String[] FORWARDED_HEADERS = { HttpHeaders.CONTENT_TYPE, HttpHeaders.ACCEPT,
+			HttpHeaders.AUTHORIZATION };
+
+	private final ReleaseOwnershipService releaseOwnershipService;
+
+	private final ObjectMapper objectMapper;
+
+	private final RestTemplate restTemplate;
+
+	private final UrlPathHelper urlPathHelper = new UrlPathHelper();
+
+	/**
+	 * Instantiates a new release ownership filter.
+	 *
+	 * @param releaseOwnershipService the release ownership service
+	 * @param objectMapper the object mapper reading the request bodies
+	 * @param restTemplate the rest template forwarding requests
+	 */
+	public ReleaseOwnershipFilter(ReleaseOwnershipService releaseOwnershipService, ObjectMapper objectMapper,
+			RestTemplate restTemplate) {
+		Assert.notNull(releaseOwnershipService, "'releaseOwnershipService' must be set");
+		Assert.notNull(objectMapper, "'objectMapper' must be set");
+		Assert.notNull(restTemplate, "'restTemplate' must be set");
+		this.releaseOwnershipService = releaseOwnershipService;
+		this.objectMapper = objectMapper;
+		this.restTemplate = restTemplate;
+		// the response of the owning node is relayed as is
+		this.restTemplate.setErrorHandler(new DefaultResponseErrorHandler() {
+
+			@Override
+			public boolean hasError(ClientHttpResponse response) throws IOException {
+				return false;
+			}
+		});
+	}
+
+	@Override
+	protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+			throws ServletException, IOException {
+		String path = this.urlPathHelper.getPathWithinApplication(request);
+		if (request.getHeader(FORWARDED_BY_HEADER) != null) {
+			filterChain.doFilter(request, response);
+		}
+		else if (HttpMethod.GET.matches(request.getMethod())) {
+			String nodeUrl = path.startsWith(OPERATIONS_PATH)
+					? this.releaseOwnershipService.getOperationNodeUrl(path.substring(OPERATIONS_PATH.length()))
+					: null;
+			if (nodeUrl != null) {
+				forward(request, response, HttpMethod.GET, nodeUrl + path, null);
+			}
+			else {
+				filterChain.doFilter(request, response);
+			}
+		}
+		else if (HttpMethod.POST.matches(request.getMethod())) {
+			forwardToOwner(request, response, filterChain, path);
+		}
+		else {
+			filterChain.doFilter(request, response);
+		}
+	}
+
+	private void forwardToOwner(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain,
+			String path) throws ServletException, IOException {
+		byte[] body = StreamUtils.copyToByteArray(request.getInputStream());
+		String ownerUrl = getOwnerUrl(getReleaseNames(path, body));
+		if (ownerUrl != null) {
+			forward(request, response, HttpMethod.POST, ownerUrl + path, body);
+		}
+		else {
+			filterChain.doFilter(new CachedBodyRequest(request, body), response);
+		}
+	}
+
+	private String getOwnerUrl(List<String> releaseNames) {
+		// only requests whose releases are all handled by the same other node are forwarded
+		String ownerUrl = null;
+		for (String releaseName : releaseNames) {
+			String releaseOwnerUrl = this.releaseOwnershipService.isOwner(releaseName) ? null
+					: this.releaseOwnershipService.getOwnerUrl(releaseName);
+			if (releaseOwnerUrl == null || (ownerUrl != null && !ownerUrl.equals(releaseOwnerUrl))) {
+				return null;
+			}
+			ownerUrl = releaseOwnerUrl;
+		}
+		return ownerUrl;
+	}
+
+	private List<String> getReleaseNames(String path, byte[] body) {
+		String[] segments = StringUtils.tokenizeToStringArray(path, "/");
+		List<String> releaseNames = Collections.emptyList();
+		if (segments.length == 2 && "api".equals(segments[0]) && "batch".equals(segments[1])) {
+			releaseNames = readBatchReleaseNames(readTree(body));
+		}
+		else {
+			String releaseName = getReleaseName(segments, body);
+			if (releaseName != null) {
+				releaseNames = Collections.singletonList(releaseName);
+			}
+		}
+		return releaseNames;
+	}
+
+	private String getReleaseName(String[] segments, byte[] body) {
+		if (segments.length < 2 || !"api".equals(segments[0])) {
+			return null;
+		}
+		if (segments.length > 2 && ("delete".equals(segments[1]) || "rollback".equals(segments[1]))) {
+			return segments[2];
+		}
+		JsonNode node = readTree(body);
+		JsonNode properties = null;
+		if ("install".equals(segments[1])) {
+			properties = segments.length > 2 ? node : node.path("installProperties");
+		}
+		else if ("upgrade".equals(segments[1])) {
+			properties = node.path("upgradeProperties");
+		}
+		return properties != null ? readReleaseName(properties) : null;
+	}
+
+	private List<String> readBatchReleaseNames(JsonNode batch) {
+		List<String> releaseNames = new ArrayList<>();
+		for (JsonNode operation : batch.path("operations")) {
+			String type = operation.path("type").asText();
+			JsonNode properties = operation;
+			if ("install".equals(type)) {
+				properties = operation.path("installRequest").path("installProperties");
+			}
+			else if ("upgrade".equals(type)) {
+				properties = operation.path("upgradeRequest").path("upgradeProperties");
+			}
+			String releaseName = readReleaseName(properties);
+			if (releaseName == null) {
+				// let the controller report the invalid operation
+				return Collections.emptyList();
+			}
+			releaseNames.add(releaseName);
+		}
+		return releaseNames;
+	}
+
+	private String readReleaseName(JsonNode properties) {
+		JsonNode releaseName = properties.path("releaseName");
+		return releaseName.isTextual() ? releaseName.asText() : null;
+	}
+
+	private JsonNode readTree(byte[] body) {
+		JsonNode node = null;
+		try {
+			node = this.objectMapper.readTree(body);
+		}
+		catch (IOException e) {
+			// let the controller report the malformed request
+			log.debug("Can't read the release name of a malformed request", e);
+		}
+		return node != null ? node : MissingNode.getInstance();
+	}
+
+	private void forward(HttpServletRequest request, HttpServletResponse response, HttpMethod method, String url,
+			byte[] body) throws IOException {
+		HttpHeaders headers = new HttpHeaders();
+		for (String header : FORWARDED_HEADERS) {
+			String value = request.getHeader(header);
+			if (value != null) {
+				headers.set(header, value);
+			}
+		}
+		headers.set(FORWARDED_BY_HEADER, this.releaseOwnershipService.getNodeId());
+		String target = request.getQueryString() != null ? url + "?" + request.getQueryString() : url;
+		ResponseEntity<byte[]> forwarded;
+		try {
+			forwarded = this.restTemplate.exchange(target, method, new HttpEntity<>(body, headers), byte[].class);
+		}
+		catch (RestClientException e) {
+			log.warn("Failed to forward request to " + target, e);
+			response.sendError(HttpStatus.SERVICE_UNAVAILABLE.value(), "Request is handled by an unreachable node");
+			return;
+		}
+		log.debug("Forwarded request to {}", target);
+		response.setStatus(forwarded.getStatusCodeValue());
+		if (forwarded.getHeaders().getContentType() != null) {
+			response.setContentType(forwarded.getHeaders().getContentType().toString());
+		}
+		if (forwarded.getHeaders().getLocation() != null) {
+			response.setHeader(HttpHeaders.LOCATION, forwarded.getHeaders().getLocation().toString());
+		}
+		if (forwarded.getBody() != null) {
+			response.getOutputStream().write(forwarded.getBody());
+		}
+	}
+
+	/**
+	 * Request replaying a body which has already been read.
+	 */
+	private static final class CachedBodyRequest extends HttpServletRequestWrapper {
+
+		private final byte[] body;
+
+		private CachedBodyRequest(HttpServletRequest request, byte[] body) {
+			super(request);
+			this.body = body;
+		}
+
+		@Override
+		public ServletInputStream getInputStream() {
+			ByteArrayInputStream inputStream = new ByteArrayInputStream(this.body);
+			return new ServletInputStream() {
+
+				@Override
+				public int read() {
+					return inputStream.read();
+				}
+
+				@Override
+				public boolean isFinished() {
+					return inputStream.available() == 0;
+				}
+
+				@Override
+				public boolean isReady() {
+					return true;
+				}
+
+				@Override
+				public void setReadListener(ReadListener readListener) {
+					// the whole body is available already
+					try {
+						readListener.onDataAvailable();
+						readListener.onAllDataRead();
+					}
+					catch (IOException e) {
+						readListener.onError(e);
+					}
+				}
+			};
+		}
+
+		@Override
+		public BufferedReader getReader() {
+			String encoding = getCharacterEncoding();
+			Charset charset = encoding != null ? Charset.forName(encoding) : StandardCharsets.UTF_8;
+			return new BufferedReader(new InputStreamReader(getInputStream(), charset));
+		}
+	}
+}
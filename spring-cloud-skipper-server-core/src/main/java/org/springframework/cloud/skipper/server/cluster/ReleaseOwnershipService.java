@@ -0,0 +1,344 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.cloud.skipper.server.cluster;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hashing;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.cloud.skipper.ReleaseNotOwnedException;
+import org.springframework.cloud.skipper.server.domain.ClusterNode;
+import org.springframework.cloud.skipper.server.domain.PartitionLease;
+import org.springframework.cloud.skipper.server.repository.ClusterNodeRepository;
+import org.springframework.cloud.skipper.server.repository.PartitionLeaseRepository;
+import org.springframework.cloud.skipper.server.statemachine.SkipperStateMachineService;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.util.Assert;
+
+/**
+ * Decides which node of a Skipper cluster handles the state machine of a release.
+ *
+ * Release names are hashed into a fixed number of partitions, and every partition is
+ * assigned to one of the live nodes with rendezvous hashing, so that a node joining or
+ * leaving only moves the partitions it gains or loses. Ownership of a partition is a
+ * lease stored in the database: a node takes over a partition assigned to it once the
+ * lease of the previous owner has expired or been released, and hands over a partition
+ * only after the state machines of its releases have been evicted, keeping the lease
+ * while any of them is busy. A partition being handed over is no longer considered owned
+ * while its state machines are evicted, so that no new operation starts on them. Nodes
+ * heartbeat in the database and renew their leases at a third of the lease duration.
+ *
+ * A node stops considering a partition its own a heartbeat interval before its lease
+ * expires, so the lease duration has to be well above the clock skew between nodes.
+ */
+public class ReleaseOwnershipService implements InitializingBean, DisposableBean {
+
+	private static final Logger log = LoggerFactory.getLogger(ReleaseOwnershipService.class);
+
+	private static final HashFunction HASH_FUNCTION = Hashing.murmur3_32();
+
+	private static final char OPERATION_ID_SEPARATOR = '_';
+
+	private final ClusterNodeRepository clusterNodeRepository;
+
+	private final PartitionLeaseRepository partitionLeaseRepository;
+
+	private final SkipperStateMachineService skipperStateMachineService;
+
+	private final String nodeId;
+
+	private final String nodeUrl;
+
+	private final int partitionCount;
+
+	private final long leaseDuration;
+
+	private final long heartbeatInterval;
+
+	private final ScheduledExecutorService scheduledExecutorService = Executors
+			.newSingleThreadScheduledExecutor(new CustomizableThreadFactory("skipper-cluster-"));
+
+	private volatile Map<Integer, PartitionLease> leases = Collections.emptyMap();
+
+	private volatile Map<String, ClusterNode> liveNodes = Collections.emptyMap();
+
+	private final Set<Integer> handingOver = ConcurrentHashMap.newKeySet();
+
+	/**
+	 * Instantiates a new release ownership service.
+	 *
+	 * @param clusterNodeRepository the repository of the nodes of the cluster
+	 * @param partitionLeaseRepository the repository of the partition leases
+	 * @param skipperStateMachineService the service whose state machines are evicted
+	 * when a partition is handed over
+	 * @param nodeId the unique id of this node
+	 * @param nodeUrl the base URL other nodes forward the requests for the releases of
+	 * this node to
+	 * @param partitionCount the number of partitions, has to be the same on all nodes
+	 * @param leaseDuration the duration in milliseconds of a partition lease
+	 */
+	public ReleaseOwnershipService(ClusterNodeRepository clusterNodeRepository,
+			PartitionLeaseRepository partitionLeaseRepository, SkipperStateMachineService skipperStateMachineService,
+			String nodeId, String nodeUrl, int partitionCount, long leaseDuration) {
+		Assert.notNull(clusterNodeRepository, "'clusterNodeRepository' must be set");
+		Assert.notNull(partitionLeaseRepository, "'partitionLeaseRepository' must be set");
+		Assert.notNull(skipperStateMachineService, "'skipperStateMachineService' must be set");
+		Assert.hasText(nodeId, "'nodeId' must be set");
+		Assert.hasText(nodeUrl, "'nodeUrl' must be set");
+		Assert.isTrue(partitionCount > 0, "'partitionCount' must be positive");
+		Assert.isTrue(leaseDuration >= 3, "'leaseDuration' must be at least 3 milliseconds");
+		this.clusterNodeRepository = clusterNodeRepository;
+		this.partitionLeaseRepository = partitionLeaseRepository;
+		this.skipperStateMachineService = skipperStateMachineService;
+		this.nodeId = nodeId;
+		this.nodeUrl = nodeUrl;
+		this.partitionCount = partitionCount;
+		this.leaseDuration = leaseDuration;
+		this.heartbeatInterval = leaseDuration / 3;
+	}
+
+	@Override
+	public void afterPropertiesSet() {
+		this.scheduledExecutorService.scheduleWithFixedDelay(this::heartbeat, 0, this.heartbeatInterval,
+				TimeUnit.MILLISECONDS);
+	}
+
+	@Override
+	public void destroy() {
+		this.scheduledExecutorService.shutdownNow();
+	}
+
+	/**
+	 * @return the id of this node
+	 */
+	public String getNodeId() {
+		return this.nodeId;
+	}
+
+	/**
+	 * @return the prefix of the ids of the operations tracked by this node
+	 */
+	public String getOperationIdPrefix() {
+		return this.nodeId + OPERATION_ID_SEPARATOR;
+	}
+
+	/**
+	 * Get the URL of the node tracking an operation, as operations are only known to the
+	 * node which started them. Nodes are looked up in the live nodes read on the last
+	 * heartbeat, so that polling operations doesn't query the database.
+	 *
+	 * @param operationId the operation id
+	 * @return the URL or {@literal null} if the operation is tracked by this node, its node
+	 * is not live or the id names no node
+	 */
+	public String getOperationNodeUrl(String operationId) {
+		int separator = operationId.lastIndexOf(OPERATION_ID_SEPARATOR);
+		String operationNodeId = separator > 0 ? operationId.substring(0, separator) : null;
+		ClusterNode node = operationNodeId != null && !this.nodeId.equals(operationNodeId)
+				? this.liveNodes.get(operationNodeId)
+				: null;
+		return node != null && node.getLastHeartbeat() > System.currentTimeMillis() - this.leaseDuration
+				? node.getUrl()
+				: null;
+	}
+
+	/**
+	 * Get the partition of a release.
+	 *
+	 * @param releaseName the release name
+	 * @return the partition
+	 */
+	public int getPartition(String releaseName) {
+		return Math.floorMod(HASH_FUNCTION.hashString(releaseName, StandardCharsets.UTF_8).asInt(),
+				this.partitionCount);
+	}
+
+	/**
+	 * @return the partitions this node currently handles
+	 */
+	public List<Integer> getOwnedPartitions() {
+		long now = System.currentTimeMillis();
+		List<Integer> owned = new ArrayList<>();
+		for (PartitionLease lease : this.leases.values()) {
+			if (isOwnedLease(lease, now)) {
+				owned.add(lease.getPartitionId());
+			}
+		}
+		Collections.sort(owned);
+		return owned;
+	}
+
+	/**
+	 * @param releaseName the release name
+	 * @return true if this node handles the release
+	 */
+	public boolean isOwner(String releaseName) {
+		return isOwnedLease(this.leases.get(getPartition(releaseName)), System.currentTimeMillis());
+	}
+
+	/**
+	 * Get the URL of the node handling a release.
+	 *
+	 * @param releaseName the release name
+	 * @return the URL or {@literal null} if no node holds the release right now
+	 */
+	public String getOwnerUrl(String releaseName) {
+		PartitionLease lease = this.leases.get(getPartition(releaseName));
+		return lease != null && lease.isHeld(System.currentTimeMillis()) ? lease.getOwnerUrl() : null;
+	}
+
+	/**
+	 * Check that this node handles a release.
+	 *
+	 * @param releaseName the release name
+	 * @throws ReleaseNotOwnedException if the release is handled by another node or by
+	 * none
+	 */
+	public void checkOwner(String releaseName) {
+		if (!isOwner(releaseName)) {
+			throw new ReleaseNotOwnedException(releaseName, getOwnerUrl(releaseName));
+		}
+	}
+
+	/**
+	 * Record the heartbeat of this node, take over the partitions assigned to it which
+	 * are free, renew the leases it holds and hand over the partitions assigned to other
+	 * nodes whose state machines are all idle.
+	 *
+	 * @param now the current time in milliseconds
+	 */
+	public synchronized void renewLeases(long now) {
+		this.clusterNodeRepository.save(new ClusterNode(this.nodeId, this.nodeUrl, now));
+		Map<String, ClusterNode> nodes = new HashMap<>();
+		List<String> liveNodes = new ArrayList<>();
+		for (ClusterNode node : this.clusterNodeRepository.findByLastHeartbeatGreaterThan(now - this.leaseDuration)) {
+			nodes.put(node.getId(), node);
+			liveNodes.add(node.getId());
+		}
+		if (!liveNodes.contains(this.nodeId)) {
+			liveNodes.add(this.nodeId);
+		}
+		this.liveNodes = nodes;
+		Map<Integer, PartitionLease> current = new HashMap<>();
+		for (PartitionLease lease : this.partitionLeaseRepository.findAll()) {
+			current.put(lease.getPartitionId(), lease);
+		}
+		Map<Integer, PartitionLease> updated = new HashMap<>();
+		for (int partition = 0; partition < this.partitionCount; partition++) {
+			PartitionLease lease = updateLease(partition, current.get(partition), liveNodes, now);
+			if (lease != null) {
+				updated.put(partition, lease);
+			}
+		}
+		this.leases = updated;
+		this.handingOver.clear();
+	}
+
+	private PartitionLease updateLease(int partition, PartitionLease lease, List<String> liveNodes, long now) {
+		boolean held = lease != null && this.nodeId.equals(lease.getOwner());
+		boolean assigned = this.nodeId.equals(assignedNode(partition, liveNodes));
+		PartitionLease result = lease;
+		if (held && !assigned && handOver(partition)) {
+			lease.setOwner(null);
+			lease.setOwnerUrl(null);
+			lease.setExpires(0);
+			result = save(lease);
+			log.info("Handed over partition {}", partition);
+		}
+		else if (held || (assigned && (lease == null || !lease.isHeld(now)))) {
+			PartitionLease renewed = lease != null ? lease : new PartitionLease(partition);
+			renewed.setOwner(this.nodeId);
+			renewed.setOwnerUrl(this.nodeUrl);
+			renewed.setExpires(now + this.leaseDuration);
+			result = save(renewed);
+			if (!held && result != null && this.nodeId.equals(result.getOwner())) {
+				log.info("Took over partition {}", partition);
+			}
+		}
+		return result;
+	}
+
+	private PartitionLease save(PartitionLease lease) {
+		try {
+			return this.partitionLeaseRepository.save(lease);
+		}
+		catch (OptimisticLockingFailureException | DataIntegrityViolationException e) {
+			// another node has changed the lease in the meantime
+			log.debug("Lost the race for partition {}", lease.getPartitionId());
+			return this.partitionLeaseRepository.findOne(lease.getPartitionId());
+		}
+	}
+
+	private boolean handOver(int partition) {
+		// stop accepting operations before evicting, they re-check ownership under the
+		// machine lock
+		this.handingOver.add(partition);
+		Set<String> busy = this.skipperStateMachineService
+				.evictStateMachines(releaseName -> getPartition(releaseName) == partition);
+		if (!busy.isEmpty()) {
+			log.debug("Keeping partition {} while releases {} are busy", partition, busy);
+			this.handingOver.remove(partition);
+		}
+		return busy.isEmpty();
+	}
+
+	private String assignedNode(int partition, List<String> liveNodes) {
+		String assigned = null;
+		long maxWeight = Long.MIN_VALUE;
+		for (String node : liveNodes) {
+			long weight = HASH_FUNCTION.newHasher().putString(node, StandardCharsets.UTF_8).putInt(partition).hash()
+					.asInt();
+			if (weight > maxWeight || (weight == maxWeight && node.compareTo(assigned) < 0)) {
+				assigned = node;
+				maxWeight = weight;
+			}
+		}
+		return assigned;
+	}
+
+	private boolean isOwnedLease(PartitionLease lease, long now) {
+		// give up a heartbeat early so that the lease never overlaps with the next owner
+		return lease != null && this.nodeId.equals(lease.getOwner())
+				&& lease.getExpires() - this.heartbeatInterval > now
+				&& !this.handingOver.contains(lease.getPartitionId());
+	}
+
+	private void heartbeat() {
+		try {
+			renewLeases(System.currentTimeMillis());
+		}
+		catch (RuntimeException e) {
+			log.warn("Failed to renew the partition leases of node " + this.nodeId, e);
+		}
+	}
+}
@@ -40,6 +40,7 @@ import org.springframework.cloud.skipper.io.DefaultPackageReader;
 import org.springframework.cloud.skipper.io.DefaultPackageWriter;
 import org.springframework.cloud.skipper.io.PackageReader;
 import org.springframework.cloud.skipper.io.PackageWriter;
+import org.springframework.cloud.skipper.server.cluster.ClusterConfiguration;
 import org.springframework.cloud.skipper.server.controller.RootController;
 import org.springframework.cloud.skipper.server.controller.SkipperController;
 import org.springframework.cloud.skipper.server.controller.SkipperErrorAttributes;
@@ -64,12 +65,19 @@ import org.springframework.cloud.skipper.server.repository.PackageMetadataReposi
 import org.springframework.cloud.skipper.server.repository.ReleaseRepository;
 import org.springframework.cloud.skipper.server.repository.RepositoryRepository;
 import org.springframework.cloud.skipper.server.service.DeployerInitializationService;
+import org.springframework.cloud.skipper.server.service.PackageIndexSynchronizationService;
+import org.springframework.cloud.skipper.server.service.PackageMetadataReconciler;
 import org.springframework.cloud.skipper.server.service.PackageMetadataService;
+import org.springframework.cloud.skipper.server.service.PackageRepositoryMirror;
+import org.springframework.cloud.skipper.server.service.PackageSearchIndex;
 import org.springframework.cloud.skipper.server.service.PackageService;
 import org.springframework.cloud.skipper.server.service.ReleaseReportService;
 import org.springframework.cloud.skipper.server.service.ReleaseService;
 import org.springframework.cloud.skipper.server.service.ReleaseStateUpdateService;
 import org.springframework.cloud.skipper.server.service.RepositoryInitializationService;
+import org.springframework.cloud.skipper.server.service.RepositoryPrecedence;
+import org.springframework.cloud.skipper.server.statemachine.BatchOperationService;
+import org.springframework.cloud.skipper.server.statemachine.RolloutService;
 import org.springframework.cloud.skipper.server.statemachine.SkipperStateMachineService;
 import org.springframework.cloud.skipper.server.statemachine.StateMachineConfiguration;
 import org.springframework.cloud.skipper.server.statemachine.StateMachineExecutorConfiguration;
@@ -103,7 +111,7 @@ import org.springframework.transaction.annotation.EnableTransactionManagement;
 @EnableTransactionManagement
 @EnableAsync
 @Import({ StateMachinePersistConfiguration.class, StateMachineExecutorConfiguration.class,
-		StateMachineConfiguration.class, SecurityConfiguration.class })
+		StateMachineConfiguration.class, SecurityConfiguration.class, ClusterConfiguration.class })
 public class SkipperServerConfiguration implements AsyncConfigurer {
 
 	public static final String SKIPPER_EXECUTOR = "skipperThreadPoolTaskExecutor";
@@ -133,8 +141,12 @@ public class SkipperServerConfiguration implements AsyncConfigurer {
 
 	@Bean
 	public SkipperController skipperController(ReleaseService releaseService, PackageService packageService,
-			SkipperStateMachineService skipperStateMachineService) {
-		return new SkipperController(releaseService, packageService, skipperStateMachineService);
+			SkipperStateMachineService skipperStateMachineService,
+			PackageIndexSynchronizationService packageIndexSynchronizationService,
+			PackageSearchIndex packageSearchIndex, BatchOperationService batchOperationService,
+			RolloutService rolloutService) {
+		return new SkipperController(releaseService, packageService, skipperStateMachineService,
+				packageIndexSynchronizationService, packageSearchIndex, batchOperationService, rolloutService);
 	}
 
 	@Bean
@@ -156,15 +168,38 @@ public class SkipperServerConfiguration implements AsyncConfigurer {
 	}
 
 	@Bean
-	public PackageMetadataService packageMetadataService(RepositoryRepository repositoryRepository) {
-		return new PackageMetadataService(repositoryRepository);
+	public PackageRepositoryMirror packageRepositoryMirror(SkipperServerProperties skipperServerProperties) {
+		return new PackageRepositoryMirror(new File(skipperServerProperties.getRepositoryMirrorDirectory()),
+				skipperServerProperties.getRepositoryConnectTimeout(),
+				skipperServerProperties.getRepositoryReadTimeout());
+	}
+
+	@Bean
+	public PackageMetadataService packageMetadataService(RepositoryRepository repositoryRepository,
+			PackageRepositoryMirror packageRepositoryMirror,
+			SkipperServerProperties skipperServerProperties) {
+		return new PackageMetadataService(repositoryRepository, packageRepositoryMirror, skipperServerProperties);
 	}
 
 	@Bean
 	public PackageService packageService(RepositoryRepository repositoryRepository,
 			PackageMetadataRepository packageMetadataRepository,
-			PackageReader packageReader) {
-		return new PackageService(repositoryRepository, packageMetadataRepository, packageReader);
+			PackageReader packageReader,
+			PackageRepositoryMirror packageRepositoryMirror,
+			PackageSearchIndex packageSearchIndex) {
+		return new PackageService(repositoryRepository, packageMetadataRepository, packageReader,
+				packageRepositoryMirror, packageSearchIndex);
+	}
+
+	@Bean
+	public PackageSearchIndex packageSearchIndex(PackageMetadataRepository packageMetadataRepository,
+			RepositoryRepository repositoryRepository, RepositoryPrecedence repositoryPrecedence) {
+		return new PackageSearchIndex(packageMetadataRepository, repositoryRepository, repositoryPrecedence);
+	}
+
+	@Bean
+	public RepositoryPrecedence repositoryPrecedence(RepositoryRepository repositoryRepository) {
+		return new RepositoryPrecedence(repositoryRepository);
 	}
 
 	@Bean
@@ -212,13 +247,29 @@ public class SkipperServerConfiguration implements AsyncConfigurer {
 		return new ReleaseStateUpdateService(releaseManager, releaseRepository);
 	}
 
+	@Bean
+	public PackageMetadataReconciler packageMetadataReconciler(
+			PackageMetadataRepository packageMetadataRepository) {
+		return new PackageMetadataReconciler(packageMetadataRepository);
+	}
+
+	@Bean
+	public PackageIndexSynchronizationService packageIndexSynchronizationService(
+			PackageMetadataService packageMetadataService,
+			PackageMetadataReconciler packageMetadataReconciler,
+			PackageSearchIndex packageSearchIndex,
+			RepositoryRepository repositoryRepository) {
+		return new PackageIndexSynchronizationService(packageMetadataService, packageMetadataReconciler,
+				packageSearchIndex, repositoryRepository);
+	}
+
 	@Bean
 	public RepositoryInitializationService repositoryInitializationService(RepositoryRepository repositoryRepository,
 			PackageMetadataRepository packageMetadataRepository,
-			PackageMetadataService packageMetadataService,
-			SkipperServerProperties skipperServerProperties) {
+			PackageIndexSynchronizationService packageIndexSynchronizationService,
+			RepositoryPrecedence repositoryPrecedence, SkipperServerProperties skipperServerProperties) {
 		return new RepositoryInitializationService(repositoryRepository, packageMetadataRepository,
-				packageMetadataService, skipperServerProperties);
+				packageIndexSynchronizationService, repositoryPrecedence, skipperServerProperties);
 	}
 
 	// Deployer Package
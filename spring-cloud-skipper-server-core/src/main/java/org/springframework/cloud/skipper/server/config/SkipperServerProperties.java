@@ -15,7 +15,9 @@
  */
 package org.springframework.cloud.skipper.server.config;
 
+import java.io.File;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 import org.springframework.boot.context.properties.ConfigurationProperties;
@@ -41,6 +43,19 @@ public class SkipperServerProperties {
 	 */
 	private boolean synchonizeIndexOnContextRefresh = true;
 
+	/**
+	 * Flag indicating if server startup waits for the initial synchronization of the index
+	 * with the database. When false the synchronization runs in the background and the
+	 * previously synchronized package metadata is served until it completes.
+	 */
+	private boolean waitForIndexSynchronizationOnStartup;
+
+	/**
+	 * Interval in milliseconds between background synchronizations of the index with the
+	 * database. Periodic synchronization is disabled if not positive. Default is 10 minutes.
+	 */
+	private long indexSynchronizationInterval = 600000;
+
 	/**
 	 * Flag indicating if any local platform accounts should be registered.
 	 */
@@ -58,6 +73,158 @@ public class SkipperServerProperties {
 	 */
 	private int freeDiskSpacePercentage = 25;
 
+	/**
+	 * Directory in which index and package files downloaded from remote package repositories
+	 * are mirrored. Default is a 'skipper/repository-mirror' directory under
+	 * 'java.io.tmpdir'.
+	 */
+	private String repositoryMirrorDirectory = System.getProperty("java.io.tmpdir") + File.separator + "skipper"
+			+ File.separator + "repository-mirror";
+
+	/**
+	 * Connect timeout in milliseconds when downloading from remote package repositories.
+	 */
+	private int repositoryConnectTimeout = 10000;
+
+	/**
+	 * Read timeout in milliseconds when downloading from remote package repositories.
+	 */
+	private int repositoryReadTimeout = 60000;
+
+	/**
+	 * Maximum number of remote package repository indexes synchronized concurrently.
+	 */
+	private int repositoryIndexSyncParallelism = 4;
+
+	/**
+	 * Timeout in milliseconds for downloading and parsing the index of a single remote
+	 * package repository. A repository exceeding it is skipped for that synchronization.
+	 */
+	private long repositoryIndexSyncTimeout = 120000;
+
+	/**
+	 * Maximum time in milliseconds a blocking install, upgrade, delete or rollback request
+	 * waits for the release to be handled before failing. The operation itself continues
+	 * and can be polled. Waits indefinitely if not positive. Default is 5 minutes.
+	 */
+	private long operationMaxWait = 300000;
+
+	/**
+	 * Number of threads running state machine transitions.
+	 */
+	private int stateMachineTransitionPoolSize = 16;
+
+	/**
+	 * Number of state machine transitions queued when all transition threads are busy.
+	 * Further release operations are rejected until the queue drains.
+	 */
+	private int stateMachineTransitionQueueCapacity = 100;
+
+	/**
+	 * Number of threads running long running deploy and undeploy actions of the state
+	 * machine. Should be lower than the transition pool size so that transitions of other
+	 * releases keep progressing while deployments are in flight.
+	 */
+	private int stateMachineDeploymentPoolSize = 8;
+
+	/**
+	 * Number of deploy and undeploy actions queued when all deployment threads are busy.
+	 * Further release operations are rejected until the queue drains.
+	 */
+	private int stateMachineDeploymentQueueCapacity;
+
+	/**
+	 * Time in milliseconds after which the state machine of a release which is not being
+	 * handled is stopped and released from memory. It is restored from the database on the
+	 * next operation of the release. Default is 10 minutes.
+	 */
+	private long stateMachineMaxIdle = 600000;
+
+	/**
+	 * Maximum number of state machines kept in memory, least recently used idle machines
+	 * are released first.
+	 */
+	private int stateMachineMaxCount = 1000;
+
+	/**
+	 * Interval in milliseconds between evictions of idle state machines. Eviction is
+	 * disabled if not positive.
+	 */
+	private long stateMachineEvictionInterval = 60000;
+
+	/**
+	 * Delay in milliseconds before the target apps of an upgrade are checked for the first
+	 * time. The delay doubles with every further check.
+	 */
+	private long upgradeCheckInitialDelay = 1000;
+
+	/**
+	 * Maximum delay in milliseconds between two checks of the target apps of an upgrade.
+	 */
+	private long upgradeCheckMaxDelay = 30000;
+
+	/**
+	 * Maximum number of batches of operations running at the same time, further batches
+	 * are rejected.
+	 */
+	private int batchPoolSize = 4;
+
+	/**
+	 * Maximum number of operations of a batch running at the same time. Operations of all
+	 * batches together are limited to the capacity of the deployment pool.
+	 */
+	private int batchMaxParallelism = 8;
+
+	/**
+	 * Maximum time in milliseconds a batch of operations runs. Operations which are still
+	 * pending after it are reported as pending and keep running.
+	 */
+	private long batchMaxWait = 3600000;
+
+	/**
+	 * Maximum number of package rollouts running at the same time, further rollouts are
+	 * rejected.
+	 */
+	private int rolloutPoolSize = 2;
+
+	/**
+	 * States on which the state machine context of a release is persisted, in addition to
+	 * the initial state. Contexts of the states in between are not written, as a machine
+	 * restored after a crash resumes from its last checkpoint. An empty list persists the
+	 * context on every state change.
+	 */
+	private List<String> stateMachineCheckpointStates = new ArrayList<>(
+			Arrays.asList("UPGRADE_WAIT_TARGET_APPS", "UPGRADE_DELETE_SOURCE_APPS"));
+
+	/**
+	 * Whether several servers sharing the database split the releases between them. Each
+	 * release is handled by a single node, other nodes forward its operations to it.
+	 * Package rollouts are not supported by a cluster.
+	 */
+	private boolean clusterEnabled = false;
+
+	/**
+	 * Unique id of this node in the cluster, defaults to a random id.
+	 */
+	private String clusterNodeId;
+
+	/**
+	 * Base URL other nodes of the cluster reach this node at, including the context path.
+	 */
+	private String clusterNodeUrl;
+
+	/**
+	 * Number of partitions the release names are hashed into, has to be the same on all
+	 * nodes of the cluster.
+	 */
+	private int clusterPartitionCount = 64;
+
+	/**
+	 * Duration in milliseconds of the lease of a partition, renewed at a third of it. Has
+	 * to be well above the clock skew between the nodes.
+	 */
+	private long clusterLeaseDuration = 30000;
+
 	public List<Repository> getPackageRepositories() {
 		return packageRepositories;
 	}
@@ -74,6 +241,22 @@ public class SkipperServerProperties {
 		this.synchonizeIndexOnContextRefresh = synchonizeIndexOnContextRefresh;
 	}
 
+	public boolean isWaitForIndexSynchronizationOnStartup() {
+		return waitForIndexSynchronizationOnStartup;
+	}
+
+	public void setWaitForIndexSynchronizationOnStartup(boolean waitForIndexSynchronizationOnStartup) {
+		this.waitForIndexSynchronizationOnStartup = waitForIndexSynchronizationOnStartup;
+	}
+
+	public long getIndexSynchronizationInterval() {
+		return indexSynchronizationInterval;
+	}
+
+	public void setIndexSynchronizationInterval(long indexSynchronizationInterval) {
+		this.indexSynchronizationInterval = indexSynchronizationInterval;
+	}
+
 	public boolean isEnableReleaseStateUpdateService() {
 		return enableReleaseStateUpdateService;
 	}
@@ -97,4 +280,204 @@ public class SkipperServerProperties {
 	public void setFreeDiskSpacePercentage(int freeDiskSpacePercentage) {
 		this.freeDiskSpacePercentage = freeDiskSpacePercentage;
 	}
+
+	public String getRepositoryMirrorDirectory() {
+		return repositoryMirrorDirectory;
+	}
+
+	public void setRepositoryMirrorDirectory(String repositoryMirrorDirectory) {
+		this.repositoryMirrorDirectory = repositoryMirrorDirectory;
+	}
+
+	public int getRepositoryConnectTimeout() {
+		return repositoryConnectTimeout;
+	}
+
+	public void setRepositoryConnectTimeout(int repositoryConnectTimeout) {
+		this.repositoryConnectTimeout = repositoryConnectTimeout;
+	}
+
+	public int getRepositoryReadTimeout() {
+		return repositoryReadTimeout;
+	}
+
+	public void setRepositoryReadTimeout(int repositoryReadTimeout) {
+		this.repositoryReadTimeout = repositoryReadTimeout;
+	}
+
+	public int getRepositoryIndexSyncParallelism() {
+		return repositoryIndexSyncParallelism;
+	}
+
+	public void setRepositoryIndexSyncParallelism(int repositoryIndexSyncParallelism) {
+		this.repositoryIndexSyncParallelism = repositoryIndexSyncParallelism;
+	}
+
+	public long getRepositoryIndexSyncTimeout() {
+		return repositoryIndexSyncTimeout;
+	}
+
+	public void setRepositoryIndexSyncTimeout(long repositoryIndexSyncTimeout) {
+		this.repositoryIndexSyncTimeout = repositoryIndexSyncTimeout;
+	}
+
+	public long getOperationMaxWait() {
+		return operationMaxWait;
+	}
+
+	public void setOperationMaxWait(long operationMaxWait) {
+		this.operationMaxWait = operationMaxWait;
+	}
+
+	public int getStateMachineTransitionPoolSize() {
+		return stateMachineTransitionPoolSize;
+	}
+
+	public void setStateMachineTransitionPoolSize(int stateMachineTransitionPoolSize) {
+		this.stateMachineTransitionPoolSize = stateMachineTransitionPoolSize;
+	}
+
+	public int getStateMachineTransitionQueueCapacity() {
+		return stateMachineTransitionQueueCapacity;
+	}
+
+	public void setStateMachineTransitionQueueCapacity(int stateMachineTransitionQueueCapacity) {
+		this.stateMachineTransitionQueueCapacity = stateMachineTransitionQueueCapacity;
+	}
+
+	public int getStateMachineDeploymentPoolSize() {
+		return stateMachineDeploymentPoolSize;
+	}
+
+	public void setStateMachineDeploymentPoolSize(int stateMachineDeploymentPoolSize) {
+		this.stateMachineDeploymentPoolSize = stateMachineDeploymentPoolSize;
+	}
+
+	public int getStateMachineDeploymentQueueCapacity() {
+		return stateMachineDeploymentQueueCapacity;
+	}
+
+	public void setStateMachineDeploymentQueueCapacity(int stateMachineDeploymentQueueCapacity) {
+		this.stateMachineDeploymentQueueCapacity = stateMachineDeploymentQueueCapacity;
+	}
+
+	public long getStateMachineMaxIdle() {
+		return stateMachineMaxIdle;
+	}
+
+	public void setStateMachineMaxIdle(long stateMachineMaxIdle) {
+		this.stateMachineMaxIdle = stateMachineMaxIdle;
+	}
+
+	public int getStateMachineMaxCount() {
+		return stateMachineMaxCount;
+	}
+
+	public void setStateMachineMaxCount(int stateMachineMaxCount) {
+		this.stateMachineMaxCount = stateMachineMaxCount;
+	}
+
+	public long getStateMachineEvictionInterval() {
+		return stateMachineEvictionInterval;
+	}
+
+	public void setStateMachineEvictionInterval(long stateMachineEvictionInterval) {
+		this.stateMachineEvictionInterval = stateMachineEvictionInterval;
+	}
+
+	public long getUpgradeCheckInitialDelay() {
+		return upgradeCheckInitialDelay;
+	}
+
+	public void setUpgradeCheckInitialDelay(long upgradeCheckInitialDelay) {
+		this.upgradeCheckInitialDelay = upgradeCheckInitialDelay;
+	}
+
+	public long getUpgradeCheckMaxDelay() {
+		return upgradeCheckMaxDelay;
+	}
+
+	public void setUpgradeCheckMaxDelay(long upgradeCheckMaxDelay) {
+		this.upgradeCheckMaxDelay = upgradeCheckMaxDelay;
+	}
+
+	public List<String> getStateMachineCheckpointStates() {
+		return stateMachineCheckpointStates;
+	}
+
+	public void setStateMachineCheckpointStates(List<String> stateMachineCheckpointStates) {
+		this.stateMachineCheckpointStates = stateMachineCheckpointStates;
+	}
+
+	public int getBatchPoolSize() {
+		return batchPoolSize;
+	}
+
+	public void setBatchPoolSize(int batchPoolSize) {
+		this.batchPoolSize = batchPoolSize;
+	}
+
+	public int getBatchMaxParallelism() {
+		return batchMaxParallelism;
+	}
+
+	public void setBatchMaxParallelism(int batchMaxParallelism) {
+		this.batchMaxParallelism = batchMaxParallelism;
+	}
+
+	public long getBatchMaxWait() {
+		return batchMaxWait;
+	}
+
+	public void setBatchMaxWait(long batchMaxWait) {
+		this.batchMaxWait = batchMaxWait;
+	}
+
+	public int getRolloutPoolSize() {
+		return rolloutPoolSize;
+	}
+
+	public void setRolloutPoolSize(int rolloutPoolSize) {
+		this.rolloutPoolSize = rolloutPoolSize;
+	}
+
+	public boolean isClusterEnabled() {
+		return clusterEnabled;
+	}
+
+	public void setClusterEnabled(boolean clusterEnabled) {
+		this.clusterEnabled = clusterEnabled;
+	}
+
+	public String getClusterNodeId() {
+		return clusterNodeId;
+	}
+
+	public void setClusterNodeId(String clusterNodeId) {
+		this.clusterNodeId = clusterNodeId;
+	}
+
+	public String getClusterNodeUrl() {
+		return clusterNodeUrl;
+	}
+
+	public void setClusterNodeUrl(String clusterNodeUrl) {
+		this.clusterNodeUrl = clusterNodeUrl;
+	}
+
+	public int getClusterPartitionCount() {
+		return clusterPartitionCount;
+	}
+
+	public void setClusterPartitionCount(int clusterPartitionCount) {
+		this.clusterPartitionCount = clusterPartitionCount;
+	}
+
+	public long getClusterLeaseDuration() {
+		return clusterLeaseDuration;
+	}
+
+	public void setClusterLeaseDuration(long clusterLeaseDuration) {
+		this.clusterLeaseDuration = clusterLeaseDuration;
+	}
 }
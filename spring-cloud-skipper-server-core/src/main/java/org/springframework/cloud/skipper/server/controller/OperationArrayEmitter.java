@@ -0,0 +1,95 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.cloud.skipper.server.controller;
+
+import java.io.IOException;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.springframework.cloud.skipper.domain.Operation;
+import org.springframework.http.MediaType;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+
+/**
+ * Streams operations as the elements of a JSON array, each element being written as soon
+ * as the operation is done. Clients not reading the response incrementally get a plain
+ * JSON array once the emitter is finished.
+ */
+class OperationArrayEmitter extends ResponseBodyEmitter {
+
+	private static final Logger log = LoggerFactory.getLogger(OperationArrayEmitter.class);
+
+	private boolean empty = true;
+
+	private boolean finished;
+
+	OperationArrayEmitter(Long timeout) {
+		super(timeout);
+		write("[");
+	}
+
+	/**
+	 * Write an operation as the next element of the array.
+	 *
+	 * @param operation the operation
+	 */
+	public synchronized void emit(Operation operation) {
+		if (this.finished) {
+			return;
+		}
+		if (!this.empty) {
+			write(",");
+		}
+		this.empty = false;
+		try {
+			send(operation, MediaType.APPLICATION_JSON);
+		}
+		catch (IOException e) {
+			fail(e);
+		}
+	}
+
+	/**
+	 * Close the array and complete the response.
+	 */
+	public synchronized void finish() {
+		if (this.finished) {
+			return;
+		}
+		write("]");
+		if (!this.finished) {
+			this.finished = true;
+			complete();
+		}
+	}
+
+	private void write(String text) {
+		try {
+			send(text, MediaType.APPLICATION_JSON);
+		}
+		catch (IOException e) {
+			fail(e);
+		}
+	}
+
+	private void fail(IOException e) {
+		// the client went away, the operations keep running and can be polled
+		log.debug("Failed to write batch results", e);
+		this.finished = true;
+		completeWithError(e);
+	}
+}
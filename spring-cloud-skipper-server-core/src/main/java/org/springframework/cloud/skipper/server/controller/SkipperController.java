@@ -15,35 +15,63 @@
  */
 package org.springframework.cloud.skipper.server.controller;
 
+import java.net.URI;
 import java.util.List;
 
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cloud.skipper.OperationRejectedException;
 import org.springframework.cloud.skipper.ReleaseNotFoundException;
+import org.springframework.cloud.skipper.ReleaseNotOwnedException;
 import org.springframework.cloud.skipper.domain.AboutInfo;
+import org.springframework.cloud.skipper.domain.BatchRequest;
 import org.springframework.cloud.skipper.domain.Info;
 import org.springframework.cloud.skipper.domain.InstallProperties;
 import org.springframework.cloud.skipper.domain.InstallRequest;
+import org.springframework.cloud.skipper.domain.Operation;
 import org.springframework.cloud.skipper.domain.PackageMetadata;
+import org.springframework.cloud.skipper.domain.PackageSearchResult;
 import org.springframework.cloud.skipper.domain.Release;
+import org.springframework.cloud.skipper.domain.Rollout;
+import org.springframework.cloud.skipper.domain.RolloutRequest;
 import org.springframework.cloud.skipper.domain.UpgradeRequest;
 import org.springframework.cloud.skipper.domain.UploadRequest;
+import org.springframework.cloud.skipper.server.service.PackageIndexSynchronizationService;
+import org.springframework.cloud.skipper.server.service.PackageSearchIndex;
 import org.springframework.cloud.skipper.server.service.PackageService;
 import org.springframework.cloud.skipper.server.service.ReleaseService;
+import org.springframework.cloud.skipper.server.statemachine.BatchOperationService;
+import org.springframework.cloud.skipper.server.statemachine.RolloutService;
 import org.springframework.cloud.skipper.server.statemachine.SkipperStateMachineService;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.hateoas.PagedResources;
+import org.springframework.hateoas.PagedResources.PageMetadata;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.util.concurrent.ListenableFuture;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
 /**
  * REST controller for Skipper server related operations such as install, upgrade, delete,
  * and rollback.
  *
+ * Install, upgrade, delete and rollback requests with {@code async=true} return
+ * {@code 202 Accepted} with the pending {@link Operation}, which is then polled at
+ * {@code /api/operations/{id}}. Batches of install, upgrade and delete requests posted
+ * to {@code /api/batch} run concurrently, streaming the operations as they are done.
+ * Rollouts posted to {@code /api/rollouts} upgrade all releases of a package in waves.
+ *
  * @author Mark Pollack
  * @author Ilayaperumal Gopinathan
  */
@@ -51,6 +79,10 @@ import org.springframework.web.bind.annotation.RestController;
 @RequestMapping("/api")
 public class SkipperController {
 
+	private static final int DEFAULT_SEARCH_PAGE_SIZE = 20;
+
+	private static final int MAX_SEARCH_PAGE_SIZE = 2000;
+
 	private final ReleaseService releaseService;
 
 	private final PackageService packageService;
@@ -63,11 +95,26 @@ public class SkipperController {
 
 	private SkipperStateMachineService skipperStateMachineService;
 
+	private final PackageIndexSynchronizationService packageIndexSynchronizationService;
+
+	private final PackageSearchIndex packageSearchIndex;
+
+	private final BatchOperationService batchOperationService;
+
+	private final RolloutService rolloutService;
+
 	public SkipperController(ReleaseService releaseService, PackageService packageService,
-			SkipperStateMachineService skipperStateMachineService) {
+			SkipperStateMachineService skipperStateMachineService,
+			PackageIndexSynchronizationService packageIndexSynchronizationService,
+			PackageSearchIndex packageSearchIndex, BatchOperationService batchOperationService,
+			RolloutService rolloutService) {
 		this.releaseService = releaseService;
 		this.packageService = packageService;
 		this.skipperStateMachineService = skipperStateMachineService;
+		this.packageIndexSynchronizationService = packageIndexSynchronizationService;
+		this.packageSearchIndex = packageSearchIndex;
+		this.batchOperationService = batchOperationService;
+		this.rolloutService = rolloutService;
 	}
 
 	@RequestMapping(path = "/about", method = RequestMethod.GET)
@@ -82,6 +129,26 @@ public class SkipperController {
 		return this.packageService.upload(uploadRequest);
 	}
 
+	@RequestMapping(path = "/synchronize", method = RequestMethod.POST)
+	public ResponseEntity<Void> synchronize() {
+		this.packageIndexSynchronizationService.requestSynchronization();
+		return new ResponseEntity<>(HttpStatus.ACCEPTED);
+	}
+
+	@RequestMapping(path = "/search", method = RequestMethod.GET)
+	@ResponseStatus(HttpStatus.OK)
+	public PagedResources<PackageSearchResult> search(
+			@RequestParam(value = "query", required = false) String query,
+			@RequestParam(value = "page", defaultValue = "0") int page,
+			@RequestParam(value = "size", defaultValue = "20") int size) {
+		// out of range paging parameters are clamped, as Spring Data does for pageable arguments
+		int pageSize = size > 0 ? Math.min(size, MAX_SEARCH_PAGE_SIZE) : DEFAULT_SEARCH_PAGE_SIZE;
+		Page<PackageSearchResult> results = this.packageSearchIndex.search(query,
+				new PageRequest(Math.max(page, 0), pageSize));
+		return new PagedResources<>(results.getContent(), new PageMetadata(results.getSize(),
+				results.getNumber(), results.getTotalElements(), results.getTotalPages()));
+	}
+
 	@RequestMapping(path = "/install", method = RequestMethod.POST)
 	@ResponseStatus(HttpStatus.CREATED)
 	public Release install(@RequestBody InstallRequest installRequest) {
@@ -94,6 +161,17 @@ public class SkipperController {
 		return this.skipperStateMachineService.installRelease(id, installProperties);
 	}
 
+	@RequestMapping(path = "/install", method = RequestMethod.POST, params = "async=true")
+	public ResponseEntity<Operation> installAsync(@RequestBody InstallRequest installRequest) {
+		return accepted(this.skipperStateMachineService.installReleaseAsync(installRequest));
+	}
+
+	@RequestMapping(path = "/install/{id}", method = RequestMethod.POST, params = "async=true")
+	public ResponseEntity<Operation> installAsync(@PathVariable("id") Long id,
+			@RequestBody InstallProperties installProperties) {
+		return accepted(this.skipperStateMachineService.installReleaseAsync(id, installProperties));
+	}
+
 	@RequestMapping(path = "/status/{name}", method = RequestMethod.GET)
 	@ResponseStatus(HttpStatus.OK)
 	public Info status(@PathVariable("name") String name) {
@@ -122,6 +200,11 @@ public class SkipperController {
 		return this.skipperStateMachineService.upgradeRelease(upgradeRequest);
 	}
 
+	@RequestMapping(path = "/upgrade", method = RequestMethod.POST, params = "async=true")
+	public ResponseEntity<Operation> upgradeAsync(@RequestBody UpgradeRequest upgradeRequest) {
+		return accepted(this.skipperStateMachineService.upgradeReleaseAsync(upgradeRequest));
+	}
+
 	@RequestMapping(path = "/rollback/{name}/{version}", method = RequestMethod.POST)
 	@ResponseStatus(HttpStatus.CREATED)
 	public Release rollback(@PathVariable("name") String releaseName,
@@ -129,12 +212,105 @@ public class SkipperController {
 		return this.skipperStateMachineService.rollbackRelease(releaseName, rollbackVersion);
 	}
 
+	@RequestMapping(path = "/rollback/{name}/{version}", method = RequestMethod.POST, params = "async=true")
+	public ResponseEntity<Operation> rollbackAsync(@PathVariable("name") String releaseName,
+			@PathVariable("version") int rollbackVersion) {
+		return accepted(this.skipperStateMachineService.rollbackReleaseAsync(releaseName, rollbackVersion));
+	}
+
 	@RequestMapping(path = "/delete/{name}", method = RequestMethod.POST)
 	@ResponseStatus(HttpStatus.CREATED)
 	public Release delete(@PathVariable("name") String releaseName) {
 		return this.skipperStateMachineService.deleteRelease(releaseName);
 	}
 
+	@RequestMapping(path = "/delete/{name}", method = RequestMethod.POST, params = "async=true")
+	public ResponseEntity<Operation> deleteAsync(@PathVariable("name") String releaseName) {
+		return accepted(this.skipperStateMachineService.deleteReleaseAsync(releaseName));
+	}
+
+	/**
+	 * Run a batch of install, upgrade and delete operations. The response is a JSON array
+	 * of the resulting operations, streamed in the order the operations are done.
+	 * @param batchRequest the batch request
+	 * @return the emitter writing the operations
+	 */
+	@RequestMapping(path = "/batch", method = RequestMethod.POST)
+	public ResponseEntity<ResponseBodyEmitter> batch(@RequestBody BatchRequest batchRequest) {
+		long maxWait = this.batchOperationService.getMaxWait();
+		// leave the batch time to report the operations still pending after its maximum wait
+		OperationArrayEmitter emitter = new OperationArrayEmitter(maxWait > 0 ? maxWait + 30000 : 0);
+		this.batchOperationService.execute(batchRequest, emitter::emit, emitter::finish);
+		return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(emitter);
+	}
+
+	/**
+	 * Get an operation. When a wait is given and the operation is still pending, the
+	 * response is held back until the operation is done or the wait has elapsed.
+	 * @param id the operation id
+	 * @param wait the maximum time in milliseconds to wait for the operation to be done
+	 * @return the operation
+	 */
+	@RequestMapping(path = "/operations/{id}", method = RequestMethod.GET)
+	public DeferredResult<ResponseEntity<Operation>> operation(@PathVariable("id") String id,
+			@RequestParam(value = "wait", defaultValue = "0") long wait) {
+		Operation operation = this.skipperStateMachineService.getOperation(id);
+		ListenableFuture<Operation> completion = this.skipperStateMachineService.getOperationCompletion(id);
+		DeferredResult<ResponseEntity<Operation>> result = new DeferredResult<>(wait > 0 ? wait : null);
+		if (operation == null) {
+			result.setResult(new ResponseEntity<>(HttpStatus.NOT_FOUND));
+		}
+		else if (operation.isDone() || wait <= 0 || completion == null) {
+			result.setResult(new ResponseEntity<>(operation, HttpStatus.OK));
+		}
+		else {
+			// answer with the latest state of the operation if it is not done in time
+			result.onTimeout(() -> {
+				Operation latest = this.skipperStateMachineService.getOperation(id);
+				result.setResult(new ResponseEntity<>(latest != null ? latest : operation, HttpStatus.OK));
+			});
+			completion.addCallback(done -> result.setResult(new ResponseEntity<>(done, HttpStatus.OK)),
+					throwable -> result.setErrorResult(throwable));
+		}
+		return result;
+	}
+
+	/**
+	 * Start upgrading all deployed releases of a package to another version of it, in
+	 * waves. The rollout runs in the background and is polled at
+	 * {@code /api/rollouts/{id}}.
+	 * @param rolloutRequest the rollout request
+	 * @return the planned rollout
+	 */
+	@RequestMapping(path = "/rollouts", method = RequestMethod.POST)
+	public ResponseEntity<Rollout> rollout(@RequestBody RolloutRequest rolloutRequest) {
+		Rollout rollout = this.rolloutService.start(rolloutRequest);
+		URI location = ServletUriComponentsBuilder.fromCurrentContextPath().path("/api/rollouts/{id}")
+				.buildAndExpand(rollout.getId()).toUri();
+		return ResponseEntity.created(location).body(rollout);
+	}
+
+	@RequestMapping(path = "/rollouts", method = RequestMethod.GET)
+	@ResponseStatus(HttpStatus.OK)
+	public List<Rollout> rollouts() {
+		return this.rolloutService.getRollouts();
+	}
+
+	@RequestMapping(path = "/rollouts/{id}", method = RequestMethod.GET)
+	public ResponseEntity<Rollout> rollout(@PathVariable("id") String id) {
+		return rolloutResponse(this.rolloutService.getRollout(id));
+	}
+
+	@RequestMapping(path = "/rollouts/{id}/resume", method = RequestMethod.POST)
+	public ResponseEntity<Rollout> resumeRollout(@PathVariable("id") String id) {
+		return rolloutResponse(this.rolloutService.resume(id));
+	}
+
+	@RequestMapping(path = "/rollouts/{id}/abort", method = RequestMethod.POST)
+	public ResponseEntity<Rollout> abortRollout(@PathVariable("id") String id) {
+		return rolloutResponse(this.rolloutService.abort(id));
+	}
+
 	@RequestMapping(path = "/history/{name}/{max}", method = RequestMethod.GET)
 	@ResponseStatus(HttpStatus.OK)
 	public List<Release> history(@PathVariable("name") String releaseName,
@@ -154,9 +330,31 @@ public class SkipperController {
 		return this.releaseService.list(releaseName);
 	}
 
+	private ResponseEntity<Operation> accepted(Operation operation) {
+		URI location = ServletUriComponentsBuilder.fromCurrentContextPath().path("/api/operations/{id}")
+				.buildAndExpand(operation.getId()).toUri();
+		return ResponseEntity.accepted().location(location).body(operation);
+	}
+
+	private ResponseEntity<Rollout> rolloutResponse(Rollout rollout) {
+		return rollout != null ? new ResponseEntity<>(rollout, HttpStatus.OK) : new ResponseEntity<>(HttpStatus.NOT_FOUND);
+	}
+
 	@ResponseStatus(value = HttpStatus.NOT_FOUND, reason = "Release not found")
 	@ExceptionHandler(ReleaseNotFoundException.class)
 	public void handleReleaseNotFoundException() {
 		// needed for server not to log 500 errors
 	}
+
+	@ResponseStatus(HttpStatus.TOO_MANY_REQUESTS)
+	@ExceptionHandler(OperationRejectedException.class)
+	public void handleOperationRejectedException() {
+		// the operation was not started, the client can retry it later
+	}
+
+	@ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+	@ExceptionHandler(ReleaseNotOwnedException.class)
+	public void handleReleaseNotOwnedException() {
+		// the release is handled by another node of the cluster
+	}
 }
@@ -35,6 +35,7 @@ import org.springframework.cloud.skipper.domain.Release;
 import org.springframework.cloud.skipper.domain.Status;
 import org.springframework.cloud.skipper.domain.StatusCode;
 import org.springframework.cloud.skipper.server.domain.AppDeployerData;
+import org.springframework.cloud.skipper.server.domain.RenderedManifest;
 import org.springframework.cloud.skipper.server.domain.SpringCloudDeployerApplicationManifest;
 import org.springframework.cloud.skipper.server.domain.SpringCloudDeployerApplicationManifestReader;
 import org.springframework.cloud.skipper.server.domain.SpringCloudDeployerApplicationSpec;
@@ -85,15 +86,19 @@ public class AppDeployerReleaseManager implements ReleaseManager {
 	}
 
 	public Release install(Release releaseInput) {
-		validate(releaseInput);
+		RenderedManifest renderedManifest = this.applicationManifestReader
+				.readRenderedManifest(releaseInput.getManifest());
+		validate(renderedManifest);
 		Release release = this.releaseRepository.save(releaseInput);
 		logger.debug("Manifest = " + releaseInput.getManifest());
 		// Deploy the application
-		List<? extends SpringCloudDeployerApplicationManifest> applicationSpecList = this.applicationManifestReader
-				.read(release.getManifest());
+		List<? extends SpringCloudDeployerApplicationManifest> applicationSpecList = renderedManifest
+				.getApplicationManifests();
 		AppDeployer appDeployer = this.deployerRepository.findByNameRequired(release.getPlatformName())
 				.getAppDeployer();
-		Map<String, String> appNameDeploymentIdMap = new HashMap<>();
+		AppDeployerData appDeployerData = new AppDeployerData();
+		appDeployerData.setReleaseName(release.getName());
+		appDeployerData.setReleaseVersion(release.getVersion());
 		for (SpringCloudDeployerApplicationManifest springCloudDeployerApplicationManifest : applicationSpecList) {
 			AppDeploymentRequest appDeploymentRequest = this.appDeploymentRequestFactory.createAppDeploymentRequest(
 					springCloudDeployerApplicationManifest,
@@ -101,7 +106,8 @@ public class AppDeployerReleaseManager implements ReleaseManager {
 					String.valueOf(release.getVersion()));
 			try {
 				String deploymentId = appDeployer.deploy(appDeploymentRequest);
-				appNameDeploymentIdMap.put(springCloudDeployerApplicationManifest.getApplicationName(), deploymentId);
+				appDeployerData.putAppDeployment(springCloudDeployerApplicationManifest.getApplicationName(),
+						deploymentId, ReleaseAnalyzer.fingerprint(springCloudDeployerApplicationManifest));
 			}
 			catch (Exception e) {
 				// Update Status in DB
@@ -117,11 +123,6 @@ public class AppDeployerReleaseManager implements ReleaseManager {
 			}
 		}
 
-		AppDeployerData appDeployerData = new AppDeployerData();
-		appDeployerData.setReleaseName(release.getName());
-		appDeployerData.setReleaseVersion(release.getVersion());
-		appDeployerData.setDeploymentDataUsingMap(appNameDeploymentIdMap);
-
 		this.appDeployerDataRepository.save(appDeployerData);
 
 		// Update Status in DB
@@ -134,13 +135,12 @@ public class AppDeployerReleaseManager implements ReleaseManager {
 		return status(this.releaseRepository.save(release));
 	}
 
-	private void validate(Release releaseInput) {
+	private void validate(RenderedManifest renderedManifest) {
 		/**
 		 * Do some AppDeployer specific checks. These should be pushed down into the
 		 * implementations to fail fast.
 		 */
-		List<SpringCloudDeployerApplicationManifest> applicationSpecs = this.applicationManifestReader
-				.read(releaseInput.getManifest());
+		List<SpringCloudDeployerApplicationManifest> applicationSpecs = renderedManifest.getApplicationManifests();
 		for (SpringCloudDeployerApplicationManifest applicationManifest : applicationSpecs) {
 			SpringCloudDeployerApplicationManifest spec = (SpringCloudDeployerApplicationManifest) applicationManifest;
 			if (hasRoutePathProperty(spec)) {
@@ -167,14 +167,17 @@ public class AppDeployerReleaseManager implements ReleaseManager {
 
 	@Override
 	public ReleaseAnalysisReport createReport(Release existingRelease, Release replacingRelease) {
-		ReleaseAnalysisReport releaseAnalysisReport = this.releaseAnalyzer.analyze(existingRelease, replacingRelease);
+		RenderedManifest replacingManifest = this.applicationManifestReader
+				.readRenderedManifest(replacingRelease.getManifest());
+		AppDeployerData existingAppDeployerData = this.appDeployerDataRepository
+				.findByReleaseNameAndReleaseVersionRequired(
+						existingRelease.getName(), existingRelease.getVersion());
+		ReleaseAnalysisReport releaseAnalysisReport = analyze(existingRelease, existingAppDeployerData,
+				replacingRelease, replacingManifest);
 		if (releaseAnalysisReport.getReleaseDifference().areEqual()) {
 			throw new SkipperException(
 					"Package to upgrade has no difference than existing deployed/deleted package. Not upgrading.");
 		}
-		AppDeployerData existingAppDeployerData = this.appDeployerDataRepository
-				.findByReleaseNameAndReleaseVersionRequired(
-						existingRelease.getName(), existingRelease.getVersion());
 		Map<String, String> existingAppNamesAndDeploymentIds = existingAppDeployerData.getDeploymentDataAsMap();
 		List<String> applicationNamesToUpgrade = releaseAnalysisReport.getApplicationNamesToUpgrade();
 		List<AppStatus> appStatuses = status(existingRelease).getInfo().getStatus().getAppStatusList();
@@ -185,7 +188,32 @@ public class AppDeployerReleaseManager implements ReleaseManager {
 		String manifest = ManifestUtils.createManifest(replacingRelease.getPkg(), model);
 		replacingRelease.setManifest(manifest);
 		this.releaseRepository.save(replacingRelease);
-		return releaseAnalysisReport;
+		// Only parse the manifest again if the app counts changed it
+		RenderedManifest manifestToDeploy = replacingManifest.isRenderedFrom(manifest) ? replacingManifest
+				: this.applicationManifestReader.readRenderedManifest(manifest);
+		return new ReleaseAnalysisReport(releaseAnalysisReport.getApplicationNamesToUpgrade(),
+				releaseAnalysisReport.getReleaseDifference(), existingRelease, replacingRelease, manifestToDeploy);
+	}
+
+	@Override
+	public List<String> getApplicationNamesToUpgrade(Release existingRelease, Release replacingRelease) {
+		RenderedManifest replacingManifest = this.applicationManifestReader
+				.readRenderedManifest(replacingRelease.getManifest());
+		AppDeployerData existingAppDeployerData = this.appDeployerDataRepository
+				.findByReleaseNameAndReleaseVersionRequired(
+						existingRelease.getName(), existingRelease.getVersion());
+		ReleaseAnalysisReport releaseAnalysisReport = analyze(existingRelease, existingAppDeployerData,
+				replacingRelease, replacingManifest);
+		return releaseAnalysisReport.getReleaseDifference().areEqual() ? new ArrayList<>()
+				: releaseAnalysisReport.getApplicationNamesToUpgrade();
+	}
+
+	private ReleaseAnalysisReport analyze(Release existingRelease, AppDeployerData existingAppDeployerData,
+			Release replacingRelease, RenderedManifest replacingManifest) {
+		// Compare against the fingerprints stored on deployment, applications deployed before
+		// fingerprints were stored are compared against the manifest of the existing release
+		return this.releaseAnalyzer.analyze(existingRelease, existingAppDeployerData.getSpecFingerprints(),
+				replacingRelease, replacingManifest);
 	}
 
 	private Map<String, Object> calculateAppCountsForRelease(Release replacingRelease,
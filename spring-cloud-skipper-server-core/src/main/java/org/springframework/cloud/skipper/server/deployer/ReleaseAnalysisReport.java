@@ -18,6 +18,7 @@ package org.springframework.cloud.skipper.server.deployer;
 import java.util.List;
 
 import org.springframework.cloud.skipper.domain.Release;
+import org.springframework.cloud.skipper.server.domain.RenderedManifest;
 import org.springframework.util.Assert;
 
 /**
@@ -39,6 +40,8 @@ public class ReleaseAnalysisReport {
 
 	private final Release replacingRelease;
 
+	private final transient RenderedManifest replacingManifest;
+
 	/**
 	 * Create an analysis report.
 	 * @param applicationNamesToUpgrade the list of application names that needs to be updates
@@ -49,12 +52,28 @@ public class ReleaseAnalysisReport {
 	 */
 	public ReleaseAnalysisReport(List<String> applicationNamesToUpgrade, ReleaseDifference releaseDifference,
 			Release existingRelease, Release replacingRelease) {
+		this(applicationNamesToUpgrade, releaseDifference, existingRelease, replacingRelease, null);
+	}
+
+	/**
+	 * Create an analysis report.
+	 * @param applicationNamesToUpgrade the list of application names that needs to be updates
+	 * @param releaseDifference a description of the changes between the current release and
+	 * the proposed release
+	 * @param existingRelease the currently deployed release
+	 * @param replacingRelease the release to be deployed
+	 * @param replacingManifest the parsed manifest of the release to be deployed, may be
+	 * {@literal null}
+	 */
+	public ReleaseAnalysisReport(List<String> applicationNamesToUpgrade, ReleaseDifference releaseDifference,
+			Release existingRelease, Release replacingRelease, RenderedManifest replacingManifest) {
 		Assert.notNull(applicationNamesToUpgrade, "ApplicationNamesToUpgrade can not be null.");
 		Assert.notNull(releaseDifference, "ReleaseDifference can not be null.");
 		this.applicationNamesToUpgrade = applicationNamesToUpgrade;
 		this.releaseDifference = releaseDifference;
 		this.existingRelease = existingRelease;
 		this.replacingRelease = replacingRelease;
+		this.replacingManifest = replacingManifest;
 	}
 
 	public List<String> getApplicationNamesToUpgrade() {
@@ -72,4 +91,13 @@ public class ReleaseAnalysisReport {
 	public Release getReplacingRelease() {
 		return replacingRelease;
 	}
+
+	/**
+	 * Return the parsed manifest of the release to be deployed. Not persisted with the state
+	 * machine context, so {@literal null} once the report has been restored.
+	 * @return the parsed manifest of the replacing release, or {@literal null}
+	 */
+	public RenderedManifest getReplacingManifest() {
+		return replacingManifest;
+	}
 }
@@ -15,11 +15,17 @@
  */
 package org.springframework.cloud.skipper.server.deployer;
 
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.TreeMap;
-import java.util.stream.Collectors;
 
 import com.google.common.base.Joiner;
 import com.google.common.collect.MapDifference;
@@ -27,18 +33,27 @@ import com.google.common.collect.Maps;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import org.springframework.cloud.skipper.SkipperException;
 import org.springframework.cloud.skipper.domain.Release;
+import org.springframework.cloud.skipper.server.domain.RenderedManifest;
 import org.springframework.cloud.skipper.server.domain.SpringCloudDeployerApplicationManifest;
 import org.springframework.cloud.skipper.server.domain.SpringCloudDeployerApplicationManifestReader;
-import org.springframework.util.StringUtils;
+import org.springframework.cloud.skipper.server.domain.SpringCloudDeployerApplicationSpec;
+import org.springframework.cloud.skipper.server.util.Sha256Digests;
 
 /**
  * Analyze the new release manifest and the previous one to determine the minimum number
- * of releases to install and delete when upgrading. This implementation currently only
- * supports detecting changes between the two packages that either a) both have a single
- * top level package template b) both have the same number of dependent packages and no
- * top level package template
+ * of releases to install and delete when upgrading.
+ * <p>
+ * Applications are matched by name. Each application is reduced to a fingerprint of its
+ * resource and version, application properties and deployment properties, excluding the
+ * deployer count, and only applications whose fingerprints differ are upgraded.
+ * Applications only in the replacing release are deployed and applications only in the
+ * existing release are deleted. The human readable summary of the differences is only
+ * computed when requested.
+ * <p>
+ * A digest of the fingerprint is stored with each deployed application, so that an
+ * upgrade can be analyzed from the stored fingerprints of the existing release without
+ * reading its manifest.
  *
  * @author Mark Pollack
  * @author Ilayaperumal Gopinathan
@@ -62,223 +77,288 @@ public class ReleaseAnalyzer {
 	 * @return an analysis report describing the changes to make, if any.
 	 */
 	public ReleaseAnalysisReport analyze(Release existingRelease, Release replacingRelease) {
+		return analyze(existingRelease, this.applicationManifestReader.readRenderedManifest(existingRelease.getManifest()),
+				replacingRelease, this.applicationManifestReader.readRenderedManifest(replacingRelease.getManifest()));
+	}
 
-		// For now, assume single package with no deps or package with same number of deps
-		List<? extends SpringCloudDeployerApplicationManifest> existingApplicationSpecList = this.applicationManifestReader
-				.read(existingRelease
-						.getManifest());
-		List<? extends SpringCloudDeployerApplicationManifest> replacingApplicationSpecList = this.applicationManifestReader
-				.read(replacingRelease
-						.getManifest());
+	/**
+	 * Analyze the existing release and the replacing release using their already parsed
+	 * manifests.
+	 * @param existingRelease the release that is currently deployed
+	 * @param existingManifest the parsed manifest of the existing release
+	 * @param replacingRelease the proposed release to be deployed that will replace the
+	 * existing release.
+	 * @param replacingManifest the parsed manifest of the replacing release
+	 * @return an analysis report describing the changes to make, if any.
+	 */
+	public ReleaseAnalysisReport analyze(Release existingRelease, RenderedManifest existingManifest,
+			Release replacingRelease, RenderedManifest replacingManifest) {
+		Map<String, SpringCloudDeployerApplicationManifest> existingApplications = byApplicationName(
+				existingManifest.getApplicationManifests());
+		Map<String, SpringCloudDeployerApplicationManifest> replacingApplications = byApplicationName(
+				replacingManifest.getApplicationManifests());
 
-		if (existingRelease.getPkg().getDependencies().size() == replacingRelease.getPkg().getDependencies().size()) {
-			if (existingRelease.getPkg().getDependencies().size() == 0) {
-				logger.info("Existing Package and Upgrade Package both have no dependent packages.");
-				return analyzeTopLevelPackagesOnly(existingApplicationSpecList,
-						replacingApplicationSpecList,
-						existingRelease, replacingRelease);
+		List<String> applicationNamesToUpgrade = new ArrayList<>();
+		for (Map.Entry<String, SpringCloudDeployerApplicationManifest> existing : existingApplications.entrySet()) {
+			SpringCloudDeployerApplicationManifest replacing = replacingApplications.get(existing.getKey());
+			if (replacing == null) {
+				logger.info("Application " + existing.getKey() + " is not in the replacing release, deleting it");
+				applicationNamesToUpgrade.add(existing.getKey());
 			}
-			else {
-				if (existingRelease.getPkg().getTemplates().size() == 0 &&
-						replacingRelease.getPkg().getTemplates().size() == 0) {
-					logger.info("Existing Package and Upgrade package both have no top level templates");
-					return analyzeDependentPackagesOnly(existingApplicationSpecList,
-							replacingApplicationSpecList,
-							existingRelease, replacingRelease);
-				}
-				else {
-					throw new SkipperException("Can not yet compare package with top level templates and dependencies");
-				}
+			else if (!AppFingerprint.of(existing.getValue()).equals(AppFingerprint.of(replacing))) {
+				logger.info("Difference found for application " + existing.getKey());
+				applicationNamesToUpgrade.add(existing.getKey());
 			}
 		}
-		else {
-			throw new SkipperException(
-					"Can not yet compare existing package and to be released packages with different sizes.");
+		for (String replacingName : replacingApplications.keySet()) {
+			if (!existingApplications.containsKey(replacingName)) {
+				logger.info("Application " + replacingName + " is new in the replacing release, deploying it");
+				applicationNamesToUpgrade.add(replacingName);
+			}
 		}
+
+		if (applicationNamesToUpgrade.isEmpty()) {
+			return new ReleaseAnalysisReport(new ArrayList<>(), new ReleaseDifference(true), existingRelease,
+					replacingRelease);
+		}
+		List<String> changedApplicationNames = Collections.unmodifiableList(new ArrayList<>(applicationNamesToUpgrade));
+		ReleaseDifference releaseDifference = new ReleaseDifference(false,
+				() -> describeDifferences(changedApplicationNames, existingApplications, replacingApplications));
+		return new ReleaseAnalysisReport(applicationNamesToUpgrade, releaseDifference, existingRelease,
+				replacingRelease);
 	}
 
-	private ReleaseAnalysisReport analyzeDependentPackagesOnly(
-			List<? extends SpringCloudDeployerApplicationManifest> existingApplicationSpecList,
-			List<? extends SpringCloudDeployerApplicationManifest> replacingApplicationSpecList,
-			Release existingRelease, Release replacingRelease) {
-		List<String> appsToDelete = new ArrayList<>();
-		StringBuilder diffMessagesBuilder = new StringBuilder();
-		for (SpringCloudDeployerApplicationManifest existingApplicationManifest : existingApplicationSpecList) {
-			SpringCloudDeployerApplicationManifest matchingReplacingApplicationManifest = findMatching(
-					existingApplicationManifest.getApplicationName(),
-					replacingApplicationSpecList);
-			ReleaseDifference difference = compare(existingApplicationManifest,
-					matchingReplacingApplicationManifest);
-			if (!difference.areEqual()) {
-				logger.info(
-						"Dependent package difference found for " + existingApplicationManifest.getApplicationName());
-				appsToDelete.add(existingApplicationManifest.getApplicationName());
-				diffMessagesBuilder.append(difference.getDifferenceSummary());
-				diffMessagesBuilder.append("\n");
+	/**
+	 * Analyze the existing release, using the spec fingerprints stored when its applications
+	 * were deployed, and the replacing release using its already parsed manifest. The
+	 * manifest of the existing release is only read if an application has no stored
+	 * fingerprint or if the difference summary is requested.
+	 * @param existingRelease the release that is currently deployed
+	 * @param existingSpecFingerprints the spec fingerprints of the applications of the
+	 * existing release, keyed by application name, {@literal null} for an application
+	 * deployed before fingerprints were stored
+	 * @param replacingRelease the proposed release to be deployed that will replace the
+	 * existing release.
+	 * @param replacingManifest the parsed manifest of the replacing release
+	 * @return an analysis report describing the changes to make, if any.
+	 * @see #fingerprint(SpringCloudDeployerApplicationManifest)
+	 */
+	public ReleaseAnalysisReport analyze(Release existingRelease, Map<String, String> existingSpecFingerprints,
+			Release replacingRelease, RenderedManifest replacingManifest) {
+		Map<String, SpringCloudDeployerApplicationManifest> replacingApplications = byApplicationName(
+				replacingManifest.getApplicationManifests());
+
+		List<String> applicationNamesToUpgrade = new ArrayList<>();
+		Map<String, SpringCloudDeployerApplicationManifest> existingApplications = null;
+		for (Map.Entry<String, String> existing : existingSpecFingerprints.entrySet()) {
+			SpringCloudDeployerApplicationManifest replacing = replacingApplications.get(existing.getKey());
+			String existingFingerprint = existing.getValue();
+			if (existingFingerprint == null) {
+				if (existingApplications == null) {
+					existingApplications = byApplicationName(
+							this.applicationManifestReader.read(existingRelease.getManifest()));
+				}
+				SpringCloudDeployerApplicationManifest existingApplication = existingApplications.get(existing.getKey());
+				existingFingerprint = (existingApplication != null) ? fingerprint(existingApplication) : null;
+			}
+			if (replacing == null) {
+				logger.info("Application " + existing.getKey() + " is not in the replacing release, deleting it");
+				applicationNamesToUpgrade.add(existing.getKey());
+			}
+			else if (!fingerprint(replacing).equals(existingFingerprint)) {
+				logger.info("Difference found for application " + existing.getKey());
+				applicationNamesToUpgrade.add(existing.getKey());
 			}
 		}
-		if (appsToDelete.size() != 0) {
-			ReleaseDifference releaseDifference = new ReleaseDifference(false, diffMessagesBuilder.toString());
-			return new ReleaseAnalysisReport(appsToDelete, releaseDifference, existingRelease, replacingRelease);
-		}
-		else {
-			ReleaseDifference releaseDifference = new ReleaseDifference(true);
-			return new ReleaseAnalysisReport(new ArrayList<>(), releaseDifference, existingRelease, replacingRelease);
+		for (String replacingName : replacingApplications.keySet()) {
+			if (!existingSpecFingerprints.containsKey(replacingName)) {
+				logger.info("Application " + replacingName + " is new in the replacing release, deploying it");
+				applicationNamesToUpgrade.add(replacingName);
+			}
 		}
-	}
 
-	private ReleaseAnalysisReport analyzeTopLevelPackagesOnly(
-			List<? extends SpringCloudDeployerApplicationManifest> existingApplicationSpecList,
-			List<? extends SpringCloudDeployerApplicationManifest> replacingApplicationSpecList,
-			Release existingRelease, Release replacingRelease) {
-		ReleaseDifference difference = compare(existingApplicationSpecList.get(0),
-				replacingApplicationSpecList.get(0));
-		List<String> appsToDelete = new ArrayList<>();
-		if (!difference.areEqual()) {
-			logger.info(
-					"Differences detected, upgrading app " + existingApplicationSpecList.get(0).getApplicationName());
-			appsToDelete.add(existingApplicationSpecList.get(0).getApplicationName().trim());
+		if (applicationNamesToUpgrade.isEmpty()) {
+			return new ReleaseAnalysisReport(new ArrayList<>(), new ReleaseDifference(true), existingRelease,
+					replacingRelease);
 		}
-		return new ReleaseAnalysisReport(appsToDelete, difference, existingRelease, replacingRelease);
+		List<String> changedApplicationNames = Collections.unmodifiableList(new ArrayList<>(applicationNamesToUpgrade));
+		SpringCloudDeployerApplicationManifestReader reader = this.applicationManifestReader;
+		ReleaseDifference releaseDifference = new ReleaseDifference(false,
+				() -> describeDifferences(changedApplicationNames,
+						byApplicationName(reader.read(existingRelease.getManifest())), replacingApplications));
+		return new ReleaseAnalysisReport(applicationNamesToUpgrade, releaseDifference, existingRelease,
+				replacingRelease);
 	}
 
-	private SpringCloudDeployerApplicationManifest findMatching(String existingApplicationName,
-			List<? extends SpringCloudDeployerApplicationManifest> replacingApplicationSpecList) {
-		for (SpringCloudDeployerApplicationManifest replacingApplicationManifest : replacingApplicationSpecList) {
-			if (replacingApplicationManifest.getApplicationName().equals(existingApplicationName)) {
-				return replacingApplicationManifest;
-			}
-		}
-		List<String> existingApplicationNames = replacingApplicationSpecList.stream()
-				.map(SpringCloudDeployerApplicationManifest::getApplicationName)
-				.collect(Collectors.toList());
-		String exceptionMessage = String.format(
-				"Did not find existing application name [%s] in list of replacing applications [%s].",
-				existingApplicationName, StringUtils.collectionToCommaDelimitedString(existingApplicationNames));
-		throw new SkipperException(exceptionMessage);
+	/**
+	 * Compute the digest of the parts of an application manifest that require the
+	 * application to be redeployed when they change.
+	 * @param applicationManifest the application manifest
+	 * @return the hex encoded SHA-256 digest of the application fingerprint
+	 */
+	public static String fingerprint(SpringCloudDeployerApplicationManifest applicationManifest) {
+		return AppFingerprint.of(applicationManifest).digest();
 	}
 
-	private ReleaseDifference compare(SpringCloudDeployerApplicationManifest existingApplicationManifest,
-			SpringCloudDeployerApplicationManifest replacingApplicationManifest) {
-
-		// Fail fast for now...
-
-		String existingResource = existingApplicationManifest.getSpec().getResource().trim();
-		String replacingResource = replacingApplicationManifest.getSpec().getResource().trim();
-		String existingResourceVersion = existingApplicationManifest.getSpec().getVersion();
-		String replacingResourceVersion = replacingApplicationManifest.getSpec().getVersion();
-
-		String existingResourceWithVersion = ResourceUtils.getResourceLocation(existingResource,
-				existingResourceVersion);
-		String replacingResourceWithVersion = ResourceUtils.getResourceLocation(replacingResource,
-				replacingResourceVersion);
-		if (!existingResourceWithVersion.equals(replacingResourceWithVersion)) {
-			String difference = String.format("Existing resource =[%s], Replacing name=[%s]", existingResource,
-					replacingResource);
-			return new ReleaseDifference(false, difference);
+	private static Map<String, SpringCloudDeployerApplicationManifest> byApplicationName(
+			List<SpringCloudDeployerApplicationManifest> applicationManifests) {
+		Map<String, SpringCloudDeployerApplicationManifest> applications = new LinkedHashMap<>();
+		for (SpringCloudDeployerApplicationManifest applicationManifest : applicationManifests) {
+			applications.put(applicationManifest.getApplicationName(), applicationManifest);
 		}
+		return applications;
+	}
 
-		// Compare SpringCloudDeployerApplicationManifest Properties
-		if (existingApplicationManifest instanceof SpringCloudDeployerApplicationManifest
-				&& replacingApplicationManifest instanceof SpringCloudDeployerApplicationManifest) {
-			Map<String, String> existingApplicationProperties = ((SpringCloudDeployerApplicationManifest) existingApplicationManifest)
-					.getSpec().getApplicationProperties();
-			Map<String, String> replacingApplicationProperties = ((SpringCloudDeployerApplicationManifest) replacingApplicationManifest)
-					.getSpec().getApplicationProperties();
-
-			if (existingApplicationProperties == null) {
-				existingApplicationProperties = new TreeMap<>();
-			}
-			if (replacingApplicationProperties == null) {
-				replacingApplicationProperties = new TreeMap<>();
-			}
-			MapDifference<String, String> applicationPropertiesDifference = Maps
-					.difference(existingApplicationProperties,
-							replacingApplicationProperties);
-
-			if (!applicationPropertiesDifference.areEqual()) {
-				return getReleaseDifferenceForAppProps(applicationPropertiesDifference);
-			}
-
-			// Compare Deployment Properties
-			Map<String, String> existingDeploymentProperties = ((SpringCloudDeployerApplicationManifest) existingApplicationManifest)
-					.getSpec().getDeploymentProperties();
-			Map<String, String> replacingDeploymentProperties = ((SpringCloudDeployerApplicationManifest) replacingApplicationManifest)
-					.getSpec().getDeploymentProperties();
-
-			if (existingDeploymentProperties == null) {
-				existingDeploymentProperties = new TreeMap<>();
+	private static String describeDifferences(List<String> applicationNames,
+			Map<String, SpringCloudDeployerApplicationManifest> existingApplications,
+			Map<String, SpringCloudDeployerApplicationManifest> replacingApplications) {
+		StringBuilder diffMessagesBuilder = new StringBuilder();
+		for (String applicationName : applicationNames) {
+			SpringCloudDeployerApplicationManifest existing = existingApplications.get(applicationName);
+			SpringCloudDeployerApplicationManifest replacing = replacingApplications.get(applicationName);
+			if (existing == null) {
+				diffMessagesBuilder.append(String.format("Only in replacing release =[%s]", applicationName));
 			}
-			if (replacingDeploymentProperties == null) {
-				replacingDeploymentProperties = new TreeMap<>();
+			else if (replacing == null) {
+				diffMessagesBuilder.append(String.format("Only in existing release =[%s]", applicationName));
 			}
-			// exclude deployer count from computing the difference
-			existingDeploymentProperties.remove(AppDeployerReleaseManager.SPRING_CLOUD_DEPLOYER_COUNT);
-			replacingDeploymentProperties.remove(AppDeployerReleaseManager.SPRING_CLOUD_DEPLOYER_COUNT);
-
-			MapDifference<String, String> deploymentPropertiesDifference = Maps.difference(existingDeploymentProperties,
-					replacingDeploymentProperties);
-
-			if (!deploymentPropertiesDifference.areEqual()) {
-				return getReleaseDifferenceForDeploymentProps(deploymentPropertiesDifference);
+			else {
+				diffMessagesBuilder.append(describeDifference(existing, replacing));
 			}
+			diffMessagesBuilder.append("\n");
 		}
+		return diffMessagesBuilder.toString();
+	}
 
-		return new ReleaseDifference(true);
-
+	private static String describeDifference(SpringCloudDeployerApplicationManifest existingApplicationManifest,
+			SpringCloudDeployerApplicationManifest replacingApplicationManifest) {
+		AppFingerprint existing = AppFingerprint.of(existingApplicationManifest);
+		AppFingerprint replacing = AppFingerprint.of(replacingApplicationManifest);
+		if (!existing.resourceWithVersion.equals(replacing.resourceWithVersion)) {
+			return String.format("Existing resource =[%s], Replacing name=[%s]", existing.resourceWithVersion,
+					replacing.resourceWithVersion);
+		}
+		MapDifference<String, String> applicationPropertiesDifference = Maps
+				.difference(existing.applicationProperties, replacing.applicationProperties);
+		if (!applicationPropertiesDifference.areEqual()) {
+			return describePropertiesDifference("\nSpringCloudDeployerApplicationManifest Properties Differences\n",
+					"Common Properties\n", applicationPropertiesDifference);
+		}
+		return describePropertiesDifference("\nDeployement Properties Differences (existing, replacing)\n",
+				"Common Properites\n",
+				Maps.difference(existing.deploymentProperties, replacing.deploymentProperties));
 	}
 
-	private ReleaseDifference getReleaseDifferenceForDeploymentProps(
-			MapDifference<String, String> deploymentPropertiesDifference) {
-		StringBuffer differenceBuilder = new StringBuffer();
+	private static String describePropertiesDifference(String title, String commonTitle,
+			MapDifference<String, String> propertiesDifference) {
+		StringBuilder differenceBuilder = new StringBuilder();
 		Joiner.MapJoiner mapJoiner = Joiner.on(",").withKeyValueSeparator("=");
-		differenceBuilder.append("\nDeployement Properties Differences (existing, replacing)\n");
+		differenceBuilder.append(title);
 		differenceBuilder.append("==================================\n");
-		if (!deploymentPropertiesDifference.entriesDiffering().isEmpty()) {
-			differenceBuilder.append(mapJoiner.join(deploymentPropertiesDifference.entriesDiffering()) + "\n");
+		if (!propertiesDifference.entriesDiffering().isEmpty()) {
+			differenceBuilder.append(mapJoiner.join(propertiesDifference.entriesDiffering()) + "\n");
 		}
-		if (!deploymentPropertiesDifference.entriesOnlyOnLeft().isEmpty()) {
+		if (!propertiesDifference.entriesOnlyOnLeft().isEmpty()) {
 			differenceBuilder.append("Only in existing app\n");
 			differenceBuilder.append("========================\n");
-			differenceBuilder.append(mapJoiner.join(deploymentPropertiesDifference.entriesOnlyOnLeft()) + "\n");
+			differenceBuilder.append(mapJoiner.join(propertiesDifference.entriesOnlyOnLeft()) + "\n");
 		}
-		if (!deploymentPropertiesDifference.entriesOnlyOnRight().isEmpty()) {
+		if (!propertiesDifference.entriesOnlyOnRight().isEmpty()) {
 			differenceBuilder.append("Only in replacing app\n");
 			differenceBuilder.append("=====================\n");
-			differenceBuilder.append(mapJoiner.join(deploymentPropertiesDifference.entriesOnlyOnRight()) + "\n");
+			differenceBuilder.append(mapJoiner.join(propertiesDifference.entriesOnlyOnRight()) + "\n");
 		}
-		if (!deploymentPropertiesDifference.entriesInCommon().isEmpty()) {
-			differenceBuilder.append("Common Properites\n");
+		if (!propertiesDifference.entriesInCommon().isEmpty()) {
+			differenceBuilder.append(commonTitle);
 			differenceBuilder.append("=================\n");
-			differenceBuilder.append(mapJoiner.join(deploymentPropertiesDifference.entriesInCommon()) + "\n");
+			differenceBuilder.append(mapJoiner.join(propertiesDifference.entriesInCommon()) + "\n");
 		}
-		return new ReleaseDifference(false, differenceBuilder.toString());
+		return differenceBuilder.toString();
 	}
 
-	private ReleaseDifference getReleaseDifferenceForAppProps(
-			MapDifference<String, String> applicationPropertiesDifference) {
-		StringBuffer differenceBuilder = new StringBuffer();
-		Joiner.MapJoiner mapJoiner = Joiner.on(",").withKeyValueSeparator("=");
-		differenceBuilder.append("\nSpringCloudDeployerApplicationManifest Properties Differences\n");
-		differenceBuilder.append("==================================\n");
-		if (!applicationPropertiesDifference.entriesDiffering().isEmpty()) {
-			differenceBuilder.append(mapJoiner.join(applicationPropertiesDifference.entriesDiffering()) + "\n");
+	/**
+	 * The parts of an application manifest that require the application to be redeployed
+	 * when they change.
+	 */
+	private static final class AppFingerprint {
+
+		private final String resourceWithVersion;
+
+		private final Map<String, String> applicationProperties;
+
+		private final Map<String, String> deploymentProperties;
+
+		private AppFingerprint(String resourceWithVersion, Map<String, String> applicationProperties,
+				Map<String, String> deploymentProperties) {
+			this.resourceWithVersion = resourceWithVersion;
+			this.applicationProperties = applicationProperties;
+			this.deploymentProperties = deploymentProperties;
 		}
-		if (!applicationPropertiesDifference.entriesOnlyOnLeft().isEmpty()) {
-			differenceBuilder.append("Only in existing app\n");
-			differenceBuilder.append("========================\n");
-			differenceBuilder.append(mapJoiner.join(applicationPropertiesDifference.entriesOnlyOnLeft()) + "\n");
+
+		static AppFingerprint of(SpringCloudDeployerApplicationManifest applicationManifest) {
+			SpringCloudDeployerApplicationSpec spec = applicationManifest.getSpec();
+			String resourceWithVersion = ResourceUtils.getResourceLocation(spec.getResource().trim(),
+					spec.getVersion());
+			Map<String, String> applicationProperties = (spec.getApplicationProperties() != null)
+					? spec.getApplicationProperties() : Collections.emptyMap();
+			// exclude deployer count from computing the difference, without modifying the manifest
+			Map<String, String> deploymentProperties = new TreeMap<>();
+			if (spec.getDeploymentProperties() != null) {
+				deploymentProperties.putAll(spec.getDeploymentProperties());
+				deploymentProperties.remove(AppDeployerReleaseManager.SPRING_CLOUD_DEPLOYER_COUNT);
+			}
+			return new AppFingerprint(resourceWithVersion, applicationProperties, deploymentProperties);
 		}
-		if (!applicationPropertiesDifference.entriesOnlyOnRight().isEmpty()) {
-			differenceBuilder.append("Only in replacing app\n");
-			differenceBuilder.append("=====================\n");
-			differenceBuilder.append(mapJoiner.join(applicationPropertiesDifference.entriesOnlyOnRight()) + "\n");
+
+		String digest() {
+			MessageDigest messageDigest = Sha256Digests.newDigest();
+			putString(messageDigest, this.resourceWithVersion);
+			putProperties(messageDigest, new TreeMap<>(this.applicationProperties));
+			putProperties(messageDigest, this.deploymentProperties);
+			return Sha256Digests.toHex(messageDigest);
 		}
-		if (!applicationPropertiesDifference.entriesInCommon().isEmpty()) {
-			differenceBuilder.append("Common Properties\n");
-			differenceBuilder.append("=================\n");
-			differenceBuilder.append(mapJoiner.join(applicationPropertiesDifference.entriesInCommon()) + "\n");
+
+		private static void putProperties(MessageDigest messageDigest, Map<String, String> properties) {
+			putInt(messageDigest, properties.size());
+			for (Map.Entry<String, String> property : properties.entrySet()) {
+				putString(messageDigest, property.getKey());
+				putString(messageDigest, property.getValue());
+			}
+		}
+
+		// length prefixed, so that adjacent values can not run into each other
+		private static void putString(MessageDigest messageDigest, String value) {
+			if (value == null) {
+				putInt(messageDigest, -1);
+			}
+			else {
+				putInt(messageDigest, value.length());
+				messageDigest.update(value.getBytes(StandardCharsets.UTF_8));
+			}
+		}
+
+		// little endian, as written by the fingerprints stored with existing releases
+		private static void putInt(MessageDigest messageDigest, int value) {
+			messageDigest.update(ByteBuffer.allocate(Integer.BYTES).order(ByteOrder.LITTLE_ENDIAN).putInt(value).array());
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			if (this == o) {
+				return true;
+			}
+			if (!(o instanceof AppFingerprint)) {
+				return false;
+			}
+			AppFingerprint that = (AppFingerprint) o;
+			return this.resourceWithVersion.equals(that.resourceWithVersion)
+					&& this.applicationProperties.equals(that.applicationProperties)
+					&& this.deploymentProperties.equals(that.deploymentProperties);
+		}
+
+		@Override
+		public int hashCode() {
+			return Objects.hash(this.resourceWithVersion, this.applicationProperties, this.deploymentProperties);
 		}
-		return new ReleaseDifference(false, differenceBuilder.toString());
 	}
 }
@@ -15,6 +15,8 @@
  */
 package org.springframework.cloud.skipper.server.deployer;
 
+import java.util.function.Supplier;
+
 import org.springframework.util.Assert;
 
 /**
@@ -24,7 +26,9 @@ public class ReleaseDifference {
 
 	private final boolean areEqual;
 
-	private final String differenceSummary;
+	private String differenceSummary;
+
+	private final transient Supplier<String> differenceSummarySupplier;
 
 	public ReleaseDifference(boolean areEqual) {
 		this(areEqual, "No difference.");
@@ -34,6 +38,18 @@ public class ReleaseDifference {
 		Assert.hasText(differenceSummary, "Difference Summary can not be null.");
 		this.areEqual = areEqual;
 		this.differenceSummary = differenceSummary;
+		this.differenceSummarySupplier = null;
+	}
+
+	/**
+	 * Create a difference whose summary is only computed when first requested.
+	 * @param areEqual whether there is no difference
+	 * @param differenceSummarySupplier computes the summary of the differences
+	 */
+	public ReleaseDifference(boolean areEqual, Supplier<String> differenceSummarySupplier) {
+		Assert.notNull(differenceSummarySupplier, "Difference Summary Supplier can not be null.");
+		this.areEqual = areEqual;
+		this.differenceSummarySupplier = differenceSummarySupplier;
 	}
 
 	boolean areEqual() {
@@ -41,6 +57,11 @@ public class ReleaseDifference {
 	}
 
 	public String getDifferenceSummary() {
-		return differenceSummary;
+		if (this.differenceSummary == null) {
+			// The supplier is not kept when the state machine context is persisted
+			this.differenceSummary = (this.differenceSummarySupplier != null) ? this.differenceSummarySupplier.get()
+					: "Difference summary not available.";
+		}
+		return this.differenceSummary;
 	}
 }
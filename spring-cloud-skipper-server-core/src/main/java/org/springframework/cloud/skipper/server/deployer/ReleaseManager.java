@@ -15,6 +15,8 @@
  */
 package org.springframework.cloud.skipper.server.deployer;
 
+import java.util.List;
+
 import org.springframework.cloud.skipper.domain.Release;
 
 /**
@@ -46,6 +48,16 @@ public interface ReleaseManager {
 	 */
 	ReleaseAnalysisReport createReport(Release existingRelease, Release replacingRelease);
 
+	/**
+	 * Get the names of the apps an upgrade would update, without saving the replacing
+	 * release or querying the status of the existing release.
+	 * @param existingRelease the existing release that is deployed
+	 * @param replacingRelease the release that would be deployed in place of the existing
+	 * release, with its manifest
+	 * @return the names of the apps to update, empty if the releases don't differ
+	 */
+	List<String> getApplicationNamesToUpgrade(Release existingRelease, Release replacingRelease);
+
 	/**
 	 * Delete the release
 	 * @param release the release to delete
@@ -16,7 +16,6 @@
 package org.springframework.cloud.skipper.server.deployer.strategies;
 
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -27,7 +26,10 @@ import org.springframework.cloud.skipper.domain.Status;
 import org.springframework.cloud.skipper.domain.StatusCode;
 import org.springframework.cloud.skipper.server.deployer.AppDeploymentRequestFactory;
 import org.springframework.cloud.skipper.server.deployer.ReleaseAnalysisReport;
+import org.springframework.cloud.skipper.server.deployer.ReleaseAnalyzer;
 import org.springframework.cloud.skipper.server.domain.AppDeployerData;
+import org.springframework.cloud.skipper.server.domain.AppDeployment;
+import org.springframework.cloud.skipper.server.domain.RenderedManifest;
 import org.springframework.cloud.skipper.server.domain.SpringCloudDeployerApplicationManifest;
 import org.springframework.cloud.skipper.server.domain.SpringCloudDeployerApplicationManifestReader;
 import org.springframework.cloud.skipper.server.repository.AppDeployerDataRepository;
@@ -73,17 +75,16 @@ public class DeployAppStep {
 			AppDeployer appDeployer = this.deployerRepository.findByNameRequired(replacingRelease.getPlatformName())
 					.getAppDeployer();
 
+			AppDeployerData appDeployerData = new AppDeployerData();
+			appDeployerData.setReleaseName(replacingRelease.getName());
+			appDeployerData.setReleaseVersion(replacingRelease.getVersion());
+
 			// Deploy the application
-			Map<String, String> appNameDeploymentIdMap = deploy(replacingRelease, applicationNamesToUpgrade,
-					appDeployer);
+			deploy(replacingRelease, releaseAnalysisReport, applicationNamesToUpgrade, appDeployer, appDeployerData);
 
 			// Carry over the applicationDeployment information for apps that were not updated.
-			carryOverAppDeploymentIds(existingRelease, appNameDeploymentIdMap);
+			carryOverAppDeployments(existingRelease, applicationNamesToUpgrade, appDeployerData);
 
-			AppDeployerData appDeployerData = new AppDeployerData();
-			appDeployerData.setReleaseName(replacingRelease.getName());
-			appDeployerData.setReleaseVersion(replacingRelease.getVersion());
-			appDeployerData.setDeploymentDataUsingMap(appNameDeploymentIdMap);
 			this.appDeployerDataRepository.save(appDeployerData);
 		}
 		catch (DataAccessException e) {
@@ -101,27 +102,33 @@ public class DeployAppStep {
 		return applicationNamesToUpgrade;
 	}
 
-	private void carryOverAppDeploymentIds(Release existingRelease, Map<String, String> appNameDeploymentIdMap) {
+	private void carryOverAppDeployments(Release existingRelease, List<String> applicationNamesToUpgrade,
+			AppDeployerData appDeployerData) {
 		AppDeployerData existingAppDeployerData = this.appDeployerDataRepository
 				.findByReleaseNameAndReleaseVersionRequired(
 						existingRelease.getName(), existingRelease.getVersion());
-		Map<String, String> existingAppNamesAndDeploymentIds = existingAppDeployerData.getDeploymentDataAsMap();
-
-		for (Map.Entry<String, String> existingEntry : existingAppNamesAndDeploymentIds.entrySet()) {
+		Map<String, AppDeployment> appDeployments = appDeployerData.getAppDeployments();
+		for (Map.Entry<String, AppDeployment> existingEntry : existingAppDeployerData.getAppDeployments().entrySet()) {
 			String existingName = existingEntry.getKey();
-			if (!appNameDeploymentIdMap.containsKey(existingName)) {
-				appNameDeploymentIdMap.put(existingName, existingEntry.getValue());
+			// apps to upgrade that were not deployed again are removed from the replacing release
+			if (!appDeployments.containsKey(existingName) && !applicationNamesToUpgrade.contains(existingName)) {
+				AppDeployment existingAppDeployment = existingEntry.getValue();
+				appDeployments.put(existingName, new AppDeployment(existingAppDeployment.getDeploymentId(),
+						existingAppDeployment.getSpecFingerprint()));
 			}
 		}
 	}
 
-	private Map<String, String> deploy(Release replacingRelease, List<String> applicationNamesToUpgrade,
-			AppDeployer appDeployer) {
-		List<? extends SpringCloudDeployerApplicationManifest> applicationSpecList = this.applicationManifestReader
-				.read(replacingRelease
-						.getManifest());
+	private void deploy(Release replacingRelease, ReleaseAnalysisReport releaseAnalysisReport,
+			List<String> applicationNamesToUpgrade, AppDeployer appDeployer, AppDeployerData appDeployerData) {
+		// Reuse the manifest parsed when creating the report, unless the report was restored
+		RenderedManifest renderedManifest = releaseAnalysisReport.getReplacingManifest();
+		if (renderedManifest == null || !renderedManifest.isRenderedFrom(replacingRelease.getManifest())) {
+			renderedManifest = this.applicationManifestReader.readRenderedManifest(replacingRelease.getManifest());
+		}
+		List<? extends SpringCloudDeployerApplicationManifest> applicationSpecList = renderedManifest
+				.getApplicationManifests();
 
-		Map<String, String> appNameDeploymentIdMap = new HashMap<>();
 		for (SpringCloudDeployerApplicationManifest applicationManifest : applicationSpecList) {
 			if (applicationNamesToUpgrade.contains(applicationManifest.getApplicationName())) {
 				AppDeploymentRequest appDeploymentRequest = appDeploymentRequestFactory.createAppDeploymentRequest(
@@ -131,9 +138,9 @@ public class DeployAppStep {
 				// DEPLOY DEPLOY
 				// =============
 				String deploymentId = appDeployer.deploy(appDeploymentRequest);
-				appNameDeploymentIdMap.put(applicationManifest.getApplicationName(), deploymentId);
+				appDeployerData.putAppDeployment(applicationManifest.getApplicationName(), deploymentId,
+						ReleaseAnalyzer.fingerprint(applicationManifest));
 			}
 		}
-		return appNameDeploymentIdMap;
 	}
 }
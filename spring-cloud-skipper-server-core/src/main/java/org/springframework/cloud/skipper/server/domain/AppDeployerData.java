@@ -16,16 +16,20 @@
 package org.springframework.cloud.skipper.server.domain;
 
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.stream.Collectors;
 
+import javax.persistence.CollectionTable;
+import javax.persistence.ElementCollection;
 import javax.persistence.Entity;
+import javax.persistence.FetchType;
+import javax.persistence.JoinColumn;
 import javax.persistence.Lob;
+import javax.persistence.MapKeyColumn;
+import javax.persistence.PostLoad;
 import javax.persistence.Table;
 
-import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.DeserializationFeature;
 import com.fasterxml.jackson.databind.ObjectMapper;
@@ -37,8 +41,12 @@ import org.springframework.cloud.skipper.domain.AbstractEntity;
  * Entity that contains deployment data for the given release identified by the release
  * name and version.
  *
- * The deployment data is a JSON serialized Map containing the application name and
- * deployment id.
+ * The deployment data is stored as one {@link AppDeployment} row per application, keyed
+ * by the application name, holding the deployment id and the fingerprint of the
+ * application spec that was deployed. Releases deployed before the rows were introduced
+ * only have a JSON serialized Map containing the application name and deployment id,
+ * which is converted to rows when the entity is loaded and stored as rows the next time
+ * the entity is saved.
  *
  * @author Mark Pollack
  */
@@ -46,14 +54,23 @@ import org.springframework.cloud.skipper.domain.AbstractEntity;
 @Table(name = "SkipperAppDeployerData")
 public class AppDeployerData extends AbstractEntity {
 
+	private static final ObjectMapper LEGACY_DEPLOYMENT_DATA_MAPPER = new ObjectMapper()
+			.configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+
 	private String releaseName;
 
 	private Integer releaseVersion;
 
-	// Store deployment Ids associated with the given release.
+	// Legacy JSON serialized deployment ids, superseded by appDeployments.
 	@Lob
 	private String deploymentData;
 
+	// Store deployment Ids and spec fingerprints associated with the given release.
+	@ElementCollection(fetch = FetchType.EAGER)
+	@CollectionTable(name = "SkipperAppDeployment", joinColumns = @JoinColumn(name = "app_deployer_data_id"))
+	@MapKeyColumn(name = "application_name")
+	private Map<String, AppDeployment> appDeployments = new LinkedHashMap<>();
+
 	public AppDeployerData() {
 	}
 
@@ -81,37 +98,84 @@ public class AppDeployerData extends AbstractEntity {
 		this.deploymentData = deploymentData;
 	}
 
+	public Map<String, AppDeployment> getAppDeployments() {
+		return appDeployments;
+	}
+
+	public void setAppDeployments(Map<String, AppDeployment> appDeployments) {
+		this.appDeployments.clear();
+		this.appDeployments.putAll(appDeployments);
+		this.deploymentData = null;
+	}
+
+	/**
+	 * Record the deployment of an application of the release.
+	 * @param applicationName the name of the application
+	 * @param deploymentId the deployment id returned by the deployer
+	 * @param specFingerprint the fingerprint of the deployed application spec
+	 */
+	public void putAppDeployment(String applicationName, String deploymentId, String specFingerprint) {
+		this.appDeployments.put(applicationName, new AppDeployment(deploymentId, specFingerprint));
+	}
+
 	public Map<String, String> getDeploymentDataAsMap() {
-		try {
-			ObjectMapper mapper = new ObjectMapper();
-			mapper.configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
-			TypeReference<Map<String, String>> typeRef = new TypeReference<Map<String, String>>() {
-			};
-			HashMap<String, String> result = mapper.readValue(this.deploymentData, typeRef);
-			return result;
-		}
-		catch (Exception e) {
-			throw new SkipperException("Could not parse appNameDeploymentIdMap JSON:" + this.deploymentData, e);
+		Map<String, String> appNameDeploymentIdMap = new LinkedHashMap<>();
+		for (Map.Entry<String, AppDeployment> entry : getAppDeployments().entrySet()) {
+			appNameDeploymentIdMap.put(entry.getKey(), entry.getValue().getDeploymentId());
 		}
+		return appNameDeploymentIdMap;
 	}
 
 	public void setDeploymentDataUsingMap(Map<String, String> appNameDeploymentIdMap) {
-		ObjectMapper objectMapper = new ObjectMapper();
-		try {
-			setDeploymentData(objectMapper.writeValueAsString(appNameDeploymentIdMap));
-		}
-		catch (JsonProcessingException e) {
-			throw new SkipperException("Could not serialize appNameDeploymentIdMap", e);
+		Map<String, AppDeployment> deployments = new LinkedHashMap<>();
+		for (Map.Entry<String, String> entry : appNameDeploymentIdMap.entrySet()) {
+			deployments.put(entry.getKey(), new AppDeployment(entry.getValue(), null));
 		}
+		setAppDeployments(deployments);
 	}
 
 	public List<String> getDeploymentIds() {
-		if (this.deploymentData != null) {
-			Map<String, String> appNameDeploymentIdMap = this.getDeploymentDataAsMap();
-			return appNameDeploymentIdMap.values().stream().collect(Collectors.toList());
+		List<String> deploymentIds = new ArrayList<>();
+		for (AppDeployment appDeployment : getAppDeployments().values()) {
+			deploymentIds.add(appDeployment.getDeploymentId());
+		}
+		return deploymentIds;
+	}
+
+	/**
+	 * Return the spec fingerprint of every application of the release. The fingerprint is
+	 * {@literal null} for applications deployed before fingerprints were stored.
+	 * @return the spec fingerprints keyed by application name
+	 */
+	public Map<String, String> getSpecFingerprints() {
+		Map<String, String> specFingerprints = new LinkedHashMap<>();
+		for (Map.Entry<String, AppDeployment> entry : getAppDeployments().entrySet()) {
+			specFingerprints.put(entry.getKey(), entry.getValue().getSpecFingerprint());
+		}
+		return specFingerprints;
+	}
+
+	/**
+	 * Convert the legacy JSON deployment data of a release deployed before the
+	 * {@link AppDeployment} rows were introduced.
+	 */
+	@PostLoad
+	void migrateLegacyDeploymentData() {
+		if (this.appDeployments.isEmpty() && this.deploymentData != null) {
+			for (Map.Entry<String, String> entry : parseDeploymentData(this.deploymentData).entrySet()) {
+				this.appDeployments.put(entry.getKey(), new AppDeployment(entry.getValue(), null));
+			}
 		}
-		else {
-			return new ArrayList<>();
+	}
+
+	private static Map<String, String> parseDeploymentData(String deploymentData) {
+		try {
+			TypeReference<LinkedHashMap<String, String>> typeRef = new TypeReference<LinkedHashMap<String, String>>() {
+			};
+			return LEGACY_DEPLOYMENT_DATA_MAPPER.readValue(deploymentData, typeRef);
+		}
+		catch (Exception e) {
+			throw new SkipperException("Could not parse appNameDeploymentIdMap JSON:" + deploymentData, e);
 		}
 	}
 
@@ -120,7 +184,7 @@ public class AppDeployerData extends AbstractEntity {
 		return "AppDeployerData{" +
 				"releaseName='" + releaseName + '\'' +
 				", releaseVersion=" + releaseVersion +
-				", deploymentData='" + deploymentData + '\'' +
+				", appDeployments=" + appDeployments +
 				'}';
 	}
 }
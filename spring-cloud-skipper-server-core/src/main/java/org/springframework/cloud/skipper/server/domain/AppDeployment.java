@@ -0,0 +1,69 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.cloud.skipper.server.domain;
+
+import javax.persistence.Column;
+import javax.persistence.Embeddable;
+
+/**
+ * The deployment of a single application of a release, stored as a row of the
+ * {@link AppDeployerData} of the release.
+ *
+ * The spec fingerprint identifies the parts of the application manifest that require
+ * the application to be redeployed when they change, so that upgrades can be analyzed
+ * without reading the manifest of the deployed release. It is {@literal null} for
+ * deployments recorded before fingerprints were stored.
+ */
+@Embeddable
+public class AppDeployment {
+
+	@Column(nullable = false)
+	private String deploymentId;
+
+	private String specFingerprint;
+
+	public AppDeployment() {
+	}
+
+	public AppDeployment(String deploymentId, String specFingerprint) {
+		this.deploymentId = deploymentId;
+		this.specFingerprint = specFingerprint;
+	}
+
+	public String getDeploymentId() {
+		return deploymentId;
+	}
+
+	public void setDeploymentId(String deploymentId) {
+		this.deploymentId = deploymentId;
+	}
+
+	public String getSpecFingerprint() {
+		return specFingerprint;
+	}
+
+	public void setSpecFingerprint(String specFingerprint) {
+		this.specFingerprint = specFingerprint;
+	}
+
+	@Override
+	public String toString() {
+		return "AppDeployment{" +
+				"deploymentId='" + deploymentId + '\'' +
+				", specFingerprint='" + specFingerprint + '\'' +
+				'}';
+	}
+}
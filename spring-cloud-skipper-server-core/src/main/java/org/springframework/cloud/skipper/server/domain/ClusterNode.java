@@ -0,0 +1,81 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.cloud.skipper.server.domain;
+
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Table;
+
+/**
+ * A Skipper server taking part in the ownership of release state machines. Every node
+ * records a heartbeat, nodes without a recent heartbeat are considered gone.
+ */
+@Entity
+@Table(name = "SkipperClusterNode")
+public class ClusterNode {
+
+	@Id
+	private String id;
+
+	/**
+	 * The base URL requests are forwarded to for releases owned by the node.
+	 */
+	private String url;
+
+	private long lastHeartbeat;
+
+	public ClusterNode() {
+	}
+
+	public ClusterNode(String id, String url, long lastHeartbeat) {
+		this.id = id;
+		this.url = url;
+		this.lastHeartbeat = lastHeartbeat;
+	}
+
+	public String getId() {
+		return id;
+	}
+
+	public void setId(String id) {
+		this.id = id;
+	}
+
+	public String getUrl() {
+		return url;
+	}
+
+	public void setUrl(String url) {
+		this.url = url;
+	}
+
+	public long getLastHeartbeat() {
+		return lastHeartbeat;
+	}
+
+	public void setLastHeartbeat(long lastHeartbeat) {
+		this.lastHeartbeat = lastHeartbeat;
+	}
+
+	@Override
+	public String toString() {
+		return "ClusterNode{" +
+				"id='" + id + '\'' +
+				", url='" + url + '\'' +
+				", lastHeartbeat=" + lastHeartbeat +
+				'}';
+	}
+}
@@ -0,0 +1,108 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.cloud.skipper.server.domain;
+
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Table;
+import javax.persistence.Version;
+
+/**
+ * Lease of a partition of the release names held by a {@link ClusterNode}. Only the node
+ * holding an unexpired lease of the partition of a release handles its state machine.
+ * Leases are taken over with optimistic locking, so only one of the nodes competing for
+ * an expired lease gets it.
+ */
+@Entity
+@Table(name = "SkipperPartitionLease")
+public class PartitionLease {
+
+	@Id
+	private Integer partitionId;
+
+	private String owner;
+
+	private String ownerUrl;
+
+	private long expires;
+
+	@Version
+	private Long version;
+
+	public PartitionLease() {
+	}
+
+	public PartitionLease(Integer partitionId) {
+		this.partitionId = partitionId;
+	}
+
+	public Integer getPartitionId() {
+		return partitionId;
+	}
+
+	public void setPartitionId(Integer partitionId) {
+		this.partitionId = partitionId;
+	}
+
+	public String getOwner() {
+		return owner;
+	}
+
+	public void setOwner(String owner) {
+		this.owner = owner;
+	}
+
+	public String getOwnerUrl() {
+		return ownerUrl;
+	}
+
+	public void setOwnerUrl(String ownerUrl) {
+		this.ownerUrl = ownerUrl;
+	}
+
+	public long getExpires() {
+		return expires;
+	}
+
+	public void setExpires(long expires) {
+		this.expires = expires;
+	}
+
+	public Long getVersion() {
+		return version;
+	}
+
+	public void setVersion(Long version) {
+		this.version = version;
+	}
+
+	/**
+	 * @param now the current time in milliseconds
+	 * @return true if the lease is held by a node at the given time
+	 */
+	public boolean isHeld(long now) {
+		return this.owner != null && this.expires > now;
+	}
+
+	@Override
+	public String toString() {
+		return "PartitionLease{" +
+				"partitionId=" + partitionId +
+				", owner='" + owner + '\'' +
+				", expires=" + expires +
+				'}';
+	}
+}
@@ -0,0 +1,68 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.cloud.skipper.server.domain;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.springframework.util.Assert;
+
+/**
+ * A rendered release manifest, carrying both the YAML text that is stored with the release
+ * and the {@link SpringCloudDeployerApplicationManifest}s parsed from it. Created once per
+ * install, upgrade or rollback by
+ * {@link SpringCloudDeployerApplicationManifestReader#readRenderedManifest(String)} and
+ * passed along, so the YAML is not parsed again by every step of the operation.
+ */
+public class RenderedManifest {
+
+	private final String yaml;
+
+	private final List<SpringCloudDeployerApplicationManifest> applicationManifests;
+
+	public RenderedManifest(String yaml, List<SpringCloudDeployerApplicationManifest> applicationManifests) {
+		Assert.notNull(yaml, "'yaml' must be set");
+		Assert.notNull(applicationManifests, "'applicationManifests' must be set");
+		this.yaml = yaml;
+		this.applicationManifests = new ArrayList<>(applicationManifests);
+	}
+
+	/**
+	 * Return the rendered manifest YAML, as stored with the release.
+	 * @return the manifest YAML
+	 */
+	public String getYaml() {
+		return this.yaml;
+	}
+
+	/**
+	 * Return the application manifests parsed from the YAML, in document order.
+	 * @return the unmodifiable list of application manifests
+	 */
+	public List<SpringCloudDeployerApplicationManifest> getApplicationManifests() {
+		return Collections.unmodifiableList(this.applicationManifests);
+	}
+
+	/**
+	 * Return whether this was rendered from the given manifest YAML.
+	 * @param manifest the manifest YAML
+	 * @return {@literal true} if the YAML is the same
+	 */
+	public boolean isRenderedFrom(String manifest) {
+		return this.yaml.equals(manifest);
+	}
+}
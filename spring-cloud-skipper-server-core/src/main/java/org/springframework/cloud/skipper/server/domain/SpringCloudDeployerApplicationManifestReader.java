@@ -17,24 +17,37 @@ package org.springframework.cloud.skipper.server.domain;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.DeserializationFeature;
-import com.fasterxml.jackson.databind.JsonMappingException;
 import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
 import com.fasterxml.jackson.dataformat.yaml.YAMLMapper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.yaml.snakeyaml.Yaml;
 
 import org.springframework.cloud.skipper.SkipperException;
+import org.springframework.cloud.skipper.server.util.DigestKeyedCache;
 
 /**
  * Deserializes using Jackson a String to the SpringCloudDeployerApplicationManifest
  * class. Sets {@literal DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES} to
  * {@literal false} so values in the YAML that are not represented in the appKind class
  * will not throw an exception in the deserialization process.
+ * <p>
+ * The manifest is parsed in a single pass, each YAML document is bound directly to the
+ * manifest class, keeping scalars such as {@literal 1.10} as written, and its
+ * {@literal kind} is checked once bound. The underlying reader is thread-safe and shared
+ * by all instances.
+ * <p>
+ * Parsed manifests are cached by the SHA-256 digest of the manifest, bounded to
+ * {@link #MANIFEST_CACHE_SIZE} manifests, so reading the same release revision again
+ * does not parse it again. The cached manifests have unmodifiable metadata and
+ * properties, each read returns copies of them that share these maps.
  *
  * @author Mark Pollack
  * @author Ilayaperumal Gopinathan
@@ -43,52 +56,98 @@ public class SpringCloudDeployerApplicationManifestReader {
 
 	private final static Logger logger = LoggerFactory.getLogger(SpringCloudDeployerApplicationManifestReader.class);
 
+	private static final ObjectMapper MAPPER = new YAMLMapper()
+			.configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+
+	private static final ObjectReader MANIFEST_READER = MAPPER
+			.readerFor(SpringCloudDeployerApplicationManifest.class);
+
+	/**
+	 * The maximum number of parsed manifests kept in the cache.
+	 */
+	public static final int MANIFEST_CACHE_SIZE = 128;
+
+	private static final DigestKeyedCache<List<SpringCloudDeployerApplicationManifest>> MANIFEST_CACHE = new DigestKeyedCache<>(
+			MANIFEST_CACHE_SIZE);
+
 	public List<SpringCloudDeployerApplicationManifest> read(String manifest) {
-		assertSupportedKinds(manifest);
+		List<SpringCloudDeployerApplicationManifest> applicationSpecs = MANIFEST_CACHE.get(manifest, this::parse);
+		List<SpringCloudDeployerApplicationManifest> copies = new ArrayList<>(applicationSpecs.size());
+		for (SpringCloudDeployerApplicationManifest applicationSpec : applicationSpecs) {
+			copies.add(copy(applicationSpec));
+		}
+		return copies;
+	}
+
+	private List<SpringCloudDeployerApplicationManifest> parse(String manifest) {
 		List<SpringCloudDeployerApplicationManifest> applicationSpecs = new ArrayList<>();
-		YAMLMapper mapper = new YAMLMapper();
-		mapper.configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
-		try {
-			MappingIterator<SpringCloudDeployerApplicationManifest> it = mapper
-					.readerFor(SpringCloudDeployerApplicationManifest.class).readValues(manifest);
+		try (MappingIterator<SpringCloudDeployerApplicationManifest> it = MANIFEST_READER.readValues(manifest)) {
 			while (it.hasNextValue()) {
-				SpringCloudDeployerApplicationManifest appKind = it.next();
-				applicationSpecs.add(appKind);
+				SpringCloudDeployerApplicationManifest applicationSpec = it.nextValue();
+				assertSupportedKind(applicationSpec);
+				applicationSpecs.add(freeze(applicationSpec));
 			}
 		}
-		catch (JsonMappingException e) {
-			logger.error("Can't parse Package's manifest YAML = " + manifest);
-			throw new SkipperException("JsonMappingException - Can't parse Package's manifest YAML = " + manifest, e);
+		catch (JsonProcessingException e) {
+			logger.debug("Can't parse Package's manifest YAML = " + manifest);
+			throw new SkipperException(String.format("%s - Can't parse document %d of Package's manifest YAML: %s",
+					e.getClass().getSimpleName(), applicationSpecs.size() + 1, e.getOriginalMessage()), e);
 		}
 		catch (IOException e) {
-			logger.error("Can't parse Package's manifest YAML = " + manifest);
-			throw new SkipperException("IOException - Can't parse Package's manifest YAML = " + manifest, e);
+			logger.debug("Can't parse Package's manifest YAML = " + manifest);
+			throw new SkipperException(String.format("IOException - Can't parse document %d of Package's manifest YAML: %s",
+					applicationSpecs.size() + 1, e.getMessage()), e);
 		}
-		return applicationSpecs;
+		return Collections.unmodifiableList(applicationSpecs);
 	}
 
-	private void assertSupportedKinds(String manifest) {
-		Yaml yaml = new Yaml();
-		Iterable<Object> object = yaml.loadAll(manifest);
-		for (Object o : object) {
-			assertSupportedKind(o);
-		}
+	/**
+	 * Parse the manifest once into a {@link RenderedManifest} to pass along the steps of an
+	 * operation.
+	 * @param manifest the rendered manifest YAML
+	 * @return the manifest YAML along with the parsed application manifests
+	 */
+	public RenderedManifest readRenderedManifest(String manifest) {
+		return new RenderedManifest(manifest, read(manifest));
 	}
 
-	private void assertSupportedKind(Object object) {
-		if (object == null) {
-			throw new SkipperException("Can't parse manifest, it is empty");
+	private static SpringCloudDeployerApplicationManifest freeze(SpringCloudDeployerApplicationManifest applicationSpec) {
+		applicationSpec.setMetadata(unmodifiable(applicationSpec.getMetadata()));
+		SpringCloudDeployerApplicationSpec spec = applicationSpec.getSpec();
+		if (spec != null) {
+			spec.setApplicationProperties(unmodifiable(spec.getApplicationProperties()));
+			spec.setDeploymentProperties(unmodifiable(spec.getDeploymentProperties()));
 		}
-		Map<String, Object> manifestAsMap;
-		if (object instanceof Map) {
-			manifestAsMap = (Map<String, Object>) object;
+		return applicationSpec;
+	}
+
+	private static Map<String, String> unmodifiable(Map<String, String> map) {
+		return (map != null) ? Collections.unmodifiableMap(map) : null;
+	}
+
+	private static SpringCloudDeployerApplicationManifest copy(SpringCloudDeployerApplicationManifest applicationSpec) {
+		SpringCloudDeployerApplicationManifest copy = new SpringCloudDeployerApplicationManifest();
+		copy.setApiVersion(applicationSpec.getApiVersion());
+		copy.setKind(applicationSpec.getKind());
+		copy.setMetadata(applicationSpec.getMetadata());
+		SpringCloudDeployerApplicationSpec spec = applicationSpec.getSpec();
+		if (spec != null) {
+			SpringCloudDeployerApplicationSpec specCopy = new SpringCloudDeployerApplicationSpec();
+			specCopy.setResource(spec.getResource());
+			specCopy.setVersion(spec.getVersion());
+			specCopy.setApplicationProperties(spec.getApplicationProperties());
+			specCopy.setDeploymentProperties(spec.getDeploymentProperties());
+			copy.setSpec(specCopy);
 		}
-		else {
-			throw new SkipperException("Can't parse manifest, it is not a map.  Manifest = " + object);
+		return copy;
+	}
+
+	private void assertSupportedKind(SpringCloudDeployerApplicationManifest applicationSpec) {
+		if (applicationSpec == null) {
+			throw new SkipperException("Can't parse manifest, it is empty");
 		}
-		Object kindObject = manifestAsMap.get("kind");
-		if (kindObject instanceof String) {
-			String kind = (String) kindObject;
+		String kind = applicationSpec.getKind();
+		if (kind != null) {
 			if (kind.equalsIgnoreCase("SpringBootApp") || kind.equalsIgnoreCase("SpringCloudDeployerApplication")) {
 				logger.debug("Found supported kind " + kind);
 			}
@@ -17,6 +17,7 @@ package org.springframework.cloud.skipper.server.index;
 
 import org.springframework.cloud.skipper.server.controller.SkipperController;
 import org.springframework.data.rest.webmvc.RepositoryLinksResource;
+import org.springframework.hateoas.Link;
 import org.springframework.hateoas.ResourceProcessor;
 import org.springframework.hateoas.mvc.ControllerLinkBuilder;
 import org.springframework.stereotype.Component;
@@ -34,6 +35,10 @@ public class SkipperControllerResourceProcessor implements ResourceProcessor<Rep
 	public RepositoryLinksResource process(RepositoryLinksResource resource) {
 		resource.add(ControllerLinkBuilder.linkTo(methodOn(SkipperController.class).getAboutInfo()).withRel("about"));
 		resource.add(ControllerLinkBuilder.linkTo(methodOn(SkipperController.class).upload(null)).withRel("upload"));
+		resource.add(ControllerLinkBuilder.linkTo(methodOn(SkipperController.class).synchronize())
+				.withRel("synchronize"));
+		resource.add(new Link(ControllerLinkBuilder.linkTo(SkipperController.class).slash("search").toString()
+				+ "{?query,page,size}", "search"));
 		resource.add(ControllerLinkBuilder.linkTo(methodOn(SkipperController.class).install(null)).withRel("install"));
 		resource.add(ControllerLinkBuilder.linkTo(methodOn(SkipperController.class).install(null, null))
 				.withRel("install/id"));
@@ -50,6 +55,10 @@ public class SkipperControllerResourceProcessor implements ResourceProcessor<Rep
 				ControllerLinkBuilder.linkTo(methodOn(SkipperController.class).rollback(null, 123))
 						.withRel("rollback"));
 		resource.add(ControllerLinkBuilder.linkTo(methodOn(SkipperController.class).delete(null)).withRel("delete"));
+		resource.add(ControllerLinkBuilder.linkTo(methodOn(SkipperController.class).batch(null)).withRel("batch"));
+		resource.add(ControllerLinkBuilder.linkTo(methodOn(SkipperController.class).rollouts()).withRel("rollouts"));
+		resource.add(new Link(ControllerLinkBuilder.linkTo(SkipperController.class).slash("operations").toString()
+				+ "/{id}{?wait}", "operations"));
 		resource.add(
 				ControllerLinkBuilder.linkTo(methodOn(SkipperController.class).history(null, 123)).withRel("history"));
 		resource.add(ControllerLinkBuilder.linkTo(methodOn(SkipperController.class).list()).withRel("list"));
@@ -0,0 +1,31 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.cloud.skipper.server.repository;
+
+import java.util.List;
+
+import org.springframework.cloud.skipper.server.domain.ClusterNode;
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.rest.core.annotation.RepositoryRestResource;
+
+/**
+ * Repository of the {@link ClusterNode}s, not exported over REST.
+ */
+@RepositoryRestResource(exported = false)
+public interface ClusterNodeRepository extends CrudRepository<ClusterNode, String> {
+
+	List<ClusterNode> findByLastHeartbeatGreaterThan(long lastHeartbeat);
+}
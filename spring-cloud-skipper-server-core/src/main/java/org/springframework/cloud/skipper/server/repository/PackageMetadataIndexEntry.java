@@ -0,0 +1,133 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.cloud.skipper.server.repository;
+
+import org.springframework.cloud.skipper.domain.PackageMetadata;
+import org.springframework.util.ObjectUtils;
+import org.springframework.util.StringUtils;
+
+/**
+ * The columns of a stored {@link PackageMetadata} that are populated from a repository
+ * index, selected without the package file so that a whole repository can be compared
+ * against its index in a single query.
+ *
+ * @see PackageMetadataRepository#findIndexEntriesByRepositoryId(Long)
+ */
+public class PackageMetadataIndexEntry {
+
+	private final Long id;
+
+	private final String name;
+
+	private final String version;
+
+	private final String apiVersion;
+
+	private final String origin;
+
+	private final String kind;
+
+	private final String packageSourceUrl;
+
+	private final String packageHomeUrl;
+
+	private final String tags;
+
+	private final String maintainer;
+
+	private final String description;
+
+	private final String sha256;
+
+	private final String iconUrl;
+
+	private final boolean stale;
+
+	public PackageMetadataIndexEntry(Long id, String name, String version, String apiVersion, String origin,
+			String kind, String packageSourceUrl, String packageHomeUrl, String tags, String maintainer,
+			String description, String sha256, String iconUrl, boolean stale) {
+		this.id = id;
+		this.name = name;
+		this.version = version;
+		this.apiVersion = apiVersion;
+		this.origin = origin;
+		this.kind = kind;
+		this.packageSourceUrl = packageSourceUrl;
+		this.packageHomeUrl = packageHomeUrl;
+		this.tags = tags;
+		this.maintainer = maintainer;
+		this.description = description;
+		this.sha256 = sha256;
+		this.iconUrl = iconUrl;
+		this.stale = stale;
+	}
+
+	public Long getId() {
+		return id;
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	public String getVersion() {
+		return version;
+	}
+
+	public String getTags() {
+		return tags;
+	}
+
+	public String getMaintainer() {
+		return maintainer;
+	}
+
+	public String getDescription() {
+		return description;
+	}
+
+	public String getSha256() {
+		return sha256;
+	}
+
+	public String getIconUrl() {
+		return iconUrl;
+	}
+
+	public boolean isStale() {
+		return stale;
+	}
+
+	/**
+	 * Return whether the stored entry is up to date with the given index entry. A digest
+	 * recorded locally is kept when the index does not declare one.
+	 * @param indexEntry the package metadata read from the repository index
+	 * @return {@literal true} if none of the indexed fields changed
+	 */
+	public boolean matches(PackageMetadata indexEntry) {
+		return ObjectUtils.nullSafeEquals(this.apiVersion, indexEntry.getApiVersion())
+				&& ObjectUtils.nullSafeEquals(this.origin, indexEntry.getOrigin())
+				&& ObjectUtils.nullSafeEquals(this.kind, indexEntry.getKind())
+				&& ObjectUtils.nullSafeEquals(this.packageSourceUrl, indexEntry.getPackageSourceUrl())
+				&& ObjectUtils.nullSafeEquals(this.packageHomeUrl, indexEntry.getPackageHomeUrl())
+				&& ObjectUtils.nullSafeEquals(this.tags, indexEntry.getTags())
+				&& ObjectUtils.nullSafeEquals(this.maintainer, indexEntry.getMaintainer())
+				&& ObjectUtils.nullSafeEquals(this.description, indexEntry.getDescription())
+				&& ObjectUtils.nullSafeEquals(this.iconUrl, indexEntry.getIconUrl())
+				&& (!StringUtils.hasText(indexEntry.getSha256())
+						|| indexEntry.getSha256().equalsIgnoreCase(this.sha256));
+	}
+}
@@ -15,12 +15,17 @@
  */
 package org.springframework.cloud.skipper.server.repository;
 
+import java.util.Collection;
 import java.util.List;
 
 import org.springframework.cloud.skipper.domain.PackageMetadata;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.PagingAndSortingRepository;
 import org.springframework.data.repository.query.Param;
 import org.springframework.data.rest.core.annotation.RepositoryRestResource;
+import org.springframework.data.rest.core.annotation.RestResource;
 
 /**
  * @author Mark Pollack
@@ -38,10 +43,61 @@ public interface PackageMetadataRepository extends PagingAndSortingRepository<Pa
 	List<PackageMetadata> findByNameAndVersionOrderByApiVersionDesc(@Param("name") String name,
 			@Param("version") String version);
 
-	PackageMetadata findFirstByNameOrderByVersionDesc(@Param("name") String name);
+	@RestResource(exported = false)
+	List<PackageMetadata> findByNameAndVersionAndStaleFalseOrderByApiVersionDesc(@Param("name") String name,
+			@Param("version") String version);
+
+	/**
+	 * Find the {@link PackageMetadata} with the given name and version that belongs to a
+	 * known repository and is not stale, from the repository with the highest order first.
+	 * @param name the name of the package
+	 * @param version the version of the package
+	 * @param pageable the page to return, typically only the first result
+	 * @return the package metadata ordered by repository order and api version
+	 */
+	@RestResource(exported = false)
+	@Query("select p from PackageMetadata p, Repository r where p.repositoryId = r.id "
+			+ "and p.name = :name and p.version = :version and p.stale = false "
+			+ "order by r.repoOrder desc, p.apiVersion desc")
+	List<PackageMetadata> findByNameAndVersionOrderByRepoOrderDesc(@Param("name") String name,
+			@Param("version") String version, Pageable pageable);
+
+	/**
+	 * Find the latest version of the package with the given name that is not stale. Keeps
+	 * the search path of the lexically ordered query it replaces.
+	 * @param name the name of the package
+	 * @return the latest package metadata by semantic version order
+	 */
+	@RestResource(path = "findFirstByNameOrderByVersionDesc", rel = "findFirstByNameOrderByVersionDesc")
+	PackageMetadata findFirstByNameAndStaleFalseOrderByVersionSortKeyDesc(@Param("name") String name);
+
+	@RestResource(exported = false)
+	List<PackageMetadata> findByNameAndStaleFalseAndVersionSortKeyBetweenOrderByVersionSortKeyDesc(
+			@Param("name") String name,
+			@Param("fromVersionSortKey") String fromVersionSortKey,
+			@Param("toVersionSortKey") String toVersionSortKey);
+
+	@RestResource(exported = false)
+	List<PackageMetadata> findByVersionSortKeyIsNull();
 
 	PackageMetadata findByRepositoryIdAndNameAndVersion(@Param("repositoryId") Long repositoryId,
 														@Param("name") String name,
 														@Param("version") String version);
 
+	@RestResource(exported = false)
+	@Query("select p.packageFile from PackageMetadata p where p.sha256 = :sha256 and p.packageFile is not null")
+	List<byte[]> findPackageFilesBySha256(@Param("sha256") String sha256, Pageable pageable);
+
+	@RestResource(exported = false)
+	@Query("select new org.springframework.cloud.skipper.server.repository.PackageMetadataIndexEntry("
+			+ "p.id, p.name, p.version, p.apiVersion, p.origin, p.kind, p.packageSourceUrl, p.packageHomeUrl, "
+			+ "p.tags, p.maintainer, p.description, p.sha256, p.iconUrl, p.stale) "
+			+ "from PackageMetadata p where p.repositoryId = :repositoryId")
+	List<PackageMetadataIndexEntry> findIndexEntriesByRepositoryId(@Param("repositoryId") Long repositoryId);
+
+	@RestResource(exported = false)
+	@Modifying
+	@Query("update PackageMetadata p set p.stale = true, p.objectVersion = p.objectVersion + 1 where p.id in :ids")
+	int markStale(@Param("ids") Collection<Long> ids);
+
 }
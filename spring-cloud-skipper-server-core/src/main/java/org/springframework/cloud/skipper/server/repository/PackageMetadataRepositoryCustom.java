@@ -28,7 +28,7 @@ public interface PackageMetadataRepositoryCustom {
 
 	/**
 	 * Find the {@link PackageMetadata} with the given name, version and also from the
-	 * repository that has the highest order set.
+	 * repository that has the highest order set. Stale package metadata is never returned.
 	 *
 	 * @param name the name of the package metadata
 	 * @param version the version of the package metadata
@@ -49,7 +49,8 @@ public interface PackageMetadataRepositoryCustom {
 	/**
 	 * Find the {@link PackageMetadata} given the package name and version. If packageVersion
 	 * is specified, delegate to findByNameAndVersionByMaxRepoOrder, otherwise delegate to
-	 * findFirstByNameOrderByVersionDesc. Throw an e
+	 * findFirstByNameAndStaleFalseOrderByVersionSortKeyDesc to find the latest version by
+	 * semantic version precedence. Stale package metadata is never returned.
 	 * @param packageName the name of the package
 	 * @param packageVersion the version, maybe empty.
 	 * @return the package metadata
@@ -58,4 +59,14 @@ public interface PackageMetadataRepositoryCustom {
 	 */
 	PackageMetadata findByNameAndOptionalVersionRequired(String packageName, String packageVersion);
 
+	/**
+	 * Find the {@link PackageMetadata} of the given package name whose version is within
+	 * the given range by semantic version precedence.
+	 * @param packageName the name of the package
+	 * @param fromVersion the lowest version to include
+	 * @param toVersion the highest version to include
+	 * @return the package metadata, latest version first
+	 */
+	List<PackageMetadata> findByNameAndVersionRange(String packageName, String fromVersion, String toVersion);
+
 }
@@ -20,7 +20,9 @@ import java.util.List;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.cloud.skipper.SkipperException;
 import org.springframework.cloud.skipper.domain.PackageMetadata;
-import org.springframework.cloud.skipper.domain.Repository;
+import org.springframework.cloud.skipper.domain.SemanticVersion;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.util.Assert;
 import org.springframework.util.StringUtils;
 
@@ -31,35 +33,22 @@ import org.springframework.util.StringUtils;
  */
 public class PackageMetadataRepositoryImpl implements PackageMetadataRepositoryCustom {
 
-	@Autowired
-	private PackageMetadataRepository packageMetadataRepository;
+	private static final Pageable FIRST_RESULT = new PageRequest(0, 1);
 
 	@Autowired
-	private RepositoryRepository repositoryRepository;
+	private PackageMetadataRepository packageMetadataRepository;
 
 	@Override
 	public PackageMetadata findByNameAndVersionByMaxRepoOrder(String packageName, String packageVersion) {
 		List<PackageMetadata> packageMetadataList = this.packageMetadataRepository
-				.findByNameAndVersionOrderByApiVersionDesc(packageName,
-						packageVersion);
-		if (packageMetadataList.size() == 0) {
-			return null;
-		}
-		if (packageMetadataList.size() == 1) {
-			return packageMetadataList.get(0);
+				.findByNameAndVersionOrderByRepoOrderDesc(packageName, packageVersion, FIRST_RESULT);
+		if (packageMetadataList.isEmpty()) {
+			// if no repoId matches, then return the first package that matches (which has the highest
+			// api version set).
+			packageMetadataList = this.packageMetadataRepository
+					.findByNameAndVersionAndStaleFalseOrderByApiVersionDesc(packageName, packageVersion);
 		}
-		List<Repository> repositoriesByRepoOrder = this.repositoryRepository.findAllByOrderByRepoOrderDesc();
-		for (Repository repository : repositoriesByRepoOrder) {
-			Long repoId = repository.getId();
-			for (PackageMetadata packageMetadata : packageMetadataList) {
-				if ((packageMetadata.getRepositoryId() != null) && packageMetadata.getRepositoryId().equals(repoId)) {
-					return packageMetadata;
-				}
-			}
-		}
-		// if no repoId matches, then return the first package that matches (which has the highest
-		// api version set).
-		return packageMetadataList.get(0);
+		return packageMetadataList.isEmpty() ? null : packageMetadataList.get(0);
 	}
 
 	@Override
@@ -80,12 +69,23 @@ public class PackageMetadataRepositoryImpl implements PackageMetadataRepositoryC
 					packageVersion);
 		}
 		else {
-			packageMetadata = this.packageMetadataRepository.findFirstByNameOrderByVersionDesc(packageName);
+			packageMetadata = this.packageMetadataRepository.findFirstByNameAndStaleFalseOrderByVersionSortKeyDesc(packageName);
 		}
 		if (packageMetadata == null) {
-			throw new SkipperException(String.format("Can not find package '%s', version '%s'", packageName,
-					packageVersion));
+			throw new SkipperException(StringUtils.hasText(packageVersion)
+					? String.format("Can not find package '%s', version '%s'", packageName, packageVersion)
+					: String.format("Can not find a package named '%s'", packageName));
 		}
 		return packageMetadata;
 	}
+
+	@Override
+	public List<PackageMetadata> findByNameAndVersionRange(String packageName, String fromVersion,
+			String toVersion) {
+		Assert.isTrue(StringUtils.hasText(fromVersion), "From version must not be empty");
+		Assert.isTrue(StringUtils.hasText(toVersion), "To version must not be empty");
+		return this.packageMetadataRepository.findByNameAndStaleFalseAndVersionSortKeyBetweenOrderByVersionSortKeyDesc(
+				packageName, SemanticVersion.parse(fromVersion).toSortKey(),
+				SemanticVersion.parse(toVersion).toSortKey());
+	}
 }
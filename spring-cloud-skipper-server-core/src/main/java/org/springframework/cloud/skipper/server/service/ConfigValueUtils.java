@@ -15,6 +15,9 @@
  */
 package org.springframework.cloud.skipper.server.service;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.TreeMap;
@@ -24,15 +27,28 @@ import org.yaml.snakeyaml.Yaml;
 import org.springframework.cloud.skipper.SkipperException;
 import org.springframework.cloud.skipper.domain.ConfigValues;
 import org.springframework.cloud.skipper.domain.Package;
+import org.springframework.cloud.skipper.server.util.DigestKeyedCache;
 import org.springframework.util.StringUtils;
 
 /**
  * Utility methods for merging of configuration values.
+ * <p>
+ * The values of a package are parsed once per distinct {@code values.yml} content, keyed by
+ * its SHA-256 digest, into a deeply unmodifiable map. Each merge works on a deep copy of the
+ * cached map, copying only maps and lists, so the cached values are never modified.
  * @author Mark Pollack
  */
 @SuppressWarnings("unchecked")
 public class ConfigValueUtils {
 
+	/**
+	 * The maximum number of parsed package values kept in the cache.
+	 */
+	public static final int VALUES_CACHE_SIZE = 256;
+
+	private static final DigestKeyedCache<Map<String, Object>> VALUES_CACHE = new DigestKeyedCache<>(
+			VALUES_CACHE_SIZE);
+
 	/**
 	 * Merge configuration values from the Package and values passed at runtime. Values passed
 	 * at runtime override those specified in the package. The ConfigValue string is assumed
@@ -49,22 +65,18 @@ public class ConfigValueUtils {
 	 */
 	public static Map<String, Object> mergeConfigValues(Package pkg, ConfigValues overrideValues) {
 		// parse ConfigValues to a map.
-		Yaml yaml = new Yaml();
 		Map<String, Object> mergedValues;
 		// merge top level override values on top level package values
-		if (StringUtils.hasText(overrideValues.getRaw())) {
-			Object data = yaml.load(overrideValues.getRaw());
-			if (data instanceof Map) {
-				Map<String, Object> overrideMap = (Map<String, Object>) yaml.load(overrideValues.getRaw());
-				mergedValues = mergeOverrideMap(pkg, overrideMap);
-			}
-			else {
-				throw new SkipperException("Was expecting override values to produce a Map, instead got class = " +
-						data.getClass() + "overrideValues.getRaw() = " + overrideValues.getRaw());
-			}
+		Object data = StringUtils.hasText(overrideValues.getRaw()) ? new Yaml().load(overrideValues.getRaw()) : null;
+		if (data == null) {
+			mergedValues = mergeOverrideMap(pkg, new TreeMap<>());
+		}
+		else if (data instanceof Map) {
+			mergedValues = mergeOverrideMap(pkg, (Map<String, Object>) data);
 		}
 		else {
-			mergedValues = mergeOverrideMap(pkg, new TreeMap<>());
+			throw new SkipperException("Was expecting override values to produce a Map, instead got class = " +
+					data.getClass() + "overrideValues.getRaw() = " + overrideValues.getRaw());
 		}
 		// return mergedValues;
 		return mergePackagesIncludingDependencies(pkg, mergedValues);
@@ -79,36 +91,17 @@ public class ConfigValueUtils {
 	 * @return A merged map of package configuration values and runtime override values.
 	 */
 	public static Map<String, Object> mergeOverrideMap(Package pkg, Map<String, Object> overrideMap) {
-		// if the package does not have any values, return just the override values.
-		if (pkg.getConfigValues() == null || (pkg.getConfigValues() != null &&
-				!StringUtils.hasText(pkg.getConfigValues().getRaw()))) {
-			return overrideMap;
-		}
 		// load the package values
-		Yaml yaml = new Yaml();
-		Object object = yaml.load(pkg.getConfigValues().getRaw());
-		if (object == null) {
-			// Config Values could have been file with comments only, no data.
+		Map<String, Object> packageValueMap = loadPackageValues(pkg);
+		// if the package does not have any values, return just the override values.
+		// Config Values could have been file with comments only, no data.
+		if (packageValueMap.isEmpty()) {
 			return overrideMap;
 		}
-		Map<String, Object> packageValueMap;
-		if (object instanceof Map) {
-			packageValueMap = (Map<String, Object>) object;
-		}
-		else {
-			throw new SkipperException("Config Values that are not a map are not yet supported.");
-		}
 
 		// exclude dependency values from being merged into the current packages' values
-		if (packageValueMap != null) {
-			for (Package dependency : pkg.getDependencies()) {
-				if (packageValueMap.containsKey(dependency.getMetadata().getName())) {
-					packageValueMap.remove(dependency.getMetadata().getName());
-				}
-			}
-		}
-		else {
-			packageValueMap = new TreeMap<>();
+		for (Package dependency : pkg.getDependencies()) {
+			packageValueMap.remove(dependency.getMetadata().getName());
 		}
 
 		merge(packageValueMap, overrideMap);
@@ -160,15 +153,67 @@ public class ConfigValueUtils {
 	}
 
 	private static Map<String, Object> convertConfigValuesToMap(Package pkg) {
-		Yaml yaml = new Yaml();
-		Map<String, Object> currentPackageValueMap = new TreeMap<>();
-		if (pkg.getConfigValues() != null && StringUtils.hasText(pkg.getConfigValues().getRaw())) {
-			currentPackageValueMap = (Map<String, Object>) yaml.load(pkg.getConfigValues().getRaw());
+		Map<String, Object> currentPackageValueMap = loadPackageValues(pkg);
+		return currentPackageValueMap.isEmpty() ? new TreeMap<>() : currentPackageValueMap;
+	}
+
+	/**
+	 * Return a modifiable deep copy of the parsed values of the package, parsing the values
+	 * only if the same content is not cached yet.
+	 * @param pkg the package
+	 * @return the values of the package, empty if the package has no values
+	 */
+	static Map<String, Object> loadPackageValues(Package pkg) {
+		if (pkg.getConfigValues() == null || !StringUtils.hasText(pkg.getConfigValues().getRaw())) {
+			return new LinkedHashMap<>();
+		}
+		Map<String, Object> packageValues = VALUES_CACHE.get(pkg.getConfigValues().getRaw(),
+				ConfigValueUtils::parsePackageValues);
+		return (Map<String, Object>) modifiableCopy(packageValues);
+	}
+
+	private static Map<String, Object> parsePackageValues(String raw) {
+		Object object = new Yaml().load(raw);
+		if (object != null && !(object instanceof Map)) {
+			throw new SkipperException("Config Values that are not a map are not yet supported.");
+		}
+		return (object == null) ? Collections.emptyMap() : (Map<String, Object>) unmodifiableCopy(object);
+	}
+
+	private static Object unmodifiableCopy(Object value) {
+		if (value instanceof Map) {
+			Map<Object, Object> copy = new LinkedHashMap<>();
+			for (Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+				copy.put(entry.getKey(), unmodifiableCopy(entry.getValue()));
+			}
+			return Collections.unmodifiableMap(copy);
+		}
+		if (value instanceof List) {
+			List<Object> copy = new ArrayList<>();
+			for (Object element : (List<?>) value) {
+				copy.add(unmodifiableCopy(element));
+			}
+			return Collections.unmodifiableList(copy);
 		}
-		if (currentPackageValueMap == null) {
-			currentPackageValueMap = new TreeMap<>();
+		return value;
+	}
+
+	private static Object modifiableCopy(Object value) {
+		if (value instanceof Map) {
+			Map<Object, Object> copy = new LinkedHashMap<>();
+			for (Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+				copy.put(entry.getKey(), modifiableCopy(entry.getValue()));
+			}
+			return copy;
+		}
+		if (value instanceof List) {
+			List<Object> copy = new ArrayList<>();
+			for (Object element : (List<?>) value) {
+				copy.add(modifiableCopy(element));
+			}
+			return copy;
 		}
-		return currentPackageValueMap;
+		return value;
 	}
 
 	/**
@@ -15,20 +15,49 @@
  */
 package org.springframework.cloud.skipper.server.service;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.TreeMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
 
 import com.samskivert.mustache.Mustache;
 
 import org.springframework.cloud.skipper.domain.Package;
 import org.springframework.cloud.skipper.domain.Template;
+import org.springframework.cloud.skipper.server.util.DigestKeyedCache;
 
 /**
+ * Compiled templates are cached by the SHA-256 digest of their content, so identical
+ * template text shared by releases, upgrades, reports and rollbacks is only parsed once.
+ * The cache is bounded to {@link #TEMPLATE_CACHE_SIZE} templates, least recently used
+ * evicted first.
+ * <p>
+ * Packages with at least {@link #PARALLEL_THRESHOLD} dependencies have their dependency
+ * subtrees rendered concurrently on the common fork/join pool. The rendered subtrees are
+ * appended in the order of the dependencies, so the manifest is identical to a sequential
+ * render.
+ *
  * @author Mark Pollack
  */
 public class ManifestUtils {
 
+	/**
+	 * The maximum number of compiled templates kept in the cache.
+	 */
+	public static final int TEMPLATE_CACHE_SIZE = 512;
+
+	/**
+	 * The minimum number of dependencies of a package to render them concurrently.
+	 */
+	public static final int PARALLEL_THRESHOLD = 4;
+
+	private static final Mustache.Compiler COMPILER = Mustache.compiler();
+
+	private static final DigestKeyedCache<com.samskivert.mustache.Template> TEMPLATE_CACHE = new DigestKeyedCache<>(
+			TEMPLATE_CACHE_SIZE);
+
 	/**
 	 * Iterate overall the template files, replacing placeholders with model values. One
 	 * string is returned that contain all the YAML of multiple files using YAML file
@@ -38,34 +67,91 @@ public class ManifestUtils {
 	 * @param model The placeholder values.
 	 * @return A YAML string containing all the templates with replaced values.
 	 */
-	@SuppressWarnings("unchecked")
 	public static String createManifest(Package packageToDeploy, Map<String, Object> model) {
+		if (packageToDeploy.getDependencies().size() >= PARALLEL_THRESHOLD) {
+			return ForkJoinPool.commonPool().invoke(new ManifestTask(packageToDeploy, model));
+		}
 
 		// Aggregate all valid manifests into one big doc.
 		StringBuilder sb = new StringBuilder();
 		// Top level templates.
-		List<Template> templates = packageToDeploy.getTemplates();
+		renderTemplates(packageToDeploy, model, sb);
+
+		for (Package pkg : packageToDeploy.getDependencies()) {
+			sb.append(createManifest(pkg, modelForDependency(pkg, model)));
+		}
+
+		return sb.toString();
+	}
+
+	private static void renderTemplates(Package pkg, Map<String, Object> model, StringBuilder sb) {
+		List<Template> templates = pkg.getTemplates();
 		if (templates != null) {
 			for (Template template : templates) {
-				String templateAsString = new String(template.getData());
-				com.samskivert.mustache.Template mustacheTemplate = Mustache.compiler().compile(templateAsString);
+				com.samskivert.mustache.Template mustacheTemplate = compile(template.getData());
 				sb.append("\n---\n# Source: " + template.getName() + "\n");
 				sb.append(mustacheTemplate.execute(model));
 			}
 		}
+	}
 
-		for (Package pkg : packageToDeploy.getDependencies()) {
-			String packageName = pkg.getMetadata().getName();
-			Map<String, Object> modelForDependency;
-			if (model.containsKey(packageName)) {
-				modelForDependency = (Map<String, Object>) model.get(pkg.getMetadata().getName());
+	@SuppressWarnings("unchecked")
+	private static Map<String, Object> modelForDependency(Package dependency, Map<String, Object> model) {
+		String packageName = dependency.getMetadata().getName();
+		if (model.containsKey(packageName)) {
+			return (Map<String, Object>) model.get(packageName);
+		}
+		return new TreeMap<>();
+	}
+
+	/**
+	 * Return the compiled template for the given template text, compiling it only if the
+	 * same text is not cached yet.
+	 * @param templateAsString the template text
+	 * @return the compiled template
+	 */
+	static com.samskivert.mustache.Template compile(String templateAsString) {
+		// Compiled templates are immutable, a concurrent compile of the same text is harmless
+		return TEMPLATE_CACHE.get(templateAsString, COMPILER::compile);
+	}
+
+	/**
+	 * Return the number of compiled templates currently cached.
+	 * @return the number of cached templates
+	 */
+	static long cachedTemplateCount() {
+		return TEMPLATE_CACHE.size();
+	}
+
+	/**
+	 * Renders a package and all its dependencies, forking a task per dependency.
+	 */
+	@SuppressWarnings("serial")
+	private static class ManifestTask extends RecursiveTask<String> {
+
+		private final Package pkg;
+
+		private final Map<String, Object> model;
+
+		ManifestTask(Package pkg, Map<String, Object> model) {
+			this.pkg = pkg;
+			this.model = model;
+		}
+
+		@Override
+		protected String compute() {
+			StringBuilder sb = new StringBuilder();
+			renderTemplates(this.pkg, this.model, sb);
+			List<ManifestTask> tasks = new ArrayList<>();
+			for (Package dependency : this.pkg.getDependencies()) {
+				tasks.add(new ManifestTask(dependency, modelForDependency(dependency, this.model)));
 			}
-			else {
-				modelForDependency = new TreeMap<>();
+			invokeAll(tasks);
+			// Append in the order of the dependencies, regardless of completion order
+			for (ManifestTask task : tasks) {
+				sb.append(task.join());
 			}
-			sb.append(createManifest(pkg, modelForDependency));
+			return sb.toString();
 		}
-
-		return sb.toString();
 	}
 }
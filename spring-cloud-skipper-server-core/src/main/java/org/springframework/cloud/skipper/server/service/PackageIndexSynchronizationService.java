@@ -0,0 +1,167 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.cloud.skipper.server.service;
+
+import java.util.Date;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.cloud.skipper.domain.Repository;
+import org.springframework.cloud.skipper.server.repository.RepositoryRepository;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.util.Assert;
+
+/**
+ * Synchronizes the package metadata stored for remote repositories with their indexes in
+ * the background, so that server startup does not wait on remote repositories and
+ * packages published upstream become visible without a restart. Until the first
+ * synchronization completes the package metadata persisted by the previous one is served.
+ *
+ * Synchronizations run one at a time on a dedicated thread, either periodically or when
+ * requested through {@link #requestSynchronization()}, requests made while a requested
+ * synchronization is waiting to run share it. The time and duration of the last
+ * successful synchronization is recorded on each {@link Repository}, and the
+ * {@link PackageSearchIndex} entries of a repository are refreshed once it is reconciled.
+ */
+public class PackageIndexSynchronizationService implements DisposableBean {
+
+	private final Logger logger = LoggerFactory.getLogger(PackageIndexSynchronizationService.class);
+
+	private final PackageMetadataService packageMetadataService;
+
+	private final PackageMetadataReconciler packageMetadataReconciler;
+
+	private final PackageSearchIndex packageSearchIndex;
+
+	private final RepositoryRepository repositoryRepository;
+
+	private final ScheduledExecutorService scheduledExecutorService = Executors
+			.newSingleThreadScheduledExecutor(new CustomizableThreadFactory("skipper-index-refresh-"));
+
+	private final AtomicBoolean synchronizationPending = new AtomicBoolean();
+
+	private final Object requestMonitor = new Object();
+
+	private Future<?> pendingSynchronization;
+
+	public PackageIndexSynchronizationService(PackageMetadataService packageMetadataService,
+			PackageMetadataReconciler packageMetadataReconciler,
+			PackageSearchIndex packageSearchIndex,
+			RepositoryRepository repositoryRepository) {
+		Assert.notNull(packageMetadataService, "'packageMetadataService' must be set");
+		Assert.notNull(packageMetadataReconciler, "'packageMetadataReconciler' must be set");
+		Assert.notNull(packageSearchIndex, "'packageSearchIndex' must be set");
+		Assert.notNull(repositoryRepository, "'repositoryRepository' must be set");
+		this.packageMetadataService = packageMetadataService;
+		this.packageMetadataReconciler = packageMetadataReconciler;
+		this.packageSearchIndex = packageSearchIndex;
+		this.repositoryRepository = repositoryRepository;
+	}
+
+	/**
+	 * Schedule periodic synchronization of all repository indexes.
+	 * @param initialDelay the delay in milliseconds before the first synchronization
+	 * @param interval the interval in milliseconds between the end of one synchronization
+	 * and the start of the next, periodic synchronization is disabled if not positive
+	 */
+	public void schedule(long initialDelay, long interval) {
+		if (interval > 0) {
+			logger.info("Scheduling package index synchronization every {}ms", interval);
+			this.scheduledExecutorService.scheduleWithFixedDelay(this::synchronizeQuietly, initialDelay, interval,
+					TimeUnit.MILLISECONDS);
+		}
+		else if (initialDelay >= 0) {
+			this.scheduledExecutorService.schedule(this::synchronizeQuietly, initialDelay, TimeUnit.MILLISECONDS);
+		}
+	}
+
+	/**
+	 * Request a synchronization of all repository indexes in the background. If a
+	 * synchronization is already running the request runs once it completes, if one is
+	 * waiting to run already the request is coalesced with it.
+	 * @return a future completing when the requested synchronization is done
+	 */
+	public Future<?> requestSynchronization() {
+		synchronized (this.requestMonitor) {
+			if (this.synchronizationPending.compareAndSet(false, true)) {
+				this.pendingSynchronization = this.scheduledExecutorService
+						.submit(this::synchronizeRequested);
+			}
+			return this.pendingSynchronization;
+		}
+	}
+
+	/**
+	 * Synchronize all repository indexes on the calling thread.
+	 */
+	public synchronized void synchronize() {
+		long startTime = System.currentTimeMillis();
+		int synchronizedRepositories = 0;
+		for (RepositoryIndex repositoryIndex : this.packageMetadataService.downloadRepositoryIndexes()) {
+			Repository repository = repositoryIndex.getRepository();
+			long reconcileStartTime = System.currentTimeMillis();
+			try {
+				this.packageMetadataReconciler.reconcile(repository.getId(), repositoryIndex.getPackageMetadata());
+				this.packageSearchIndex.reindexRepository(repository.getId());
+				recordSynchronization(repository.getId(), repositoryIndex.getDownloadDuration()
+						+ System.currentTimeMillis() - reconcileStartTime);
+				synchronizedRepositories++;
+			}
+			catch (RuntimeException e) {
+				logger.warn("Could not synchronize package index of repository " + repository.getName(), e);
+			}
+		}
+		logger.info("Synchronized package index of {} repositories in {}ms", synchronizedRepositories,
+				System.currentTimeMillis() - startTime);
+	}
+
+	private void synchronizeRequested() {
+		// changes made from now on are only seen by another synchronization
+		this.synchronizationPending.set(false);
+		synchronizeQuietly();
+	}
+
+	private void synchronizeQuietly() {
+		try {
+			synchronize();
+		}
+		catch (RuntimeException e) {
+			// don't let the exception cancel further scheduled runs
+			logger.warn("Could not synchronize package indexes", e);
+		}
+	}
+
+	private void recordSynchronization(Long repositoryId, long duration) {
+		Repository repository = this.repositoryRepository.findOne(repositoryId);
+		if (repository != null) {
+			repository.setLastSynchronized(new Date());
+			repository.setLastSynchronizationDuration(duration);
+			this.repositoryRepository.save(repository);
+		}
+	}
+
+	@Override
+	public void destroy() {
+		this.scheduledExecutorService.shutdownNow();
+	}
+}
@@ -0,0 +1,124 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.cloud.skipper.server.service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.springframework.cloud.skipper.domain.PackageMetadata;
+import org.springframework.cloud.skipper.server.repository.PackageMetadataIndexEntry;
+import org.springframework.cloud.skipper.server.repository.PackageMetadataRepository;
+import org.springframework.cloud.skipper.server.util.Sha256Digests;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.util.StringUtils;
+
+/**
+ * Reconciles the stored package metadata of a repository with the entries of its index.
+ *
+ * The stored {@literal (name, version)} keys of the repository are loaded in one query and
+ * compared with the index. New entries are inserted, entries whose indexed fields changed
+ * upstream are updated and entries no longer listed in the index are marked stale. Writes
+ * are left to the JPA provider to flush at commit, so they are sent as JDBC batches when
+ * {@literal hibernate.jdbc.batch_size} is set.
+ */
+public class PackageMetadataReconciler {
+
+	private static final int STALE_UPDATE_CHUNK_SIZE = 500;
+
+	private final Logger logger = LoggerFactory.getLogger(PackageMetadataReconciler.class);
+
+	private final PackageMetadataRepository packageMetadataRepository;
+
+	public PackageMetadataReconciler(PackageMetadataRepository packageMetadataRepository) {
+		this.packageMetadataRepository = packageMetadataRepository;
+	}
+
+	/**
+	 * Reconcile the stored package metadata of a repository with its index.
+	 * @param repositoryId the id of the repository
+	 * @param indexEntries the package metadata read from the repository index
+	 */
+	@Transactional
+	public void reconcile(Long repositoryId, List<PackageMetadata> indexEntries) {
+		Map<List<String>, PackageMetadataIndexEntry> storedEntries = new HashMap<>();
+		for (PackageMetadataIndexEntry storedEntry : this.packageMetadataRepository
+				.findIndexEntriesByRepositoryId(repositoryId)) {
+			storedEntries.put(Arrays.asList(storedEntry.getName(), storedEntry.getVersion()), storedEntry);
+		}
+		List<PackageMetadata> inserts = new ArrayList<>();
+		Map<Long, PackageMetadata> updates = new HashMap<>();
+		Set<List<String>> indexedKeys = new HashSet<>();
+		for (PackageMetadata indexEntry : indexEntries) {
+			List<String> key = Arrays.asList(indexEntry.getName(), indexEntry.getVersion());
+			if (indexedKeys.add(key)) {
+				PackageMetadataIndexEntry storedEntry = storedEntries.remove(key);
+				if (storedEntry == null) {
+					inserts.add(indexEntry);
+				}
+				else if (storedEntry.isStale() || !storedEntry.matches(indexEntry)) {
+					updates.put(storedEntry.getId(), indexEntry);
+				}
+			}
+		}
+		List<Long> removedIds = new ArrayList<>();
+		for (PackageMetadataIndexEntry storedEntry : storedEntries.values()) {
+			if (!storedEntry.isStale()) {
+				removedIds.add(storedEntry.getId());
+			}
+		}
+		for (int i = 0; i < removedIds.size(); i += STALE_UPDATE_CHUNK_SIZE) {
+			this.packageMetadataRepository.markStale(
+					removedIds.subList(i, Math.min(i + STALE_UPDATE_CHUNK_SIZE, removedIds.size())));
+		}
+		if (!updates.isEmpty()) {
+			for (PackageMetadata storedPackageMetadata : this.packageMetadataRepository.findAll(updates.keySet())) {
+				update(storedPackageMetadata, updates.get(storedPackageMetadata.getId()));
+			}
+		}
+		if (!inserts.isEmpty()) {
+			this.packageMetadataRepository.save(inserts);
+		}
+		logger.info("Reconciled index of repository with id {}: {} added, {} updated, {} marked stale",
+				repositoryId, inserts.size(), updates.size(), removedIds.size());
+	}
+
+	private void update(PackageMetadata storedPackageMetadata, PackageMetadata indexEntry) {
+		storedPackageMetadata.setApiVersion(indexEntry.getApiVersion());
+		storedPackageMetadata.setOrigin(indexEntry.getOrigin());
+		storedPackageMetadata.setKind(indexEntry.getKind());
+		storedPackageMetadata.setPackageSourceUrl(indexEntry.getPackageSourceUrl());
+		storedPackageMetadata.setPackageHomeUrl(indexEntry.getPackageHomeUrl());
+		storedPackageMetadata.setTags(indexEntry.getTags());
+		storedPackageMetadata.setMaintainer(indexEntry.getMaintainer());
+		storedPackageMetadata.setDescription(indexEntry.getDescription());
+		storedPackageMetadata.setIconUrl(indexEntry.getIconUrl());
+		storedPackageMetadata.setStale(false);
+		if (StringUtils.hasText(indexEntry.getSha256())
+				&& !Sha256Digests.matches(indexEntry.getSha256(), storedPackageMetadata.getSha256())) {
+			// Package content changed upstream, drop the cached file so it is downloaded again
+			storedPackageMetadata.setSha256(indexEntry.getSha256());
+			storedPackageMetadata.setPackageFileBytes(null);
+		}
+	}
+}
@@ -16,15 +16,20 @@
 package org.springframework.cloud.skipper.server.service;
 
 import java.io.File;
-import java.io.FileOutputStream;
 import java.io.IOException;
-import java.net.URI;
-import java.nio.file.Path;
+import java.io.InputStream;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 import com.fasterxml.jackson.databind.DeserializationFeature;
 import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectReader;
 import com.fasterxml.jackson.dataformat.yaml.YAMLMapper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -32,28 +37,35 @@ import org.slf4j.LoggerFactory;
 import org.springframework.cloud.skipper.SkipperException;
 import org.springframework.cloud.skipper.domain.PackageMetadata;
 import org.springframework.cloud.skipper.domain.Repository;
-import org.springframework.cloud.skipper.io.TempFileUtils;
+import org.springframework.cloud.skipper.server.config.SkipperServerProperties;
 import org.springframework.cloud.skipper.server.repository.RepositoryRepository;
-import org.springframework.context.ResourceLoaderAware;
 import org.springframework.core.io.Resource;
-import org.springframework.core.io.ResourceLoader;
-import org.springframework.util.FileSystemUtils;
-import org.springframework.util.StreamUtils;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
 
 /**
  * Downloads package metadata from known repositories.
  * @author Mark Pollack
  */
-public class PackageMetadataService implements ResourceLoaderAware {
+public class PackageMetadataService {
 
 	private final Logger logger = LoggerFactory.getLogger(PackageMetadataService.class);
 
 	private final RepositoryRepository repositoryRepository;
 
-	private ResourceLoader resourceLoader;
+	private final PackageRepositoryMirror packageRepositoryMirror;
 
-	public PackageMetadataService(RepositoryRepository repositoryRepository) {
+	private final SkipperServerProperties skipperServerProperties;
+
+	private final ObjectReader packageMetadataReader = new YAMLMapper()
+			.configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false)
+			.readerFor(PackageMetadata.class);
+
+	public PackageMetadataService(RepositoryRepository repositoryRepository,
+			PackageRepositoryMirror packageRepositoryMirror,
+			SkipperServerProperties skipperServerProperties) {
 		this.repositoryRepository = repositoryRepository;
+		this.packageRepositoryMirror = packageRepositoryMirror;
+		this.skipperServerProperties = skipperServerProperties;
 	}
 
 	/**
@@ -62,92 +74,99 @@ public class PackageMetadataService implements ResourceLoaderAware {
 	 */
 	public List<PackageMetadata> downloadPackageMetadata() {
 		List<PackageMetadata> finalMetadataList = new ArrayList<>();
-		Path targetPath = null;
+		for (RepositoryIndex repositoryIndex : downloadRepositoryIndexes()) {
+			finalMetadataList.addAll(repositoryIndex.getPackageMetadata());
+		}
+		return finalMetadataList;
+	}
+
+	/**
+	 * Download the indexes of all remote repositories concurrently. A repository whose index
+	 * can not be downloaded or parsed within the configured timeout is logged and left out of
+	 * the result, without affecting the other repositories.
+	 * @return the indexes of the repositories that were processed successfully, with package
+	 * metadata not yet persisted in the PackageMetadataRepository
+	 */
+	public List<RepositoryIndex> downloadRepositoryIndexes() {
+		List<RepositoryIndex> repositoryIndexes = new ArrayList<>();
+		List<Repository> remoteRepositories = new ArrayList<>();
+		for (Repository packageRepository : this.repositoryRepository.findAll()) {
+			if (!packageRepository.isLocal()) {
+				remoteRepositories.add(packageRepository);
+			}
+		}
+		if (remoteRepositories.isEmpty()) {
+			return repositoryIndexes;
+		}
+		int threads = Math.min(remoteRepositories.size(),
+				Math.max(1, this.skipperServerProperties.getRepositoryIndexSyncParallelism()));
+		long timeout = this.skipperServerProperties.getRepositoryIndexSyncTimeout();
+		ExecutorService executorService = Executors.newFixedThreadPool(threads,
+				new CustomizableThreadFactory("skipper-index-sync-"));
 		try {
-			targetPath = TempFileUtils.createTempDirectory("skipperIndex");
-			for (Repository packageRepository : this.repositoryRepository.findAll()) {
+			List<Future<RepositoryIndex>> futures = new ArrayList<>();
+			for (Repository packageRepository : remoteRepositories) {
+				futures.add(executorService.submit(() -> downloadRepositoryIndex(packageRepository)));
+			}
+			long startTime = System.currentTimeMillis();
+			for (int i = 0; i < remoteRepositories.size(); i++) {
+				Repository packageRepository = remoteRepositories.get(i);
+				Future<RepositoryIndex> future = futures.get(i);
+				// Repositories queued behind a full pool only start their timeout once a thread frees up
+				long deadline = startTime + timeout * (i / threads + 1);
 				try {
-					if (!packageRepository.isLocal()) {
-						Resource resource = resourceLoader.getResource(packageRepository.getUrl()
-								+ File.separator + "index.yml");
-						if (resource.exists()) {
-							logger.info("Downloading package metadata from " + resource);
-							File downloadedFile = new File(targetPath.toFile(), computeFilename(resource));
-							StreamUtils.copy(resource.getInputStream(), new FileOutputStream(downloadedFile));
-							List<File> downloadedFileAsList = new ArrayList<>();
-							downloadedFileAsList.add(downloadedFile);
-							List<PackageMetadata> downloadedPackageMetadata = deserializeFromIndexFiles(
-									downloadedFileAsList);
-							for (PackageMetadata packageMetadata : downloadedPackageMetadata) {
-								packageMetadata.setRepositoryId(packageRepository.getId());
-							}
-							finalMetadataList.addAll(downloadedPackageMetadata);
-						}
-						else {
-							logger.info("Package metadata index resource does not exist: "
-									+ resource.getDescription());
-						}
+					RepositoryIndex repositoryIndex = future.get(
+							Math.max(0, deadline - System.currentTimeMillis()), TimeUnit.MILLISECONDS);
+					if (repositoryIndex != null) {
+						repositoryIndexes.add(repositoryIndex);
 					}
 				}
-				catch (IOException e) {
-					throw new SkipperException("Could not process package file from " + packageRepository.getName(), e);
+				catch (TimeoutException e) {
+					future.cancel(true);
+					logger.warn("Timed out after " + timeout + "ms processing package index from repository "
+							+ packageRepository.getName());
+				}
+				catch (ExecutionException e) {
+					logger.warn("Could not process package index from repository " + packageRepository.getName(),
+							e.getCause());
 				}
 			}
 		}
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new SkipperException("Interrupted while downloading package metadata", e);
+		}
 		finally {
-			if (targetPath != null && !FileSystemUtils.deleteRecursively(targetPath.toFile())) {
-				logger.warn("Temporary directory can not be deleted: " + targetPath);
-			}
+			executorService.shutdownNow();
 		}
-		return finalMetadataList;
+		return repositoryIndexes;
 	}
 
-	protected List<PackageMetadata> deserializeFromIndexFiles(List<File> indexFiles) {
-		List<PackageMetadata> packageMetadataList = new ArrayList<>();
-		YAMLMapper yamlMapper = new YAMLMapper();
-		yamlMapper.configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
-		for (File indexFile : indexFiles) {
-			try {
-				MappingIterator<PackageMetadata> it = yamlMapper.readerFor(PackageMetadata.class).readValues(indexFile);
-				while (it.hasNextValue()) {
-					PackageMetadata packageMetadata = it.next();
-					packageMetadataList.add(packageMetadata);
-				}
-			}
-			catch (IOException e) {
-				throw new IllegalArgumentException("Can't parse Release manifest YAML", e);
-			}
+	private RepositoryIndex downloadRepositoryIndex(Repository packageRepository) throws IOException {
+		long startTime = System.currentTimeMillis();
+		String indexUrl = packageRepository.getUrl() + File.separator + "index.yml";
+		Resource resource = this.packageRepositoryMirror.getResource(indexUrl);
+		if (resource == null) {
+			logger.info("Package metadata index resource does not exist: " + indexUrl);
+			return null;
 		}
-		return packageMetadataList;
+		logger.info("Downloading package metadata from " + indexUrl);
+		List<PackageMetadata> packageMetadataList = deserializeFromIndex(resource);
+		for (PackageMetadata packageMetadata : packageMetadataList) {
+			packageMetadata.setRepositoryId(packageRepository.getId());
+		}
+		return new RepositoryIndex(packageRepository, packageMetadataList,
+				System.currentTimeMillis() - startTime);
 	}
 
-	// package protected for testing
-	String computeFilename(Resource resource) throws IOException {
-		URI uri = resource.getURI();
-		StringBuilder stringBuilder = new StringBuilder();
-		String scheme = uri.getScheme();
-		if (scheme.equals("file")) {
-			stringBuilder.append("file");
-			if (uri.getPath() != null) {
-				stringBuilder.append(uri.getPath().replaceAll("/", "_"));
-			}
-			else {
-				String relativeFilename = uri.getSchemeSpecificPart().replaceAll("^./", "/dot/");
-				stringBuilder.append(relativeFilename.replaceAll("/", "_"));
+	protected List<PackageMetadata> deserializeFromIndex(Resource indexResource) throws IOException {
+		List<PackageMetadata> packageMetadataList = new ArrayList<>();
+		try (InputStream inputStream = indexResource.getInputStream();
+				MappingIterator<PackageMetadata> it = this.packageMetadataReader.readValues(inputStream)) {
+			while (it.hasNextValue()) {
+				packageMetadataList.add(it.next());
 			}
 		}
-		else if (scheme.equals("http") || scheme.equals("https")) {
-			stringBuilder.append(uri.getHost()).append(uri.getPath().replaceAll("/", "_"));
-		}
-		else {
-			logger.warn("Package repository with scheme " + scheme
-					+ " is not supported.  Skipping processing this repository.");
-		}
-		return stringBuilder.toString();
-	}
-
-	@Override
-	public void setResourceLoader(ResourceLoader resourceLoader) {
-		this.resourceLoader = resourceLoader;
+		return packageMetadataList;
 	}
 }
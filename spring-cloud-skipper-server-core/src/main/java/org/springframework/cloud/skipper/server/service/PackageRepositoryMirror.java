@@ -0,0 +1,274 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.cloud.skipper.server.service;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.springframework.cloud.skipper.SkipperException;
+import org.springframework.cloud.skipper.server.util.Sha256Digests;
+import org.springframework.context.ResourceLoaderAware;
+import org.springframework.core.io.DefaultResourceLoader;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.util.Assert;
+import org.springframework.util.StreamUtils;
+import org.springframework.util.StringUtils;
+
+/**
+ * Keeps an on-disk mirror of the index and package files served by remote package
+ * repositories.
+ *
+ * Files served over http(s) are fetched with conditional GETs using the {@code ETag} and
+ * {@code Last-Modified} headers of the previous response, so an unchanged file is only
+ * transferred once. Each mirrored file is stored under a name derived from its URL
+ * together with a small properties file recording the validators and the SHA-256 digest
+ * of the content. Downloads are written to a temporary file and moved into place only
+ * once complete, so a failed transfer never replaces a good copy. If the remote
+ * repository can not be reached the last mirrored copy is served.
+ *
+ * Resources using any other scheme, e.g. {@literal file:} or {@literal classpath:}, are
+ * already local and are returned as is from the {@link ResourceLoader}.
+ */
+public class PackageRepositoryMirror implements ResourceLoaderAware {
+
+	private static final Logger logger = LoggerFactory.getLogger(PackageRepositoryMirror.class);
+
+	private static final String CONTENT_SUFFIX = ".content";
+
+	private static final String METADATA_SUFFIX = ".properties";
+
+	private static final String URL_KEY = "url";
+
+	private static final String ETAG_KEY = "etag";
+
+	private static final String LAST_MODIFIED_KEY = "lastModified";
+
+	private static final String SHA256_KEY = "sha256";
+
+	private final File mirrorDirectory;
+
+	private final int connectTimeout;
+
+	private final int readTimeout;
+
+	private final ConcurrentMap<String, Object> locks = new ConcurrentHashMap<>();
+
+	private ResourceLoader resourceLoader = new DefaultResourceLoader();
+
+	/**
+	 * Create a new mirror.
+	 * @param mirrorDirectory the directory to store mirrored files in, created if it does
+	 * not exist
+	 * @param connectTimeout the connect timeout in milliseconds for remote requests
+	 * @param readTimeout the read timeout in milliseconds for remote requests
+	 */
+	public PackageRepositoryMirror(File mirrorDirectory, int connectTimeout, int readTimeout) {
+		Assert.notNull(mirrorDirectory, "'mirrorDirectory' must be set");
+		this.mirrorDirectory = mirrorDirectory;
+		this.connectTimeout = connectTimeout;
+		this.readTimeout = readTimeout;
+	}
+
+	/**
+	 * Return the resource at the given url, serving it from the mirror when the remote copy
+	 * has not changed or can not be reached.
+	 * @param url the url of the index or package file
+	 * @return the resource, or {@literal null} if the resource does not exist
+	 * @throws SkipperException if the remote repository can not be reached and there is no
+	 * mirrored copy
+	 */
+	public Resource getResource(String url) {
+		if (!isRemote(url)) {
+			Resource resource = this.resourceLoader.getResource(url);
+			return resource.exists() ? resource : null;
+		}
+		String key = computeKey(url);
+		synchronized (this.locks.computeIfAbsent(key, k -> new Object())) {
+			return fetch(url, key);
+		}
+	}
+
+	/**
+	 * Return the SHA-256 digest recorded for the mirrored copy of the given url.
+	 * @param url the url of the index or package file
+	 * @return the hex encoded digest, or {@literal null} if there is no mirrored copy
+	 */
+	public String getMirroredSha256(String url) {
+		Properties metadata = loadMetadata(computeKey(url));
+		return metadata != null ? metadata.getProperty(SHA256_KEY) : null;
+	}
+
+	/**
+	 * Remove the mirrored copy of the given url, e.g. after it failed verification, so the
+	 * next request downloads it in full.
+	 * @param url the url of the index or package file
+	 */
+	public void evict(String url) {
+		if (!isRemote(url)) {
+			return;
+		}
+		String key = computeKey(url);
+		synchronized (this.locks.computeIfAbsent(key, k -> new Object())) {
+			try {
+				evictKey(key);
+			}
+			catch (IOException e) {
+				logger.warn("Could not remove mirrored copy of " + url, e);
+			}
+		}
+	}
+
+	private Resource fetch(String url, String key) {
+		File contentFile = new File(this.mirrorDirectory, key + CONTENT_SUFFIX);
+		Properties metadata = contentFile.exists() ? loadMetadata(key) : null;
+		try {
+			HttpURLConnection connection = (HttpURLConnection) new URL(url).openConnection();
+			connection.setConnectTimeout(this.connectTimeout);
+			connection.setReadTimeout(this.readTimeout);
+			if (metadata != null) {
+				if (StringUtils.hasText(metadata.getProperty(ETAG_KEY))) {
+					connection.setRequestProperty("If-None-Match", metadata.getProperty(ETAG_KEY));
+				}
+				if (StringUtils.hasText(metadata.getProperty(LAST_MODIFIED_KEY))) {
+					connection.setRequestProperty("If-Modified-Since", metadata.getProperty(LAST_MODIFIED_KEY));
+				}
+			}
+			try {
+				int responseCode = connection.getResponseCode();
+				if (responseCode == HttpURLConnection.HTTP_NOT_MODIFIED && metadata != null) {
+					logger.debug("Serving {} from mirror, not modified since last download", url);
+					return new FileSystemResource(contentFile);
+				}
+				if (responseCode == HttpURLConnection.HTTP_NOT_FOUND || responseCode == HttpURLConnection.HTTP_GONE) {
+					evictKey(key);
+					return null;
+				}
+				if (responseCode != HttpURLConnection.HTTP_OK) {
+					throw new IOException("Unexpected response code " + responseCode + " from " + url);
+				}
+				store(url, key, connection);
+				return new FileSystemResource(contentFile);
+			}
+			finally {
+				connection.disconnect();
+			}
+		}
+		catch (IOException e) {
+			if (metadata != null) {
+				logger.warn("Could not reach " + url + ", serving last mirrored copy. " + e.getMessage());
+				return new FileSystemResource(contentFile);
+			}
+			throw new SkipperException("Could not download " + url + " and no mirrored copy exists.", e);
+		}
+	}
+
+	private void store(String url, String key, HttpURLConnection connection) throws IOException {
+		Files.createDirectories(this.mirrorDirectory.toPath());
+		File tempFile = File.createTempFile(key, ".download", this.mirrorDirectory);
+		try {
+			MessageDigest messageDigest = Sha256Digests.newDigest();
+			try (InputStream inputStream = new DigestInputStream(connection.getInputStream(), messageDigest);
+					OutputStream outputStream = new FileOutputStream(tempFile)) {
+				StreamUtils.copy(inputStream, outputStream);
+			}
+			Properties metadata = new Properties();
+			metadata.setProperty(URL_KEY, url);
+			metadata.setProperty(SHA256_KEY, Sha256Digests.toHex(messageDigest));
+			if (connection.getHeaderField("ETag") != null) {
+				metadata.setProperty(ETAG_KEY, connection.getHeaderField("ETag"));
+			}
+			if (connection.getHeaderField("Last-Modified") != null) {
+				metadata.setProperty(LAST_MODIFIED_KEY, connection.getHeaderField("Last-Modified"));
+			}
+			Files.move(tempFile.toPath(), new File(this.mirrorDirectory, key + CONTENT_SUFFIX).toPath(),
+					StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+			storeMetadata(key, metadata);
+			logger.info("Mirrored {}", url);
+		}
+		finally {
+			Files.deleteIfExists(tempFile.toPath());
+		}
+	}
+
+	private Properties loadMetadata(String key) {
+		File metadataFile = new File(this.mirrorDirectory, key + METADATA_SUFFIX);
+		if (!metadataFile.exists()) {
+			return null;
+		}
+		Properties metadata = new Properties();
+		try (InputStream inputStream = new FileInputStream(metadataFile)) {
+			metadata.load(inputStream);
+			return metadata;
+		}
+		catch (IOException e) {
+			logger.warn("Could not read mirror metadata " + metadataFile + ", ignoring mirrored copy.", e);
+			return null;
+		}
+	}
+
+	private void storeMetadata(String key, Properties metadata) throws IOException {
+		File tempFile = File.createTempFile(key, METADATA_SUFFIX, this.mirrorDirectory);
+		try {
+			try (OutputStream outputStream = new FileOutputStream(tempFile)) {
+				metadata.store(outputStream, null);
+			}
+			Files.move(tempFile.toPath(), new File(this.mirrorDirectory, key + METADATA_SUFFIX).toPath(),
+					StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		}
+		finally {
+			Files.deleteIfExists(tempFile.toPath());
+		}
+	}
+
+	private void evictKey(String key) throws IOException {
+		Files.deleteIfExists(new File(this.mirrorDirectory, key + METADATA_SUFFIX).toPath());
+		Files.deleteIfExists(new File(this.mirrorDirectory, key + CONTENT_SUFFIX).toPath());
+	}
+
+	private boolean isRemote(String url) {
+		return url.startsWith("http:") || url.startsWith("https:");
+	}
+
+	private String computeKey(String url) {
+		MessageDigest messageDigest = Sha256Digests.newDigest();
+		messageDigest.update(url.getBytes(StandardCharsets.UTF_8));
+		return Sha256Digests.toHex(messageDigest);
+	}
+
+	@Override
+	public void setResourceLoader(ResourceLoader resourceLoader) {
+		this.resourceLoader = resourceLoader;
+	}
+}
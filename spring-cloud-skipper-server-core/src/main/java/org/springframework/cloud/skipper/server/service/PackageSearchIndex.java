@@ -0,0 +1,459 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.cloud.skipper.server.service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.springframework.cloud.skipper.domain.PackageMetadata;
+import org.springframework.cloud.skipper.domain.PackageSearchResult;
+import org.springframework.cloud.skipper.domain.Repository;
+import org.springframework.cloud.skipper.domain.SemanticVersion;
+import org.springframework.cloud.skipper.server.repository.PackageMetadataIndexEntry;
+import org.springframework.cloud.skipper.server.repository.PackageMetadataRepository;
+import org.springframework.cloud.skipper.server.repository.RepositoryRepository;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.rest.core.annotation.HandleAfterCreate;
+import org.springframework.data.rest.core.annotation.HandleAfterDelete;
+import org.springframework.data.rest.core.annotation.HandleAfterSave;
+import org.springframework.data.rest.core.annotation.RepositoryEventHandler;
+import org.springframework.util.Assert;
+import org.springframework.util.StringUtils;
+
+/**
+ * In-memory search index over the name, description, tags and maintainer of the package
+ * metadata that is not stale.
+ *
+ * Every field is split into lower case terms. Terms are indexed in a sorted map to
+ * resolve query terms shorter than three characters by prefix, and by their trigrams to
+ * resolve longer query terms anywhere within a term. Candidates are scored by where the
+ * query terms match, a match on the name weighing most, and grouped by package name with
+ * the versions of a package ordered by {@link SemanticVersion}, the same version in
+ * several repositories ordered by {@link RepositoryPrecedence}.
+ *
+ * The index is built from the database on first use and then maintained incrementally,
+ * per package on upload and on changes through the REST API, and per repository after
+ * each index synchronization. Package metadata is read from the database before taking
+ * the write lock, so searches only wait for the index to be updated in memory.
+ */
+@RepositoryEventHandler(PackageMetadata.class)
+public class PackageSearchIndex {
+
+	private static final int GRAM_LENGTH = 3;
+
+	private final Logger logger = LoggerFactory.getLogger(PackageSearchIndex.class);
+
+	private final PackageMetadataRepository packageMetadataRepository;
+
+	private final RepositoryRepository repositoryRepository;
+
+	private final RepositoryPrecedence repositoryPrecedence;
+
+	private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+	private Postings postings = new Postings();
+
+	private volatile boolean initialized;
+
+	public PackageSearchIndex(PackageMetadataRepository packageMetadataRepository,
+			RepositoryRepository repositoryRepository, RepositoryPrecedence repositoryPrecedence) {
+		Assert.notNull(packageMetadataRepository, "'packageMetadataRepository' must be set");
+		Assert.notNull(repositoryRepository, "'repositoryRepository' must be set");
+		Assert.notNull(repositoryPrecedence, "'repositoryPrecedence' must be set");
+		this.packageMetadataRepository = packageMetadataRepository;
+		this.repositoryRepository = repositoryRepository;
+		this.repositoryPrecedence = repositoryPrecedence;
+	}
+
+	/**
+	 * Search the packages matching all terms of the given query.
+	 * @param query the query, all packages match if empty
+	 * @param pageable the page of packages to return
+	 * @return the matching packages, most relevant first
+	 */
+	public Page<PackageSearchResult> search(String query, Pageable pageable) {
+		if (!this.initialized) {
+			rebuild();
+		}
+		List<String> queryTerms = new ArrayList<>(new LinkedHashSet<>(tokenize(query)));
+		Map<String, PackageSearchResult> results = new HashMap<>();
+		Map<String, List<IndexedPackage>> matches = new HashMap<>();
+		this.lock.readLock().lock();
+		try {
+			for (Long id : findCandidates(queryTerms)) {
+				IndexedPackage indexedPackage = this.postings.packages.get(id);
+				double score = score(indexedPackage, queryTerms);
+				if (score > 0 || queryTerms.isEmpty()) {
+					PackageSearchResult result = results.computeIfAbsent(indexedPackage.name,
+							name -> new PackageSearchResult());
+					result.setScore(Math.max(result.getScore(), score));
+					matches.computeIfAbsent(indexedPackage.name, name -> new ArrayList<>()).add(indexedPackage);
+				}
+			}
+		}
+		finally {
+			this.lock.readLock().unlock();
+		}
+		List<PackageSearchResult> sortedResults = new ArrayList<>(results.size());
+		for (Map.Entry<String, PackageSearchResult> entry : results.entrySet()) {
+			sortedResults.add(group(entry.getValue(), matches.get(entry.getKey())));
+		}
+		sortedResults.sort(Comparator.comparingDouble(PackageSearchResult::getScore).reversed()
+				.thenComparing(PackageSearchResult::getName));
+		int fromIndex = Math.min(pageable.getOffset(), sortedResults.size());
+		int toIndex = Math.min(fromIndex + pageable.getPageSize(), sortedResults.size());
+		return new PageImpl<>(new ArrayList<>(sortedResults.subList(fromIndex, toIndex)), pageable,
+				sortedResults.size());
+	}
+
+	/**
+	 * Add or replace the given package metadata in the index, stale package metadata is
+	 * removed from the index.
+	 * @param packageMetadata the stored package metadata
+	 */
+	@HandleAfterCreate
+	@HandleAfterSave
+	public void index(PackageMetadata packageMetadata) {
+		Assert.notNull(packageMetadata.getId(), "Only stored package metadata can be indexed");
+		this.lock.writeLock().lock();
+		try {
+			this.postings.remove(packageMetadata.getId());
+			if (!packageMetadata.isStale()) {
+				this.postings.add(new IndexedPackage(packageMetadata.getId(), packageMetadata.getRepositoryId(),
+						packageMetadata.getName(), packageMetadata.getVersion(), packageMetadata.getDescription(),
+						packageMetadata.getIconUrl(), packageMetadata.getTags(), packageMetadata.getMaintainer()));
+			}
+		}
+		finally {
+			this.lock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * Remove the given package metadata from the index.
+	 * @param packageMetadata the deleted package metadata
+	 */
+	@HandleAfterDelete
+	public void remove(PackageMetadata packageMetadata) {
+		this.lock.writeLock().lock();
+		try {
+			this.postings.remove(packageMetadata.getId());
+		}
+		finally {
+			this.lock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * Replace the indexed package metadata of a repository with the package metadata
+	 * currently stored for it.
+	 * @param repositoryId the id of the repository
+	 */
+	public void reindexRepository(Long repositoryId) {
+		List<IndexedPackage> indexedPackages = load(repositoryId);
+		this.lock.writeLock().lock();
+		try {
+			Set<Long> indexedIds = this.postings.packagesByRepository.remove(repositoryId);
+			if (indexedIds != null) {
+				for (Long id : new ArrayList<>(indexedIds)) {
+					this.postings.remove(id);
+				}
+			}
+			indexedPackages.forEach(this.postings::add);
+		}
+		finally {
+			this.lock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * Rebuild the whole index from the package metadata stored for all repositories.
+	 */
+	public void rebuild() {
+		Postings rebuilt = new Postings();
+		for (Repository repository : this.repositoryRepository.findAll()) {
+			load(repository.getId()).forEach(rebuilt::add);
+		}
+		this.lock.writeLock().lock();
+		try {
+			this.postings = rebuilt;
+			this.initialized = true;
+		}
+		finally {
+			this.lock.writeLock().unlock();
+		}
+		logger.info("Indexed {} packages for search", rebuilt.packages.size());
+	}
+
+	private List<IndexedPackage> load(Long repositoryId) {
+		List<IndexedPackage> indexedPackages = new ArrayList<>();
+		for (PackageMetadataIndexEntry entry : this.packageMetadataRepository
+				.findIndexEntriesByRepositoryId(repositoryId)) {
+			if (!entry.isStale()) {
+				indexedPackages.add(new IndexedPackage(entry.getId(), repositoryId, entry.getName(),
+						entry.getVersion(), entry.getDescription(), entry.getIconUrl(), entry.getTags(),
+						entry.getMaintainer()));
+			}
+		}
+		return indexedPackages;
+	}
+
+	private Set<Long> findCandidates(List<String> queryTerms) {
+		if (queryTerms.isEmpty()) {
+			return new HashSet<>(this.postings.packages.keySet());
+		}
+		Set<Long> candidates = null;
+		for (String queryTerm : queryTerms) {
+			Set<Long> termCandidates = new HashSet<>();
+			if (queryTerm.length() < GRAM_LENGTH) {
+				for (Set<Long> ids : this.postings.termIndex.subMap(queryTerm, queryTerm + Character.MAX_VALUE)
+						.values()) {
+					termCandidates.addAll(ids);
+				}
+			}
+			else {
+				termCandidates = intersect(queryTerm);
+			}
+			if (candidates == null) {
+				candidates = termCandidates;
+			}
+			else {
+				candidates.retainAll(termCandidates);
+			}
+			if (candidates.isEmpty()) {
+				break;
+			}
+		}
+		return candidates;
+	}
+
+	private Set<Long> intersect(String queryTerm) {
+		List<Set<Long>> postings = new ArrayList<>();
+		for (String gram : grams(queryTerm)) {
+			Set<Long> ids = this.postings.gramIndex.get(gram);
+			if (ids == null) {
+				return new HashSet<>();
+			}
+			postings.add(ids);
+		}
+		postings.sort(Comparator.comparingInt(Set::size));
+		Set<Long> result = new HashSet<>(postings.get(0));
+		for (int i = 1; i < postings.size() && !result.isEmpty(); i++) {
+			result.retainAll(postings.get(i));
+		}
+		return result;
+	}
+
+	private double score(IndexedPackage indexedPackage, List<String> queryTerms) {
+		double score = 0;
+		for (String queryTerm : queryTerms) {
+			double termScore = scoreName(indexedPackage, queryTerm)
+					+ scoreTerms(indexedPackage.tagTerms, queryTerm, 3, 2, 1)
+					+ scoreTerms(indexedPackage.descriptionTerms, queryTerm, 1.5, 1.5, 0.75)
+					+ scoreTerms(indexedPackage.maintainerTerms, queryTerm, 1, 1, 0.5);
+			if (termScore == 0) {
+				// trigram candidates may contain the grams of a query term without the term itself
+				return 0;
+			}
+			score += termScore;
+		}
+		return score;
+	}
+
+	private double scoreName(IndexedPackage indexedPackage, String queryTerm) {
+		if (indexedPackage.lowerCaseName.equals(queryTerm)) {
+			return 10;
+		}
+		if (indexedPackage.lowerCaseName.startsWith(queryTerm)) {
+			return 6;
+		}
+		return scoreTerms(indexedPackage.nameTerms, queryTerm, 4, 4, 3);
+	}
+
+	private static double scoreTerms(Collection<String> terms, String queryTerm, double exact, double prefix,
+			double contains) {
+		double score = 0;
+		for (String term : terms) {
+			if (term.equals(queryTerm)) {
+				return exact;
+			}
+			if (term.startsWith(queryTerm)) {
+				score = Math.max(score, prefix);
+			}
+			else if (queryTerm.length() >= GRAM_LENGTH && term.contains(queryTerm)) {
+				score = Math.max(score, contains);
+			}
+		}
+		return score;
+	}
+
+	private PackageSearchResult group(PackageSearchResult result, List<IndexedPackage> matches) {
+		// The same version in several repositories resolves to the repository taking precedence
+		matches.sort(Comparator.comparing((IndexedPackage indexedPackage) -> indexedPackage.version).reversed()
+				.thenComparingInt(indexedPackage -> this.repositoryPrecedence.rank(indexedPackage.repositoryId))
+				.thenComparing(indexedPackage -> indexedPackage.id));
+		IndexedPackage latest = matches.get(0);
+		Set<String> versions = new LinkedHashSet<>();
+		for (IndexedPackage match : matches) {
+			versions.add(match.version.getVersion());
+		}
+		result.setName(latest.name);
+		result.setLatestVersion(latest.version.getVersion());
+		result.setPackageMetadataId(latest.id);
+		result.setDescription(latest.description);
+		result.setIconUrl(latest.iconUrl);
+		result.setVersions(new ArrayList<>(versions));
+		return result;
+	}
+
+	private static List<String> tokenize(String text) {
+		if (!StringUtils.hasText(text)) {
+			return Collections.emptyList();
+		}
+		List<String> terms = new ArrayList<>();
+		int start = -1;
+		for (int i = 0; i <= text.length(); i++) {
+			boolean termCharacter = i < text.length() && Character.isLetterOrDigit(text.charAt(i));
+			if (termCharacter && start < 0) {
+				start = i;
+			}
+			else if (!termCharacter && start >= 0) {
+				terms.add(text.substring(start, i).toLowerCase(Locale.ROOT));
+				start = -1;
+			}
+		}
+		return terms;
+	}
+
+	private static Set<String> grams(String term) {
+		Set<String> grams = new HashSet<>();
+		for (int i = 0; i + GRAM_LENGTH <= term.length(); i++) {
+			grams.add(term.substring(i, i + GRAM_LENGTH));
+		}
+		return grams;
+	}
+
+	/**
+	 * The indexed packages and their postings, guarded by the lock of the index.
+	 */
+	private static final class Postings {
+
+		private final Map<Long, IndexedPackage> packages = new HashMap<>();
+
+		private final Map<Long, Set<Long>> packagesByRepository = new HashMap<>();
+
+		private final NavigableMap<String, Set<Long>> termIndex = new TreeMap<>();
+
+		private final Map<String, Set<Long>> gramIndex = new HashMap<>();
+
+		private void add(IndexedPackage indexedPackage) {
+			this.packages.put(indexedPackage.id, indexedPackage);
+			this.packagesByRepository.computeIfAbsent(indexedPackage.repositoryId, id -> new HashSet<>())
+					.add(indexedPackage.id);
+			for (String term : indexedPackage.terms) {
+				this.termIndex.computeIfAbsent(term, t -> new HashSet<>()).add(indexedPackage.id);
+				for (String gram : grams(term)) {
+					this.gramIndex.computeIfAbsent(gram, g -> new HashSet<>()).add(indexedPackage.id);
+				}
+			}
+		}
+
+		private void remove(Long id) {
+			IndexedPackage indexedPackage = this.packages.remove(id);
+			if (indexedPackage == null) {
+				return;
+			}
+			removePosting(this.packagesByRepository, indexedPackage.repositoryId, id);
+			for (String term : indexedPackage.terms) {
+				removePosting(this.termIndex, term, id);
+				for (String gram : grams(term)) {
+					removePosting(this.gramIndex, gram, id);
+				}
+			}
+		}
+
+		private static <K> void removePosting(Map<K, Set<Long>> index, K key, Long id) {
+			Set<Long> ids = index.get(key);
+			if (ids != null && ids.remove(id) && ids.isEmpty()) {
+				index.remove(key);
+			}
+		}
+	}
+
+	private static class IndexedPackage {
+
+		private final Long id;
+
+		private final Long repositoryId;
+
+		private final String name;
+
+		private final String lowerCaseName;
+
+		private final SemanticVersion version;
+
+		private final String description;
+
+		private final String iconUrl;
+
+		private final List<String> nameTerms;
+
+		private final List<String> tagTerms;
+
+		private final List<String> descriptionTerms;
+
+		private final List<String> maintainerTerms;
+
+		private final Set<String> terms = new HashSet<>();
+
+		IndexedPackage(Long id, Long repositoryId, String name, String version, String description,
+				String iconUrl, String tags, String maintainer) {
+			this.id = id;
+			this.repositoryId = repositoryId;
+			this.name = name;
+			this.lowerCaseName = name.toLowerCase(Locale.ROOT);
+			this.version = SemanticVersion.parse(version);
+			this.description = description;
+			this.iconUrl = iconUrl;
+			this.nameTerms = tokenize(name);
+			this.tagTerms = tokenize(tags);
+			this.descriptionTerms = tokenize(description);
+			this.maintainerTerms = tokenize(maintainer);
+			this.terms.addAll(this.nameTerms);
+			this.terms.addAll(this.tagTerms);
+			this.terms.addAll(this.descriptionTerms);
+			this.terms.addAll(this.maintainerTerms);
+		}
+	}
+}
@@ -18,9 +18,11 @@ package org.springframework.cloud.skipper.server.service;
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.security.MessageDigest;
 import java.util.Arrays;
 import java.util.List;
 import java.util.stream.Collectors;
@@ -40,14 +42,15 @@ import org.springframework.cloud.skipper.io.PackageReader;
 import org.springframework.cloud.skipper.io.TempFileUtils;
 import org.springframework.cloud.skipper.server.repository.PackageMetadataRepository;
 import org.springframework.cloud.skipper.server.repository.RepositoryRepository;
-import org.springframework.context.ResourceLoaderAware;
+import org.springframework.cloud.skipper.server.util.Sha256Digests;
 import org.springframework.core.io.Resource;
-import org.springframework.core.io.ResourceLoader;
 import org.springframework.dao.InvalidDataAccessApiUsageException;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.util.Assert;
 import org.springframework.util.FileSystemUtils;
 import org.springframework.util.StreamUtils;
+import org.springframework.util.StringUtils;
 
 /**
  * Service responsible for downloading package .zip files and loading them into the
@@ -57,7 +60,7 @@ import org.springframework.util.StreamUtils;
  * @author Ilayaperumal Gopinathan
  * @author Glenn Renfro
  */
-public class PackageService implements ResourceLoaderAware {
+public class PackageService {
 
 	private final Logger logger = LoggerFactory.getLogger(PackageService.class);
 
@@ -67,14 +70,20 @@ public class PackageService implements ResourceLoaderAware {
 
 	private final PackageReader packageReader;
 
-	private ResourceLoader resourceLoader;
+	private final PackageRepositoryMirror packageRepositoryMirror;
+
+	private final PackageSearchIndex packageSearchIndex;
 
 	public PackageService(RepositoryRepository repositoryRepository,
 			PackageMetadataRepository packageMetadataRepository,
-			PackageReader packageReader) {
+			PackageReader packageReader,
+			PackageRepositoryMirror packageRepositoryMirror,
+			PackageSearchIndex packageSearchIndex) {
 		this.repositoryRepository = repositoryRepository;
 		this.packageMetadataRepository = packageMetadataRepository;
 		this.packageReader = packageReader;
+		this.packageRepositoryMirror = packageRepositoryMirror;
+		this.packageSearchIndex = packageSearchIndex;
 	}
 
 	@Transactional
@@ -84,9 +93,26 @@ public class PackageService implements ResourceLoaderAware {
 		if (packageMetadata.getPackageFileBytes() != null) {
 			return deserializePackageFromDatabase(packageMetadata);
 		}
-		else {
-			return downloadAndDeserializePackage(packageMetadata);
+		// Identical content may already be stored for another repository or package entry
+		byte[] identicalPackageFile = findPackageFileByDigest(packageMetadata);
+		if (identicalPackageFile != null) {
+			logger.debug("Reusing stored package file with digest {} for {}-{}", packageMetadata.getSha256(),
+					packageMetadata.getName(), packageMetadata.getVersion());
+			packageMetadata.setPackageFileBytes(identicalPackageFile);
+			Package pkgToReturn = deserializePackageFromDatabase(packageMetadata);
+			pkgToReturn.setMetadata(this.packageMetadataRepository.save(packageMetadata));
+			return pkgToReturn;
 		}
+		return downloadAndDeserializePackage(packageMetadata);
+	}
+
+	private byte[] findPackageFileByDigest(PackageMetadata packageMetadata) {
+		if (!StringUtils.hasText(packageMetadata.getSha256())) {
+			return null;
+		}
+		List<byte[]> packageFiles = this.packageMetadataRepository
+				.findPackageFilesBySha256(packageMetadata.getSha256(), new PageRequest(0, 1));
+		return packageFiles.isEmpty() ? null : packageFiles.get(0);
 	}
 
 	private Package downloadAndDeserializePackage(PackageMetadata packageMetadata) {
@@ -100,27 +126,38 @@ public class PackageService implements ResourceLoaderAware {
 			if (packageRepository == null) {
 				return throwDescriptiveException(packageMetadata);
 			}
-			Resource sourceResource = getResourceForRepository(packageRepository, packageMetadata.getName(),
+			String sourceUrl = getPackageUrl(packageRepository, packageMetadata.getName(),
 					packageMetadata.getVersion());
+			Resource sourceResource = getResourceForRepository(packageRepository, sourceUrl,
+					packageMetadata.getName(), packageMetadata.getVersion());
 
 			logger.debug("Downloading package file for {}-{} from {} to target file {}",
 					packageMetadata.getName(), packageMetadata.getVersion(), sourceResource.getDescription(),
 					targetFile);
-			try {
-				StreamUtils.copy(sourceResource.getInputStream(), new FileOutputStream(targetFile));
+			byte[] packageFileBytes;
+			try (InputStream inputStream = sourceResource.getInputStream()) {
+				packageFileBytes = StreamUtils.copyToByteArray(inputStream);
 			}
 			catch (IOException e) {
-				throw new SkipperException("Could not copy package file for " + packageMetadata.getName() + "-"
-						+ packageMetadata.getVersion() +
-						" from " + sourceResource.getDescription() + " to target file " + targetFile + ". "
+				throw new SkipperException("Could not read package file for " + packageMetadata.getName() + "-"
+						+ packageMetadata.getVersion() + " from " + sourceResource.getDescription() + ". "
 						+ e.getMessage(), e);
 			}
+			// The mirror digests remote files while downloading them
+			String sha256 = this.packageRepositoryMirror.getMirroredSha256(sourceUrl);
+			if (sha256 == null) {
+				MessageDigest messageDigest = Sha256Digests.newDigest();
+				messageDigest.update(packageFileBytes);
+				sha256 = Sha256Digests.toHex(messageDigest);
+			}
+			verifyDigest(packageMetadata, sourceUrl, sha256);
+			Files.write(targetFile.toPath(), packageFileBytes);
 			ZipUtil.unpack(targetFile, targetPath.toFile());
 			Package pkgToReturn = this.packageReader
 					.read(new File(targetPath.toFile(), packageMetadata.getName() + "-" +
 							packageMetadata.getVersion()));
 			// TODO should we have an option to not cache the package file?
-			packageMetadata.setPackageFileBytes(Files.readAllBytes(targetFile.toPath()));
+			packageMetadata.setPackageFileBytes(packageFileBytes);
 			// Only save once package is successfully deserialized and package file read.
 			pkgToReturn.setMetadata(this.packageMetadataRepository.save(packageMetadata));
 			return pkgToReturn;
@@ -146,6 +183,19 @@ public class PackageService implements ResourceLoaderAware {
 		}
 	}
 
+	private void verifyDigest(PackageMetadata packageMetadata, String sourceUrl, String sha256) {
+		if (!StringUtils.hasText(packageMetadata.getSha256())) {
+			packageMetadata.setSha256(sha256);
+		}
+		else if (!Sha256Digests.matches(packageMetadata.getSha256(), sha256)) {
+			// Make sure a corrupt mirrored copy is not served again
+			this.packageRepositoryMirror.evict(sourceUrl);
+			throw new SkipperException("Package file for " + packageMetadata.getName() + "-"
+					+ packageMetadata.getVersion() + " downloaded from " + sourceUrl + " has SHA-256 digest "
+					+ sha256 + " but the package index declares " + packageMetadata.getSha256());
+		}
+	}
+
 	private Package throwDescriptiveException(PackageMetadata packageMetadata) {
 		List<Repository> list = StreamSupport
 				.stream(repositoryRepository.findAll().spliterator(), false)
@@ -185,14 +235,17 @@ public class PackageService implements ResourceLoaderAware {
 		}
 	}
 
-	private Resource getResourceForRepository(Repository packageRepository, String name, String version) {
+	private String getPackageUrl(Repository packageRepository, String name, String version) {
 		// TODO local respository will not have url, add assertion
-		String sourceUrl = packageRepository.getUrl() + "/" + name + "/" +
-				name + "-" + version + ".zip";
+		return packageRepository.getUrl() + "/" + name + "/" + name + "-" + version + ".zip";
+	}
+
+	private Resource getResourceForRepository(Repository packageRepository, String sourceUrl, String name,
+			String version) {
 		logger.debug("PackageRepository.getUrl={}, Attempting to get resource at URL {} ", packageRepository.getUrl(),
 				sourceUrl);
-		Resource resource = resourceLoader.getResource(sourceUrl);
-		if (resource.exists()) {
+		Resource resource = this.packageRepositoryMirror.getResource(sourceUrl);
+		if (resource != null) {
 			return resource;
 		}
 		throw new SkipperException("Resource " + name + "-" + version + " in package repository "
@@ -203,6 +256,17 @@ public class PackageService implements ResourceLoaderAware {
 	public PackageMetadata upload(UploadRequest uploadRequest) {
 		validateUploadRequest(uploadRequest);
 		Repository localRepositoryToUpload = getRepositoryToUpload(uploadRequest.getRepoName());
+		// Identical content is detected before anything is written to disk
+		MessageDigest messageDigest = Sha256Digests.newDigest();
+		messageDigest.update(uploadRequest.getPackageFileAsBytes());
+		String sha256 = Sha256Digests.toHex(messageDigest);
+		PackageMetadata existingPackageMetadata = this.packageMetadataRepository.findByRepositoryIdAndNameAndVersion(
+				localRepositoryToUpload.getId(), uploadRequest.getName(), uploadRequest.getVersion());
+		if (existingPackageMetadata != null && Sha256Digests.matches(existingPackageMetadata.getSha256(), sha256)) {
+			logger.info("Package {}-{} with identical content was already uploaded to repository {}",
+					uploadRequest.getName(), uploadRequest.getVersion(), localRepositoryToUpload.getName());
+			return existingPackageMetadata;
+		}
 		Path packageDirPath = null;
 		try {
 			packageDirPath = TempFileUtils.createTempDirectory("skipperUpload");
@@ -225,7 +289,11 @@ public class PackageService implements ResourceLoaderAware {
 				packageMetadata.setRepositoryId(localRepositoryToUpload.getId());
 			}
 			packageMetadata.setPackageFileBytes(uploadRequest.getPackageFileAsBytes());
-			return this.packageMetadataRepository.save(packageMetadata);
+			packageMetadata.setSha256(sha256);
+			PackageMetadata savedPackageMetadata = this.packageMetadataRepository.save(packageMetadata);
+			// a rolled back upload must not show up in search results
+			TransactionCallbacks.afterCommit(() -> this.packageSearchIndex.index(savedPackageMetadata));
+			return savedPackageMetadata;
 		}
 		catch (IOException e) {
 			throw new SkipperException("Failed to upload the package.", e);
@@ -261,9 +329,4 @@ public class PackageService implements ResourceLoaderAware {
 		Assert.notNull(uploadRequest.getPackageFileAsBytes(), "Package file as bytes must not be null");
 		Assert.isTrue(uploadRequest.getPackageFileAsBytes().length != 0, "Package file as bytes must not be empty");
 	}
-
-	@Override
-	public void setResourceLoader(ResourceLoader resourceLoader) {
-		this.resourceLoader = resourceLoader;
-	}
 }
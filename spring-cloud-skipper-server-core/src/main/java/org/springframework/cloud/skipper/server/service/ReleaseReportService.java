@@ -15,6 +15,7 @@
  */
 package org.springframework.cloud.skipper.server.service;
 
+import java.util.List;
 import java.util.Map;
 
 import org.slf4j.Logger;
@@ -69,10 +70,32 @@ public class ReleaseReportService {
 	 */
 	@Transactional
 	public ReleaseAnalysisReport createReport(UpgradeRequest upgradeRequest) {
+		Release existingRelease = findExistingRelease(upgradeRequest);
+		Release replacingRelease = createReplacingRelease(upgradeRequest, existingRelease);
+		return this.releaseManager.createReport(existingRelease, replacingRelease);
+	}
+
+	/**
+	 * Get the names of the apps an upgrade would update, without saving anything.
+	 * @param upgradeRequest containing the {@link UpgradeProperties} and
+	 * {@link PackageIdentifier} for the update.
+	 * @return the names of the apps to update, empty if the release is up to date
+	 */
+	@Transactional
+	public List<String> getApplicationNamesToUpgrade(UpgradeRequest upgradeRequest) {
+		Release existingRelease = findExistingRelease(upgradeRequest);
+		Release replacingRelease = createReplacingRelease(upgradeRequest, existingRelease);
+		return this.releaseManager.getApplicationNamesToUpgrade(existingRelease, replacingRelease);
+	}
+
+	private Release findExistingRelease(UpgradeRequest upgradeRequest) {
 		Assert.notNull(upgradeRequest.getUpgradeProperties(), "UpgradeProperties can not be null");
 		Assert.notNull(upgradeRequest.getPackageIdentifier(), "PackageIdentifier can not be null");
+		return this.releaseRepository.findLatestReleaseForUpdate(upgradeRequest.getUpgradeProperties().getReleaseName());
+	}
+
+	private Release createReplacingRelease(UpgradeRequest upgradeRequest, Release existingRelease) {
 		UpgradeProperties upgradeProperties = upgradeRequest.getUpgradeProperties();
-		Release existingRelease = this.releaseRepository.findLatestReleaseForUpdate(upgradeProperties.getReleaseName());
 		Release latestRelease = this.releaseRepository.findLatestRelease(upgradeProperties.getReleaseName());
 		PackageIdentifier packageIdentifier = upgradeRequest.getPackageIdentifier();
 		PackageMetadata packageMetadata = this.packageMetadataRepository.findByNameAndOptionalVersionRequired(
@@ -86,7 +109,7 @@ public class ReleaseReportService {
 				replacingRelease.getConfigValues());
 		String manifest = ManifestUtils.createManifest(replacingRelease.getPkg(), model);
 		replacingRelease.setManifest(manifest);
-		return this.releaseManager.createReport(existingRelease, replacingRelease);
+		return replacingRelease;
 	}
 
 	private Release createReleaseForUpgrade(PackageMetadata packageMetadata, Integer newVersion,
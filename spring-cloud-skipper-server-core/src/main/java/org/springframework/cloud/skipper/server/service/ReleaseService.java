@@ -36,6 +36,8 @@ import org.springframework.cloud.skipper.server.deployer.ReleaseManager;
 import org.springframework.cloud.skipper.server.repository.DeployerRepository;
 import org.springframework.cloud.skipper.server.repository.PackageMetadataRepository;
 import org.springframework.cloud.skipper.server.repository.ReleaseRepository;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.ApplicationEventPublisherAware;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.util.Assert;
 import org.springframework.util.StringUtils;
@@ -51,7 +53,7 @@ import org.springframework.util.StringUtils;
  * @author Ilayaperumal Gopinathan
  * @author Glenn Renfro
  */
-public class ReleaseService {
+public class ReleaseService implements ApplicationEventPublisherAware {
 
 	private final Logger logger = LoggerFactory.getLogger(this.getClass());
 
@@ -67,6 +69,8 @@ public class ReleaseService {
 
 	private final ReleaseReportService releaseReportService;
 
+	private ApplicationEventPublisher applicationEventPublisher;
+
 	public ReleaseService(PackageMetadataRepository packageMetadataRepository,
 			ReleaseRepository releaseRepository,
 			PackageService packageService,
@@ -114,20 +118,8 @@ public class ReleaseService {
 		PackageIdentifier packageIdentifier = installRequest.getPackageIdentifier();
 		String packageVersion = packageIdentifier.getPackageVersion();
 		String packageName = packageIdentifier.getPackageName();
-		PackageMetadata packageMetadata;
-		if (!StringUtils.hasText(packageVersion)) {
-			List<PackageMetadata> packageMetadataList = this.packageMetadataRepository.findByNameRequired(packageName);
-			if (packageMetadataList.size() == 1) {
-				packageMetadata = packageMetadataList.get(0);
-			}
-			else {
-				packageMetadata = this.packageMetadataRepository.findFirstByNameOrderByVersionDesc(packageName);
-			}
-		}
-		else {
-			packageMetadata = this.packageMetadataRepository.findByNameAndOptionalVersionRequired(packageName,
-					packageVersion);
-		}
+		PackageMetadata packageMetadata = this.packageMetadataRepository
+				.findByNameAndOptionalVersionRequired(packageName, packageVersion);
 		return install(packageMetadata, installRequest.getInstallProperties());
 	}
 
@@ -253,8 +245,17 @@ public class ReleaseService {
 		return this.releaseRepository.findByNameAndVersion(releaseName, version).getManifest();
 	}
 
+	@Override
+	public void setApplicationEventPublisher(ApplicationEventPublisher applicationEventPublisher) {
+		this.applicationEventPublisher = applicationEventPublisher;
+	}
+
 	private Release status(Release release) {
-		return this.releaseManager.status(release);
+		Release updatedRelease = this.releaseManager.status(release);
+		if (updatedRelease != null && this.applicationEventPublisher != null) {
+			this.applicationEventPublisher.publishEvent(new ReleaseStatusEvent(updatedRelease));
+		}
+		return updatedRelease;
 	}
 
 	protected Info createNewInfo() {
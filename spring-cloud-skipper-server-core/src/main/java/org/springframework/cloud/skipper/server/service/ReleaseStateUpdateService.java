@@ -24,6 +24,8 @@ import org.springframework.cloud.skipper.domain.Info;
 import org.springframework.cloud.skipper.domain.Release;
 import org.springframework.cloud.skipper.server.deployer.ReleaseManager;
 import org.springframework.cloud.skipper.server.repository.ReleaseRepository;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.ApplicationEventPublisherAware;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.util.Assert;
@@ -36,7 +38,7 @@ import org.springframework.util.Assert;
  * @author Glenn Renfro
  *
  */
-public class ReleaseStateUpdateService {
+public class ReleaseStateUpdateService implements ApplicationEventPublisherAware {
 
 	private static final Logger log = LoggerFactory.getLogger(ReleaseStateUpdateService.class);
 
@@ -44,6 +46,8 @@ public class ReleaseStateUpdateService {
 
 	private final ReleaseRepository releaseRepository;
 
+	private ApplicationEventPublisher applicationEventPublisher;
+
 	private long nextFullPoll;
 
 	/**
@@ -61,6 +65,11 @@ public class ReleaseStateUpdateService {
 		log.info("Setting up ReleaseStateUpdateService");
 	}
 
+	@Override
+	public void setApplicationEventPublisher(ApplicationEventPublisher applicationEventPublisher) {
+		this.applicationEventPublisher = applicationEventPublisher;
+	}
+
 	@Scheduled(initialDelay = 5000, fixedRate = 5000)
 	@Transactional
 	public synchronized void update() {
@@ -89,6 +98,9 @@ public class ReleaseStateUpdateService {
 										? release.getInfo().getStatus().getPlatformStatusPrettyPrint()
 										: "");
 						this.releaseRepository.save(release);
+						if (this.applicationEventPublisher != null) {
+							this.applicationEventPublisher.publishEvent(new ReleaseStatusEvent(release));
+						}
 					}
 					catch (Exception e) {
 						log.warn("Unable to update release status for release " + release.getName() + "-v"
@@ -0,0 +1,40 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.cloud.skipper.server.service;
+
+import org.springframework.cloud.skipper.domain.Release;
+import org.springframework.context.ApplicationEvent;
+
+/**
+ * Event published whenever the status of a release has been queried from its platform,
+ * either by a client or by the {@link ReleaseStateUpdateService}.
+ */
+@SuppressWarnings("serial")
+public class ReleaseStatusEvent extends ApplicationEvent {
+
+	/**
+	 * Instantiates a new release status event.
+	 *
+	 * @param release the release with its updated status
+	 */
+	public ReleaseStatusEvent(Release release) {
+		super(release);
+	}
+
+	public Release getRelease() {
+		return (Release) getSource();
+	}
+}
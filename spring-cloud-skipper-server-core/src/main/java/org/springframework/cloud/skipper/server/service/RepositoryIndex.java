@@ -0,0 +1,54 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.cloud.skipper.server.service;
+
+import java.util.List;
+
+import org.springframework.cloud.skipper.domain.PackageMetadata;
+import org.springframework.cloud.skipper.domain.Repository;
+
+/**
+ * The package metadata read from the index of a single repository.
+ */
+public class RepositoryIndex {
+
+	private final Repository repository;
+
+	private final List<PackageMetadata> packageMetadata;
+
+	private final long downloadDuration;
+
+	public RepositoryIndex(Repository repository, List<PackageMetadata> packageMetadata, long downloadDuration) {
+		this.repository = repository;
+		this.packageMetadata = packageMetadata;
+		this.downloadDuration = downloadDuration;
+	}
+
+	public Repository getRepository() {
+		return repository;
+	}
+
+	public List<PackageMetadata> getPackageMetadata() {
+		return packageMetadata;
+	}
+
+	/**
+	 * @return how long, in milliseconds, downloading and parsing the index took
+	 */
+	public long getDownloadDuration() {
+		return downloadDuration;
+	}
+}
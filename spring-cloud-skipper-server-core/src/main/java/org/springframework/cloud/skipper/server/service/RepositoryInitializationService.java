@@ -24,6 +24,7 @@ import org.springframework.boot.context.event.ApplicationReadyEvent;
 import org.springframework.cloud.skipper.SkipperException;
 import org.springframework.cloud.skipper.domain.PackageMetadata;
 import org.springframework.cloud.skipper.domain.Repository;
+import org.springframework.cloud.skipper.domain.SemanticVersion;
 import org.springframework.cloud.skipper.server.config.SkipperServerProperties;
 import org.springframework.cloud.skipper.server.repository.PackageMetadataRepository;
 import org.springframework.cloud.skipper.server.repository.RepositoryRepository;
@@ -33,7 +34,10 @@ import org.springframework.transaction.annotation.Transactional;
 /**
  * Takes repository application configuration properties and update the Repository
  * database on application startup. Entries are only created if no existing Repository
- * with the same name exists.
+ * with the same name exists. Synchronization of the package indexes is then started in the
+ * background by the {@link PackageIndexSynchronizationService} once the repositories are
+ * committed, unless configured to complete before startup finishes. Package metadata
+ * stored before the version sort key was introduced is given one.
  *
  * @author Mark Pollack
  * @author Glenn Renfro
@@ -44,19 +48,22 @@ public class RepositoryInitializationService {
 
 	private final RepositoryRepository repositoryRepository;
 
+	private final PackageMetadataRepository packageMetadataRepository;
+
 	private final SkipperServerProperties skipperServerProperties;
 
-	private final PackageMetadataService packageMetadataService;
+	private final PackageIndexSynchronizationService packageIndexSynchronizationService;
 
-	private final PackageMetadataRepository packageMetadataRepository;
+	private final RepositoryPrecedence repositoryPrecedence;
 
 	public RepositoryInitializationService(RepositoryRepository repositoryRepository,
 			PackageMetadataRepository packageMetadataRepository,
-			PackageMetadataService packageMetadataService,
-			SkipperServerProperties skipperServerProperties) {
+			PackageIndexSynchronizationService packageIndexSynchronizationService,
+			RepositoryPrecedence repositoryPrecedence, SkipperServerProperties skipperServerProperties) {
 		this.repositoryRepository = repositoryRepository;
 		this.packageMetadataRepository = packageMetadataRepository;
-		this.packageMetadataService = packageMetadataService;
+		this.packageIndexSynchronizationService = packageIndexSynchronizationService;
+		this.repositoryPrecedence = repositoryPrecedence;
 		this.skipperServerProperties = skipperServerProperties;
 	}
 
@@ -64,26 +71,42 @@ public class RepositoryInitializationService {
 	@Transactional
 	public void initialize(ApplicationReadyEvent event) {
 		synchronizeRepositories();
+		populateVersionSortKeys();
 		synchronizePackageMetadata();
 	}
 
+	private void populateVersionSortKeys() {
+		List<PackageMetadata> packageMetadataList = this.packageMetadataRepository.findByVersionSortKeyIsNull();
+		if (!packageMetadataList.isEmpty()) {
+			logger.info("Populating the version sort key of {} packages", packageMetadataList.size());
+			for (PackageMetadata packageMetadata : packageMetadataList) {
+				packageMetadata.setVersionSortKey(SemanticVersion.parse(packageMetadata.getVersion()).toSortKey());
+			}
+			this.packageMetadataRepository.save(packageMetadataList);
+		}
+	}
+
 	private void synchronizePackageMetadata() {
-		if (this.skipperServerProperties.isSynchonizeIndexOnContextRefresh()) {
+		long interval = this.skipperServerProperties.getIndexSynchronizationInterval();
+		if (!this.skipperServerProperties.isSynchonizeIndexOnContextRefresh()) {
+			if (interval > 0) {
+				TransactionCallbacks.afterCommit(
+						() -> this.packageIndexSynchronizationService.schedule(interval, interval));
+			}
+		}
+		else if (this.skipperServerProperties.isWaitForIndexSynchronizationOnStartup()) {
 			loadAllPackageMetadata();
+			TransactionCallbacks.afterCommit(
+					() -> this.packageIndexSynchronizationService.schedule(interval, interval));
+		}
+		else {
+			TransactionCallbacks.afterCommit(() -> this.packageIndexSynchronizationService.schedule(0, interval));
 		}
 	}
 
 	private void loadAllPackageMetadata() {
 		try {
-			List<PackageMetadata> packageMetadataList = this.packageMetadataService.downloadPackageMetadata();
-			for (PackageMetadata packageMetadata : packageMetadataList) {
-				if (this.packageMetadataRepository.findByRepositoryIdAndNameAndVersion(
-						packageMetadata.getRepositoryId(),
-						packageMetadata.getName(),
-						packageMetadata.getVersion()) == null) {
-					this.packageMetadataRepository.save(packageMetadata);
-				}
-			}
+			this.packageIndexSynchronizationService.synchronize();
 		}
 		catch (SkipperException e) {
 			logger.warn("Could not load package metadata from remote repositories", e);
@@ -102,5 +125,8 @@ public class RepositoryInitializationService {
 						".  Repository name already in database.");
 			}
 		}
+		// repositories saved here bypass the REST events that keep the precedence current, and
+		// it must only be reloaded once they are committed
+		TransactionCallbacks.afterCommit(this.repositoryPrecedence::invalidate);
 	}
 }
@@ -0,0 +1,86 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.cloud.skipper.server.service;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.springframework.cloud.skipper.domain.Repository;
+import org.springframework.cloud.skipper.server.repository.RepositoryRepository;
+import org.springframework.data.rest.core.annotation.HandleAfterCreate;
+import org.springframework.data.rest.core.annotation.HandleAfterDelete;
+import org.springframework.data.rest.core.annotation.HandleAfterSave;
+import org.springframework.data.rest.core.annotation.RepositoryEventHandler;
+import org.springframework.util.Assert;
+
+/**
+ * Precomputed precedence of the package repositories, the repository with the highest
+ * {@link Repository#getRepoOrder()} first. The precedence is loaded on first use and
+ * invalidated whenever a repository is created, updated or deleted through the REST API.
+ * Changes made directly through the {@link RepositoryRepository} should call
+ * {@link #invalidate()}.
+ */
+@RepositoryEventHandler(Repository.class)
+public class RepositoryPrecedence {
+
+	private final RepositoryRepository repositoryRepository;
+
+	private volatile Map<Long, Integer> ranks;
+
+	public RepositoryPrecedence(RepositoryRepository repositoryRepository) {
+		Assert.notNull(repositoryRepository, "'repositoryRepository' must be set");
+		this.repositoryRepository = repositoryRepository;
+	}
+
+	/**
+	 * Return the rank of the given repository, lower ranks take precedence.
+	 * @param repositoryId the id of the repository
+	 * @return the rank of the repository, {@link Integer#MAX_VALUE} if the repository is
+	 * unknown
+	 */
+	public int rank(Long repositoryId) {
+		Integer rank = getRanks().get(repositoryId);
+		return (rank != null) ? rank : Integer.MAX_VALUE;
+	}
+
+	/**
+	 * Discard the precomputed precedence, it is reloaded on next use.
+	 */
+	public void invalidate() {
+		this.ranks = null;
+	}
+
+	@HandleAfterCreate
+	@HandleAfterSave
+	@HandleAfterDelete
+	public void onRepositoryChanged(Repository repository) {
+		invalidate();
+	}
+
+	private Map<Long, Integer> getRanks() {
+		Map<Long, Integer> current = this.ranks;
+		if (current == null) {
+			Map<Long, Integer> loaded = new LinkedHashMap<>();
+			for (Repository repository : this.repositoryRepository.findAllByOrderByRepoOrderDesc()) {
+				loaded.put(repository.getId(), loaded.size());
+			}
+			current = Collections.unmodifiableMap(loaded);
+			this.ranks = current;
+		}
+		return current;
+	}
+}
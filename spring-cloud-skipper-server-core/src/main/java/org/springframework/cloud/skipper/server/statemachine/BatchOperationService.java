@@ -0,0 +1,302 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.cloud.skipper.server.statemachine;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.cloud.skipper.OperationRejectedException;
+import org.springframework.cloud.skipper.ReleaseNotOwnedException;
+import org.springframework.cloud.skipper.SkipperException;
+import org.springframework.cloud.skipper.domain.BatchOperationRequest;
+import org.springframework.cloud.skipper.domain.BatchRequest;
+import org.springframework.cloud.skipper.domain.Operation;
+import org.springframework.cloud.skipper.domain.OperationState;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.util.Assert;
+import org.springframework.util.StringUtils;
+import org.springframework.util.concurrent.ListenableFuture;
+
+/**
+ * Runs the operations of a {@link BatchRequest} as asynchronous operations of the
+ * {@link SkipperStateMachineService}, starting the next operation whenever one of the
+ * running operations is done, so that at most the parallelism of the batch is running at
+ * any time. Every batch is dispatched from a thread of a bounded pool, batches exceeding
+ * it are rejected. Operations of all batches share the capacity of the deployment pool,
+ * operations rejected by the state machine service are retried with backoff, except for
+ * operations on releases handled by another live node of the cluster, which fail.
+ */
+public class BatchOperationService implements DisposableBean {
+
+	private static final Logger log = LoggerFactory.getLogger(BatchOperationService.class);
+
+	private static final long INITIAL_RETRY_BACKOFF = 100;
+
+	private static final long MAX_RETRY_BACKOFF = 5000;
+
+	private final SkipperStateMachineService skipperStateMachineService;
+
+	private final int maxParallelism;
+
+	private final long maxWait;
+
+	private final Semaphore capacity;
+
+	private final ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+
+	/**
+	 * Instantiates a new batch operation service.
+	 *
+	 * @param skipperStateMachineService the service running the operations
+	 * @param poolSize the maximum number of batches running at the same time
+	 * @param maxParallelism the maximum number of operations of a batch running at the same
+	 * time
+	 * @param capacity the maximum number of operations of all batches running at the same
+	 * time, usually the capacity of the deployment pool
+	 * @param maxWait the maximum time in milliseconds a batch runs, operations still
+	 * pending after it are reported as pending, runs without limit if not positive
+	 */
+	public BatchOperationService(SkipperStateMachineService skipperStateMachineService, int poolSize,
+			int maxParallelism, int capacity, long maxWait) {
+		Assert.notNull(skipperStateMachineService, "'skipperStateMachineService' must be set");
+		Assert.isTrue(maxParallelism > 0, "'maxParallelism' must be positive");
+		Assert.isTrue(capacity > 0, "'capacity' must be positive");
+		this.skipperStateMachineService = skipperStateMachineService;
+		this.maxParallelism = Math.min(maxParallelism, capacity);
+		this.maxWait = maxWait;
+		this.capacity = new Semaphore(capacity);
+		this.executor.setCorePoolSize(poolSize);
+		this.executor.setMaxPoolSize(poolSize);
+		this.executor.setQueueCapacity(0);
+		this.executor.setThreadNamePrefix("skipper-batch-");
+		this.executor.initialize();
+	}
+
+	/**
+	 * Start the operations of a batch. The result of every operation is passed to the
+	 * consumer once it is done, in the order the operations complete.
+	 *
+	 * @param batchRequest the batch request
+	 * @param resultConsumer the consumer of the operation results, called from multiple
+	 * threads
+	 * @param completion called once all operations are done, or the batch timed out
+	 * @throws SkipperException if the batch is not valid
+	 * @throws OperationRejectedException if too many batches are running
+	 */
+	public void execute(BatchRequest batchRequest, Consumer<Operation> resultConsumer, Runnable completion) {
+		List<BatchOperationRequest> requests = new ArrayList<>(batchRequest.getOperations());
+		Set<String> releaseNames = new HashSet<>();
+		for (BatchOperationRequest request : requests) {
+			String releaseName = getReleaseName(request);
+			if (!releaseNames.add(releaseName)) {
+				throw new SkipperException("Batch contains more than one operation on release '" + releaseName + "'");
+			}
+		}
+		int parallelism = batchRequest.getParallelism() != null && batchRequest.getParallelism() > 0
+				? Math.min(batchRequest.getParallelism(), this.maxParallelism)
+				: this.maxParallelism;
+		try {
+			this.executor.execute(() -> run(requests, parallelism, resultConsumer, completion));
+		}
+		catch (TaskRejectedException e) {
+			throw new OperationRejectedException(String.format("Can't run batch of %d operations, %d batches are "
+					+ "running already, retry later", requests.size(), this.executor.getActiveCount()), e);
+		}
+	}
+
+	/**
+	 * @return the maximum time in milliseconds a batch runs
+	 */
+	public long getMaxWait() {
+		return this.maxWait;
+	}
+
+	@Override
+	public void destroy() {
+		this.executor.shutdown();
+	}
+
+	private void run(List<BatchOperationRequest> requests, int parallelism, Consumer<Operation> resultConsumer,
+			Runnable completion) {
+		Semaphore permits = new Semaphore(parallelism);
+		Map<String, Operation> running = new ConcurrentHashMap<>();
+		long deadline = this.maxWait > 0 ? System.currentTimeMillis() + this.maxWait : Long.MAX_VALUE;
+		try {
+			for (int i = 0; i < requests.size(); i++) {
+				if (!startWithRetry(requests.get(i), permits, running, resultConsumer, deadline)) {
+					for (BatchOperationRequest request : requests.subList(i, requests.size())) {
+						resultConsumer.accept(failed(request, "Batch timed out before the operation was started"));
+					}
+					break;
+				}
+			}
+			if (!acquire(permits, parallelism, deadline)) {
+				// report what the operations still running are at, they can be polled
+				for (String id : running.keySet()) {
+					Operation operation = running.remove(id);
+					Operation latest = this.skipperStateMachineService.getOperation(id);
+					if (operation != null) {
+						resultConsumer.accept(latest != null ? latest : operation);
+					}
+				}
+			}
+		}
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		catch (RuntimeException e) {
+			log.error("Batch failed", e);
+		}
+		finally {
+			completion.run();
+		}
+	}
+
+	private boolean startWithRetry(BatchOperationRequest request, Semaphore permits, Map<String, Operation> running,
+			Consumer<Operation> resultConsumer, long deadline) throws InterruptedException {
+		long backoff = INITIAL_RETRY_BACKOFF;
+		while (acquire(permits, 1, deadline)) {
+			if (!acquire(this.capacity, 1, deadline)) {
+				permits.release();
+				return false;
+			}
+			if (start(request, permits, running, resultConsumer)) {
+				return true;
+			}
+			// rejected, the permits are released so that running operations can finish
+			Thread.sleep(Math.max(0, Math.min(backoff, deadline - System.currentTimeMillis())));
+			backoff = Math.min(backoff * 2, MAX_RETRY_BACKOFF);
+		}
+		return false;
+	}
+
+	private boolean start(BatchOperationRequest request, Semaphore permits, Map<String, Operation> running,
+			Consumer<Operation> resultConsumer) {
+		Operation operation;
+		try {
+			operation = dispatch(request);
+		}
+		catch (OperationRejectedException e) {
+			if (e instanceof ReleaseNotOwnedException && ((ReleaseNotOwnedException) e).getOwnerUrl() != null) {
+				// handled by another node, retrying here would never succeed
+				release(permits);
+				resultConsumer.accept(failed(request, e.getMessage()));
+				return true;
+			}
+			log.debug("Operation on release '{}' rejected, retrying: {}", getReleaseName(request), e.getMessage());
+			release(permits);
+			return false;
+		}
+		catch (SkipperException e) {
+			release(permits);
+			resultConsumer.accept(failed(request, e.getMessage()));
+			return true;
+		}
+		catch (RuntimeException e) {
+			log.error("Operation on release '" + getReleaseName(request) + "' failed", e);
+			release(permits);
+			resultConsumer.accept(failed(request, e.toString()));
+			return true;
+		}
+		running.put(operation.getId(), operation);
+		ListenableFuture<Operation> done = this.skipperStateMachineService.getOperationCompletion(operation.getId());
+		if (done == null) {
+			// no longer tracked, report it as is
+			finish(operation.getId(), operation, permits, running, resultConsumer);
+		}
+		else {
+			done.addCallback(result -> finish(operation.getId(), result, permits, running, resultConsumer),
+					throwable -> finish(operation.getId(), failed(request, throwable.getMessage()), permits, running,
+							resultConsumer));
+		}
+		return true;
+	}
+
+	private void finish(String id, Operation result, Semaphore permits, Map<String, Operation> running,
+			Consumer<Operation> resultConsumer) {
+		// the operation may have been reported as pending when the batch timed out
+		if (running.remove(id) != null) {
+			resultConsumer.accept(result);
+		}
+		release(permits);
+	}
+
+	private void release(Semaphore permits) {
+		this.capacity.release();
+		permits.release();
+	}
+
+	private Operation dispatch(BatchOperationRequest request) {
+		switch (request.getType()) {
+		case BatchOperationRequest.INSTALL:
+			return this.skipperStateMachineService.installReleaseAsync(request.getInstallRequest());
+		case BatchOperationRequest.UPGRADE:
+			return this.skipperStateMachineService.upgradeReleaseAsync(request.getUpgradeRequest());
+		default:
+			return this.skipperStateMachineService.deleteReleaseAsync(request.getReleaseName());
+		}
+	}
+
+	private boolean acquire(Semaphore permits, int count, long deadline) throws InterruptedException {
+		long timeout = deadline - System.currentTimeMillis();
+		return timeout > 0 && permits.tryAcquire(count, timeout, TimeUnit.MILLISECONDS);
+	}
+
+	private static String getReleaseName(BatchOperationRequest request) {
+		String releaseName = null;
+		if (BatchOperationRequest.INSTALL.equals(request.getType()) && request.getInstallRequest() != null
+				&& request.getInstallRequest().getInstallProperties() != null) {
+			releaseName = request.getInstallRequest().getInstallProperties().getReleaseName();
+		}
+		else if (BatchOperationRequest.UPGRADE.equals(request.getType()) && request.getUpgradeRequest() != null
+				&& request.getUpgradeRequest().getUpgradeProperties() != null) {
+			releaseName = request.getUpgradeRequest().getUpgradeProperties().getReleaseName();
+		}
+		else if (BatchOperationRequest.DELETE.equals(request.getType())) {
+			releaseName = request.getReleaseName();
+		}
+		if (!StringUtils.hasText(releaseName)) {
+			throw new SkipperException("Batch operation of type '" + request.getType()
+					+ "' must be one of install, upgrade or delete and name its release");
+		}
+		return releaseName;
+	}
+
+	private static Operation failed(BatchOperationRequest request, String message) {
+		Operation operation = new Operation();
+		operation.setType(request.getType());
+		operation.setReleaseName(getReleaseName(request));
+		operation.setState(OperationState.FAILED);
+		operation.setMessage(message);
+		Date now = new Date();
+		operation.setCreated(now);
+		operation.setLastUpdated(now);
+		return operation;
+	}
+}
@@ -0,0 +1,116 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.cloud.skipper.server.statemachine;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.statemachine.StateMachineContext;
+import org.springframework.statemachine.StateMachinePersist;
+import org.springframework.statemachine.persist.AbstractPersistingStateMachineInterceptor;
+import org.springframework.statemachine.persist.StateMachineRuntimePersister;
+import org.springframework.statemachine.support.StateMachineInterceptor;
+import org.springframework.util.Assert;
+
+/**
+ * {@link StateMachineRuntimePersister} which only writes the context of a machine to its
+ * delegate when the machine enters one of the checkpoint states, coalescing the writes
+ * of all transitions in between. The initial state is always a checkpoint, so a machine
+ * which has finished its operation is never restored in the middle of it.
+ *
+ * @param <S> the type of state
+ * @param <E> the type of event
+ * @param <T> the type of context object
+ */
+public class CheckpointingStateMachineRuntimePersister<S, E, T> extends AbstractPersistingStateMachineInterceptor<S, E, T>
+		implements StateMachineRuntimePersister<S, E, T> {
+
+	private final StateMachinePersist<S, E, T> delegate;
+
+	private final Set<S> checkpointStates;
+
+	private final AtomicLong writeCount = new AtomicLong();
+
+	private final AtomicLong coalescedCount = new AtomicLong();
+
+	/**
+	 * Instantiates a new checkpointing state machine runtime persister.
+	 *
+	 * @param delegate the persister writing the contexts
+	 * @param initialState the initial state of the machine
+	 * @param checkpointStates the states on which contexts are written
+	 */
+	public CheckpointingStateMachineRuntimePersister(StateMachinePersist<S, E, T> delegate, S initialState,
+			Collection<S> checkpointStates) {
+		Assert.notNull(delegate, "'delegate' must be set");
+		Assert.notNull(initialState, "'initialState' must be set");
+		this.delegate = delegate;
+		this.checkpointStates = new HashSet<>(checkpointStates);
+		this.checkpointStates.add(initialState);
+	}
+
+	@Override
+	public StateMachineInterceptor<S, E> getInterceptor() {
+		return this;
+	}
+
+	@Override
+	public void write(StateMachineContext<S, E> context, T contextObj) throws Exception {
+		if (isCheckpoint(context)) {
+			this.writeCount.incrementAndGet();
+			this.delegate.write(context, contextObj);
+		}
+		else {
+			this.coalescedCount.incrementAndGet();
+		}
+	}
+
+	@Override
+	public StateMachineContext<S, E> read(T contextObj) throws Exception {
+		return this.delegate.read(contextObj);
+	}
+
+	/**
+	 * @return the number of contexts written to the delegate
+	 */
+	public long getWriteCount() {
+		return this.writeCount.get();
+	}
+
+	/**
+	 * @return the number of contexts not written as they were not on a checkpoint
+	 */
+	public long getCoalescedCount() {
+		return this.coalescedCount.get();
+	}
+
+	private boolean isCheckpoint(StateMachineContext<S, E> context) {
+		if (this.checkpointStates.contains(context.getState())) {
+			return true;
+		}
+		// substates of a hierarchical machine are kept in the child contexts
+		if (context.getChilds() != null) {
+			for (StateMachineContext<S, E> child : context.getChilds()) {
+				if (isCheckpoint(child)) {
+					return true;
+				}
+			}
+		}
+		return false;
+	}
+}
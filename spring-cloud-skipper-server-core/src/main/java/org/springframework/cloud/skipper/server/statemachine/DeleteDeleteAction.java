@@ -40,15 +40,20 @@ public class DeleteDeleteAction extends AbstractAction {
 
 	private final ReleaseService releaseService;
 
+	private final StateMachineReferences stateMachineReferences;
+
 	/**
 	 * Instantiates a new delete delete action.
 	 *
 	 * @param releaseService the release service
+	 * @param stateMachineReferences the state machine references
 	 */
-	public DeleteDeleteAction(ReleaseService releaseService) {
+	public DeleteDeleteAction(ReleaseService releaseService, StateMachineReferences stateMachineReferences) {
 		super();
 		Assert.notNull(releaseService, "'releaseService' must be set");
+		Assert.notNull(stateMachineReferences, "'stateMachineReferences' must be set");
 		this.releaseService = releaseService;
+		this.stateMachineReferences = stateMachineReferences;
 	}
 
 	@Override
@@ -57,6 +62,7 @@ public class DeleteDeleteAction extends AbstractAction {
 		String releaseName = context.getMessageHeaders().get(SkipperEventHeaders.RELEASE_NAME, String.class);
 		log.info("About to delete {}", releaseName);
 		Release release = this.releaseService.delete(releaseName);
-		context.getExtendedState().getVariables().put(SkipperVariables.RELEASE, release);
+		context.getExtendedState().getVariables().put(SkipperVariables.RELEASE,
+				this.stateMachineReferences.reference(release));
 	}
 }
@@ -0,0 +1,129 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.cloud.skipper.server.statemachine;
+
+import java.util.function.Consumer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.springframework.cloud.skipper.OperationRejectedException;
+import org.springframework.cloud.skipper.SkipperException;
+import org.springframework.cloud.skipper.server.statemachine.SkipperStateMachineService.SkipperEvents;
+import org.springframework.cloud.skipper.server.statemachine.SkipperStateMachineService.SkipperStates;
+import org.springframework.cloud.skipper.server.statemachine.SkipperStateMachineService.SkipperVariables;
+import org.springframework.core.task.AsyncListenableTaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.statemachine.StateContext;
+import org.springframework.statemachine.StateMachine;
+import org.springframework.statemachine.action.Action;
+import org.springframework.util.Assert;
+import org.springframework.util.concurrent.ListenableFuture;
+
+/**
+ * StateMachine {@link Action} running a long running deploy or undeploy action on a
+ * separate, bounded executor. The number of deployments in flight is limited by that
+ * executor, and an action it can't take on fails the machine with an
+ * {@link OperationRejectedException} instead of queueing behind other deployments.
+ * <p>
+ * The transition thread is not held up while the action runs. The machine stays in the
+ * state of the action until the completion callback, called once the action is done,
+ * sends the event of the transition out of that state.
+ * <p>
+ * Compensating actions, which clean up after an operation that was already admitted, are
+ * never rejected. When the executor is full they run on the transition thread instead.
+ */
+public class DeploymentExecutorAction extends AbstractAction {
+
+	private static final Logger log = LoggerFactory.getLogger(DeploymentExecutorAction.class);
+
+	private final Action<SkipperStates, SkipperEvents> action;
+
+	private final AsyncListenableTaskExecutor executor;
+
+	private final Consumer<StateMachine<SkipperStates, SkipperEvents>> completion;
+
+	private final boolean compensating;
+
+	/**
+	 * Instantiates a new deployment executor action which is rejected when the executor is
+	 * full.
+	 *
+	 * @param action the action to run
+	 * @param executor the executor to run the action on
+	 * @param completion the callback sending the event completing the transition once the
+	 * action is done
+	 */
+	public DeploymentExecutorAction(Action<SkipperStates, SkipperEvents> action, AsyncListenableTaskExecutor executor,
+			Consumer<StateMachine<SkipperStates, SkipperEvents>> completion) {
+		this(action, executor, completion, false);
+	}
+
+	/**
+	 * Instantiates a new deployment executor action.
+	 *
+	 * @param action the action to run
+	 * @param executor the executor to run the action on
+	 * @param completion the callback sending the event completing the transition once the
+	 * action is done
+	 * @param compensating if the action runs on the calling thread when the executor is
+	 * full, instead of being rejected
+	 */
+	public DeploymentExecutorAction(Action<SkipperStates, SkipperEvents> action, AsyncListenableTaskExecutor executor,
+			Consumer<StateMachine<SkipperStates, SkipperEvents>> completion, boolean compensating) {
+		Assert.notNull(action, "'action' must be set");
+		Assert.notNull(executor, "'executor' must be set");
+		Assert.notNull(completion, "'completion' must be set");
+		this.action = action;
+		this.executor = executor;
+		this.completion = completion;
+		this.compensating = compensating;
+	}
+
+	@Override
+	protected void executeInternal(StateContext<SkipperStates, SkipperEvents> context) {
+		ListenableFuture<?> future;
+		try {
+			future = this.executor.submitListenable(() -> this.action.execute(context));
+		}
+		catch (TaskRejectedException e) {
+			if (!this.compensating) {
+				throw new OperationRejectedException("No capacity left to run "
+						+ this.action.getClass().getSimpleName() + ", retry later", e);
+			}
+			// the operation was admitted already, leaving its apps behind is worse than
+			// holding up the transition thread
+			this.action.execute(context);
+			complete(context);
+			return;
+		}
+		future.addCallback(result -> complete(context), throwable -> {
+			context.getExtendedState().getVariables().put(SkipperVariables.ERROR,
+					new SkipperException("Failed to run " + this.action.getClass().getSimpleName(), throwable));
+			complete(context);
+		});
+	}
+
+	private void complete(StateContext<SkipperStates, SkipperEvents> context) {
+		try {
+			this.completion.accept(context.getStateMachine());
+		}
+		catch (RuntimeException e) {
+			log.error("Could not complete " + this.action.getClass().getSimpleName() + " of "
+					+ context.getStateMachine().getId(), e);
+		}
+	}
+}
@@ -0,0 +1,91 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.cloud.skipper.server.statemachine;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.util.Assert;
+
+/**
+ * Periodically evicts the state machines of releases which have been idle for too long,
+ * or exceed the maximum number of machines to keep, so that the heap used by state
+ * machines is bounded by the number of recently handled releases rather than by every
+ * release handled since startup.
+ */
+public class IdleStateMachineEvictor implements InitializingBean, DisposableBean {
+
+	private static final Logger log = LoggerFactory.getLogger(IdleStateMachineEvictor.class);
+
+	private final SkipperStateMachineService skipperStateMachineService;
+
+	private final long interval;
+
+	private final long maxIdle;
+
+	private final int maxMachines;
+
+	private final ScheduledExecutorService scheduledExecutorService = Executors
+			.newSingleThreadScheduledExecutor(new CustomizableThreadFactory("skipper-statemachine-eviction-"));
+
+	/**
+	 * Instantiates a new idle state machine evictor.
+	 *
+	 * @param skipperStateMachineService the skipper state machine service
+	 * @param interval the interval in milliseconds between evictions, eviction is disabled
+	 * if not positive
+	 * @param maxIdle the time in milliseconds after which an unused machine is evicted
+	 * @param maxMachines the number of machines to keep
+	 */
+	public IdleStateMachineEvictor(SkipperStateMachineService skipperStateMachineService, long interval,
+			long maxIdle, int maxMachines) {
+		Assert.notNull(skipperStateMachineService, "'skipperStateMachineService' must be set");
+		this.skipperStateMachineService = skipperStateMachineService;
+		this.interval = interval;
+		this.maxIdle = maxIdle;
+		this.maxMachines = maxMachines;
+	}
+
+	@Override
+	public void afterPropertiesSet() {
+		if (this.interval > 0) {
+			this.scheduledExecutorService.scheduleWithFixedDelay(this::evictQuietly, this.interval, this.interval,
+					TimeUnit.MILLISECONDS);
+		}
+	}
+
+	@Override
+	public void destroy() {
+		this.scheduledExecutorService.shutdownNow();
+	}
+
+	private void evictQuietly() {
+		try {
+			this.skipperStateMachineService.evictIdleStateMachines(this.maxIdle, this.maxMachines);
+		}
+		catch (RuntimeException e) {
+			// don't let the exception cancel further scheduled runs
+			log.warn("Could not evict idle state machines", e);
+		}
+	}
+}
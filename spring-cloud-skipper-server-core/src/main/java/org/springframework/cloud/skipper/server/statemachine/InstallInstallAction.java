@@ -43,16 +43,20 @@ public class InstallInstallAction extends AbstractAction {
 
 	private static final Logger log = LoggerFactory.getLogger(InstallInstallAction.class);
 	private final ReleaseService releaseService;
+	private final StateMachineReferences stateMachineReferences;
 
 	/**
 	 * Instantiates a new install install action.
 	 *
 	 * @param releaseService the release service
+	 * @param stateMachineReferences the state machine references
 	 */
-	public InstallInstallAction(ReleaseService releaseService) {
+	public InstallInstallAction(ReleaseService releaseService, StateMachineReferences stateMachineReferences) {
 		super();
 		Assert.notNull(releaseService, "'releaseService' must be set");
+		Assert.notNull(stateMachineReferences, "'stateMachineReferences' must be set");
 		this.releaseService = releaseService;
+		this.stateMachineReferences = stateMachineReferences;
 	}
 
 	@Override
@@ -63,23 +67,27 @@ public class InstallInstallAction extends AbstractAction {
 		if (installRequest != null) {
 			// we have an install request
 			Release release = this.releaseService.install(installRequest);
-			context.getExtendedState().getVariables().put(SkipperVariables.RELEASE, release);
+			context.getExtendedState().getVariables().put(SkipperVariables.RELEASE,
+					this.stateMachineReferences.reference(release));
 		}
 		else if (installProperties != null) {
 			// we have install properties
 			Long id = context.getMessageHeaders().get(SkipperEventHeaders.INSTALL_ID, Long.class);
 			Release release = this.releaseService.install(id, installProperties);
-			context.getExtendedState().getVariables().put(SkipperVariables.RELEASE, release);
+			context.getExtendedState().getVariables().put(SkipperVariables.RELEASE,
+					this.stateMachineReferences.reference(release));
 		}
 		else {
 			// fall back to assuming target release
-			Release replacingRelease = context.getExtendedState().get(SkipperVariables.TARGET_RELEASE, Release.class);
+			Release replacingRelease = this.stateMachineReferences.resolve(
+					context.getExtendedState().get(SkipperVariables.TARGET_RELEASE, ReleaseReference.class));
 			if (replacingRelease == null) {
 				// will end up into machine error handling
 				throw new SkipperException("No InstallRequest or InstallProperties given and replacingRelease is null");
 			}
 			Release release = this.releaseService.install(replacingRelease);
-			context.getExtendedState().getVariables().put(SkipperVariables.RELEASE, release);
+			context.getExtendedState().getVariables().put(SkipperVariables.RELEASE,
+					this.stateMachineReferences.reference(release));
 		}
 	}
 }
@@ -0,0 +1,159 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.cloud.skipper.server.statemachine;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.springframework.boot.actuate.metrics.Metric;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+/**
+ * {@link ThreadPoolTaskExecutor} with a bounded queue which records the latency of its
+ * tasks, from submission until completion, and the number of rejected tasks, and exposes
+ * them together with the pool state as metrics.
+ */
+public class MonitoredThreadPoolTaskExecutor extends ThreadPoolTaskExecutor {
+
+	private static final long serialVersionUID = 1L;
+
+	private final String name;
+
+	private final LongAdder completedTasks = new LongAdder();
+
+	private final LongAdder totalLatencyNanos = new LongAdder();
+
+	private final AtomicLong maxLatencyNanos = new AtomicLong();
+
+	private final LongAdder rejectedTasks = new LongAdder();
+
+	private final int queueCapacity;
+
+	/**
+	 * Instantiates a new monitored executor.
+	 *
+	 * @param name the name of the executor, used for its threads and metrics
+	 * @param corePoolSize the core pool size
+	 * @param maxPoolSize the maximum pool size
+	 * @param queueCapacity the capacity of the queue, tasks are handed directly to a
+	 * thread if zero
+	 * @param callerRuns if rejected tasks are run by the submitting thread instead of
+	 * being aborted
+	 */
+	public MonitoredThreadPoolTaskExecutor(String name, int corePoolSize, int maxPoolSize, int queueCapacity,
+			boolean callerRuns) {
+		this.name = name;
+		this.queueCapacity = queueCapacity;
+		setThreadNamePrefix(name + "-");
+		setCorePoolSize(corePoolSize);
+		setMaxPoolSize(maxPoolSize);
+		setQueueCapacity(queueCapacity);
+		setTaskDecorator(this::recordLatency);
+		RejectedExecutionHandler policy = callerRuns ? new ThreadPoolExecutor.CallerRunsPolicy()
+				: new ThreadPoolExecutor.AbortPolicy();
+		setRejectedExecutionHandler((runnable, executor) -> {
+			this.rejectedTasks.increment();
+			policy.rejectedExecution(runnable, executor);
+		});
+	}
+
+	public String getName() {
+		return this.name;
+	}
+
+	/**
+	 * @return true if all threads are busy and the queue is full, so that a new task would
+	 * be rejected
+	 */
+	public boolean isSaturated() {
+		ThreadPoolExecutor executor = getThreadPoolExecutor();
+		return executor.getActiveCount() >= getMaxPoolSize()
+				&& executor.getQueue().size() >= this.queueCapacity;
+	}
+
+	/**
+	 * @return the number of tasks waiting in the queue
+	 */
+	public int getQueueSize() {
+		return getThreadPoolExecutor().getQueue().size();
+	}
+
+	/**
+	 * @return the number of rejected tasks
+	 */
+	public long getRejectedCount() {
+		return this.rejectedTasks.sum();
+	}
+
+	/**
+	 * @return the number of tasks run to completion
+	 */
+	public long getCompletedCount() {
+		return this.completedTasks.sum();
+	}
+
+	/**
+	 * @return the highest latency of a task in milliseconds
+	 */
+	public long getMaxLatency() {
+		return TimeUnit.NANOSECONDS.toMillis(this.maxLatencyNanos.get());
+	}
+
+	/**
+	 * @return the average latency of the tasks in milliseconds
+	 */
+	public double getAverageLatency() {
+		long completed = this.completedTasks.sum();
+		return completed > 0 ? this.totalLatencyNanos.sum() / (double) completed / TimeUnit.MILLISECONDS.toNanos(1)
+				: 0;
+	}
+
+	/**
+	 * @return the metrics of the executor, named {@code skipper.executor.<name>.*}
+	 */
+	public Collection<Metric<?>> metrics() {
+		String prefix = "skipper.executor." + this.name + ".";
+		Collection<Metric<?>> metrics = new ArrayList<>();
+		metrics.add(new Metric<>(prefix + "active", getActiveCount()));
+		metrics.add(new Metric<>(prefix + "pool", getPoolSize()));
+		metrics.add(new Metric<>(prefix + "queue", getQueueSize()));
+		metrics.add(new Metric<>(prefix + "completed", getCompletedCount()));
+		metrics.add(new Metric<>(prefix + "rejected", getRejectedCount()));
+		metrics.add(new Metric<>(prefix + "latency.avg", getAverageLatency()));
+		metrics.add(new Metric<>(prefix + "latency.max", getMaxLatency()));
+		return metrics;
+	}
+
+	private Runnable recordLatency(Runnable task) {
+		long submitted = System.nanoTime();
+		return () -> {
+			try {
+				task.run();
+			}
+			finally {
+				long latency = System.nanoTime() - submitted;
+				this.completedTasks.increment();
+				this.totalLatencyNanos.add(latency);
+				this.maxLatencyNanos.accumulateAndGet(latency, Math::max);
+			}
+		};
+	}
+}
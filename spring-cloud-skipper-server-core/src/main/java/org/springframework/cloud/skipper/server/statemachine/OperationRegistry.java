@@ -0,0 +1,220 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.cloud.skipper.server.statemachine;
+
+import java.util.Date;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+import org.springframework.cloud.skipper.domain.Operation;
+import org.springframework.cloud.skipper.domain.OperationState;
+import org.springframework.cloud.skipper.domain.Release;
+import org.springframework.cloud.skipper.server.statemachine.SkipperStateMachineService.SkipperStates;
+import org.springframework.util.concurrent.ListenableFuture;
+import org.springframework.util.concurrent.SettableListenableFuture;
+
+/**
+ * Keeps track of the release operations handled by the state machines, so that the
+ * outcome of an operation can be retrieved after the request that started it has
+ * returned. Pending operations are always kept, finished operations are forgotten once
+ * they have not been accessed for the retention period, or when the maximum number of
+ * finished operations is exceeded. In a cluster the ids are prefixed with the node
+ * tracking the operation.
+ */
+class OperationRegistry {
+
+	private final ConcurrentMap<String, TrackedOperation> pendingOperations = new ConcurrentHashMap<>();
+
+	private final Cache<String, TrackedOperation> finishedOperations;
+
+	private volatile String idPrefix = "";
+
+	OperationRegistry(long maximumSize, long retentionMillis) {
+		this.finishedOperations = CacheBuilder.newBuilder()
+				.maximumSize(maximumSize)
+				.expireAfterAccess(retentionMillis, TimeUnit.MILLISECONDS)
+				.build();
+	}
+
+	/**
+	 * Set the prefix of the ids of operations registered from now on.
+	 * @param idPrefix the id prefix
+	 */
+	void setIdPrefix(String idPrefix) {
+		this.idPrefix = idPrefix;
+	}
+
+	/**
+	 * Start tracking a new pending operation.
+	 * @param type the kind of operation
+	 * @param releaseName the name of the release the operation is handling
+	 * @return the tracked operation
+	 */
+	TrackedOperation register(String type, String releaseName) {
+		TrackedOperation trackedOperation = new TrackedOperation(this.idPrefix + UUID.randomUUID(), type,
+				releaseName);
+		this.pendingOperations.put(trackedOperation.getId(), trackedOperation);
+		trackedOperation.getCompletion().addCallback(operation -> finished(trackedOperation),
+				e -> finished(trackedOperation));
+		return trackedOperation;
+	}
+
+	private void finished(TrackedOperation trackedOperation) {
+		// cached before it is unpinned, so that it can be found at any time
+		this.finishedOperations.put(trackedOperation.getId(), trackedOperation);
+		this.pendingOperations.remove(trackedOperation.getId());
+	}
+
+	/**
+	 * Get a tracked operation.
+	 * @param id the id of the operation
+	 * @return the tracked operation or {@literal null} if it is not known
+	 */
+	TrackedOperation get(String id) {
+		TrackedOperation trackedOperation = this.pendingOperations.get(id);
+		return (trackedOperation != null) ? trackedOperation : this.finishedOperations.getIfPresent(id);
+	}
+
+	/**
+	 * @return the names of the releases with an operation that is still pending
+	 */
+	Set<String> getPendingReleaseNames() {
+		Set<String> releaseNames = new HashSet<>();
+		for (TrackedOperation trackedOperation : this.pendingOperations.values()) {
+			if (!trackedOperation.getResult().isDone()) {
+				releaseNames.add(trackedOperation.getReleaseName());
+			}
+		}
+		return releaseNames;
+	}
+
+	/**
+	 * @param releaseName the name of the release
+	 * @return true if the release has an operation that is still pending
+	 */
+	boolean hasPendingOperation(String releaseName) {
+		for (TrackedOperation trackedOperation : this.pendingOperations.values()) {
+			if (!trackedOperation.getResult().isDone() && trackedOperation.getReleaseName().equals(releaseName)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * An operation whose state is updated from the state machine threads while clients read
+	 * snapshots of it.
+	 */
+	static final class TrackedOperation {
+
+		private final Operation operation = new Operation();
+
+		private final SettableListenableFuture<Release> result = new SettableListenableFuture<>();
+
+		private final SettableListenableFuture<Operation> completion = new SettableListenableFuture<>();
+
+		private TrackedOperation(String id, String type, String releaseName) {
+			this.operation.setId(id);
+			this.operation.setType(type);
+			this.operation.setReleaseName(releaseName);
+			Date now = new Date();
+			this.operation.setCreated(now);
+			this.operation.setLastUpdated(now);
+		}
+
+		String getId() {
+			return this.operation.getId();
+		}
+
+		String getReleaseName() {
+			return this.operation.getReleaseName();
+		}
+
+		/**
+		 * @return the future completed with the resulting release, or the exception the
+		 * operation failed with
+		 */
+		ListenableFuture<Release> getResult() {
+			return this.result;
+		}
+
+		/**
+		 * @return the future completed with a snapshot of the operation once it is done
+		 */
+		ListenableFuture<Operation> getCompletion() {
+			return this.completion;
+		}
+
+		synchronized void stateEntered(SkipperStates state) {
+			this.operation.setMachineState(state.name());
+			this.operation.setLastUpdated(new Date());
+		}
+
+		void complete(Release release) {
+			Operation completed;
+			synchronized (this) {
+				if (this.operation.isDone()) {
+					return;
+				}
+				this.operation.setState(OperationState.COMPLETED);
+				this.operation.setRelease(release);
+				this.operation.setLastUpdated(new Date());
+				completed = snapshot();
+			}
+			this.result.set(release);
+			this.completion.set(completed);
+		}
+
+		void fail(Throwable cause) {
+			Operation failed;
+			synchronized (this) {
+				if (this.operation.isDone()) {
+					return;
+				}
+				this.operation.setState(OperationState.FAILED);
+				this.operation.setMessage(cause.getMessage());
+				this.operation.setLastUpdated(new Date());
+				failed = snapshot();
+			}
+			this.result.setException(cause);
+			this.completion.set(failed);
+		}
+
+		/**
+		 * @return a copy of the current state of the operation
+		 */
+		synchronized Operation snapshot() {
+			Operation snapshot = new Operation();
+			snapshot.setId(this.operation.getId());
+			snapshot.setType(this.operation.getType());
+			snapshot.setReleaseName(this.operation.getReleaseName());
+			snapshot.setState(this.operation.getState());
+			snapshot.setMachineState(this.operation.getMachineState());
+			snapshot.setMessage(this.operation.getMessage());
+			snapshot.setCreated(this.operation.getCreated());
+			snapshot.setLastUpdated(this.operation.getLastUpdated());
+			snapshot.setRelease(this.operation.getRelease());
+			return snapshot;
+		}
+	}
+}
@@ -0,0 +1,82 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.cloud.skipper.server.statemachine;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.cloud.skipper.server.deployer.ReleaseAnalysisReport;
+
+/**
+ * Reference to a {@link ReleaseAnalysisReport} kept in the extended state of a state
+ * machine in place of the report itself, resolved through {@link StateMachineReferences}.
+ * The names of the applications to upgrade are kept with the reference, so that a report
+ * which is no longer cached can be rebuilt from them and the stored existing and
+ * replacing releases without analyzing the upgrade again.
+ */
+public class ReleaseAnalysisReportReference {
+
+	private String key;
+
+	private ReleaseReference existingRelease;
+
+	private ReleaseReference replacingRelease;
+
+	private List<String> applicationNamesToUpgrade;
+
+	ReleaseAnalysisReportReference() {
+	}
+
+	ReleaseAnalysisReportReference(String key, ReleaseReference existingRelease, ReleaseReference replacingRelease,
+			List<String> applicationNamesToUpgrade) {
+		this.key = key;
+		this.existingRelease = existingRelease;
+		this.replacingRelease = replacingRelease;
+		this.applicationNamesToUpgrade = new ArrayList<>(applicationNamesToUpgrade);
+	}
+
+	/**
+	 * @return the key of the report in the {@link StateMachineReferences} cache
+	 */
+	public String getKey() {
+		return this.key;
+	}
+
+	public ReleaseReference getExistingRelease() {
+		return this.existingRelease;
+	}
+
+	public ReleaseReference getReplacingRelease() {
+		return this.replacingRelease;
+	}
+
+	/**
+	 * @return the names of the applications to upgrade, {@literal null} for references
+	 * persisted before they were kept
+	 */
+	public List<String> getApplicationNamesToUpgrade() {
+		return this.applicationNamesToUpgrade;
+	}
+
+	@Override
+	public String toString() {
+		return "ReleaseAnalysisReportReference{" +
+				"existingRelease=" + this.existingRelease +
+				", replacingRelease=" + this.replacingRelease +
+				", applicationNamesToUpgrade=" + this.applicationNamesToUpgrade +
+				'}';
+	}
+}
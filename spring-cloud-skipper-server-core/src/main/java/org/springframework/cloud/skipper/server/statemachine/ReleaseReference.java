@@ -0,0 +1,75 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.cloud.skipper.server.statemachine;
+
+import org.springframework.cloud.skipper.domain.Release;
+
+/**
+ * Reference to a {@link Release} kept in the extended state of a state machine in place
+ * of the release itself, resolved through {@link StateMachineReferences}.
+ */
+public class ReleaseReference {
+
+	private String key;
+
+	private Long id;
+
+	private String name;
+
+	private int version;
+
+	ReleaseReference() {
+	}
+
+	ReleaseReference(String key, Long id, String name, int version) {
+		this.key = key;
+		this.id = id;
+		this.name = name;
+		this.version = version;
+	}
+
+	/**
+	 * @return the key of the release in the {@link StateMachineReferences} cache
+	 */
+	public String getKey() {
+		return this.key;
+	}
+
+	/**
+	 * @return the database id of the release, {@literal null} if it was not saved yet when
+	 * the reference was created
+	 */
+	public Long getId() {
+		return this.id;
+	}
+
+	public String getName() {
+		return this.name;
+	}
+
+	public int getVersion() {
+		return this.version;
+	}
+
+	@Override
+	public String toString() {
+		return "ReleaseReference{" +
+				"id=" + this.id +
+				", name='" + this.name + '\'' +
+				", version=" + this.version +
+				'}';
+	}
+}
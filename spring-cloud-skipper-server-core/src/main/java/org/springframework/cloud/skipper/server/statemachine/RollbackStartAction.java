@@ -41,15 +41,18 @@ public class RollbackStartAction  extends AbstractAction {
 
 	private static final Logger log = LoggerFactory.getLogger(RollbackStartAction.class);
 	private final ReleaseRepository releaseRepository;
+	private final StateMachineReferences stateMachineReferences;
 
 	/**
 	 * Instantiates a new rollback start action.
 	 *
 	 * @param releaseRepository the release repository
+	 * @param stateMachineReferences the state machine references
 	 */
-	public RollbackStartAction(ReleaseRepository releaseRepository) {
+	public RollbackStartAction(ReleaseRepository releaseRepository, StateMachineReferences stateMachineReferences) {
 		super();
 		this.releaseRepository = releaseRepository;
+		this.stateMachineReferences = stateMachineReferences;
 	}
 
 	@Override
@@ -92,11 +95,15 @@ public class RollbackStartAction  extends AbstractAction {
 		newRollbackRelease.setPlatformName(releaseToRollback.getPlatformName());
 		newRollbackRelease.setConfigValues(releaseToRollback.getConfigValues());
 		newRollbackRelease.setInfo(Info.createNewInfo("Initial install underway"));
+		// saved first so that the reference can be resolved once it is no longer cached
+		newRollbackRelease = this.releaseRepository.save(newRollbackRelease);
 
-		context.getExtendedState().getVariables().put(SkipperVariables.TARGET_RELEASE, newRollbackRelease);
+		context.getExtendedState().getVariables().put(SkipperVariables.TARGET_RELEASE,
+				this.stateMachineReferences.reference(newRollbackRelease));
 
 		if (!currentRelease.getInfo().getStatus().getStatusCode().equals(StatusCode.DELETED)) {
-			context.getExtendedState().getVariables().put(SkipperVariables.SOURCE_RELEASE, currentRelease);
+			context.getExtendedState().getVariables().put(SkipperVariables.SOURCE_RELEASE,
+					this.stateMachineReferences.reference(currentRelease));
 		}
 	}
 
@@ -0,0 +1,639 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.cloud.skipper.server.statemachine;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.cloud.skipper.OperationRejectedException;
+import org.springframework.cloud.skipper.SkipperException;
+import org.springframework.cloud.skipper.domain.BatchOperationRequest;
+import org.springframework.cloud.skipper.domain.BatchRequest;
+import org.springframework.cloud.skipper.domain.Operation;
+import org.springframework.cloud.skipper.domain.OperationState;
+import org.springframework.cloud.skipper.domain.PackageIdentifier;
+import org.springframework.cloud.skipper.domain.PackageMetadata;
+import org.springframework.cloud.skipper.domain.Release;
+import org.springframework.cloud.skipper.domain.Rollout;
+import org.springframework.cloud.skipper.domain.RolloutItem;
+import org.springframework.cloud.skipper.domain.RolloutRequest;
+import org.springframework.cloud.skipper.domain.RolloutState;
+import org.springframework.cloud.skipper.domain.StatusCode;
+import org.springframework.cloud.skipper.domain.UpgradeProperties;
+import org.springframework.cloud.skipper.domain.UpgradeRequest;
+import org.springframework.cloud.skipper.server.repository.PackageMetadataRepository;
+import org.springframework.cloud.skipper.server.repository.ReleaseRepository;
+import org.springframework.cloud.skipper.server.service.ReleaseReportService;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.util.Assert;
+import org.springframework.util.StringUtils;
+
+/**
+ * Upgrades all deployed releases of a package to another version of it.
+ *
+ * A rollout plans the upgrade of every release upfront with the
+ * {@link ReleaseReportService}, without saving anything, leaving out the releases whose
+ * applications would not change, and splits the remaining releases into waves. The waves
+ * are upgraded one after the other as batches of the {@link BatchOperationService}. An
+ * upgrade operation completes once the new apps are deployed, so a wave is only evaluated
+ * once the upgraded releases are deployed or failed. When the rate of failed upgrades of
+ * a wave exceeds the maximum failure rate of the rollout, it is paused before the next
+ * wave, or aborted if requested, and a paused rollout can be resumed or aborted. Failed
+ * releases of the package are skipped, they have to be upgraded or rolled back on their
+ * own.
+ *
+ * Rollouts are kept in memory, every rollout runs on a thread of a bounded pool and
+ * rollouts exceeding it are rejected. Only one rollout of a package may run at a time.
+ * As the waves are upgraded on the local node, rollouts are rejected when the cluster is
+ * enabled.
+ */
+public class RolloutService implements DisposableBean {
+
+	private static final Logger log = LoggerFactory.getLogger(RolloutService.class);
+
+	private static final int MAX_FINISHED_ROLLOUTS = 100;
+
+	private static final long DEFAULT_OUTCOME_POLL_INTERVAL = 500;
+
+	private final ReleaseRepository releaseRepository;
+
+	private final PackageMetadataRepository packageMetadataRepository;
+
+	private final ReleaseReportService releaseReportService;
+
+	private final BatchOperationService batchOperationService;
+
+	private final ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+
+	// rollouts by id, oldest first
+	private final Map<String, TrackedRollout> rollouts = new LinkedHashMap<>();
+
+	private long outcomePollInterval = DEFAULT_OUTCOME_POLL_INTERVAL;
+
+	private boolean clusterEnabled;
+
+	/**
+	 * Instantiates a new rollout service.
+	 *
+	 * @param releaseRepository the release repository
+	 * @param packageMetadataRepository the package metadata repository
+	 * @param releaseReportService the service planning the upgrades
+	 * @param batchOperationService the service upgrading the waves
+	 * @param poolSize the maximum number of rollouts running at the same time
+	 */
+	public RolloutService(ReleaseRepository releaseRepository, PackageMetadataRepository packageMetadataRepository,
+			ReleaseReportService releaseReportService, BatchOperationService batchOperationService, int poolSize) {
+		Assert.notNull(releaseRepository, "'releaseRepository' must be set");
+		Assert.notNull(packageMetadataRepository, "'packageMetadataRepository' must be set");
+		Assert.notNull(releaseReportService, "'releaseReportService' must be set");
+		Assert.notNull(batchOperationService, "'batchOperationService' must be set");
+		this.releaseRepository = releaseRepository;
+		this.packageMetadataRepository = packageMetadataRepository;
+		this.releaseReportService = releaseReportService;
+		this.batchOperationService = batchOperationService;
+		this.executor.setCorePoolSize(poolSize);
+		this.executor.setMaxPoolSize(poolSize);
+		this.executor.setQueueCapacity(0);
+		this.executor.setThreadNamePrefix("skipper-rollout-");
+		this.executor.initialize();
+	}
+
+	/**
+	 * Set how often the releases upgraded by a wave are checked until they are deployed or
+	 * failed.
+	 *
+	 * @param outcomePollInterval the poll interval in milliseconds
+	 */
+	public void setOutcomePollInterval(long outcomePollInterval) {
+		Assert.isTrue(outcomePollInterval > 0, "'outcomePollInterval' must be positive");
+		this.outcomePollInterval = outcomePollInterval;
+	}
+
+	/**
+	 * Set whether the server is a node of a cluster, in which case rollouts are rejected as
+	 * the upgrades of releases owned by other nodes would fail.
+	 *
+	 * @param clusterEnabled whether the cluster is enabled
+	 */
+	public void setClusterEnabled(boolean clusterEnabled) {
+		this.clusterEnabled = clusterEnabled;
+	}
+
+	/**
+	 * Plan and start a rollout.
+	 *
+	 * @param rolloutRequest the rollout request
+	 * @return the rollout, completed right away if all releases are up to date
+	 * @throws SkipperException if the cluster is enabled, the request is not valid, the
+	 * package is being rolled out already or an upgrade can't be planned
+	 * @throws OperationRejectedException if too many rollouts are running
+	 */
+	public Rollout start(RolloutRequest rolloutRequest) {
+		if (this.clusterEnabled) {
+			throw new SkipperException("Rollouts are not supported when the cluster is enabled");
+		}
+		if (!StringUtils.hasText(rolloutRequest.getPackageName())) {
+			throw new SkipperException("Rollout must name its package");
+		}
+		if (rolloutRequest.getWaveSize() <= 0) {
+			throw new SkipperException("Rollout wave size must be positive");
+		}
+		if (rolloutRequest.getMaxFailureRate() < 0 || rolloutRequest.getMaxFailureRate() > 1) {
+			throw new SkipperException("Rollout maximum failure rate must be between 0 and 1");
+		}
+		PackageMetadata target = this.packageMetadataRepository.findByNameAndOptionalVersionRequired(
+				rolloutRequest.getPackageName(), rolloutRequest.getPackageVersion());
+		TrackedRollout rollout = new TrackedRollout(UUID.randomUUID().toString(), rolloutRequest, target.getVersion());
+		register(rollout);
+		try {
+			plan(rollout, target);
+			if (rollout.waveCount == 0) {
+				rollout.finish(RolloutState.COMPLETED, "All releases are up to date");
+			}
+			else {
+				submit(rollout);
+			}
+		}
+		catch (RuntimeException e) {
+			synchronized (this.rollouts) {
+				this.rollouts.remove(rollout.id);
+			}
+			throw e;
+		}
+		log.info("Started rollout {} of package {} {} in {} waves", rollout.id, rollout.packageName,
+				rollout.packageVersion, rollout.waveCount);
+		return rollout.snapshot();
+	}
+
+	/**
+	 * Get the progress of a rollout.
+	 *
+	 * @param id the rollout id
+	 * @return the rollout or {@literal null} if it is not known
+	 */
+	public Rollout getRollout(String id) {
+		TrackedRollout rollout = get(id);
+		return rollout != null ? rollout.snapshot() : null;
+	}
+
+	/**
+	 * @return the known rollouts, oldest first
+	 */
+	public List<Rollout> getRollouts() {
+		List<Rollout> result = new ArrayList<>();
+		synchronized (this.rollouts) {
+			for (TrackedRollout rollout : this.rollouts.values()) {
+				result.add(rollout.snapshot());
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Resume a paused rollout with its next wave, or with the wave it could not start.
+	 *
+	 * @param id the rollout id
+	 * @return the rollout or {@literal null} if it is not known
+	 * @throws SkipperException if the rollout is not paused
+	 * @throws OperationRejectedException if too many rollouts are running
+	 */
+	public Rollout resume(String id) {
+		TrackedRollout rollout = get(id);
+		if (rollout == null) {
+			return null;
+		}
+		rollout.resume();
+		try {
+			submit(rollout);
+		}
+		catch (OperationRejectedException e) {
+			rollout.finish(RolloutState.PAUSED, e.getMessage());
+			throw e;
+		}
+		return rollout.snapshot();
+	}
+
+	/**
+	 * Abort a rollout. A paused rollout is aborted right away, a running rollout once the
+	 * upgrades of its current wave are done.
+	 *
+	 * @param id the rollout id
+	 * @return the rollout or {@literal null} if it is not known
+	 * @throws SkipperException if the rollout is already done
+	 */
+	public Rollout abort(String id) {
+		TrackedRollout rollout = get(id);
+		if (rollout == null) {
+			return null;
+		}
+		rollout.abort();
+		return rollout.snapshot();
+	}
+
+	@Override
+	public void destroy() {
+		this.executor.shutdown();
+	}
+
+	private TrackedRollout get(String id) {
+		synchronized (this.rollouts) {
+			return this.rollouts.get(id);
+		}
+	}
+
+	private void register(TrackedRollout rollout) {
+		synchronized (this.rollouts) {
+			int finished = 0;
+			for (TrackedRollout other : this.rollouts.values()) {
+				if (!other.isDone() && other.packageName.equals(rollout.packageName)) {
+					throw new SkipperException(String.format("Package '%s' is being rolled out by rollout %s",
+							rollout.packageName, other.id));
+				}
+				finished += other.isDone() ? 1 : 0;
+			}
+			// forget the oldest finished rollouts
+			Iterator<TrackedRollout> iterator = this.rollouts.values().iterator();
+			while (finished >= MAX_FINISHED_ROLLOUTS && iterator.hasNext()) {
+				if (iterator.next().isDone()) {
+					iterator.remove();
+					finished--;
+				}
+			}
+			this.rollouts.put(rollout.id, rollout);
+		}
+	}
+
+	private void plan(TrackedRollout rollout, PackageMetadata target) {
+		List<Release> releases = new ArrayList<>();
+		for (Release release : this.releaseRepository.findLatestDeployedOrFailed()) {
+			if (target.getName().equals(release.getPkg().getMetadata().getName())) {
+				releases.add(release);
+			}
+		}
+		releases.sort(Comparator.comparing(Release::getName));
+		for (Release release : releases) {
+			if (release.getInfo().getStatus().getStatusCode() == StatusCode.DEPLOYED) {
+				String currentVersion = release.getPkg().getMetadata().getVersion();
+				UpgradeRequest upgradeRequest = upgradeRequest(release, target);
+				List<String> applicationNames = null;
+				if (!target.getVersion().equals(currentVersion)) {
+					applicationNames = planUpgrade(upgradeRequest);
+				}
+				rollout.plan(release.getName(), currentVersion, applicationNames, upgradeRequest);
+			}
+			else {
+				// a failed release has to be upgraded or rolled back on its own first
+				rollout.skip(release.getName());
+			}
+		}
+	}
+
+	private List<String> planUpgrade(UpgradeRequest upgradeRequest) {
+		String releaseName = upgradeRequest.getUpgradeProperties().getReleaseName();
+		try {
+			return new ArrayList<>(this.releaseReportService.getApplicationNamesToUpgrade(upgradeRequest));
+		}
+		catch (RuntimeException e) {
+			throw new SkipperException(String.format("Can't plan the upgrade of release '%s': %s", releaseName,
+					e.getMessage()), e);
+		}
+	}
+
+	private void submit(TrackedRollout rollout) {
+		try {
+			this.executor.execute(() -> run(rollout));
+		}
+		catch (TaskRejectedException e) {
+			throw new OperationRejectedException(String.format("Can't run rollout of package '%s', %d rollouts are "
+					+ "running already, retry later", rollout.packageName, this.executor.getActiveCount()), e);
+		}
+	}
+
+	private void run(TrackedRollout rollout) {
+		try {
+			int wave = rollout.nextWave();
+			while (wave > 0) {
+				log.info("Rollout {} upgrading wave {} of {}", rollout.id, wave, rollout.waveCount);
+				BatchRequest batchRequest = new BatchRequest();
+				batchRequest.setParallelism(rollout.parallelism);
+				batchRequest.setOperations(rollout.getOperations(wave));
+				CountDownLatch done = new CountDownLatch(1);
+				this.batchOperationService.execute(batchRequest, rollout::update, done::countDown);
+				done.await();
+				awaitOutcomes(rollout, wave);
+				wave = rollout.completeWave(wave) ? rollout.nextWave() : 0;
+			}
+		}
+		catch (OperationRejectedException e) {
+			rollout.rejectWave(e.getMessage());
+		}
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			rollout.finish(RolloutState.PAUSED, "Rollout was interrupted");
+		}
+		catch (RuntimeException e) {
+			log.error("Rollout " + rollout.id + " failed", e);
+			rollout.finish(RolloutState.PAUSED, e.getMessage());
+		}
+	}
+
+	private void awaitOutcomes(TrackedRollout rollout, int wave) throws InterruptedException {
+		long maxWait = this.batchOperationService.getMaxWait();
+		long deadline = maxWait > 0 ? System.currentTimeMillis() + maxWait : Long.MAX_VALUE;
+		List<Operation> pending = rollout.getCompletedOperations(wave);
+		while (!pending.isEmpty()) {
+			for (Iterator<Operation> iterator = pending.iterator(); iterator.hasNext();) {
+				Operation operation = iterator.next();
+				Release release = this.releaseRepository.findLatestRelease(operation.getReleaseName());
+				if (isOutcome(operation, release)) {
+					rollout.update(outcome(operation, release));
+					iterator.remove();
+				}
+			}
+			if (!pending.isEmpty() && System.currentTimeMillis() >= deadline) {
+				for (Operation operation : pending) {
+					rollout.update(failed(operation, "Upgrade was not accepted or rolled back in time"));
+				}
+				pending.clear();
+			}
+			else if (!pending.isEmpty()) {
+				Thread.sleep(this.outcomePollInterval);
+			}
+		}
+	}
+
+	private static boolean isOutcome(Operation operation, Release release) {
+		// the upgraded release is unknown until its apps have been checked and the upgrade
+		// accepted or rolled back
+		return release != null && release.getInfo().getStatus().getStatusCode() != StatusCode.UNKNOWN
+				&& (operation.getRelease() == null || release.getVersion() >= operation.getRelease().getVersion());
+	}
+
+	private static Operation outcome(Operation operation, Release release) {
+		StatusCode statusCode = release.getInfo().getStatus().getStatusCode();
+		return statusCode == StatusCode.DEPLOYED ? operation
+				: failed(operation, String.format("Release '%s' is %s after the upgrade: %s", release.getName(),
+						statusCode.name().toLowerCase(), release.getInfo().getDescription()));
+	}
+
+	private static Operation failed(Operation operation, String message) {
+		Operation failed = new Operation();
+		failed.setId(operation.getId());
+		failed.setType(operation.getType());
+		failed.setReleaseName(operation.getReleaseName());
+		failed.setState(OperationState.FAILED);
+		failed.setMachineState(operation.getMachineState());
+		failed.setMessage(message);
+		failed.setCreated(operation.getCreated());
+		failed.setLastUpdated(new Date());
+		failed.setRelease(operation.getRelease());
+		return failed;
+	}
+
+	private static UpgradeRequest upgradeRequest(Release release, PackageMetadata target) {
+		PackageIdentifier packageIdentifier = new PackageIdentifier();
+		packageIdentifier.setPackageName(target.getName());
+		packageIdentifier.setPackageVersion(target.getVersion());
+		UpgradeProperties upgradeProperties = new UpgradeProperties();
+		upgradeProperties.setReleaseName(release.getName());
+		// keep the values the release has been configured with
+		upgradeProperties.setConfigValues(release.getConfigValues());
+		UpgradeRequest upgradeRequest = new UpgradeRequest();
+		upgradeRequest.setPackageIdentifier(packageIdentifier);
+		upgradeRequest.setUpgradeProperties(upgradeProperties);
+		return upgradeRequest;
+	}
+
+	private static final class TrackedItem {
+
+		private final RolloutItem item;
+
+		private final UpgradeRequest upgradeRequest;
+
+		private TrackedItem(RolloutItem item, UpgradeRequest upgradeRequest) {
+			this.item = item;
+			this.upgradeRequest = upgradeRequest;
+		}
+	}
+
+	private static final class TrackedRollout {
+
+		private final String id;
+
+		private final String packageName;
+
+		private final String packageVersion;
+
+		private final int waveSize;
+
+		private final Integer parallelism;
+
+		private final double maxFailureRate;
+
+		private final boolean abortOnFailure;
+
+		private final Date created = new Date();
+
+		private final List<TrackedItem> items = new ArrayList<>();
+
+		private final List<String> upToDateReleases = new ArrayList<>();
+
+		private final List<String> skippedReleases = new ArrayList<>();
+
+		private int waveCount;
+
+		private int currentWave;
+
+		private RolloutState state = RolloutState.RUNNING;
+
+		private String message;
+
+		private boolean abortRequested;
+
+		private Date lastUpdated = this.created;
+
+		private TrackedRollout(String id, RolloutRequest request, String packageVersion) {
+			this.id = id;
+			this.packageName = request.getPackageName();
+			this.packageVersion = packageVersion;
+			this.waveSize = request.getWaveSize();
+			this.parallelism = request.getParallelism() != null ? request.getParallelism() : request.getWaveSize();
+			this.maxFailureRate = request.getMaxFailureRate();
+			this.abortOnFailure = request.isAbortOnFailure();
+		}
+
+		private synchronized boolean isDone() {
+			return this.state == RolloutState.COMPLETED || this.state == RolloutState.ABORTED;
+		}
+
+		private synchronized void plan(String releaseName, String currentVersion, List<String> applicationNames,
+				UpgradeRequest upgradeRequest) {
+			if (applicationNames == null || applicationNames.isEmpty()) {
+				this.upToDateReleases.add(releaseName);
+			}
+			else {
+				int wave = this.items.size() / this.waveSize + 1;
+				this.items.add(new TrackedItem(new RolloutItem(releaseName, currentVersion, wave, applicationNames),
+						upgradeRequest));
+				this.waveCount = wave;
+			}
+		}
+
+		private synchronized void skip(String releaseName) {
+			this.skippedReleases.add(releaseName);
+		}
+
+		private synchronized int nextWave() {
+			if (this.abortRequested) {
+				finish(RolloutState.ABORTED, String.format("Aborted after wave %d of %d", this.currentWave,
+						this.waveCount));
+			}
+			else if (this.currentWave >= this.waveCount) {
+				finish(RolloutState.COMPLETED, null);
+			}
+			else {
+				this.currentWave++;
+				this.lastUpdated = new Date();
+			}
+			return this.state == RolloutState.RUNNING ? this.currentWave : 0;
+		}
+
+		private synchronized List<BatchOperationRequest> getOperations(int wave) {
+			List<BatchOperationRequest> operations = new ArrayList<>();
+			for (TrackedItem trackedItem : this.items) {
+				if (trackedItem.item.getWave() == wave) {
+					operations.add(BatchOperationRequest.upgrade(trackedItem.upgradeRequest));
+				}
+			}
+			return operations;
+		}
+
+		private synchronized void update(Operation operation) {
+			for (TrackedItem trackedItem : this.items) {
+				if (trackedItem.item.getReleaseName().equals(operation.getReleaseName())
+						&& trackedItem.item.getWave() == this.currentWave) {
+					trackedItem.item.setOperation(operation);
+				}
+			}
+			this.lastUpdated = new Date();
+		}
+
+		private synchronized List<Operation> getCompletedOperations(int wave) {
+			List<Operation> operations = new ArrayList<>();
+			for (TrackedItem trackedItem : this.items) {
+				Operation operation = trackedItem.item.getOperation();
+				if (trackedItem.item.getWave() == wave && operation != null
+						&& operation.getState() == OperationState.COMPLETED) {
+					operations.add(operation);
+				}
+			}
+			return operations;
+		}
+
+		private synchronized boolean completeWave(int wave) {
+			int total = 0;
+			int failed = 0;
+			for (TrackedItem trackedItem : this.items) {
+				if (trackedItem.item.getWave() == wave) {
+					Operation operation = trackedItem.item.getOperation();
+					total++;
+					// upgrades still pending after the batch timed out count as failed
+					failed += operation == null || operation.getState() != OperationState.COMPLETED ? 1 : 0;
+				}
+			}
+			if (total > 0 && (double) failed / total > this.maxFailureRate) {
+				finish(this.abortOnFailure ? RolloutState.ABORTED : RolloutState.PAUSED,
+						String.format("%d of %d upgrades of wave %d failed", failed, total, wave));
+			}
+			return this.state == RolloutState.RUNNING;
+		}
+
+		private synchronized void rejectWave(String reason) {
+			// the wave has not been started, resuming starts it again
+			this.currentWave--;
+			finish(RolloutState.PAUSED, reason);
+		}
+
+		private synchronized void resume() {
+			if (this.state != RolloutState.PAUSED) {
+				throw new SkipperException(String.format("Rollout %s is %s, only paused rollouts can be resumed",
+						this.id, this.state.name().toLowerCase()));
+			}
+			this.state = RolloutState.RUNNING;
+			this.message = null;
+			this.lastUpdated = new Date();
+		}
+
+		private synchronized void abort() {
+			if (this.state == RolloutState.PAUSED) {
+				finish(RolloutState.ABORTED, String.format("Aborted after wave %d of %d", this.currentWave,
+						this.waveCount));
+			}
+			else if (this.state == RolloutState.RUNNING) {
+				this.abortRequested = true;
+				this.message = String.format("Aborting once wave %d is done", this.currentWave);
+				this.lastUpdated = new Date();
+			}
+			else {
+				throw new SkipperException(String.format("Rollout %s is %s already", this.id,
+						this.state.name().toLowerCase()));
+			}
+		}
+
+		private synchronized void finish(RolloutState state, String message) {
+			this.state = state;
+			this.message = message;
+			this.lastUpdated = new Date();
+			log.info("Rollout {} of package {} is {}{}", this.id, this.packageName, state.name().toLowerCase(),
+					message != null ? ": " + message : "");
+		}
+
+		private synchronized Rollout snapshot() {
+			Rollout rollout = new Rollout();
+			rollout.setId(this.id);
+			rollout.setPackageName(this.packageName);
+			rollout.setPackageVersion(this.packageVersion);
+			rollout.setState(this.state);
+			rollout.setMessage(this.message);
+			rollout.setCurrentWave(this.currentWave);
+			rollout.setWaveCount(this.waveCount);
+			for (TrackedItem trackedItem : this.items) {
+				RolloutItem item = new RolloutItem(trackedItem.item.getReleaseName(),
+						trackedItem.item.getPackageVersion(), trackedItem.item.getWave(),
+						new ArrayList<>(trackedItem.item.getApplicationNames()));
+				item.setOperation(trackedItem.item.getOperation());
+				rollout.getItems().add(item);
+			}
+			rollout.setUpToDateReleases(new ArrayList<>(this.upToDateReleases));
+			rollout.setSkippedReleases(new ArrayList<>(this.skippedReleases));
+			rollout.setCreated(this.created);
+			rollout.setLastUpdated(this.lastUpdated);
+			return rollout;
+		}
+	}
+}
@@ -15,19 +15,36 @@
  */
 package org.springframework.cloud.skipper.server.statemachine;
 
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.locks.Lock;
+import java.util.function.Predicate;
 
+import com.google.common.util.concurrent.Striped;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import org.springframework.cloud.skipper.OperationRejectedException;
+import org.springframework.cloud.skipper.ReleaseNotOwnedException;
 import org.springframework.cloud.skipper.SkipperException;
 import org.springframework.cloud.skipper.domain.InstallProperties;
 import org.springframework.cloud.skipper.domain.InstallRequest;
+import org.springframework.cloud.skipper.domain.Operation;
 import org.springframework.cloud.skipper.domain.PackageMetadata;
 import org.springframework.cloud.skipper.domain.Release;
 import org.springframework.cloud.skipper.domain.UpgradeRequest;
-import org.springframework.cloud.skipper.server.deployer.ReleaseAnalysisReport;
+import org.springframework.cloud.skipper.server.cluster.ReleaseOwnershipService;
+import org.springframework.cloud.skipper.server.statemachine.OperationRegistry.TrackedOperation;
 import org.springframework.messaging.Message;
 import org.springframework.messaging.support.MessageBuilder;
 import org.springframework.statemachine.StateContext;
@@ -39,11 +56,25 @@ import org.springframework.statemachine.service.StateMachineService;
 import org.springframework.statemachine.transition.Transition;
 import org.springframework.statemachine.transition.TransitionKind;
 import org.springframework.util.Assert;
-import org.springframework.util.concurrent.SettableListenableFuture;
+import org.springframework.util.concurrent.ListenableFuture;
 
 /**
  * Service class for state machine hiding its operational logic.
  *
+ * Every request is tracked as an {@link Operation}. Blocking methods wait at most the
+ * configured maximum wait for the operation to complete, while the {@code Async}
+ * variants return the pending operation immediately so that it can be polled. New
+ * operations are rejected with an {@link OperationRejectedException} while any of the
+ * executors running the state machines is saturated.
+ *
+ * State machines are kept started between operations of a release.
+ * {@link #evictIdleStateMachines(long, int)} stops and releases machines which are back
+ * in their initial state, they are restored from the persisted context on the next
+ * operation of the release.
+ *
+ * When a {@link ReleaseOwnershipService} is set, operations are only accepted for the
+ * releases owned by this node, and operation ids carry the id of this node.
+ *
  * @author Janne Valkealahti
  *
  */
@@ -53,16 +84,89 @@ public class SkipperStateMachineService {
 
 	public final static String STATEMACHINE_FACTORY_BEAN_NAME = "skipperStateMachineFactory";
 
+	/**
+	 * Default maximum time in milliseconds blocking calls wait for an operation.
+	 */
+	public static final long DEFAULT_MAX_WAIT = 300000;
+
+	private static final long MAX_FINISHED_OPERATIONS = 1000;
+
+	private static final long OPERATION_RETENTION = TimeUnit.HOURS.toMillis(1);
+
 	private final StateMachineService<SkipperStates, SkipperEvents> stateMachineService;
 
+	private final OperationRegistry operationRegistry = new OperationRegistry(MAX_FINISHED_OPERATIONS,
+			OPERATION_RETENTION);
+
+	private final long maxWait;
+
+	private final Collection<MonitoredThreadPoolTaskExecutor> executors;
+
+	private final StateMachineReferences stateMachineReferences;
+
+	// guards acquiring a machine and sending it an event against its eviction
+	private final Striped<Lock> machineLocks = Striped.lock(64);
+
+	// last access time of the acquired machines, least recently accessed first
+	private final Map<String, Long> machineAccessTimes = new LinkedHashMap<>(16, 0.75f, true);
+
+	private volatile ReleaseOwnershipService releaseOwnershipService;
+
 	/**
 	 * Instantiates a new skipper state machine service.
 	 *
 	 * @param stateMachineService the state machine service
 	 */
 	public SkipperStateMachineService(StateMachineService<SkipperStates, SkipperEvents> stateMachineService) {
+		this(stateMachineService, DEFAULT_MAX_WAIT);
+	}
+
+	/**
+	 * Instantiates a new skipper state machine service.
+	 *
+	 * @param stateMachineService the state machine service
+	 * @param maxWait the maximum time in milliseconds blocking calls wait for an operation
+	 * to complete, waits indefinitely if not positive
+	 */
+	public SkipperStateMachineService(StateMachineService<SkipperStates, SkipperEvents> stateMachineService,
+			long maxWait) {
+		this(stateMachineService, new StateMachineReferences(), maxWait, Collections.emptyList());
+	}
+
+	/**
+	 * Instantiates a new skipper state machine service.
+	 *
+	 * @param stateMachineService the state machine service
+	 * @param stateMachineReferences the references used to resolve the releases kept in
+	 * the extended state of the machines
+	 * @param maxWait the maximum time in milliseconds blocking calls wait for an operation
+	 * to complete, waits indefinitely if not positive
+	 * @param executors the executors running the state machines, checked for capacity
+	 * before an operation is started
+	 */
+	public SkipperStateMachineService(StateMachineService<SkipperStates, SkipperEvents> stateMachineService,
+			StateMachineReferences stateMachineReferences, long maxWait,
+			Collection<MonitoredThreadPoolTaskExecutor> executors) {
 		Assert.notNull(stateMachineService, "'stateMachineService' must be set");
+		Assert.notNull(stateMachineReferences, "'stateMachineReferences' must be set");
+		Assert.notNull(executors, "'executors' must be set");
 		this.stateMachineService = stateMachineService;
+		this.stateMachineReferences = stateMachineReferences;
+		this.maxWait = maxWait;
+		this.executors = executors;
+	}
+
+	/**
+	 * Set the service deciding which node of a cluster handles the operations of a
+	 * release.
+	 *
+	 * @param releaseOwnershipService the release ownership service
+	 */
+	public void setReleaseOwnershipService(ReleaseOwnershipService releaseOwnershipService) {
+		this.releaseOwnershipService = releaseOwnershipService;
+		this.operationRegistry.setIdPrefix(releaseOwnershipService != null
+				? releaseOwnershipService.getOperationIdPrefix()
+				: "");
 	}
 
 	/**
@@ -72,7 +176,7 @@ public class SkipperStateMachineService {
 	 * @return the release
 	 */
 	public Release installRelease(InstallRequest installRequest) {
-		return installReleaseInternal(installRequest, null, null);
+		return waitFor(installReleaseInternal(installRequest, null, null));
 	}
 
 	/**
@@ -83,7 +187,28 @@ public class SkipperStateMachineService {
 	 * @return the release
 	 */
 	public Release installRelease(Long id, InstallProperties installProperties) {
-		return installReleaseInternal(null, id, installProperties);
+		return waitFor(installReleaseInternal(null, id, installProperties));
+	}
+
+	/**
+	 * Install release without waiting for the install to complete.
+	 *
+	 * @param installRequest the install request
+	 * @return the pending operation
+	 */
+	public Operation installReleaseAsync(InstallRequest installRequest) {
+		return installReleaseInternal(installRequest, null, null).snapshot();
+	}
+
+	/**
+	 * Install release without waiting for the install to complete.
+	 *
+	 * @param id the id
+	 * @param installProperties the install properties
+	 * @return the pending operation
+	 */
+	public Operation installReleaseAsync(Long id, InstallProperties installProperties) {
+		return installReleaseInternal(null, id, installProperties).snapshot();
 	}
 
 	/**
@@ -93,12 +218,17 @@ public class SkipperStateMachineService {
 	 * @return the release
 	 */
 	public Release upgradeRelease(UpgradeRequest upgradeRequest) {
-		String releaseName = upgradeRequest.getUpgradeProperties().getReleaseName();
-		Message<SkipperEvents> message = MessageBuilder
-				.withPayload(SkipperEvents.UPGRADE)
-				.setHeader(SkipperEventHeaders.UPGRADE_REQUEST, upgradeRequest)
-				.build();
-		return handleMessageAndWait(message, releaseName, SkipperStates.UPGRADE_WAIT_TARGET_APPS);
+		return waitFor(upgradeReleaseInternal(upgradeRequest));
+	}
+
+	/**
+	 * Upgrade release without waiting for the target apps to be deployed.
+	 *
+	 * @param upgradeRequest the upgrade request
+	 * @return the pending operation
+	 */
+	public Operation upgradeReleaseAsync(UpgradeRequest upgradeRequest) {
+		return upgradeReleaseInternal(upgradeRequest).snapshot();
 	}
 
 	/**
@@ -108,11 +238,17 @@ public class SkipperStateMachineService {
 	 * @return the release
 	 */
 	public Release deleteRelease(String releaseName) {
-		Message<SkipperEvents> message = MessageBuilder
-				.withPayload(SkipperEvents.DELETE)
-				.setHeader(SkipperEventHeaders.RELEASE_NAME, releaseName)
-				.build();
-		return handleMessageAndWait(message, releaseName);
+		return waitFor(deleteReleaseInternal(releaseName));
+	}
+
+	/**
+	 * Delete release without waiting for the delete to complete.
+	 *
+	 * @param releaseName the release name
+	 * @return the pending operation
+	 */
+	public Operation deleteReleaseAsync(String releaseName) {
+		return deleteReleaseInternal(releaseName).snapshot();
 	}
 
 	/**
@@ -123,16 +259,202 @@ public class SkipperStateMachineService {
 	 * @return the release
 	 */
 	public Release rollbackRelease(final String releaseName, final int rollbackVersion) {
-		Message<SkipperEvents> message = MessageBuilder
-				.withPayload(SkipperEvents.ROLLBACK)
-				.setHeader(SkipperEventHeaders.RELEASE_NAME, releaseName)
-				.setHeader(SkipperEventHeaders.ROLLBACK_VERSION, rollbackVersion)
-				.build();
-		return handleMessageAndWait(message, releaseName, SkipperStates.UPGRADE_WAIT_TARGET_APPS,
-				SkipperStates.INITIAL);
+		return waitFor(rollbackReleaseInternal(releaseName, rollbackVersion));
+	}
+
+	/**
+	 * Rollback release without waiting for the rollback to complete.
+	 *
+	 * @param releaseName the release name
+	 * @param rollbackVersion the rollback version
+	 * @return the pending operation
+	 */
+	public Operation rollbackReleaseAsync(final String releaseName, final int rollbackVersion) {
+		return rollbackReleaseInternal(releaseName, rollbackVersion).snapshot();
+	}
+
+	/**
+	 * Get the current state of an operation.
+	 *
+	 * @param operationId the operation id
+	 * @return the operation or {@literal null} if it is not known
+	 */
+	public Operation getOperation(String operationId) {
+		TrackedOperation trackedOperation = this.operationRegistry.get(operationId);
+		return trackedOperation != null ? trackedOperation.snapshot() : null;
+	}
+
+	/**
+	 * Get a future completed with the operation once it is no longer pending.
+	 *
+	 * @param operationId the operation id
+	 * @return the future or {@literal null} if the operation is not known
+	 */
+	public ListenableFuture<Operation> getOperationCompletion(String operationId) {
+		TrackedOperation trackedOperation = this.operationRegistry.get(operationId);
+		return trackedOperation != null ? trackedOperation.getCompletion() : null;
+	}
+
+	/**
+	 * Stop and release the state machines which are in their initial state without a
+	 * pending operation, and either have not been accessed for the given idle time or
+	 * exceed the maximum number of machines to keep. Machines currently handling an event
+	 * are skipped.
+	 *
+	 * @param maxIdle the time in milliseconds after which an unused machine is evicted
+	 * @param maxMachines the number of machines to keep, least recently accessed machines
+	 * are evicted first
+	 * @return the number of evicted machines
+	 */
+	public int evictIdleStateMachines(long maxIdle, int maxMachines) {
+		long now = System.currentTimeMillis();
+		List<String> candidates = new ArrayList<>();
+		synchronized (this.machineAccessTimes) {
+			int excess = this.machineAccessTimes.size() - maxMachines;
+			for (Map.Entry<String, Long> entry : this.machineAccessTimes.entrySet()) {
+				if (candidates.size() < excess || now - entry.getValue() >= maxIdle) {
+					candidates.add(entry.getKey());
+				}
+			}
+		}
+		int evicted = 0;
+		for (String machineId : candidates) {
+			if (evict(machineId)) {
+				evicted++;
+			}
+		}
+		if (evicted > 0) {
+			log.debug("Evicted {} idle state machines, {} remaining", evicted, getStateMachineCount());
+		}
+		return evicted;
+	}
+
+	/**
+	 * @return the number of state machines acquired and not evicted
+	 */
+	public int getStateMachineCount() {
+		synchronized (this.machineAccessTimes) {
+			return this.machineAccessTimes.size();
+		}
+	}
+
+	/**
+	 * Stop and release the state machines of the given releases which are in their initial
+	 * state without a pending operation, so that another node can take them over.
+	 *
+	 * @param releaseNames the releases to evict the machines of
+	 * @return the names of the matching releases whose machines are busy and were kept
+	 */
+	public Set<String> evictStateMachines(Predicate<String> releaseNames) {
+		List<String> candidates = new ArrayList<>();
+		synchronized (this.machineAccessTimes) {
+			for (String machineId : this.machineAccessTimes.keySet()) {
+				if (releaseNames.test(machineId)) {
+					candidates.add(machineId);
+				}
+			}
+		}
+		Set<String> busy = new HashSet<>();
+		for (String machineId : candidates) {
+			if (!evict(machineId)) {
+				busy.add(machineId);
+			}
+		}
+		// releases with an operation pending whose machine isn't acquired yet
+		for (String releaseName : this.operationRegistry.getPendingReleaseNames()) {
+			if (releaseNames.test(releaseName)) {
+				busy.add(releaseName);
+			}
+		}
+		return busy;
+	}
+
+	/**
+	 * Send an event a machine raises for itself, such as the completion of an action run
+	 * on the deployment executor, under the lock of the machine. The event belongs to an
+	 * operation which was admitted already, so it is never rejected.
+	 *
+	 * @param stateMachine the machine to send the event to
+	 * @param event the event
+	 * @return true if the event was accepted by the machine
+	 */
+	public boolean sendEvent(StateMachine<SkipperStates, SkipperEvents> stateMachine, SkipperEvents event) {
+		Lock lock = this.machineLocks.get(stateMachine.getId());
+		lock.lock();
+		try {
+			boolean accepted = stateMachine.sendEvent(event);
+			if (!accepted) {
+				log.warn("Event {} was not accepted by state machine {} in state {}", event, stateMachine.getId(),
+						stateMachine.getState());
+			}
+			return accepted;
+		}
+		finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Send {@link SkipperEvents#UPGRADE_CHECK} to the machine of an upgrade waiting for its
+	 * target apps. The check is admitted like an operation, only on the node owning the
+	 * release and while the executors can take on more work, and is sent under the lock of
+	 * the machine.
+	 *
+	 * @param stateMachine the machine of the upgrade
+	 * @throws ReleaseNotOwnedException if the release is owned by another node
+	 * @throws OperationRejectedException if an executor is saturated
+	 */
+	public void checkUpgrade(StateMachine<SkipperStates, SkipperEvents> stateMachine) {
+		String machineId = stateMachine.getId();
+		checkOwner(machineId);
+		checkCapacity(SkipperEvents.UPGRADE_CHECK, machineId);
+		Lock lock = this.machineLocks.get(machineId);
+		lock.lock();
+		try {
+			checkOwner(machineId);
+			touch(machineId);
+			stateMachine.sendEvent(SkipperEvents.UPGRADE_CHECK);
+		}
+		finally {
+			lock.unlock();
+		}
+	}
+
+	private boolean evict(String machineId) {
+		Lock lock = this.machineLocks.get(machineId);
+		if (!lock.tryLock()) {
+			// an event is being sent to the machine right now
+			return false;
+		}
+		try {
+			// operations are registered under the lock, an event of one may still be queued
+			if (this.operationRegistry.hasPendingOperation(machineId)) {
+				return false;
+			}
+			StateMachine<SkipperStates, SkipperEvents> stateMachine = this.stateMachineService
+					.acquireStateMachine(machineId, false);
+			if (stateMachine.getState() == null || stateMachine.getState().getId() != SkipperStates.INITIAL) {
+				return false;
+			}
+			this.stateMachineService.releaseStateMachine(machineId, true);
+			synchronized (this.machineAccessTimes) {
+				this.machineAccessTimes.remove(machineId);
+			}
+			return true;
+		}
+		finally {
+			lock.unlock();
+		}
+	}
+
+	private void touch(String machineId) {
+		synchronized (this.machineAccessTimes) {
+			this.machineAccessTimes.put(machineId, System.currentTimeMillis());
+		}
 	}
 
-	private Release installReleaseInternal(InstallRequest installRequest, Long id, InstallProperties installProperties) {
+	private TrackedOperation installReleaseInternal(InstallRequest installRequest, Long id,
+			InstallProperties installProperties) {
 		String releaseName = installRequest != null ? installRequest.getInstallProperties().getReleaseName()
 				: installProperties.getReleaseName();
 		Message<SkipperEvents> message = MessageBuilder
@@ -141,42 +463,114 @@ public class SkipperStateMachineService {
 				.setHeader(SkipperEventHeaders.INSTALL_ID, id)
 				.setHeader(SkipperEventHeaders.INSTALL_PROPERTIES, installProperties)
 				.build();
-		return handleMessageAndWait(message, releaseName);
+		return handleMessage(message, releaseName);
+	}
+
+	private TrackedOperation upgradeReleaseInternal(UpgradeRequest upgradeRequest) {
+		String releaseName = upgradeRequest.getUpgradeProperties().getReleaseName();
+		Message<SkipperEvents> message = MessageBuilder
+				.withPayload(SkipperEvents.UPGRADE)
+				.setHeader(SkipperEventHeaders.UPGRADE_REQUEST, upgradeRequest)
+				.build();
+		return handleMessage(message, releaseName, SkipperStates.UPGRADE_WAIT_TARGET_APPS);
+	}
+
+	private TrackedOperation deleteReleaseInternal(String releaseName) {
+		Message<SkipperEvents> message = MessageBuilder
+				.withPayload(SkipperEvents.DELETE)
+				.setHeader(SkipperEventHeaders.RELEASE_NAME, releaseName)
+				.build();
+		return handleMessage(message, releaseName);
+	}
+
+	private TrackedOperation rollbackReleaseInternal(String releaseName, int rollbackVersion) {
+		Message<SkipperEvents> message = MessageBuilder
+				.withPayload(SkipperEvents.ROLLBACK)
+				.setHeader(SkipperEventHeaders.RELEASE_NAME, releaseName)
+				.setHeader(SkipperEventHeaders.ROLLBACK_VERSION, rollbackVersion)
+				.build();
+		return handleMessage(message, releaseName, SkipperStates.UPGRADE_WAIT_TARGET_APPS,
+				SkipperStates.INITIAL);
 	}
 
 	private boolean isInitialTransition(Transition<?, ?> transition) {
 		return transition != null && transition.getKind() == TransitionKind.INITIAL;
 	}
 
-	private Release handleMessageAndWait(Message<SkipperEvents> message, String machineId) {
-		return handleMessageAndWait(message, machineId, SkipperStates.INITIAL);
+	private TrackedOperation handleMessage(Message<SkipperEvents> message, String machineId) {
+		return handleMessage(message, machineId, SkipperStates.INITIAL);
+	}
+
+	private TrackedOperation handleMessage(Message<SkipperEvents> message, String machineId,
+			SkipperStates... statesToWait) {
+		checkOwner(machineId);
+		checkCapacity(message.getPayload(), machineId);
+		Lock lock = this.machineLocks.get(machineId);
+		lock.lock();
+		try {
+			// the partition may have been handed over while waiting for the lock
+			checkOwner(machineId);
+			return sendMessage(message, machineId, statesToWait);
+		}
+		finally {
+			lock.unlock();
+		}
+	}
+
+	private void checkCapacity(SkipperEvents event, String machineId) {
+		// fail fast instead of queueing work the executors can't take on
+		for (MonitoredThreadPoolTaskExecutor executor : this.executors) {
+			if (executor.isSaturated()) {
+				throw new OperationRejectedException(String.format("Can't %s release '%s', the %s executor is "
+						+ "saturated, retry later", event.name().toLowerCase(), machineId, executor.getName()));
+			}
+		}
 	}
 
-	private Release handleMessageAndWait(Message<SkipperEvents> message, String machineId, SkipperStates... statesToWait) {
-		// machine gets acquired fully started
+	private void checkOwner(String machineId) {
+		ReleaseOwnershipService ownershipService = this.releaseOwnershipService;
+		if (ownershipService != null) {
+			ownershipService.checkOwner(machineId);
+		}
+	}
+
+	private TrackedOperation sendMessage(Message<SkipperEvents> message, String machineId,
+			SkipperStates... statesToWait) {
+		touch(machineId);
+		// machine gets acquired fully started, it is restored from the persisted
+		// context if it has been evicted
 		StateMachine<SkipperStates, SkipperEvents> stateMachine = stateMachineService.acquireStateMachine(machineId);
 
-		// setup future handling blocking requirement returning release
-		SettableListenableFuture<Release> future = new SettableListenableFuture<>();
+		// track the operation, its result is set when the machine reaches a state to wait for
+		TrackedOperation operation = this.operationRegistry.register(message.getPayload().name().toLowerCase(),
+				machineId);
 		StateMachineListener<SkipperStates, SkipperEvents> listener = new StateMachineListenerAdapter<SkipperStates, SkipperEvents>() {
 
 			@Override
 			public void stateContext(StateContext<SkipperStates, SkipperEvents> stateContext) {
 				if (stateContext.getStage() == Stage.STATE_ENTRY) {
+					operation.stateEntered(stateContext.getTarget().getId());
 					if (stateContext.getTarget().getId() == SkipperStates.ERROR) {
 						Exception exception = stateContext.getExtendedState().get(SkipperVariables.ERROR, Exception.class);
 						if (exception != null) {
 							// we went through error state, throw if there is an error
-							log.info("setting future exception", exception);
-							future.setException(exception);
+							log.info("setting operation {} exception", operation.getId(), exception);
+							operation.fail(exception);
 						}
 					}
 					else if (Arrays.asList(statesToWait).contains(stateContext.getTarget().getId())
 							&& !isInitialTransition(stateContext.getTransition())) {
-						Release release = (Release) stateContext.getExtendedState().getVariables().get(SkipperVariables.RELEASE);
 						// at this point we assume machine logic did set release
-						log.info("setting future value {}", release);
-						future.set(release);
+						ReleaseReference reference = stateContext.getExtendedState().get(SkipperVariables.RELEASE,
+								ReleaseReference.class);
+						try {
+							Release release = stateMachineReferences.resolve(reference);
+							log.info("setting operation {} value {}", operation.getId(), release);
+							operation.complete(release);
+						}
+						catch (SkipperException e) {
+							operation.fail(e);
+						}
 					}
 				}
 			}
@@ -184,33 +578,47 @@ public class SkipperStateMachineService {
 
 		// add listener which gets removed eventually
 		stateMachine.addStateListener(listener);
-		future.addCallback(result -> {
+		operation.getResult().addCallback(result -> {
 			stateMachine.removeStateListener(listener);
+			touch(machineId);
 		}, throwable -> {
 			stateMachine.removeStateListener(listener);
+			touch(machineId);
 		});
 
 		// if machine doesn't accept an event, we're on state
 		// where a particular message cannot be handled, thus
 		// return exception. this simply happens when we are
 		// i.e. upgrading and delete request comes in.
-		if (stateMachine.sendEvent(message)) {
-			try {
-				return future.get();
-			}
-			catch (ExecutionException e) {
-				if (e.getCause() instanceof SkipperException) {
-					// throw as SkipperException
-					throw (SkipperException) e.getCause();
-				}
-				throw new SkipperException("Error waiting to get Release from a statemachine", e);
+		if (!stateMachine.sendEvent(message)) {
+			SkipperException exception = new SkipperException(
+					"Statemachine is not in state ready to do " + message.getPayload());
+			operation.fail(exception);
+			throw exception;
+		}
+		return operation;
+	}
+
+	private Release waitFor(TrackedOperation operation) {
+		try {
+			if (this.maxWait > 0) {
+				return operation.getResult().get(this.maxWait, TimeUnit.MILLISECONDS);
 			}
-			catch (Exception e) {
-				throw new SkipperException("Error waiting to get Release from a statemachine", e);
+			return operation.getResult().get();
+		}
+		catch (ExecutionException e) {
+			if (e.getCause() instanceof SkipperException) {
+				// throw as SkipperException
+				throw (SkipperException) e.getCause();
 			}
+			throw new SkipperException("Error waiting to get Release from a statemachine", e);
+		}
+		catch (TimeoutException e) {
+			throw new SkipperException(String.format("Timed out after %d ms waiting for %s, "
+					+ "the operation is still in progress", this.maxWait, operation.snapshot()), e);
 		}
-		else {
-			throw new SkipperException("Statemachine is not in state ready to do " + message.getPayload());
+		catch (Exception e) {
+			throw new SkipperException("Error waiting to get Release from a statemachine", e);
 		}
 	}
 
@@ -391,6 +799,20 @@ public class SkipperStateMachineService {
 		 */
 		UPGRADE_ACCEPT,
 
+		/**
+		 * While being on {@link SkipperStates#UPGRADE_WAIT_TARGET_APPS}, this event
+		 * triggers the next check of the target apps. Sent by the
+		 * {@link UpgradeCheckScheduler}.
+		 */
+		UPGRADE_CHECK,
+
+		/**
+		 * Completes the state of a deploy or undeploy action run on the deployment
+		 * executor once the action is done. Sent by the
+		 * {@link DeploymentExecutorAction}.
+		 */
+		DEPLOYMENT_COMPLETE,
+
 		/**
 		 * Main level event instructing a rollback request.
 		 */
@@ -462,23 +884,23 @@ public class SkipperStateMachineService {
 		ERROR,
 
 		/**
-		 * Variable for release which is returned to a caller
-		 * when machine goes back to initial state.
+		 * Variable for a {@link ReleaseReference} to the release which is
+		 * returned to a caller when machine goes back to initial state.
 		 */
 		RELEASE,
 
 		/**
-		 * Variable keeping {@link ReleaseAnalysisReport} in a context.
+		 * Variable keeping a {@link ReleaseAnalysisReportReference} in a context.
 		 */
 		RELEASE_ANALYSIS_REPORT,
 
 		/**
-		 * Variable for a {@link Release} where skipper is coming from.
+		 * Variable for a {@link ReleaseReference} to the release where skipper is coming from.
 		 */
 		SOURCE_RELEASE,
 
 		/**
-		 * Variable for a {@link Release} where skipper is going to.
+		 * Variable for a {@link ReleaseReference} to the release where skipper is going to.
 		 */
 		TARGET_RELEASE,
 
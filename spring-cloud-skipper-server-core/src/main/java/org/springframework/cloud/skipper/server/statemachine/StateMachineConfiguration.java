@@ -15,11 +15,19 @@
  */
 package org.springframework.cloud.skipper.server.statemachine;
 
+import java.util.Collections;
+import java.util.List;
+
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.cloud.skipper.server.config.SkipperServerProperties;
 import org.springframework.cloud.skipper.server.deployer.strategies.UpgradeStrategy;
+import org.springframework.cloud.skipper.server.domain.SpringCloudDeployerApplicationManifestReader;
+import org.springframework.cloud.skipper.server.repository.PackageMetadataRepository;
 import org.springframework.cloud.skipper.server.repository.ReleaseRepository;
 import org.springframework.cloud.skipper.server.service.ReleaseReportService;
 import org.springframework.cloud.skipper.server.service.ReleaseService;
@@ -28,14 +36,18 @@ import org.springframework.cloud.skipper.server.statemachine.SkipperStateMachine
 import org.springframework.cloud.skipper.server.statemachine.SkipperStateMachineService.SkipperVariables;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.AsyncListenableTaskExecutor;
 import org.springframework.core.task.TaskExecutor;
+import org.springframework.statemachine.StateMachine;
 import org.springframework.statemachine.StateMachinePersist;
+import org.springframework.statemachine.action.Action;
 import org.springframework.statemachine.config.EnableStateMachineFactory;
 import org.springframework.statemachine.config.StateMachineConfigurerAdapter;
 import org.springframework.statemachine.config.StateMachineFactory;
 import org.springframework.statemachine.config.builders.StateMachineConfigurationConfigurer;
 import org.springframework.statemachine.config.builders.StateMachineStateConfigurer;
 import org.springframework.statemachine.config.builders.StateMachineTransitionConfigurer;
+import org.springframework.statemachine.config.configurers.ExternalTransitionConfigurer;
 import org.springframework.statemachine.guard.Guard;
 import org.springframework.statemachine.listener.StateMachineListenerAdapter;
 import org.springframework.statemachine.persist.StateMachineRuntimePersister;
@@ -54,6 +66,11 @@ public class StateMachineConfiguration {
 
 	private static final Logger log = LoggerFactory.getLogger(StateMachineConfiguration.class);
 
+	private static SkipperServerProperties properties(ObjectProvider<SkipperServerProperties> skipperServerProperties) {
+		SkipperServerProperties properties = skipperServerProperties.getIfAvailable();
+		return properties != null ? properties : new SkipperServerProperties();
+	}
+
 	/**
 	 * Configuration defining {@link StateMachineFactory} for skipper release handling.
 	 */
@@ -64,15 +81,28 @@ public class StateMachineConfiguration {
 		@Autowired
 		private TaskExecutor skipperStateMachineTaskExecutor;
 
+		@Autowired(required = false)
+		@Qualifier("skipperDeploymentTaskExecutor")
+		private AsyncListenableTaskExecutor skipperDeploymentTaskExecutor;
+
+		@Autowired
+		private ObjectProvider<SkipperStateMachineService> skipperStateMachineService;
+
 		@Autowired
 		private ReleaseService releaseService;
 
+		@Autowired
+		private ObjectProvider<SkipperServerProperties> skipperServerProperties;
+
 		@Autowired
 		private ReleaseReportService releaseReportService;
 
 		@Autowired
 		private ReleaseRepository releaseRepository;
 
+		@Autowired
+		private ObjectProvider<SpringCloudDeployerApplicationManifestReader> applicationManifestReader;
+
 		@Autowired
 		private UpgradeStrategy upgradeStrategy;
 
@@ -90,6 +120,15 @@ public class StateMachineConfiguration {
 						public void stateEntered(State<SkipperStates, SkipperEvents> state) {
 							log.info("Entering state {}", state);
 						}
+
+						@Override
+						public void stateMachineStarted(StateMachine<SkipperStates, SkipperEvents> stateMachine) {
+							// a machine restored while waiting for target apps needs its next check
+							State<SkipperStates, SkipperEvents> state = stateMachine.getState();
+							if (state != null && state.getIds().contains(SkipperStates.UPGRADE_WAIT_TARGET_APPS)) {
+								upgradeCheckScheduler().schedule(stateMachine);
+							}
+						}
 					})
 				.and()
 				.withPersistence()
@@ -110,6 +149,7 @@ public class StateMachineConfiguration {
 					.state(SkipperStates.INSTALL)
 					.state(SkipperStates.DELETE)
 					.state(SkipperStates.UPGRADE)
+					.stateExit(SkipperStates.UPGRADE, upgradeResetChecksAction())
 					.state(SkipperStates.ROLLBACK)
 					.junction(SkipperStates.ERROR_JUNCTION)
 					.and()
@@ -117,7 +157,7 @@ public class StateMachineConfiguration {
 						// substates for install
 						.parent(SkipperStates.INSTALL)
 						.initial(SkipperStates.INSTALL_INSTALL)
-						.stateEntry(SkipperStates.INSTALL_INSTALL, installInstallAction())
+						.stateEntry(SkipperStates.INSTALL_INSTALL, onDeploymentExecutor(installInstallAction()))
 						.exit(SkipperStates.INSTALL_EXIT)
 						.and()
 					.withStates()
@@ -125,14 +165,17 @@ public class StateMachineConfiguration {
 						.parent(SkipperStates.UPGRADE)
 						.initial(SkipperStates.UPGRADE_START)
 						.stateEntry(SkipperStates.UPGRADE_START, upgradeStartAction())
-						.stateEntry(SkipperStates.UPGRADE_DEPLOY_TARGET_APPS, upgradeDeployTargetAppsAction())
+						.stateEntry(SkipperStates.UPGRADE_DEPLOY_TARGET_APPS, onDeploymentExecutor(upgradeDeployTargetAppsAction()))
 						.state(SkipperStates.UPGRADE_WAIT_TARGET_APPS)
+						.stateEntry(SkipperStates.UPGRADE_WAIT_TARGET_APPS, upgradeScheduleCheckAction())
+						.stateExit(SkipperStates.UPGRADE_WAIT_TARGET_APPS, upgradeCancelCheckAction())
 						.state(SkipperStates.UPGRADE_CHECK_TARGET_APPS, SkipperEvents.UPGRADE_CANCEL)
 						.stateEntry(SkipperStates.UPGRADE_CHECK_TARGET_APPS, upgradeCheckTargetAppsAction())
 						.stateEntry(SkipperStates.UPGRADE_DEPLOY_TARGET_APPS_SUCCEED, upgradeDeployTargetAppsSucceedAction())
 						.stateEntry(SkipperStates.UPGRADE_DEPLOY_TARGET_APPS_FAILED, upgradeDeployTargetAppsFailedAction())
-						.stateEntry(SkipperStates.UPGRADE_CANCEL, upgradeCancelAction())
-						.stateEntry(SkipperStates.UPGRADE_DELETE_SOURCE_APPS, upgradeDeleteSourceAppsAction())
+						.stateEntry(SkipperStates.UPGRADE_CANCEL, compensatingOnDeploymentExecutor(upgradeCancelAction()))
+						.stateEntry(SkipperStates.UPGRADE_DELETE_SOURCE_APPS,
+								compensatingOnDeploymentExecutor(upgradeDeleteSourceAppsAction()))
 						.choice(SkipperStates.UPGRADE_CHECK_CHOICE)
 						.exit(SkipperStates.UPGRADE_EXIT)
 						.and()
@@ -140,7 +183,7 @@ public class StateMachineConfiguration {
 						// substates for delete
 						.parent(SkipperStates.DELETE)
 						.initial(SkipperStates.DELETE_DELETE)
-						.stateEntry(SkipperStates.DELETE_DELETE, deleteDeleteAction())
+						.stateEntry(SkipperStates.DELETE_DELETE, onDeploymentExecutor(deleteDeleteAction()))
 						.exit(SkipperStates.DELETE_EXIT)
 						.and()
 					.withStates()
@@ -193,9 +236,6 @@ public class StateMachineConfiguration {
 					.source(SkipperStates.INITIAL).target(SkipperStates.INSTALL)
 					.event(SkipperEvents.INSTALL)
 					.and()
-				.withExternal()
-					.source(SkipperStates.INSTALL_INSTALL).target(SkipperStates.INSTALL_EXIT)
-					.and()
 				.withExit()
 					.source(SkipperStates.INSTALL_EXIT).target(SkipperStates.ERROR_JUNCTION)
 					.and()
@@ -209,11 +249,9 @@ public class StateMachineConfiguration {
 					.source(SkipperStates.UPGRADE_START).target(SkipperStates.UPGRADE_DEPLOY_TARGET_APPS)
 					.and()
 				.withExternal()
-					.source(SkipperStates.UPGRADE_DEPLOY_TARGET_APPS).target(SkipperStates.UPGRADE_WAIT_TARGET_APPS)
-					.and()
-				.withExternal()
+					// checks are scheduled with a backoff when entering the wait state
 					.source(SkipperStates.UPGRADE_WAIT_TARGET_APPS).target(SkipperStates.UPGRADE_CHECK_CHOICE)
-					.timer(1000)
+					.event(SkipperEvents.UPGRADE_CHECK)
 					.and()
 				.withExternal()
 					.source(SkipperStates.UPGRADE_CHECK_TARGET_APPS).target(SkipperStates.UPGRADE_WAIT_TARGET_APPS)
@@ -241,12 +279,6 @@ public class StateMachineConfiguration {
 				.withExternal()
 					.source(SkipperStates.UPGRADE_DEPLOY_TARGET_APPS_FAILED).target(SkipperStates.UPGRADE_CANCEL)
 					.and()
-				.withExternal()
-					.source(SkipperStates.UPGRADE_CANCEL).target(SkipperStates.UPGRADE_EXIT)
-					.and()
-				.withExternal()
-					.source(SkipperStates.UPGRADE_DELETE_SOURCE_APPS).target(SkipperStates.UPGRADE_EXIT)
-					.and()
 				.withExit()
 					.source(SkipperStates.UPGRADE_EXIT).target(SkipperStates.ERROR_JUNCTION)
 					.and()
@@ -256,9 +288,6 @@ public class StateMachineConfiguration {
 					.source(SkipperStates.INITIAL).target(SkipperStates.DELETE)
 					.event(SkipperEvents.DELETE)
 					.and()
-				.withExternal()
-					.source(SkipperStates.DELETE_DELETE).target(SkipperStates.DELETE_EXIT)
-					.and()
 				.withExit()
 					.source(SkipperStates.DELETE_EXIT).target(SkipperStates.ERROR_JUNCTION)
 					.and()
@@ -285,6 +314,73 @@ public class StateMachineConfiguration {
 					.and()
 				.withExit()
 					.source(SkipperStates.ROLLBACK_EXIT_INSTALL).target(SkipperStates.INSTALL);
+
+			// states running deployment actions are left once the action is done
+			deploymentTransition(transitions, SkipperStates.INSTALL_INSTALL, SkipperStates.INSTALL_EXIT);
+			deploymentTransition(transitions, SkipperStates.UPGRADE_DEPLOY_TARGET_APPS, SkipperStates.UPGRADE_WAIT_TARGET_APPS);
+			deploymentTransition(transitions, SkipperStates.UPGRADE_CANCEL, SkipperStates.UPGRADE_EXIT);
+			deploymentTransition(transitions, SkipperStates.UPGRADE_DELETE_SOURCE_APPS, SkipperStates.UPGRADE_EXIT);
+			deploymentTransition(transitions, SkipperStates.DELETE_DELETE, SkipperStates.DELETE_EXIT);
+		}
+
+		private void deploymentTransition(StateMachineTransitionConfigurer<SkipperStates, SkipperEvents> transitions,
+				SkipperStates source, SkipperStates target) throws Exception {
+			ExternalTransitionConfigurer<SkipperStates, SkipperEvents> transition = transitions
+				.withExternal()
+					.source(source).target(target);
+			if (skipperDeploymentTaskExecutor != null) {
+				// actions on the deployment executor don't hold up the transition thread,
+				// their completion is signalled with an event
+				transition.event(SkipperEvents.DEPLOYMENT_COMPLETE);
+			}
+		}
+
+		private Action<SkipperStates, SkipperEvents> onDeploymentExecutor(Action<SkipperStates, SkipperEvents> action) {
+			// without a deployment executor actions run on the transition thread
+			return skipperDeploymentTaskExecutor != null
+					? new DeploymentExecutorAction(action, skipperDeploymentTaskExecutor, this::completeDeployment)
+					: action;
+		}
+
+		private Action<SkipperStates, SkipperEvents> compensatingOnDeploymentExecutor(
+				Action<SkipperStates, SkipperEvents> action) {
+			// cleanup of an admitted upgrade runs inline rather than being rejected
+			return skipperDeploymentTaskExecutor != null
+					? new DeploymentExecutorAction(action, skipperDeploymentTaskExecutor, this::completeDeployment, true)
+					: action;
+		}
+
+		private void completeDeployment(StateMachine<SkipperStates, SkipperEvents> stateMachine) {
+			skipperStateMachineService.getObject().sendEvent(stateMachine, SkipperEvents.DEPLOYMENT_COMPLETE);
+		}
+
+		@Bean
+		public StateMachineReferences stateMachineReferences() {
+			SpringCloudDeployerApplicationManifestReader reader = applicationManifestReader.getIfAvailable();
+			return new StateMachineReferences(releaseRepository,
+					reader != null ? reader : new SpringCloudDeployerApplicationManifestReader());
+		}
+
+		@Bean
+		public UpgradeCheckScheduler upgradeCheckScheduler() {
+			SkipperServerProperties properties = properties(skipperServerProperties);
+			return new UpgradeCheckScheduler(properties.getUpgradeCheckInitialDelay(), properties.getUpgradeCheckMaxDelay(),
+					stateMachine -> skipperStateMachineService.getObject().checkUpgrade(stateMachine));
+		}
+
+		@Bean
+		public Action<SkipperStates, SkipperEvents> upgradeScheduleCheckAction() {
+			return context -> upgradeCheckScheduler().schedule(context.getStateMachine());
+		}
+
+		@Bean
+		public Action<SkipperStates, SkipperEvents> upgradeCancelCheckAction() {
+			return context -> upgradeCheckScheduler().cancel(context.getStateMachine().getId());
+		}
+
+		@Bean
+		public Action<SkipperStates, SkipperEvents> upgradeResetChecksAction() {
+			return context -> upgradeCheckScheduler().reset(context.getStateMachine().getId());
 		}
 
 		@Bean
@@ -304,22 +400,22 @@ public class StateMachineConfiguration {
 
 		@Bean
 		public InstallInstallAction installInstallAction() {
-			return new InstallInstallAction(releaseService);
+			return new InstallInstallAction(releaseService, stateMachineReferences());
 		}
 
 		@Bean
 		public UpgradeStartAction upgradeStartAction() {
-			return new UpgradeStartAction(releaseReportService, releaseService);
+			return new UpgradeStartAction(releaseReportService, releaseService, stateMachineReferences());
 		}
 
 		@Bean
 		public UpgradeDeployTargetAppsAction upgradeDeployTargetAppsAction() {
-			return new UpgradeDeployTargetAppsAction(upgradeStrategy);
+			return new UpgradeDeployTargetAppsAction(upgradeStrategy, stateMachineReferences());
 		}
 
 		@Bean
 		public UpgradeCheckTargetAppsAction upgradeCheckTargetAppsAction() {
-			return new UpgradeCheckTargetAppsAction(upgradeStrategy);
+			return new UpgradeCheckTargetAppsAction(upgradeStrategy, stateMachineReferences());
 		}
 
 		@Bean
@@ -344,22 +440,22 @@ public class StateMachineConfiguration {
 
 		@Bean
 		public UpgradeCancelAction upgradeCancelAction() {
-			return new UpgradeCancelAction(upgradeStrategy);
+			return new UpgradeCancelAction(upgradeStrategy, stateMachineReferences());
 		}
 
 		@Bean
 		public UpgradeDeleteSourceAppsAction upgradeDeleteSourceAppsAction() {
-			return new UpgradeDeleteSourceAppsAction(upgradeStrategy);
+			return new UpgradeDeleteSourceAppsAction(upgradeStrategy, stateMachineReferences());
 		}
 
 		@Bean
 		public DeleteDeleteAction deleteDeleteAction() {
-			return new DeleteDeleteAction(releaseService);
+			return new DeleteDeleteAction(releaseService, stateMachineReferences());
 		}
 
 		@Bean
 		public RollbackStartAction rollbackStartAction() {
-			return new RollbackStartAction(releaseRepository);
+			return new RollbackStartAction(releaseRepository, stateMachineReferences());
 		}
 
 		@Bean
@@ -393,8 +489,44 @@ public class StateMachineConfiguration {
 		}
 
 		@Bean
-		public SkipperStateMachineService skipperStateMachineService(StateMachineService<SkipperStates, SkipperEvents> stateMachineService) {
-			return new SkipperStateMachineService(stateMachineService);
+		public SkipperStateMachineService skipperStateMachineService(StateMachineService<SkipperStates, SkipperEvents> stateMachineService,
+				StateMachineReferences stateMachineReferences,
+				ObjectProvider<SkipperServerProperties> skipperServerProperties,
+				ObjectProvider<List<MonitoredThreadPoolTaskExecutor>> executors) {
+			List<MonitoredThreadPoolTaskExecutor> monitoredExecutors = executors.getIfAvailable();
+			return new SkipperStateMachineService(stateMachineService, stateMachineReferences,
+					properties(skipperServerProperties).getOperationMaxWait(),
+					monitoredExecutors != null ? monitoredExecutors : Collections.emptyList());
+		}
+
+		@Bean
+		public IdleStateMachineEvictor idleStateMachineEvictor(SkipperStateMachineService skipperStateMachineService,
+				ObjectProvider<SkipperServerProperties> skipperServerProperties) {
+			SkipperServerProperties properties = properties(skipperServerProperties);
+			return new IdleStateMachineEvictor(skipperStateMachineService, properties.getStateMachineEvictionInterval(),
+					properties.getStateMachineMaxIdle(), properties.getStateMachineMaxCount());
+		}
+
+		@Bean
+		public BatchOperationService batchOperationService(SkipperStateMachineService skipperStateMachineService,
+				ObjectProvider<SkipperServerProperties> skipperServerProperties) {
+			SkipperServerProperties properties = properties(skipperServerProperties);
+			return new BatchOperationService(skipperStateMachineService, properties.getBatchPoolSize(),
+					properties.getBatchMaxParallelism(), properties.getStateMachineDeploymentPoolSize()
+							+ properties.getStateMachineDeploymentQueueCapacity(),
+					properties.getBatchMaxWait());
+		}
+
+		@Bean
+		public RolloutService rolloutService(ReleaseRepository releaseRepository,
+				PackageMetadataRepository packageMetadataRepository, ReleaseReportService releaseReportService,
+				BatchOperationService batchOperationService,
+				ObjectProvider<SkipperServerProperties> skipperServerProperties) {
+			SkipperServerProperties properties = properties(skipperServerProperties);
+			RolloutService rolloutService = new RolloutService(releaseRepository, packageMetadataRepository,
+					releaseReportService, batchOperationService, properties.getRolloutPoolSize());
+			rolloutService.setClusterEnabled(properties.isClusterEnabled());
+			return rolloutService;
 		}
 	}
 }
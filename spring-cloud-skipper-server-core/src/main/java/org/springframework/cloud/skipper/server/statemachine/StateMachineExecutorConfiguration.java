@@ -15,15 +15,26 @@
  */
 package org.springframework.cloud.skipper.server.statemachine;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.actuate.endpoint.PublicMetrics;
+import org.springframework.boot.actuate.metrics.Metric;
+import org.springframework.cloud.skipper.server.config.SkipperServerProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
-import org.springframework.core.task.TaskExecutor;
-import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 
 /**
  * Executor configuration for statemachine. Keeping all these separate from main machine
  * config allows to run tests tests in isolation without adding persistence layer.
  *
+ * Transitions run on a bounded pool whose overflow is run by the submitting thread, as
+ * the state machine can't recover from a rejected transition. Long running deploy and
+ * undeploy actions are handed off to a separate bounded pool which rejects when full, so
+ * that they can't starve the transitions of other releases.
+ *
  * @author Janne Valkealahti
  *
  */
@@ -31,9 +42,32 @@ import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 public class StateMachineExecutorConfiguration {
 
 	@Bean
-	public TaskExecutor skipperStateMachineTaskExecutor() {
-		ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
-		executor.setCorePoolSize(4);
-		return executor;
+	public MonitoredThreadPoolTaskExecutor skipperStateMachineTaskExecutor(
+			ObjectProvider<SkipperServerProperties> skipperServerProperties) {
+		SkipperServerProperties properties = properties(skipperServerProperties);
+		return new MonitoredThreadPoolTaskExecutor("transitions", properties.getStateMachineTransitionPoolSize(),
+				properties.getStateMachineTransitionPoolSize(), properties.getStateMachineTransitionQueueCapacity(), true);
+	}
+
+	@Bean
+	public MonitoredThreadPoolTaskExecutor skipperDeploymentTaskExecutor(
+			ObjectProvider<SkipperServerProperties> skipperServerProperties) {
+		SkipperServerProperties properties = properties(skipperServerProperties);
+		return new MonitoredThreadPoolTaskExecutor("deployments", properties.getStateMachineDeploymentPoolSize(),
+				properties.getStateMachineDeploymentPoolSize(), properties.getStateMachineDeploymentQueueCapacity(), false);
+	}
+
+	@Bean
+	public PublicMetrics skipperStateMachineExecutorMetrics(List<MonitoredThreadPoolTaskExecutor> executors) {
+		return () -> {
+			Collection<Metric<?>> metrics = new ArrayList<>();
+			executors.forEach(executor -> metrics.addAll(executor.metrics()));
+			return metrics;
+		};
+	}
+
+	private static SkipperServerProperties properties(ObjectProvider<SkipperServerProperties> skipperServerProperties) {
+		SkipperServerProperties properties = skipperServerProperties.getIfAvailable();
+		return properties != null ? properties : new SkipperServerProperties();
 	}
 }
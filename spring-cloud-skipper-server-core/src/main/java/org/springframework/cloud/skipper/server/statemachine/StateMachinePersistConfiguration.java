@@ -15,6 +15,11 @@
  */
 package org.springframework.cloud.skipper.server.statemachine;
 
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.cloud.skipper.server.config.SkipperServerProperties;
 import org.springframework.cloud.skipper.server.statemachine.SkipperStateMachineService.SkipperEvents;
 import org.springframework.cloud.skipper.server.statemachine.SkipperStateMachineService.SkipperStates;
 import org.springframework.context.annotation.Bean;
@@ -35,8 +40,23 @@ public class StateMachinePersistConfiguration {
 
 	@Bean
 	public StateMachineRuntimePersister<SkipperStates, SkipperEvents, String> stateMachineRuntimePersister(
-			JpaStateMachineRepository jpaStateMachineRepository) {
+			JpaStateMachineRepository jpaStateMachineRepository,
+			ObjectProvider<SkipperServerProperties> skipperServerProperties) {
 		// repository created in statemachine boot integration
-		return new JpaPersistingStateMachineInterceptor<>(jpaStateMachineRepository);
+		JpaPersistingStateMachineInterceptor<SkipperStates, SkipperEvents, String> persister =
+				new JpaPersistingStateMachineInterceptor<>(jpaStateMachineRepository);
+		SkipperServerProperties properties = skipperServerProperties.getIfAvailable();
+		if (properties == null) {
+			properties = new SkipperServerProperties();
+		}
+		if (properties.getStateMachineCheckpointStates().isEmpty()) {
+			// write through on every state change
+			return persister;
+		}
+		List<SkipperStates> checkpointStates = new ArrayList<>();
+		for (String state : properties.getStateMachineCheckpointStates()) {
+			checkpointStates.add(SkipperStates.valueOf(state.trim()));
+		}
+		return new CheckpointingStateMachineRuntimePersister<>(persister, SkipperStates.INITIAL, checkpointStates);
 	}
 }
@@ -0,0 +1,171 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.cloud.skipper.server.statemachine;
+
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+import org.springframework.cloud.skipper.SkipperException;
+import org.springframework.cloud.skipper.domain.Release;
+import org.springframework.cloud.skipper.server.deployer.ReleaseAnalysisReport;
+import org.springframework.cloud.skipper.server.deployer.ReleaseDifference;
+import org.springframework.cloud.skipper.server.domain.SpringCloudDeployerApplicationManifestReader;
+import org.springframework.cloud.skipper.server.repository.ReleaseRepository;
+
+/**
+ * Keeps the releases and analysis reports handled by the state machines out of their
+ * extended state, which is serialized and persisted on every transition. The extended
+ * state only holds a {@link ReleaseReference} or {@link ReleaseAnalysisReportReference},
+ * while the objects themselves are cached here. Releases which are no longer cached, for
+ * example after a restart, are loaded from the {@link ReleaseRepository}. Reports are
+ * rebuilt from the application names kept in their reference and from their releases,
+ * whose replacing release holds the manifest rendered for the upgrade. Rebuilding a report
+ * has no side effect, the upgrade is not analyzed again.
+ */
+public class StateMachineReferences {
+
+	private static final long MAX_CACHED_OBJECTS = 1000;
+
+	private static final long CACHE_RETENTION = TimeUnit.HOURS.toMillis(1);
+
+	private final Cache<String, Object> objects = CacheBuilder.newBuilder()
+			.maximumSize(MAX_CACHED_OBJECTS)
+			.expireAfterAccess(CACHE_RETENTION, TimeUnit.MILLISECONDS)
+			.build();
+
+	private final ReleaseRepository releaseRepository;
+
+	private final SpringCloudDeployerApplicationManifestReader applicationManifestReader;
+
+	/**
+	 * Instantiates references which can only be resolved while they are cached.
+	 */
+	public StateMachineReferences() {
+		this(null, null);
+	}
+
+	/**
+	 * Instantiates new state machine references.
+	 *
+	 * @param releaseRepository the release repository to load releases which are no longer
+	 * cached, may be {@literal null}
+	 * @param applicationManifestReader the reader to parse the manifest of reports which
+	 * are no longer cached, may be {@literal null}
+	 */
+	public StateMachineReferences(ReleaseRepository releaseRepository,
+			SpringCloudDeployerApplicationManifestReader applicationManifestReader) {
+		this.releaseRepository = releaseRepository;
+		this.applicationManifestReader = applicationManifestReader;
+	}
+
+	/**
+	 * Create a reference to a release.
+	 *
+	 * @param release the release
+	 * @return the reference, {@literal null} if the release is {@literal null}
+	 */
+	public ReleaseReference reference(Release release) {
+		if (release == null) {
+			return null;
+		}
+		ReleaseReference reference = new ReleaseReference(UUID.randomUUID().toString(), release.getId(),
+				release.getName(), release.getVersion());
+		this.objects.put(reference.getKey(), release);
+		return reference;
+	}
+
+	/**
+	 * Create a reference to a release analysis report.
+	 *
+	 * @param report the report
+	 * @return the reference, {@literal null} if the report is {@literal null}
+	 */
+	public ReleaseAnalysisReportReference reference(ReleaseAnalysisReport report) {
+		if (report == null) {
+			return null;
+		}
+		ReleaseAnalysisReportReference reference = new ReleaseAnalysisReportReference(UUID.randomUUID().toString(),
+				reference(report.getExistingRelease()), reference(report.getReplacingRelease()),
+				report.getApplicationNamesToUpgrade());
+		this.objects.put(reference.getKey(), report);
+		return reference;
+	}
+
+	/**
+	 * Resolve a release reference.
+	 *
+	 * @param reference the reference
+	 * @return the release, {@literal null} if the reference is {@literal null}
+	 * @throws SkipperException if the release can't be resolved
+	 */
+	public Release resolve(ReleaseReference reference) {
+		if (reference == null) {
+			return null;
+		}
+		Release release = (Release) this.objects.getIfPresent(reference.getKey());
+		if (release == null) {
+			release = load(reference);
+			this.objects.put(reference.getKey(), release);
+		}
+		return release;
+	}
+
+	/**
+	 * Resolve a release analysis report reference.
+	 *
+	 * @param reference the reference
+	 * @return the report, {@literal null} if the reference is {@literal null}
+	 * @throws SkipperException if the report can't be resolved
+	 */
+	public ReleaseAnalysisReport resolve(ReleaseAnalysisReportReference reference) {
+		if (reference == null) {
+			return null;
+		}
+		ReleaseAnalysisReport report = (ReleaseAnalysisReport) this.objects.getIfPresent(reference.getKey());
+		if (report == null) {
+			report = rebuild(reference);
+			this.objects.put(reference.getKey(), report);
+		}
+		return report;
+	}
+
+	private ReleaseAnalysisReport rebuild(ReleaseAnalysisReportReference reference) {
+		if (this.applicationManifestReader == null || reference.getApplicationNamesToUpgrade() == null) {
+			throw new SkipperException("Can't recreate the release analysis report of " + reference);
+		}
+		Release existingRelease = resolve(reference.getExistingRelease());
+		Release replacingRelease = resolve(reference.getReplacingRelease());
+		// the replacing release was saved with the manifest rendered for the upgrade
+		return new ReleaseAnalysisReport(reference.getApplicationNamesToUpgrade(),
+				new ReleaseDifference(false, "Difference summary not available."), existingRelease, replacingRelease,
+				this.applicationManifestReader.readRenderedManifest(replacingRelease.getManifest()));
+	}
+
+	private Release load(ReleaseReference reference) {
+		Release release = null;
+		if (this.releaseRepository != null) {
+			release = reference.getId() != null ? this.releaseRepository.findOne(reference.getId())
+					: this.releaseRepository.findByNameAndVersion(reference.getName(), reference.getVersion());
+		}
+		if (release == null) {
+			throw new SkipperException("Can't load the release of " + reference);
+		}
+		return release;
+	}
+}
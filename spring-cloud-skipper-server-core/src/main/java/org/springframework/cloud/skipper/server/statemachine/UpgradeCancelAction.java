@@ -32,21 +32,24 @@ import org.springframework.statemachine.action.Action;
 public class UpgradeCancelAction extends AbstractAction {
 
 	private final UpgradeStrategy upgradeStrategy;
+	private final StateMachineReferences stateMachineReferences;
 
 	/**
 	 * Instantiates a new upgrade cancel action.
 	 *
 	 * @param upgradeStrategy the upgrade strategy
+	 * @param stateMachineReferences the state machine references
 	 */
-	public UpgradeCancelAction(UpgradeStrategy upgradeStrategy) {
+	public UpgradeCancelAction(UpgradeStrategy upgradeStrategy, StateMachineReferences stateMachineReferences) {
 		super();
 		this.upgradeStrategy = upgradeStrategy;
+		this.stateMachineReferences = stateMachineReferences;
 	}
 
 	@Override
 	protected void executeInternal(StateContext<SkipperStates, SkipperEvents> context) {
-		ReleaseAnalysisReport releaseAnalysisReport = context.getExtendedState().get(SkipperVariables.RELEASE_ANALYSIS_REPORT,
-				ReleaseAnalysisReport.class);
+		ReleaseAnalysisReport releaseAnalysisReport = this.stateMachineReferences.resolve(context.getExtendedState()
+				.get(SkipperVariables.RELEASE_ANALYSIS_REPORT, ReleaseAnalysisReportReference.class));
 		upgradeStrategy.cancel(releaseAnalysisReport.getExistingRelease(), releaseAnalysisReport.getReplacingRelease(),
 				releaseAnalysisReport);
 	}
@@ -0,0 +1,221 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.cloud.skipper.server.statemachine;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.cloud.skipper.OperationRejectedException;
+import org.springframework.cloud.skipper.ReleaseNotOwnedException;
+import org.springframework.cloud.skipper.domain.Release;
+import org.springframework.cloud.skipper.server.service.ReleaseStatusEvent;
+import org.springframework.cloud.skipper.server.statemachine.SkipperStateMachineService.SkipperEvents;
+import org.springframework.cloud.skipper.server.statemachine.SkipperStateMachineService.SkipperStates;
+import org.springframework.cloud.skipper.server.statemachine.SkipperStateMachineService.SkipperVariables;
+import org.springframework.context.ApplicationListener;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.statemachine.StateMachine;
+
+/**
+ * Schedules the checks of the target apps of upgrades waiting in
+ * {@link SkipperStates#UPGRADE_WAIT_TARGET_APPS}, by sending
+ * {@link SkipperEvents#UPGRADE_CHECK} to their state machines. All machines share a single
+ * scheduler thread. The delay between checks of an upgrade grows exponentially from the
+ * initial delay up to the maximum delay, and a check runs right away once the status of
+ * the replacing release has been queried from its platform.
+ * <p>
+ * Checks are sent through a check sender, which rejects them like any other operation on
+ * a node not owning the release or with saturated executors. A check rejected for
+ * capacity is retried after the next delay, one rejected for ownership is dropped as the
+ * owning node schedules its own checks.
+ */
+public class UpgradeCheckScheduler implements ApplicationListener<ReleaseStatusEvent>, DisposableBean {
+
+	private static final Logger log = LoggerFactory.getLogger(UpgradeCheckScheduler.class);
+
+	private final long initialDelay;
+
+	private final long maxDelay;
+
+	private final Consumer<StateMachine<SkipperStates, SkipperEvents>> checkSender;
+
+	private final ScheduledExecutorService scheduledExecutorService = Executors
+			.newSingleThreadScheduledExecutor(new CustomizableThreadFactory("skipper-upgrade-check-"));
+
+	private final Map<String, PendingCheck> pendingChecks = new ConcurrentHashMap<>();
+
+	private final Map<String, Integer> attempts = new ConcurrentHashMap<>();
+
+	/**
+	 * Instantiates a new upgrade check scheduler.
+	 *
+	 * @param initialDelay the delay in milliseconds before the first check of an upgrade
+	 * @param maxDelay the maximum delay in milliseconds between two checks of an upgrade
+	 * @param checkSender the callback sending {@link SkipperEvents#UPGRADE_CHECK} to a
+	 * state machine
+	 */
+	public UpgradeCheckScheduler(long initialDelay, long maxDelay,
+			Consumer<StateMachine<SkipperStates, SkipperEvents>> checkSender) {
+		this.initialDelay = Math.max(initialDelay, 0);
+		this.maxDelay = Math.max(maxDelay, this.initialDelay);
+		this.checkSender = checkSender;
+	}
+
+	/**
+	 * Schedule the next check of the upgrade handled by a state machine. The check runs
+	 * without delay if the previous check has decided the outcome of the upgrade.
+	 *
+	 * @param stateMachine the state machine waiting for the target apps
+	 */
+	public void schedule(StateMachine<SkipperStates, SkipperEvents> stateMachine) {
+		Integer status = stateMachine.getExtendedState().get(SkipperVariables.UPGRADE_STATUS, Integer.class);
+		schedule(stateMachine, status != null && status != 0);
+	}
+
+	/**
+	 * Cancel the pending check of an upgrade, keeping the backoff of the upgrade.
+	 *
+	 * @param machineId the id of the state machine
+	 */
+	public void cancel(String machineId) {
+		PendingCheck check = this.pendingChecks.remove(machineId);
+		if (check != null) {
+			check.cancel();
+		}
+	}
+
+	/**
+	 * Cancel the pending check of an upgrade and forget its backoff.
+	 *
+	 * @param machineId the id of the state machine
+	 */
+	public void reset(String machineId) {
+		cancel(machineId);
+		this.attempts.remove(machineId);
+	}
+
+	/**
+	 * Run the pending check of an upgrade right away.
+	 *
+	 * @param machineId the id of the state machine
+	 * @return true if a check was pending and has been triggered
+	 */
+	public boolean checkNow(String machineId) {
+		PendingCheck check = this.pendingChecks.get(machineId);
+		ScheduledFuture<?> future = check != null ? check.future : null;
+		if (future == null || !future.cancel(false)) {
+			// no check pending, or it is running already
+			return false;
+		}
+		this.scheduledExecutorService.execute(() -> run(machineId, check));
+		return true;
+	}
+
+	/**
+	 * @return the number of upgrades waiting for their next check
+	 */
+	public int getPendingCheckCount() {
+		return this.pendingChecks.size();
+	}
+
+	@Override
+	public void onApplicationEvent(ReleaseStatusEvent event) {
+		Release release = event.getRelease();
+		PendingCheck check = this.pendingChecks.get(release.getName());
+		if (check != null && check.replacingVersion != null && check.replacingVersion == release.getVersion()
+				&& checkNow(release.getName())) {
+			log.debug("Triggered upgrade check of {} on status update", release.getName());
+		}
+	}
+
+	@Override
+	public void destroy() {
+		this.scheduledExecutorService.shutdownNow();
+	}
+
+	private void schedule(StateMachine<SkipperStates, SkipperEvents> stateMachine, boolean now) {
+		String machineId = stateMachine.getId();
+		long delay = now ? 0 : nextDelay(machineId);
+		PendingCheck check = new PendingCheck(stateMachine, replacingVersion(stateMachine));
+		PendingCheck previous = this.pendingChecks.put(machineId, check);
+		if (previous != null) {
+			previous.cancel();
+		}
+		check.future = this.scheduledExecutorService.schedule(() -> run(machineId, check), delay,
+				TimeUnit.MILLISECONDS);
+		log.debug("Scheduled upgrade check of {} in {}ms", machineId, delay);
+	}
+
+	private long nextDelay(String machineId) {
+		int attempt = this.attempts.merge(machineId, 1, Integer::sum) - 1;
+		// 2^30 already exceeds any sensible maximum delay
+		long delay = this.initialDelay << Math.min(attempt, 30);
+		return delay < 0 ? this.maxDelay : Math.min(delay, this.maxDelay);
+	}
+
+	private void run(String machineId, PendingCheck check) {
+		if (this.pendingChecks.remove(machineId, check)) {
+			try {
+				this.checkSender.accept(check.stateMachine);
+			}
+			catch (ReleaseNotOwnedException e) {
+				log.info("Dropped upgrade check of {}, the release is owned by another node", machineId);
+				this.attempts.remove(machineId);
+			}
+			catch (OperationRejectedException e) {
+				log.debug("Upgrade check of {} rejected, retrying later: {}", machineId, e.getMessage());
+				schedule(check.stateMachine, false);
+			}
+		}
+	}
+
+	private static Integer replacingVersion(StateMachine<SkipperStates, SkipperEvents> stateMachine) {
+		ReleaseAnalysisReportReference report = stateMachine.getExtendedState()
+				.get(SkipperVariables.RELEASE_ANALYSIS_REPORT, ReleaseAnalysisReportReference.class);
+		return report != null && report.getReplacingRelease() != null ? report.getReplacingRelease().getVersion()
+				: null;
+	}
+
+	private static final class PendingCheck {
+
+		private final StateMachine<SkipperStates, SkipperEvents> stateMachine;
+
+		private final Integer replacingVersion;
+
+		private volatile ScheduledFuture<?> future;
+
+		private PendingCheck(StateMachine<SkipperStates, SkipperEvents> stateMachine, Integer replacingVersion) {
+			this.stateMachine = stateMachine;
+			this.replacingVersion = replacingVersion;
+		}
+
+		private void cancel() {
+			ScheduledFuture<?> future = this.future;
+			if (future != null) {
+				future.cancel(false);
+			}
+		}
+	}
+}
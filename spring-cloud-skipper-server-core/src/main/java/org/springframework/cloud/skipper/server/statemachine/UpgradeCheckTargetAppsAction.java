@@ -36,21 +36,24 @@ public class UpgradeCheckTargetAppsAction extends AbstractAction {
 
 	private static final Logger log = LoggerFactory.getLogger(UpgradeCheckTargetAppsAction.class);
 	private final UpgradeStrategy upgradeStrategy;
+	private final StateMachineReferences stateMachineReferences;
 
 	/**
 	 * Instantiates a new upgrade check target apps action.
 	 *
 	 * @param upgradeStrategy the upgrade strategy
+	 * @param stateMachineReferences the state machine references
 	 */
-	public UpgradeCheckTargetAppsAction(UpgradeStrategy upgradeStrategy) {
+	public UpgradeCheckTargetAppsAction(UpgradeStrategy upgradeStrategy, StateMachineReferences stateMachineReferences) {
 		super();
 		this.upgradeStrategy = upgradeStrategy;
+		this.stateMachineReferences = stateMachineReferences;
 	}
 
 	@Override
 	protected void executeInternal(StateContext<SkipperStates, SkipperEvents> context) {
-		ReleaseAnalysisReport releaseAnalysisReport = context.getExtendedState().get(SkipperVariables.RELEASE_ANALYSIS_REPORT,
-				ReleaseAnalysisReport.class);
+		ReleaseAnalysisReport releaseAnalysisReport = this.stateMachineReferences.resolve(context.getExtendedState()
+				.get(SkipperVariables.RELEASE_ANALYSIS_REPORT, ReleaseAnalysisReportReference.class));
 		int upgradeStatus = 0;
 		boolean ok = upgradeStrategy.checkStatus(releaseAnalysisReport.getReplacingRelease());
 		log.debug("upgradeStrategy checkStatus {}", ok);
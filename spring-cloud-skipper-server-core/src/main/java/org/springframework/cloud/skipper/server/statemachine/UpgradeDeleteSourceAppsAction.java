@@ -32,21 +32,24 @@ import org.springframework.statemachine.action.Action;
 public class UpgradeDeleteSourceAppsAction extends AbstractAction {
 
 	private final UpgradeStrategy upgradeStrategy;
+	private final StateMachineReferences stateMachineReferences;
 
 	/**
 	 * Instantiates a new upgrade delete source apps action.
 	 *
 	 * @param upgradeStrategy the upgrade strategy
+	 * @param stateMachineReferences the state machine references
 	 */
-	public UpgradeDeleteSourceAppsAction(UpgradeStrategy upgradeStrategy) {
+	public UpgradeDeleteSourceAppsAction(UpgradeStrategy upgradeStrategy, StateMachineReferences stateMachineReferences) {
 		super();
 		this.upgradeStrategy = upgradeStrategy;
+		this.stateMachineReferences = stateMachineReferences;
 	}
 
 	@Override
 	protected void executeInternal(StateContext<SkipperStates, SkipperEvents> context) {
-		ReleaseAnalysisReport releaseAnalysisReport = context.getExtendedState().get(SkipperVariables.RELEASE_ANALYSIS_REPORT,
-				ReleaseAnalysisReport.class);
+		ReleaseAnalysisReport releaseAnalysisReport = this.stateMachineReferences.resolve(context.getExtendedState()
+				.get(SkipperVariables.RELEASE_ANALYSIS_REPORT, ReleaseAnalysisReportReference.class));
 		upgradeStrategy.accept(releaseAnalysisReport.getExistingRelease(), releaseAnalysisReport.getReplacingRelease(),
 				releaseAnalysisReport);
 	}
@@ -37,28 +37,32 @@ public class UpgradeDeployTargetAppsAction extends AbstractAction {
 
 	private static final Logger log = LoggerFactory.getLogger(UpgradeDeployTargetAppsAction.class);
 	private final UpgradeStrategy upgradeStrategy;
+	private final StateMachineReferences stateMachineReferences;
 
 	/**
 	 * Instantiates a new upgrade deploy target apps action.
 	 *
 	 * @param upgradeStrategy the upgrade strategy
+	 * @param stateMachineReferences the state machine references
 	 */
-	public UpgradeDeployTargetAppsAction(UpgradeStrategy upgradeStrategy) {
+	public UpgradeDeployTargetAppsAction(UpgradeStrategy upgradeStrategy, StateMachineReferences stateMachineReferences) {
 		super();
 		this.upgradeStrategy = upgradeStrategy;
+		this.stateMachineReferences = stateMachineReferences;
 	}
 
 	@Override
 	protected void executeInternal(StateContext<SkipperStates, SkipperEvents> context) {
 		log.info("Using UpgradeStrategy {}", upgradeStrategy);
-		ReleaseAnalysisReport releaseAnalysisReport = context.getExtendedState().get(SkipperVariables.RELEASE_ANALYSIS_REPORT,
-				ReleaseAnalysisReport.class);
+		ReleaseAnalysisReport releaseAnalysisReport = this.stateMachineReferences.resolve(context.getExtendedState()
+				.get(SkipperVariables.RELEASE_ANALYSIS_REPORT, ReleaseAnalysisReportReference.class));
 		log.info("releaseAnalysisReport {}", releaseAnalysisReport);
 		if (releaseAnalysisReport == null) {
 			throw new SkipperException("ReleaseAnalysis report is null");
 		}
 		this.upgradeStrategy.deployApps(releaseAnalysisReport.getExistingRelease(),
 				releaseAnalysisReport.getReplacingRelease(), releaseAnalysisReport);
-		context.getExtendedState().getVariables().put(SkipperVariables.RELEASE, releaseAnalysisReport.getReplacingRelease());
+		context.getExtendedState().getVariables().put(SkipperVariables.RELEASE,
+				this.stateMachineReferences.reference(releaseAnalysisReport.getReplacingRelease()));
 	}
 }
@@ -43,17 +43,21 @@ public class UpgradeStartAction extends AbstractAction {
 	private static final long DEFAULT_UPGRADE_TIMEOUT = 300000L;
 	private final ReleaseReportService releaseReportService;
 	private final ReleaseService releaseService;
+	private final StateMachineReferences stateMachineReferences;
 
 	/**
 	 * Instantiates a new upgrade start action.
 	 *
 	 * @param releaseReportService the release report service
 	 * @param releaseService the release service
+	 * @param stateMachineReferences the state machine references
 	 */
-	public UpgradeStartAction(ReleaseReportService releaseReportService, ReleaseService releaseService) {
+	public UpgradeStartAction(ReleaseReportService releaseReportService, ReleaseService releaseService,
+			StateMachineReferences stateMachineReferences) {
 		super();
 		this.releaseReportService = releaseReportService;
 		this.releaseService = releaseService;
+		this.stateMachineReferences = stateMachineReferences;
 	}
 
 	@Override
@@ -65,13 +69,17 @@ public class UpgradeStartAction extends AbstractAction {
 		if (upgradeRequest != null) {
 			ReleaseAnalysisReport releaseAnalysisReport = this.releaseReportService.createReport(upgradeRequest);
 			log.info("releaseAnalysisReport {}", releaseAnalysisReport);
-			context.getExtendedState().getVariables().put(SkipperVariables.RELEASE_ANALYSIS_REPORT, releaseAnalysisReport);
+			context.getExtendedState().getVariables().put(SkipperVariables.RELEASE_ANALYSIS_REPORT,
+					this.stateMachineReferences.reference(releaseAnalysisReport));
 		}
 		else {
-			Release existingRelease = context.getExtendedState().get(SkipperVariables.SOURCE_RELEASE, Release.class);
-			Release replacingRelease = context.getExtendedState().get(SkipperVariables.TARGET_RELEASE, Release.class);
+			Release existingRelease = this.stateMachineReferences.resolve(
+					context.getExtendedState().get(SkipperVariables.SOURCE_RELEASE, ReleaseReference.class));
+			Release replacingRelease = this.stateMachineReferences.resolve(
+					context.getExtendedState().get(SkipperVariables.TARGET_RELEASE, ReleaseReference.class));
 			ReleaseAnalysisReport releaseAnalysisReport = releaseService.createReport(existingRelease, replacingRelease);
-			context.getExtendedState().getVariables().put(SkipperVariables.RELEASE_ANALYSIS_REPORT, releaseAnalysisReport);
+			context.getExtendedState().getVariables().put(SkipperVariables.RELEASE_ANALYSIS_REPORT,
+					this.stateMachineReferences.reference(releaseAnalysisReport));
 		}
 	}
 
@@ -0,0 +1,70 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.cloud.skipper.server.util;
+
+import java.util.function.Function;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+/**
+ * A bounded cache of values parsed from text, keyed by the SHA-256 digest of the text so
+ * that large texts are not retained as keys. The least recently used values are evicted
+ * first.
+ * <p>
+ * Values must be immutable, they are shared by all callers. The same text may be parsed
+ * concurrently more than once, the last value parsed is kept.
+ *
+ * @param <V> the type of the parsed values
+ */
+public final class DigestKeyedCache<V> {
+
+	private final Cache<String, V> cache;
+
+	/**
+	 * Create a new cache.
+	 * @param maximumSize the maximum number of values kept in the cache
+	 */
+	public DigestKeyedCache(int maximumSize) {
+		this.cache = CacheBuilder.newBuilder().maximumSize(maximumSize).build();
+	}
+
+	/**
+	 * Return the value parsed from the given text, parsing it only if the same text is not
+	 * cached yet. Exceptions thrown by the parser are propagated as is and nothing is
+	 * cached.
+	 * @param text the text to parse
+	 * @param parser the function parsing the text
+	 * @return the parsed value
+	 */
+	public V get(String text, Function<String, V> parser) {
+		String key = Sha256Digests.digest(text);
+		V value = this.cache.getIfPresent(key);
+		if (value == null) {
+			value = parser.apply(text);
+			this.cache.put(key, value);
+		}
+		return value;
+	}
+
+	/**
+	 * Return the number of values currently cached.
+	 * @return the number of cached values
+	 */
+	public long size() {
+		return this.cache.size();
+	}
+}
@@ -0,0 +1,76 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.cloud.skipper.server.util;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+import com.google.common.io.BaseEncoding;
+
+/**
+ * Helpers for the SHA-256 digests used to identify package and index files, and to key
+ * caches of content parsed from text.
+ */
+public final class Sha256Digests {
+
+	private Sha256Digests() {
+	}
+
+	/**
+	 * Create a new SHA-256 message digest, to be fed incrementally while the content is
+	 * streamed.
+	 * @return a new message digest
+	 */
+	public static MessageDigest newDigest() {
+		try {
+			return MessageDigest.getInstance("SHA-256");
+		}
+		catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException("SHA-256 algorithm not available", e);
+		}
+	}
+
+	/**
+	 * Complete the digest and return it as lower case hex.
+	 * @param messageDigest the digest fed with the content
+	 * @return the hex encoded digest
+	 */
+	public static String toHex(MessageDigest messageDigest) {
+		return BaseEncoding.base16().lowerCase().encode(messageDigest.digest());
+	}
+
+	/**
+	 * Return the lower case hex digest of the UTF-8 encoding of the given text.
+	 * @param text the text to digest
+	 * @return the hex encoded digest
+	 */
+	public static String digest(String text) {
+		MessageDigest messageDigest = newDigest();
+		messageDigest.update(text.getBytes(StandardCharsets.UTF_8));
+		return toHex(messageDigest);
+	}
+
+	/**
+	 * Return whether two hex encoded digests are the same, ignoring case.
+	 * @param expected the expected digest, e.g. from the package index
+	 * @param actual the computed digest
+	 * @return {@literal true} if the digests match
+	 */
+	public static boolean matches(String expected, String actual) {
+		return expected != null && expected.trim().equalsIgnoreCase(actual);
+	}
+}
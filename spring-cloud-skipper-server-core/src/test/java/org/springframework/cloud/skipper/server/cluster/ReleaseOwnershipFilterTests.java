@@ -0,0 +1,183 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.cloud.skipper.server.cluster;
+
+import java.nio.charset.StandardCharsets;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.web.client.MockRestServiceServer;
+import org.springframework.util.StreamUtils;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.RestTemplate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.content;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.header;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.method;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.requestTo;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withStatus;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withSuccess;
+
+/**
+ * Tests for {@link ReleaseOwnershipFilter}.
+ */
+public class ReleaseOwnershipFilterTests {
+
+	private static final String OWNER_URL = "http://node2:7577";
+
+	private final ReleaseOwnershipService releaseOwnershipService = Mockito.mock(ReleaseOwnershipService.class);
+
+	private final RestTemplate restTemplate = new RestTemplate();
+
+	private final MockRestServiceServer server = MockRestServiceServer.bindTo(this.restTemplate).build();
+
+	private final MockFilterChain filterChain = new MockFilterChain();
+
+	private final MockHttpServletResponse response = new MockHttpServletResponse();
+
+	private ReleaseOwnershipFilter filter;
+
+	@Before
+	public void setup() {
+		this.filter = new ReleaseOwnershipFilter(this.releaseOwnershipService, new ObjectMapper(), this.restTemplate);
+		when(this.releaseOwnershipService.getNodeId()).thenReturn("node1");
+		when(this.releaseOwnershipService.isOwner("log1")).thenReturn(true);
+		when(this.releaseOwnershipService.isOwner("log2")).thenReturn(false);
+		when(this.releaseOwnershipService.getOwnerUrl("log2")).thenReturn(OWNER_URL);
+	}
+
+	@Test
+	public void requestsForReleasesOfOtherNodesAreForwarded() throws Exception {
+		String body = "{\"installProperties\":{\"releaseName\":\"log2\"}}";
+		this.server.expect(requestTo(OWNER_URL + "/api/install"))
+				.andExpect(method(HttpMethod.POST))
+				.andExpect(header(ReleaseOwnershipFilter.FORWARDED_BY_HEADER, "node1"))
+				.andExpect(content().string(body))
+				.andRespond(withStatus(HttpStatus.CREATED).contentType(MediaType.APPLICATION_JSON)
+						.body("{\"name\":\"log2\"}"));
+
+		this.filter.doFilter(post("/api/install", body), this.response, this.filterChain);
+
+		this.server.verify();
+		assertThat(this.filterChain.getRequest()).isNull();
+		assertThat(this.response.getStatus()).isEqualTo(HttpStatus.CREATED.value());
+		assertThat(this.response.getContentType()).startsWith(MediaType.APPLICATION_JSON_VALUE);
+		assertThat(this.response.getContentAsString()).isEqualTo("{\"name\":\"log2\"}");
+	}
+
+	@Test
+	public void requestsForReleasesOfThisNodePassThrough() throws Exception {
+		String body = "{\"upgradeProperties\":{\"releaseName\":\"log1\"}}";
+
+		this.filter.doFilter(post("/api/upgrade", body), this.response, this.filterChain);
+
+		this.server.verify();
+		assertThat(this.filterChain.getRequest()).isNotNull();
+		// the body read by the filter is replayed to the controller
+		assertThat(StreamUtils.copyToString(this.filterChain.getRequest().getInputStream(), StandardCharsets.UTF_8))
+				.isEqualTo(body);
+	}
+
+	@Test
+	public void forwardedRequestsPassThrough() throws Exception {
+		MockHttpServletRequest request = post("/api/delete/log2", "");
+		request.addHeader(ReleaseOwnershipFilter.FORWARDED_BY_HEADER, "node2");
+
+		this.filter.doFilter(request, this.response, this.filterChain);
+
+		this.server.verify();
+		assertThat(this.filterChain.getRequest()).isNotNull();
+	}
+
+	@Test
+	public void unreachableOwnerIsReported() throws Exception {
+		RestTemplate failing = Mockito.mock(RestTemplate.class);
+		when(failing.exchange(eq(OWNER_URL + "/api/delete/log2"), eq(HttpMethod.POST), any(HttpEntity.class), eq(byte[].class)))
+				.thenThrow(new ResourceAccessException("Connection refused"));
+		this.filter = new ReleaseOwnershipFilter(this.releaseOwnershipService, new ObjectMapper(), failing);
+
+		this.filter.doFilter(post("/api/delete/log2", ""), this.response, this.filterChain);
+
+		assertThat(this.filterChain.getRequest()).isNull();
+		assertThat(this.response.getStatus()).isEqualTo(HttpStatus.SERVICE_UNAVAILABLE.value());
+	}
+
+	@Test
+	public void batchesOfReleasesOfOneOtherNodeAreForwarded() throws Exception {
+		when(this.releaseOwnershipService.isOwner("log3")).thenReturn(false);
+		when(this.releaseOwnershipService.getOwnerUrl("log3")).thenReturn(OWNER_URL);
+		String body = "{\"operations\":["
+				+ "{\"type\":\"install\",\"installRequest\":{\"installProperties\":{\"releaseName\":\"log2\"}}},"
+				+ "{\"type\":\"delete\",\"releaseName\":\"log3\"}]}";
+		this.server.expect(requestTo(OWNER_URL + "/api/batch"))
+				.andExpect(method(HttpMethod.POST))
+				.andRespond(withSuccess("[]", MediaType.APPLICATION_JSON));
+
+		this.filter.doFilter(post("/api/batch", body), this.response, this.filterChain);
+
+		this.server.verify();
+		assertThat(this.filterChain.getRequest()).isNull();
+		assertThat(this.response.getContentAsString()).isEqualTo("[]");
+	}
+
+	@Test
+	public void batchesSpanningNodesPassThrough() throws Exception {
+		String body = "{\"operations\":["
+				+ "{\"type\":\"upgrade\",\"upgradeRequest\":{\"upgradeProperties\":{\"releaseName\":\"log2\"}}},"
+				+ "{\"type\":\"delete\",\"releaseName\":\"log1\"}]}";
+
+		this.filter.doFilter(post("/api/batch", body), this.response, this.filterChain);
+
+		this.server.verify();
+		assertThat(this.filterChain.getRequest()).isNotNull();
+	}
+
+	@Test
+	public void operationLookupsAreForwardedToTheirNode() throws Exception {
+		when(this.releaseOwnershipService.getOperationNodeUrl("node2_42")).thenReturn(OWNER_URL);
+		this.server.expect(requestTo(OWNER_URL + "/api/operations/node2_42"))
+				.andExpect(method(HttpMethod.GET))
+				.andRespond(withSuccess("{\"id\":\"node2_42\"}", MediaType.APPLICATION_JSON));
+
+		MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/operations/node2_42");
+		this.filter.doFilter(request, this.response, this.filterChain);
+
+		this.server.verify();
+		assertThat(this.filterChain.getRequest()).isNull();
+		assertThat(this.response.getContentAsString()).isEqualTo("{\"id\":\"node2_42\"}");
+	}
+
+	private static MockHttpServletRequest post(String path, String body) {
+		MockHttpServletRequest request = new MockHttpServletRequest("POST", path);
+		request.setContentType(MediaType.APPLICATION_JSON_VALUE);
+		request.setContent(body.getBytes(StandardCharsets.UTF_8));
+		return request;
+	}
+}
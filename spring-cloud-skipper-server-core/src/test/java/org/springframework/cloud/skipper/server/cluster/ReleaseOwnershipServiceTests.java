@@ -0,0 +1,194 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.cloud.skipper.server.cluster;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Predicate;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.autoconfigure.jdbc.EmbeddedDataSourceConfiguration;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernateJpaAutoConfiguration;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cloud.skipper.ReleaseNotOwnedException;
+import org.springframework.cloud.skipper.server.config.SkipperServerConfiguration;
+import org.springframework.cloud.skipper.server.repository.ClusterNodeRepository;
+import org.springframework.cloud.skipper.server.repository.PartitionLeaseRepository;
+import org.springframework.cloud.skipper.server.statemachine.SkipperStateMachineService;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.statemachine.boot.autoconfigure.StateMachineJpaRepositoriesAutoConfiguration;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.springframework.cloud.skipper.server.cluster.ReleaseOwnershipServiceTests.TestConfig;
+
+/**
+ * Tests for {@link ReleaseOwnershipService}.
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(classes = TestConfig.class)
+public class ReleaseOwnershipServiceTests {
+
+	private static final int PARTITION_COUNT = 16;
+
+	private static final long LEASE_DURATION = 30000;
+
+	@Autowired
+	private ClusterNodeRepository clusterNodeRepository;
+
+	@Autowired
+	private PartitionLeaseRepository partitionLeaseRepository;
+
+	private SkipperStateMachineService stateMachineServiceA;
+
+	private ReleaseOwnershipService nodeA;
+
+	private ReleaseOwnershipService nodeB;
+
+	@Before
+	public void setup() {
+		this.partitionLeaseRepository.deleteAll();
+		this.clusterNodeRepository.deleteAll();
+		this.stateMachineServiceA = mock(SkipperStateMachineService.class);
+		when(this.stateMachineServiceA.evictStateMachines(any())).thenReturn(Collections.emptySet());
+		SkipperStateMachineService stateMachineServiceB = mock(SkipperStateMachineService.class);
+		when(stateMachineServiceB.evictStateMachines(any())).thenReturn(Collections.emptySet());
+		this.nodeA = new ReleaseOwnershipService(this.clusterNodeRepository, this.partitionLeaseRepository,
+				this.stateMachineServiceA, "a", "http://node-a:7577", PARTITION_COUNT, LEASE_DURATION);
+		this.nodeB = new ReleaseOwnershipService(this.clusterNodeRepository, this.partitionLeaseRepository,
+				stateMachineServiceB, "b", "http://node-b:7577", PARTITION_COUNT, LEASE_DURATION);
+	}
+
+	@Test
+	public void partitionsAreSplitBetweenLiveNodes() {
+		long now = System.currentTimeMillis();
+		this.nodeA.renewLeases(now);
+		assertThat(this.nodeA.getOwnedPartitions()).hasSize(PARTITION_COUNT);
+
+		// partitions held by a are only taken over once a has handed them over
+		this.nodeB.renewLeases(now + 1);
+		assertThat(this.nodeB.getOwnedPartitions()).isEmpty();
+		this.nodeA.renewLeases(now + 2);
+		this.nodeB.renewLeases(now + 3);
+		this.nodeA.renewLeases(now + 4);
+
+		List<Integer> ownedByA = this.nodeA.getOwnedPartitions();
+		List<Integer> ownedByB = this.nodeB.getOwnedPartitions();
+		assertThat(ownedByA).isNotEmpty().doesNotContainAnyElementsOf(ownedByB);
+		assertThat(ownedByB).isNotEmpty();
+		List<Integer> all = new ArrayList<>(ownedByA);
+		all.addAll(ownedByB);
+		assertThat(all).hasSize(PARTITION_COUNT);
+
+		String releaseOfB = releaseOwnedBy(this.nodeB);
+		assertThat(this.nodeA.isOwner(releaseOfB)).isFalse();
+		assertThat(this.nodeA.getOwnerUrl(releaseOfB)).isEqualTo("http://node-b:7577");
+		Throwable thrown = catchThrowable(() -> this.nodeA.checkOwner(releaseOfB));
+		assertThat(thrown).isInstanceOf(ReleaseNotOwnedException.class);
+		assertThat(((ReleaseNotOwnedException) thrown).getOwnerUrl()).isEqualTo("http://node-b:7577");
+	}
+
+	@Test
+	public void busyPartitionsAreNotHandedOver() {
+		when(this.stateMachineServiceA.evictStateMachines(any())).thenReturn(Collections.singleton("busy"));
+		long now = System.currentTimeMillis();
+		this.nodeA.renewLeases(now);
+		this.nodeB.renewLeases(now + 1);
+		this.nodeA.renewLeases(now + 2);
+		this.nodeB.renewLeases(now + 3);
+		assertThat(this.nodeA.getOwnedPartitions()).hasSize(PARTITION_COUNT);
+		assertThat(this.nodeB.getOwnedPartitions()).isEmpty();
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	public void partitionsAreNotOwnedWhileHandedOver() {
+		List<Boolean> ownedWhileEvicting = new ArrayList<>();
+		when(this.stateMachineServiceA.evictStateMachines(any())).thenAnswer(invocation -> {
+			Predicate<String> releaseNames = (Predicate<String>) invocation.getArguments()[0];
+			ownedWhileEvicting.add(this.nodeA.isOwner(releaseMatching(releaseNames)));
+			return Collections.emptySet();
+		});
+		long now = System.currentTimeMillis();
+		this.nodeA.renewLeases(now);
+		this.nodeB.renewLeases(now + 1);
+		this.nodeA.renewLeases(now + 2);
+		assertThat(ownedWhileEvicting).isNotEmpty().containsOnly(false);
+	}
+
+	@Test
+	public void operationsAreLookedUpOnTheirNode() {
+		long now = System.currentTimeMillis();
+		this.nodeA.renewLeases(now);
+		this.nodeB.renewLeases(now);
+		this.nodeA.renewLeases(now + 1);
+		// nodes are looked up in the live nodes of the last heartbeat
+		this.clusterNodeRepository.deleteAll();
+		String operationId = "0f8fad5b-d9cb-469f-a165-70867728950e";
+		assertThat(this.nodeA.getOperationNodeUrl(this.nodeB.getOperationIdPrefix() + operationId))
+				.isEqualTo("http://node-b:7577");
+		assertThat(this.nodeA.getOperationNodeUrl(this.nodeA.getOperationIdPrefix() + operationId)).isNull();
+		assertThat(this.nodeA.getOperationNodeUrl("c_" + operationId)).isNull();
+		assertThat(this.nodeA.getOperationNodeUrl(operationId)).isNull();
+	}
+
+	@Test
+	public void expiredLeasesAreTakenOver() {
+		long now = System.currentTimeMillis();
+		this.nodeA.renewLeases(now);
+		this.nodeB.renewLeases(now + 1);
+		this.nodeA.renewLeases(now + 2);
+		this.nodeB.renewLeases(now + 3);
+		assertThat(this.nodeB.getOwnedPartitions()).isNotEmpty();
+
+		// b stops heartbeating, a takes over its partitions once they expire
+		this.nodeA.renewLeases(now + LEASE_DURATION - 1);
+		assertThat(this.nodeA.getOwnedPartitions()).hasSize(PARTITION_COUNT - this.nodeB.getOwnedPartitions().size());
+		this.nodeA.renewLeases(now + LEASE_DURATION + 4);
+		assertThat(this.nodeA.getOwnedPartitions()).hasSize(PARTITION_COUNT);
+	}
+
+	private String releaseOwnedBy(ReleaseOwnershipService node) {
+		return releaseMatching(node::isOwner);
+	}
+
+	private String releaseMatching(Predicate<String> predicate) {
+		for (int i = 0;; i++) {
+			if (predicate.test("release" + i)) {
+				return "release" + i;
+			}
+		}
+	}
+
+	@Configuration
+	@ImportAutoConfiguration(classes = { JacksonAutoConfiguration.class, EmbeddedDataSourceConfiguration.class,
+			HibernateJpaAutoConfiguration.class, StateMachineJpaRepositoriesAutoConfiguration.class })
+	@Import(SkipperServerConfiguration.class)
+	static class TestConfig {
+	}
+}
@@ -25,15 +25,22 @@ import org.springframework.cloud.skipper.domain.InstallRequest;
 import org.springframework.cloud.skipper.domain.PackageIdentifier;
 import org.springframework.cloud.skipper.domain.Release;
 import org.springframework.cloud.skipper.domain.StatusCode;
+import org.springframework.http.MediaType;
 import org.springframework.mock.web.MockHttpServletRequest;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.RequestBuilder;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.print;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 /**
@@ -82,6 +89,68 @@ public class SkipperControllerTests extends AbstractControllerTests {
 		assertThat(deletedRelease.getInfo().getStatus().getStatusCode()).isEqualTo(StatusCode.DELETED);
 	}
 
+	@Test
+	public void searchClampsPagingParameters() throws Exception {
+		mockMvc.perform(get("/api/search").param("query", "log").param("page", "-1").param("size", "0"))
+				.andDo(print())
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.page.number").value(0))
+				.andExpect(jsonPath("$.page.size").value(20));
+	}
+
+	@Test
+	public void latestPackageVersionKeepsItsSearchPath() throws Exception {
+		mockMvc.perform(get("/api/packageMetadata/search/findFirstByNameOrderByVersionDesc").param("name", "log"))
+				.andExpect(status().isOk()).andExpect(jsonPath("$.name").value("log"))
+				.andExpect(jsonPath("$.version").value("2.0.0"));
+	}
+
+	@Test
+	public void searchIndexFollowsPackageMetadataChangesThroughRest() throws Exception {
+		mockMvc.perform(get("/api/search").param("query", "zzrest")).andExpect(status().isOk())
+				.andExpect(jsonPath("$.page.totalElements").value(0));
+		MvcResult created = mockMvc.perform(post("/api/packageMetadata").contentType(MediaType.APPLICATION_JSON)
+				.content("{\"apiVersion\":\"skipper.spring.io/v1\",\"kind\":\"SkipperPackageMetadata\","
+						+ "\"name\":\"zzrest\",\"version\":\"1.0.0\"}"))
+				.andExpect(status().isCreated()).andReturn();
+		mockMvc.perform(get("/api/search").param("query", "zzrest")).andExpect(status().isOk())
+				.andExpect(jsonPath("$.page.totalElements").value(1));
+
+		mockMvc.perform(delete(created.getResponse().getHeader("Location"))).andExpect(status().isNoContent());
+		mockMvc.perform(get("/api/search").param("query", "zzrest")).andExpect(status().isOk())
+				.andExpect(jsonPath("$.page.totalElements").value(0));
+	}
+
+	@Test
+	public void asyncDeleteReturnsOperation() throws Exception {
+		String releaseName = "testAsync";
+		Release release = install("log", "1.0.0", releaseName);
+		assertThat(release.getVersion()).isEqualTo(1);
+
+		MvcResult result = mockMvc.perform(post("/api/delete/" + releaseName).param("async", "true"))
+				.andDo(print())
+				.andExpect(status().isAccepted())
+				.andExpect(header().string("Location", containsString("/api/operations/")))
+				.andExpect(jsonPath("$.type").value("delete"))
+				.andExpect(jsonPath("$.releaseName").value(releaseName)).andReturn();
+		String location = result.getResponse().getHeader("Location");
+		String operationId = location.substring(location.lastIndexOf('/') + 1);
+
+		MvcResult operationResult = mockMvc.perform(get("/api/operations/" + operationId).param("wait", "30000"))
+				.andExpect(request().asyncStarted()).andReturn();
+		mockMvc.perform(asyncDispatch(operationResult)).andDo(print())
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.id").value(operationId))
+				.andExpect(jsonPath("$.state").value("COMPLETED"))
+				.andExpect(jsonPath("$.release.name").value(releaseName));
+		Release deletedRelease = this.releaseRepository.findByNameAndVersion(releaseName, 1);
+		assertThat(deletedRelease.getInfo().getStatus().getStatusCode()).isEqualTo(StatusCode.DELETED);
+
+		MvcResult missingResult = mockMvc.perform(get("/api/operations/unknown"))
+				.andExpect(request().asyncStarted()).andReturn();
+		mockMvc.perform(asyncDispatch(missingResult)).andExpect(status().isNotFound());
+	}
+
 	@Test
 	public void releaseRollbackAndUndeploy() throws Exception {
 
@@ -70,6 +70,9 @@ public class ApiDocumentation extends BaseDocumentation {
 		this.mockMvc.perform(get("/api")).andExpect(status().isOk()).andDo(this.documentationHandler.document(links(
 				linkWithRel("about").description("Provides meta information of the server"),
 				linkWithRel("upload").description("Uploads a package"),
+				linkWithRel("synchronize").description(
+						"Requests a background synchronization of the package repository indexes"),
+				linkWithRel("search").description("Searches packages by name, description, tags and maintainer"),
 				linkWithRel("install").description("Installs a package"),
 				linkWithRel("install/id").description("Installs a package by also providing the package id"),
 				linkWithRel("appDeployerDatas").description("Exposes App Deployer Data"),
@@ -96,6 +99,11 @@ public class ApiDocumentation extends BaseDocumentation {
 				linkWithRel("upgrade").description("Upgrade a release"),
 				linkWithRel("rollback").description("Rollback the release to a previous or a specific release"),
 				linkWithRel("delete").description("Delete the release"),
+				linkWithRel("batch").description("Run a batch of install, upgrade and delete operations"),
+				linkWithRel("rollouts").description("Upgrade all releases of a package in waves, or list the "
+						+ "rollouts"),
+				linkWithRel("operations").description("Get the state of an asynchronous install, upgrade, delete "
+						+ "or rollback operation"),
 				linkWithRel("history").description("List the history of versions for a given release"),
 				linkWithRel("list")
 						.description("List the latest version of releases with status of deployed or failed"),
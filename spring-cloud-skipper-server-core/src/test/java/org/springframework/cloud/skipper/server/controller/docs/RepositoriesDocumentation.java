@@ -56,6 +56,10 @@ public class RepositoriesDocumentation extends BaseDocumentation {
 								fieldWithPath("_embedded.repositories[].local").description("Is the repo local?"),
 								fieldWithPath("_embedded.repositories[].repoOrder")
 										.description("Order of the Repository"),
+								fieldWithPath("_embedded.repositories[].lastSynchronized").optional()
+										.description("When the index of the Repository was last synchronized"),
+								fieldWithPath("_embedded.repositories[].lastSynchronizationDuration").optional()
+										.description("Duration in milliseconds of the last index synchronization"),
 								fieldWithPath("_embedded.repositories[]._links.self.href").ignored(),
 								fieldWithPath("_embedded.repositories[]._links.repository.href").ignored())
 								.and(super.defaultLinkProperties)));
@@ -78,6 +82,10 @@ public class RepositoriesDocumentation extends BaseDocumentation {
 								fieldWithPath("description").description("Description of the Repository"),
 								fieldWithPath("local").description("Is the repo local?"),
 								fieldWithPath("repoOrder").description("Order of the Repository"),
+								fieldWithPath("lastSynchronized").optional()
+										.description("When the index of the Repository was last synchronized"),
+								fieldWithPath("lastSynchronizationDuration").optional()
+										.description("Duration in milliseconds of the last index synchronization"),
 								fieldWithPath("sourceUrl").description("Source URL of the repository"))
 										.and(super.defaultLinkProperties)));
 	}
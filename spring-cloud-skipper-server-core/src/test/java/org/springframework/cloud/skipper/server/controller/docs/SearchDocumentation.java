@@ -0,0 +1,67 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.cloud.skipper.server.controller.docs;
+
+import org.junit.Test;
+
+import org.springframework.test.context.ActiveProfiles;
+
+import static org.springframework.restdocs.mockmvc.RestDocumentationRequestBuilders.get;
+import static org.springframework.restdocs.payload.PayloadDocumentation.fieldWithPath;
+import static org.springframework.restdocs.request.RequestDocumentation.parameterWithName;
+import static org.springframework.restdocs.request.RequestDocumentation.requestParameters;
+import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.print;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@ActiveProfiles("repo-test")
+public class SearchDocumentation extends BaseDocumentation {
+
+	@Test
+	public void searchPackages() throws Exception {
+		this.mockMvc.perform(
+				get("/api/search")
+						.param("query", "log")
+						.param("page", "0")
+						.param("size", "10"))
+				.andDo(print())
+				.andExpect(status().isOk())
+				.andDo(this.documentationHandler.document(
+						requestParameters(
+								parameterWithName("query").description(
+										"The terms to search for in the name, description, tags and maintainer "
+												+ "of the packages (optional)"),
+								parameterWithName("page").description("The zero-based page number (optional)"),
+								parameterWithName("size").description("The requested page size (optional)")),
+						super.paginationProperties.and(
+								fieldWithPath("_embedded.packageSearchResults")
+										.description("Contains the matching packages, most relevant first"),
+								fieldWithPath("_embedded.packageSearchResults[].name")
+										.description("The name of the package"),
+								fieldWithPath("_embedded.packageSearchResults[].latestVersion")
+										.description("The newest matching version of the package"),
+								fieldWithPath("_embedded.packageSearchResults[].packageMetadataId")
+										.description("The id of the Package Metadata of the newest matching version"),
+								fieldWithPath("_embedded.packageSearchResults[].versions")
+										.description("All matching versions of the package, newest first"),
+								fieldWithPath("_embedded.packageSearchResults[].description").optional()
+										.description("Brief description of the package"),
+								fieldWithPath("_embedded.packageSearchResults[].iconUrl").optional()
+										.description("Url location of a icon"),
+								fieldWithPath("_embedded.packageSearchResults[].score")
+										.description("The relevance of the package to the search"))
+								.and(super.defaultLinkProperties)));
+	}
+}
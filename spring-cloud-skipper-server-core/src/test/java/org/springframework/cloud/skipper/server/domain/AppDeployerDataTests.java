@@ -0,0 +1,66 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.cloud.skipper.server.domain;
+
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests for {@link AppDeployerData}.
+ */
+public class AppDeployerDataTests {
+
+	@Test
+	public void appDeploymentsAreKeyedByApplicationName() {
+		AppDeployerData appDeployerData = new AppDeployerData();
+		appDeployerData.putAppDeployment("time", "release1.time-v1", "abc");
+		appDeployerData.putAppDeployment("log", "release1.log-v1", "def");
+
+		assertThat(appDeployerData.getDeploymentIds()).containsExactly("release1.time-v1", "release1.log-v1");
+		assertThat(appDeployerData.getDeploymentDataAsMap()).containsEntry("time", "release1.time-v1")
+				.containsEntry("log", "release1.log-v1");
+		assertThat(appDeployerData.getSpecFingerprints()).containsEntry("time", "abc").containsEntry("log", "def");
+	}
+
+	@Test
+	public void legacyDeploymentDataIsConverted() {
+		AppDeployerData appDeployerData = new AppDeployerData();
+		appDeployerData.setDeploymentData("{\"time\":\"release1.time-v1\",\"log\":\"release1.log-v1\"}");
+		assertThat(appDeployerData.getAppDeployments()).isEmpty();
+
+		appDeployerData.migrateLegacyDeploymentData();
+		assertThat(appDeployerData.getDeploymentIds()).containsExactly("release1.time-v1", "release1.log-v1");
+		assertThat(appDeployerData.getAppDeployments()).hasSize(2);
+		// no fingerprints were stored, so upgrades compare against the manifest
+		assertThat(appDeployerData.getSpecFingerprints()).containsEntry("time", null).containsEntry("log", null);
+	}
+
+	@Test
+	public void missingFingerprintsAreReportedPerApplication() {
+		AppDeployerData appDeployerData = new AppDeployerData();
+		appDeployerData.putAppDeployment("time", "release1.time-v1", "abc");
+		appDeployerData.putAppDeployment("log", "release1.log-v1", null);
+
+		assertThat(appDeployerData.getSpecFingerprints()).containsEntry("time", "abc").containsEntry("log", null);
+	}
+
+	@Test
+	public void deploymentIdsAreEmptyWithoutDeployments() {
+		assertThat(new AppDeployerData().getDeploymentIds()).isEmpty();
+		assertThat(new AppDeployerData().getSpecFingerprints()).isEmpty();
+	}
+}
@@ -0,0 +1,109 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.cloud.skipper.server.domain;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Throughput of {@link SpringCloudDeployerApplicationManifestReader#read(String)} for
+ * manifests with 1, 10, 50 and 100 application documents, both when the parsed manifest
+ * is cached and when it has to be parsed. Not run as part of the build, run
+ * {@link #main(String[])} from the test classpath.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SpringCloudDeployerApplicationManifestReaderBenchmark {
+
+	@Param({ "1", "10", "50", "100" })
+	private int documents;
+
+	private final SpringCloudDeployerApplicationManifestReader applicationManifestReader = new SpringCloudDeployerApplicationManifestReader();
+
+	private String manifest;
+
+	/**
+	 * Revisions of the manifest differing by a comment, twice as many as the reader caches
+	 * so that reading them in turn always misses the cache.
+	 */
+	private String[] revisions;
+
+	private int revision;
+
+	@Setup
+	public void setup() {
+		StringBuilder manifest = new StringBuilder();
+		for (int i = 0; i < this.documents; i++) {
+			manifest.append("\n---\n# Source: app").append(i).append(".yml\n")
+					.append("apiVersion: skipper.spring.io/v1\n")
+					.append("kind: SpringCloudDeployerApplication\n")
+					.append("metadata:\n")
+					.append("  name: app").append(i).append("\n")
+					.append("  count: 2\n")
+					.append("  type: processor\n")
+					.append("spec:\n")
+					.append("  resource: maven://org.springframework.cloud.stream.app:transform-processor-rabbit\n")
+					.append("  version: 1.2.0.RELEASE\n")
+					.append("  applicationProperties:\n")
+					.append("    log.level: INFO\n")
+					.append("    server.port: 8080\n")
+					.append("    transformer.expression: payload.toUpperCase()\n")
+					.append("  deploymentProperties:\n")
+					.append("    memory: 1024\n")
+					.append("    disk: 2\n");
+		}
+		this.manifest = manifest.toString();
+		this.revisions = new String[SpringCloudDeployerApplicationManifestReader.MANIFEST_CACHE_SIZE * 2];
+		for (int i = 0; i < this.revisions.length; i++) {
+			this.revisions[i] = "# revision " + i + this.manifest;
+		}
+	}
+
+	@Benchmark
+	public List<SpringCloudDeployerApplicationManifest> readCacheHit() {
+		return this.applicationManifestReader.read(this.manifest);
+	}
+
+	@Benchmark
+	public List<SpringCloudDeployerApplicationManifest> readCacheMiss() {
+		this.revision = (this.revision + 1) % this.revisions.length;
+		return this.applicationManifestReader.read(this.revisions[this.revision]);
+	}
+
+	public static void main(String[] args) throws RunnerException {
+		new Runner(new OptionsBuilder()
+				.include(SpringCloudDeployerApplicationManifestReaderBenchmark.class.getSimpleName()).build()).run();
+	}
+}
@@ -51,6 +51,44 @@ public class SpringCloudDeployerApplicationManifestReaderTests {
 		assertTimeOrLogApp(((SpringCloudDeployerApplicationManifest) applicationSpecList.get(1)));
 	}
 
+	@Test
+	public void readRenderedManifest() throws IOException {
+		String manifestYaml = StreamUtils.copyToString(
+				TestResourceUtils.qualifiedResource(getClass(), "manifest.yml").getInputStream(),
+				Charset.defaultCharset());
+		RenderedManifest renderedManifest = this.applicationManifestReader.readRenderedManifest(manifestYaml);
+
+		assertThat(renderedManifest.getYaml()).isEqualTo(manifestYaml);
+		assertThat(renderedManifest.isRenderedFrom(manifestYaml)).isTrue();
+		assertThat(renderedManifest.isRenderedFrom(manifestYaml + "\n")).isFalse();
+		assertThat(renderedManifest.getApplicationManifests()).hasSize(2);
+		assertTimeOrLogApp(renderedManifest.getApplicationManifests().get(0));
+		assertTimeOrLogApp(renderedManifest.getApplicationManifests().get(1));
+	}
+
+	@Test
+	public void repeatedReadsReturnCopiesOfCachedManifests() throws IOException {
+		String manifestYaml = StreamUtils.copyToString(
+				TestResourceUtils.qualifiedResource(getClass(), "manifest.yml").getInputStream(),
+				Charset.defaultCharset());
+		List<SpringCloudDeployerApplicationManifest> first = this.applicationManifestReader.read(manifestYaml);
+		first.get(0).getSpec().setResource("maven://changed");
+		first.clear();
+
+		List<SpringCloudDeployerApplicationManifest> second = this.applicationManifestReader.read(manifestYaml);
+		assertThat(second).hasSize(2);
+		assertTimeOrLogApp(second.get(0));
+		assertTimeOrLogApp(second.get(1));
+		try {
+			second.get(0).getSpec().getDeploymentProperties().put("memory", "1");
+			fail("Expected cached deployment properties to be unmodifiable");
+		}
+		catch (UnsupportedOperationException e) {
+			assertThat(this.applicationManifestReader.read(manifestYaml).get(0).getSpec().getDeploymentProperties())
+					.doesNotContainEntry("memory", "1");
+		}
+	}
+
 	@Test
 	public void testNonMatchingManifestReader() throws IOException {
 		String manifestYaml = StreamUtils.copyToString(
@@ -65,6 +103,43 @@ public class SpringCloudDeployerApplicationManifestReaderTests {
 		}
 	}
 
+	@Test
+	public void scalarsAreReadAsWritten() {
+		String manifestYaml = "apiVersion: skipper.spring.io/v1\n"
+				+ "kind: SpringCloudDeployerApplication\n"
+				+ "metadata:\n"
+				+ "  name: log-sink\n"
+				+ "  count: 010\n"
+				+ "spec:\n"
+				+ "  resource: maven://org.springframework.cloud.stream.app:log-sink-rabbit\n"
+				+ "  version: 1.10\n"
+				+ "  deploymentProperties:\n"
+				+ "    memory: 1.50\n";
+		SpringCloudDeployerApplicationManifest applicationSpec = this.applicationManifestReader.read(manifestYaml)
+				.get(0);
+
+		assertThat(applicationSpec.getMetadata()).containsEntry("count", "010");
+		assertThat(applicationSpec.getSpec().getVersion()).isEqualTo("1.10");
+		assertThat(applicationSpec.getSpec().getDeploymentProperties()).containsEntry("memory", "1.50");
+	}
+
+	@Test
+	public void errorsNameTheDocumentThatCanNotBeRead() {
+		String manifestYaml = "apiVersion: skipper.spring.io/v1\n"
+				+ "kind: SpringCloudDeployerApplication\n"
+				+ "metadata:\n"
+				+ "  name: log-sink\n"
+				+ "---\n"
+				+ "just a string\n";
+		try {
+			this.applicationManifestReader.read(manifestYaml);
+			fail("Expected SkipperException when a document is not a map");
+		}
+		catch (SkipperException e) {
+			assertThat(e.getMessage()).contains("Can't parse document 2 of Package's manifest YAML");
+		}
+	}
+
 	private void assertTimeOrLogApp(SpringCloudDeployerApplicationManifest applicationSpec) {
 		if (applicationSpec.getMetadata().containsKey("name")) {
 			String name = applicationSpec.getMetadata().get("name");
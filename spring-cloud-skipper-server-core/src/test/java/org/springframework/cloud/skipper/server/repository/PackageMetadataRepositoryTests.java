@@ -61,9 +61,11 @@ public class PackageMetadataRepositoryTests extends AbstractIntegrationTest {
 		Iterable<PackageMetadata> packages = this.packageMetadataRepository.findAll();
 		assertThat(packages).isNotEmpty();
 		assertThat(packages).hasSize(4);
-		PackageMetadata latestPackage1 = this.packageMetadataRepository.findFirstByNameOrderByVersionDesc("package1");
+		PackageMetadata latestPackage1 = this.packageMetadataRepository
+				.findFirstByNameAndStaleFalseOrderByVersionSortKeyDesc("package1");
 		assertThat(latestPackage1.getVersion()).isEqualTo("2.0.0");
-		PackageMetadata latestPackage2 = this.packageMetadataRepository.findFirstByNameOrderByVersionDesc("package2");
+		PackageMetadata latestPackage2 = this.packageMetadataRepository
+				.findFirstByNameAndStaleFalseOrderByVersionSortKeyDesc("package2");
 		assertThat(latestPackage2.getVersion()).isEqualTo("1.1.0");
 
 		PackageMetadata aPackage = this.packageMetadataRepository.findByRepositoryIdAndNameAndVersion(1L,
@@ -72,6 +74,25 @@ public class PackageMetadataRepositoryTests extends AbstractIntegrationTest {
 
 	}
 
+	@Test
+	public void versionsAreOrderedBySemanticVersion() {
+		for (String version : new String[] { "1.9.0", "1.10.0.RC1", "1.10.0", "1.2.0.BUILD-SNAPSHOT" }) {
+			PackageMetadata packageMetadata = new PackageMetadata();
+			packageMetadata.setApiVersion("1");
+			packageMetadata.setRepositoryId(1L);
+			packageMetadata.setKind("skipper");
+			packageMetadata.setName("package3");
+			packageMetadata.setVersion(version);
+			this.packageMetadataRepository.save(packageMetadata);
+		}
+		assertThat(this.packageMetadataRepository.findFirstByNameAndStaleFalseOrderByVersionSortKeyDesc("package3").getVersion())
+				.isEqualTo("1.10.0");
+		assertThat(this.packageMetadataRepository.findByNameAndOptionalVersionRequired("package3", null).getVersion())
+				.isEqualTo("1.10.0");
+		assertThat(this.packageMetadataRepository.findByNameAndVersionRange("package3", "1.2.0", "1.10.0.RC1"))
+				.extracting(PackageMetadata::getVersion).containsExactly("1.10.0.RC1", "1.9.0");
+	}
+
 	@Test
 	public void findByNameQueries() {
 		PackageMetadataCreator.createPackageWithMultipleVersions(this.packageMetadataRepository);
@@ -113,4 +134,26 @@ public class PackageMetadataRepositoryTests extends AbstractIntegrationTest {
 		assertThat(packageMetadata.getRepositoryId()).isEqualTo(this.repositoryRepository.findByName(repoName3).getId());
 	}
 
+	@Test
+	public void staleVersionsAreNotResolved() {
+		RepositoryCreator.createRepository(this.repositoryRepository, "remote3", 1);
+		Long repositoryId = this.repositoryRepository.findByName("remote3").getId();
+		for (String version : new String[] { "1.0.0", "1.1.0" }) {
+			PackageMetadata packageMetadata = new PackageMetadata();
+			packageMetadata.setApiVersion("1");
+			packageMetadata.setRepositoryId(repositoryId);
+			packageMetadata.setKind("skipper");
+			packageMetadata.setName("package4");
+			packageMetadata.setVersion(version);
+			// 1.1.0 has been removed from the index of the repository
+			packageMetadata.setStale("1.1.0".equals(version));
+			this.packageMetadataRepository.save(packageMetadata);
+		}
+		assertThat(this.packageMetadataRepository.findByNameAndOptionalVersionRequired("package4", null).getVersion())
+				.isEqualTo("1.0.0");
+		assertThat(this.packageMetadataRepository.findByNameAndVersionByMaxRepoOrder("package4", "1.1.0")).isNull();
+		assertThat(this.packageMetadataRepository.findByNameAndVersionByMaxRepoOrder("package4", "1.0.0")).isNotNull();
+		assertThat(this.packageMetadataRepository.findByNameAndVersionRange("package4", "1.0.0", "2.0.0"))
+				.extracting(PackageMetadata::getVersion).containsExactly("1.0.0");
+	}
 }
@@ -0,0 +1,119 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.cloud.skipper.server.service;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.yaml.snakeyaml.Yaml;
+
+import org.springframework.cloud.skipper.domain.ConfigValues;
+import org.springframework.cloud.skipper.domain.Package;
+import org.springframework.cloud.skipper.domain.PackageMetadata;
+
+/**
+ * Throughput of {@link ConfigValueUtils#mergeConfigValues(Package, ConfigValues)} for
+ * large values files with 1, 10 and 50 dependencies, against parsing the values file of
+ * every package on each merge. Not run as part of the build, run {@link #main(String[])}
+ * from the test classpath.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ConfigValueUtilsBenchmark {
+
+	private static final int PROPERTIES = 200;
+
+	@Param({ "1", "10", "50" })
+	private int dependencies;
+
+	private Package pkg;
+
+	private ConfigValues overrideValues;
+
+	@Setup
+	public void setup() {
+		StringBuilder parentValues = new StringBuilder(values("parent"));
+		StringBuilder overrides = new StringBuilder("hello: universe\n");
+		this.pkg = createPackage("parent", null);
+		for (int i = 0; i < this.dependencies; i++) {
+			String name = "dependency" + i;
+			this.pkg.getDependencies().add(createPackage(name, values(name)));
+			parentValues.append(name).append(":\n  deployment:\n    count: 2\n");
+			overrides.append(name).append(":\n  version: 1.0.1\n");
+		}
+		this.pkg.getConfigValues().setRaw(parentValues.toString());
+		this.overrideValues = new ConfigValues();
+		this.overrideValues.setRaw(overrides.toString());
+	}
+
+	@Benchmark
+	public Map<String, Object> mergeConfigValues() {
+		return ConfigValueUtils.mergeConfigValues(this.pkg, this.overrideValues);
+	}
+
+	@Benchmark
+	public int parseEachValuesFile() {
+		int size = ((Map<?, ?>) new Yaml().load(this.overrideValues.getRaw())).size();
+		size += ((Map<?, ?>) new Yaml().load(this.pkg.getConfigValues().getRaw())).size();
+		for (Package dependency : this.pkg.getDependencies()) {
+			size += ((Map<?, ?>) new Yaml().load(dependency.getConfigValues().getRaw())).size();
+		}
+		return size;
+	}
+
+	private static String values(String name) {
+		StringBuilder values = new StringBuilder("hello: world\nversion: 1.0.0\ndeployment:\n  applicationProperties:\n");
+		for (int i = 0; i < PROPERTIES; i++) {
+			values.append("    ").append(name).append(".property").append(i).append(": value").append(i).append('\n');
+		}
+		values.append("  deploymentProperties:\n    memory: 1024m\n    count: 1\n");
+		return values.toString();
+	}
+
+	private static Package createPackage(String name, String values) {
+		PackageMetadata packageMetadata = new PackageMetadata();
+		packageMetadata.setName(name);
+		packageMetadata.setVersion("1.0.0");
+		ConfigValues configValues = new ConfigValues();
+		configValues.setRaw(values);
+		Package pkg = new Package();
+		pkg.setMetadata(packageMetadata);
+		pkg.setConfigValues(configValues);
+		return pkg;
+	}
+
+	public static void main(String[] args) throws RunnerException {
+		new Runner(new OptionsBuilder().include(ConfigValueUtilsBenchmark.class.getSimpleName()).build()).run();
+	}
+}
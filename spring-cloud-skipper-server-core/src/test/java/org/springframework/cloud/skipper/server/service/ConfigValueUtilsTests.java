@@ -87,6 +87,20 @@ public class ConfigValueUtilsTests {
 		assertThat(mergedYaml).isEqualTo(expectedYaml);
 	}
 
+	@Test
+	public void testCachedPackageValuesAreNotModifiedByMerge() throws IOException {
+		Resource resource = new ClassPathResource("/org/springframework/cloud/skipper/server/service/ticktock-1.0.0");
+		Package pkg = this.packageReader.read(resource.getFile());
+		ConfigValues configValues = new ConfigValues();
+		configValues.setRaw("hello: universe\nlog:\n  appVersion: 1.2.1.RELEASE\n");
+
+		Map<String, Object> mergedMap = ConfigValueUtils.mergeConfigValues(pkg, configValues);
+		Map<String, Object> packageValues = ConfigValueUtils.loadPackageValues(pkg);
+		packageValues.clear();
+		assertThat(ConfigValueUtils.mergeConfigValues(pkg, configValues)).isEqualTo(mergedMap);
+		assertThat(ConfigValueUtils.loadPackageValues(pkg)).isNotEmpty().isNotSameAs(packageValues);
+	}
+
 	@Configuration
 	@ImportAutoConfiguration(classes = { JacksonAutoConfiguration.class, EmbeddedDataSourceConfiguration.class,
 			HibernateJpaAutoConfiguration.class, StateMachineJpaRepositoriesAutoConfiguration.class })
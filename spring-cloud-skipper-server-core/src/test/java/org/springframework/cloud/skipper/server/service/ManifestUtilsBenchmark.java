@@ -0,0 +1,146 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.cloud.skipper.server.service;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import com.samskivert.mustache.Mustache;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import org.springframework.cloud.skipper.domain.Package;
+import org.springframework.cloud.skipper.domain.PackageMetadata;
+import org.springframework.cloud.skipper.domain.Template;
+
+/**
+ * Render throughput of {@link ManifestUtils#createManifest(Package, Map)} for packages
+ * with 1, 10 and 50 dependency templates, against compiling every template on each
+ * render. Not run as part of the build, run {@link #main(String[])} from the test
+ * classpath.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ManifestUtilsBenchmark {
+
+	private static final String TEMPLATE = "apiVersion: skipper.spring.io/v1\n"
+			+ "kind: SpringCloudDeployerApplication\n"
+			+ "metadata:\n"
+			+ "  name: {{name}}\n"
+			+ "  count: {{deployment.count}}\n"
+			+ "spec:\n"
+			+ "  resource: maven://org.springframework.cloud.stream.app:{{name}}-sink-rabbit\n"
+			+ "  version: {{version}}\n"
+			+ "  applicationProperties:\n"
+			+ "    log.level: {{deployment.applicationProperties.logLevel}}\n"
+			+ "    server.port: {{deployment.applicationProperties.serverPort}}\n"
+			+ "  deploymentProperties:\n"
+			+ "    memory: {{deployment.deploymentProperties.memory}}\n";
+
+	@Param({ "1", "10", "50" })
+	private int dependencies;
+
+	private Package pkg;
+
+	private Map<String, Object> model;
+
+	@Setup
+	public void setup() {
+		this.pkg = createPackage("parent");
+		this.model = createModel("parent");
+		for (int i = 0; i < this.dependencies; i++) {
+			String name = "dependency" + i;
+			this.pkg.getDependencies().add(createPackage(name));
+			this.model.put(name, createModel(name));
+		}
+	}
+
+	@Benchmark
+	public String createManifest() {
+		return ManifestUtils.createManifest(this.pkg, this.model);
+	}
+
+	@Benchmark
+	public String createManifestCompilingEachTemplate() {
+		return render(this.pkg, this.model);
+	}
+
+	@SuppressWarnings("unchecked")
+	private static String render(Package pkg, Map<String, Object> model) {
+		StringBuilder sb = new StringBuilder();
+		for (Template template : pkg.getTemplates()) {
+			sb.append("\n---\n# Source: " + template.getName() + "\n");
+			sb.append(Mustache.compiler().compile(template.getData()).execute(model));
+		}
+		for (Package dependency : pkg.getDependencies()) {
+			sb.append(render(dependency, (Map<String, Object>) model.get(dependency.getMetadata().getName())));
+		}
+		return sb.toString();
+	}
+
+	private static Package createPackage(String name) {
+		PackageMetadata packageMetadata = new PackageMetadata();
+		packageMetadata.setName(name);
+		packageMetadata.setVersion("1.0.0");
+		Template template = new Template();
+		template.setName(name + ".yml");
+		// Every dependency has its own template text, as distinct packages do
+		template.setData("# " + name + "\n" + TEMPLATE);
+		Package pkg = new Package();
+		pkg.setMetadata(packageMetadata);
+		pkg.setTemplates(Collections.singletonList(template));
+		return pkg;
+	}
+
+	private static Map<String, Object> createModel(String name) {
+		Map<String, Object> applicationProperties = new HashMap<>();
+		applicationProperties.put("logLevel", "DEBUG");
+		applicationProperties.put("serverPort", 8080);
+		Map<String, Object> deploymentProperties = new HashMap<>();
+		deploymentProperties.put("memory", "1024m");
+		Map<String, Object> deployment = new HashMap<>();
+		deployment.put("count", 2);
+		deployment.put("applicationProperties", applicationProperties);
+		deployment.put("deploymentProperties", deploymentProperties);
+		Map<String, Object> model = new HashMap<>();
+		model.put("name", name);
+		model.put("version", "1.0.0");
+		model.put("deployment", deployment);
+		return model;
+	}
+
+	public static void main(String[] args) throws RunnerException {
+		new Runner(new OptionsBuilder().include(ManifestUtilsBenchmark.class.getSimpleName()).build()).run();
+	}
+}
@@ -0,0 +1,91 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.cloud.skipper.server.service;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.Test;
+
+import org.springframework.cloud.skipper.domain.Package;
+import org.springframework.cloud.skipper.domain.PackageMetadata;
+import org.springframework.cloud.skipper.domain.Template;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests for {@link ManifestUtils}.
+ */
+public class ManifestUtilsTests {
+
+	@Test
+	public void identicalTemplatesAreCompiledOnce() {
+		String templateAsString = "name: {{name}}-" + System.nanoTime();
+		assertThat(ManifestUtils.compile(templateAsString)).isSameAs(ManifestUtils.compile(new String(templateAsString)));
+		assertThat(ManifestUtils.compile(templateAsString + "x")).isNotSameAs(ManifestUtils.compile(templateAsString));
+		assertThat(ManifestUtils.cachedTemplateCount()).isLessThanOrEqualTo(ManifestUtils.TEMPLATE_CACHE_SIZE);
+	}
+
+	@Test
+	public void dependenciesAreRenderedWithTheirOwnModel() {
+		Package log = createPackage("log", "level: {{level}}\n");
+		Package time = createPackage("time", "level: {{level}}\n");
+		Package ticktock = createPackage("ticktock", "stream: {{level}}\n");
+		ticktock.getDependencies().add(log);
+		ticktock.getDependencies().add(time);
+		Map<String, Object> model = new HashMap<>();
+		model.put("level", "INFO");
+		model.put("log", Collections.singletonMap("level", "DEBUG"));
+		model.put("time", Collections.singletonMap("level", "WARN"));
+
+		String manifest = ManifestUtils.createManifest(ticktock, model);
+		String expected = "\n---\n# Source: ticktock.yml\nstream: INFO\n"
+				+ "\n---\n# Source: log.yml\nlevel: DEBUG\n"
+				+ "\n---\n# Source: time.yml\nlevel: WARN\n";
+		assertThat(manifest).isEqualTo(expected);
+		assertThat(ManifestUtils.createManifest(ticktock, model)).isEqualTo(expected);
+	}
+
+	@Test
+	public void manyDependenciesAreRenderedInOrder() {
+		Package parent = createPackage("parent", "parent: {{level}}\n");
+		Map<String, Object> model = new HashMap<>();
+		model.put("level", "INFO");
+		StringBuilder expected = new StringBuilder(ManifestUtils.createManifest(parent, model));
+		for (int i = 0; i < ManifestUtils.PARALLEL_THRESHOLD * 8; i++) {
+			String name = "app" + i;
+			Package dependency = createPackage(name, name + ": {{level}}\n");
+			parent.getDependencies().add(dependency);
+			Map<String, Object> dependencyModel = Collections.singletonMap("level", "level" + i);
+			model.put(name, dependencyModel);
+			expected.append(ManifestUtils.createManifest(dependency, dependencyModel));
+		}
+		assertThat(ManifestUtils.createManifest(parent, model)).isEqualTo(expected.toString());
+	}
+
+	private static Package createPackage(String name, String templateData) {
+		PackageMetadata packageMetadata = new PackageMetadata();
+		packageMetadata.setName(name);
+		Template template = new Template();
+		template.setName(name + ".yml");
+		template.setData(templateData);
+		Package pkg = new Package();
+		pkg.setMetadata(packageMetadata);
+		pkg.setTemplates(Collections.singletonList(template));
+		return pkg;
+	}
+}
@@ -0,0 +1,79 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.cloud.skipper.server.service;
+
+import java.util.Collections;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import org.springframework.cloud.skipper.server.repository.RepositoryRepository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Tests for {@link PackageIndexSynchronizationService}.
+ */
+public class PackageIndexSynchronizationServiceTests {
+
+	private PackageMetadataService packageMetadataService;
+
+	private PackageIndexSynchronizationService synchronizationService;
+
+	@Before
+	public void setup() {
+		this.packageMetadataService = Mockito.mock(PackageMetadataService.class);
+		this.synchronizationService = new PackageIndexSynchronizationService(this.packageMetadataService,
+				Mockito.mock(PackageMetadataReconciler.class), Mockito.mock(PackageSearchIndex.class),
+				Mockito.mock(RepositoryRepository.class));
+	}
+
+	@After
+	public void teardown() {
+		this.synchronizationService.destroy();
+	}
+
+	@Test
+	public void requestsWaitingToRunAreCoalesced() throws Exception {
+		CountDownLatch running = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		when(this.packageMetadataService.downloadRepositoryIndexes()).thenAnswer(invocation -> {
+			running.countDown();
+			release.await(5, TimeUnit.SECONDS);
+			return Collections.emptyList();
+		}).thenReturn(Collections.emptyList());
+
+		Future<?> first = this.synchronizationService.requestSynchronization();
+		assertThat(running.await(5, TimeUnit.SECONDS)).isTrue();
+		// the first synchronization is running, further requests share the one waiting
+		Future<?> second = this.synchronizationService.requestSynchronization();
+		Future<?> third = this.synchronizationService.requestSynchronization();
+		assertThat(second).isSameAs(third).isNotSameAs(first);
+
+		release.countDown();
+		third.get(5, TimeUnit.SECONDS);
+		assertThat(first.isDone()).isTrue();
+		verify(this.packageMetadataService, times(2)).downloadRepositoryIndexes();
+	}
+}
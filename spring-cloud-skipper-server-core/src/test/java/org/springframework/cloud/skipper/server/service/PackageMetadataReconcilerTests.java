@@ -0,0 +1,108 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.cloud.skipper.server.service;
+
+import java.util.Arrays;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.autoconfigure.jdbc.EmbeddedDataSourceConfiguration;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernateJpaAutoConfiguration;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cloud.skipper.domain.PackageMetadata;
+import org.springframework.cloud.skipper.domain.Repository;
+import org.springframework.cloud.skipper.server.config.SkipperServerConfiguration;
+import org.springframework.cloud.skipper.server.repository.PackageMetadataRepository;
+import org.springframework.cloud.skipper.server.repository.RepositoryRepository;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.statemachine.boot.autoconfigure.StateMachineJpaRepositoriesAutoConfiguration;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.cloud.skipper.server.service.PackageMetadataReconcilerTests.TestConfig;
+
+/**
+ * Tests for {@link PackageMetadataReconciler}.
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(classes = TestConfig.class)
+public class PackageMetadataReconcilerTests {
+
+	@Autowired
+	private PackageMetadataReconciler packageMetadataReconciler;
+
+	@Autowired
+	private PackageMetadataRepository packageMetadataRepository;
+
+	@Autowired
+	private RepositoryRepository repositoryRepository;
+
+	@Test
+	public void reconcileIndexChanges() {
+		Repository repository = new Repository();
+		repository.setName("reconcile-test");
+		repository.setUrl("http://example.com/reconcile-test");
+		repository = this.repositoryRepository.save(repository);
+		Long repositoryId = repository.getId();
+
+		this.packageMetadataReconciler.reconcile(repositoryId,
+				Arrays.asList(indexEntry(repositoryId, "alpha", "1.0.0", "first"),
+						indexEntry(repositoryId, "beta", "1.0.0", "first")));
+		assertThat(this.packageMetadataRepository.findIndexEntriesByRepositoryId(repositoryId)).hasSize(2);
+
+		this.packageMetadataReconciler.reconcile(repositoryId,
+				Arrays.asList(indexEntry(repositoryId, "alpha", "1.0.0", "changed"),
+						indexEntry(repositoryId, "gamma", "1.0.0", "first")));
+		PackageMetadata alpha = this.packageMetadataRepository.findByRepositoryIdAndNameAndVersion(repositoryId,
+				"alpha", "1.0.0");
+		assertThat(alpha.getDescription()).isEqualTo("changed");
+		assertThat(alpha.isStale()).isFalse();
+		assertThat(this.packageMetadataRepository.findByRepositoryIdAndNameAndVersion(repositoryId, "beta", "1.0.0")
+				.isStale()).isTrue();
+		assertThat(this.packageMetadataRepository.findByRepositoryIdAndNameAndVersion(repositoryId, "gamma", "1.0.0"))
+				.isNotNull();
+
+		// A package listed again is no longer stale
+		this.packageMetadataReconciler.reconcile(repositoryId,
+				Arrays.asList(indexEntry(repositoryId, "beta", "1.0.0", "first")));
+		assertThat(this.packageMetadataRepository.findByRepositoryIdAndNameAndVersion(repositoryId, "beta", "1.0.0")
+				.isStale()).isFalse();
+		assertThat(this.packageMetadataRepository.findIndexEntriesByRepositoryId(repositoryId)).hasSize(3);
+	}
+
+	private PackageMetadata indexEntry(Long repositoryId, String name, String version, String description) {
+		PackageMetadata packageMetadata = new PackageMetadata();
+		packageMetadata.setApiVersion("skipper.spring.io/v1");
+		packageMetadata.setKind("SkipperPackageMetadata");
+		packageMetadata.setRepositoryId(repositoryId);
+		packageMetadata.setName(name);
+		packageMetadata.setVersion(version);
+		packageMetadata.setDescription(description);
+		return packageMetadata;
+	}
+
+	@Configuration
+	@ImportAutoConfiguration(classes = { JacksonAutoConfiguration.class, EmbeddedDataSourceConfiguration.class,
+			HibernateJpaAutoConfiguration.class, StateMachineJpaRepositoriesAutoConfiguration.class })
+	@Import(SkipperServerConfiguration.class)
+	static class TestConfig {
+	}
+}
@@ -15,7 +15,7 @@
  */
 package org.springframework.cloud.skipper.server.service;
 
-import java.io.IOException;
+import java.util.List;
 
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -26,10 +26,11 @@ import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
 import org.springframework.boot.autoconfigure.jdbc.EmbeddedDataSourceConfiguration;
 import org.springframework.boot.autoconfigure.orm.jpa.HibernateJpaAutoConfiguration;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cloud.skipper.domain.Repository;
 import org.springframework.cloud.skipper.server.config.SkipperServerConfiguration;
+import org.springframework.cloud.skipper.server.repository.RepositoryRepository;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Import;
-import org.springframework.core.io.UrlResource;
 import org.springframework.statemachine.boot.autoconfigure.StateMachineJpaRepositoriesAutoConfiguration;
 import org.springframework.test.context.junit4.SpringRunner;
 
@@ -47,23 +48,32 @@ public class PackageMetadataServiceTests {
 	@Autowired
 	private PackageMetadataService packageMetadataService;
 
-	@Test
-	public void calculateFilename() throws IOException {
-		UrlResource urlResource = new UrlResource("file:./spring-cloud-skipper-server/src/test/resources/index.yml");
-		String filename = packageMetadataService.computeFilename(urlResource);
-		assertThat(filename).isEqualTo("file_dot_spring-cloud-skipper-server_src_test_resources_index.yml");
-		urlResource = new UrlResource(
-				"file:/home/mpollack/projects/spring-cloud-skipper/spring-cloud-skipper-server/src/test/resources/index.yml");
-		filename = packageMetadataService.computeFilename(urlResource);
-		assertThat(filename).isEqualTo(
-				"file_home_mpollack_projects_spring-cloud-skipper_spring-cloud-skipper-server_src_test_resources_index.yml");
-		urlResource = new UrlResource("http://localhost:8081/index.yml");
-		filename = packageMetadataService.computeFilename(urlResource);
-		assertThat(filename).isEqualTo("localhost_index.yml");
+	@Autowired
+	private RepositoryRepository repositoryRepository;
 
-		urlResource = new UrlResource("http://www.example.com/index.yml");
-		filename = packageMetadataService.computeFilename(urlResource);
-		assertThat(filename).isEqualTo("www.example.com_index.yml");
+	@Test
+	public void unreachableRepositoryDoesNotAbortOthers() {
+		Repository testRepository = new Repository();
+		testRepository.setName("test-index");
+		testRepository.setUrl("classpath:/repositories/binaries/test");
+		testRepository = this.repositoryRepository.save(testRepository);
+		Repository unreachableRepository = new Repository();
+		unreachableRepository.setName("unreachable");
+		unreachableRepository.setUrl("http://localhost:1/repository");
+		unreachableRepository = this.repositoryRepository.save(unreachableRepository);
+		try {
+			List<RepositoryIndex> repositoryIndexes = this.packageMetadataService.downloadRepositoryIndexes();
+			assertThat(repositoryIndexes).hasSize(1);
+			assertThat(repositoryIndexes.get(0).getRepository().getId()).isEqualTo(testRepository.getId());
+			assertThat(repositoryIndexes.get(0).getPackageMetadata())
+					.extracting("name").contains("log", "ticktock");
+			assertThat(this.packageMetadataService.downloadPackageMetadata())
+					.extracting("repositoryId").containsOnly(testRepository.getId());
+		}
+		finally {
+			this.repositoryRepository.delete(testRepository);
+			this.repositoryRepository.delete(unreachableRepository);
+		}
 	}
 
 	@Configuration
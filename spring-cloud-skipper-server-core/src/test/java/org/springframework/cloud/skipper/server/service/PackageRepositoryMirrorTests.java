@@ -0,0 +1,113 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.cloud.skipper.server.service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.sun.net.httpserver.HttpServer;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import org.springframework.core.io.Resource;
+import org.springframework.util.StreamUtils;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests for {@link PackageRepositoryMirror}.
+ */
+public class PackageRepositoryMirrorTests {
+
+	private static final String INDEX_CONTENT = "apiVersion: skipper.spring.io/v1\nkind: SkipperPackageMetadata\n";
+
+	@Rule
+	public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+	private final AtomicInteger fullDownloads = new AtomicInteger();
+
+	private HttpServer server;
+
+	private String baseUrl;
+
+	@Before
+	public void startServer() throws IOException {
+		this.server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+		this.server.createContext("/repo/index.yml", exchange -> {
+			if ("\"v1\"".equals(exchange.getRequestHeaders().getFirst("If-None-Match"))) {
+				exchange.sendResponseHeaders(304, -1);
+			}
+			else {
+				byte[] body = INDEX_CONTENT.getBytes(StandardCharsets.UTF_8);
+				this.fullDownloads.incrementAndGet();
+				exchange.getResponseHeaders().add("ETag", "\"v1\"");
+				exchange.sendResponseHeaders(200, body.length);
+				try (OutputStream outputStream = exchange.getResponseBody()) {
+					outputStream.write(body);
+				}
+			}
+			exchange.close();
+		});
+		this.server.start();
+		this.baseUrl = "http://localhost:" + this.server.getAddress().getPort() + "/repo/";
+	}
+
+	@After
+	public void stopServer() {
+		if (this.server != null) {
+			this.server.stop(0);
+		}
+	}
+
+	@Test
+	public void unchangedResourceIsServedFromMirror() throws IOException {
+		PackageRepositoryMirror mirror = new PackageRepositoryMirror(this.temporaryFolder.getRoot(), 5000, 5000);
+		Resource first = mirror.getResource(this.baseUrl + "index.yml");
+		Resource second = mirror.getResource(this.baseUrl + "index.yml");
+		assertThat(this.fullDownloads.get()).isEqualTo(1);
+		assertThat(readContent(first)).isEqualTo(INDEX_CONTENT);
+		assertThat(readContent(second)).isEqualTo(INDEX_CONTENT);
+		assertThat(mirror.getMirroredSha256(this.baseUrl + "index.yml"))
+				.isEqualTo("a2229cdf4cb2dc0e814efcca744aa9a8f8c831bc7fb7325a648338b8a94ba3b7");
+	}
+
+	@Test
+	public void mirroredCopyIsServedWhenRemoteIsUnreachable() throws IOException {
+		PackageRepositoryMirror mirror = new PackageRepositoryMirror(this.temporaryFolder.getRoot(), 5000, 5000);
+		mirror.getResource(this.baseUrl + "index.yml");
+		this.server.stop(0);
+		this.server = null;
+		Resource resource = mirror.getResource(this.baseUrl + "index.yml");
+		assertThat(resource).isNotNull();
+		assertThat(readContent(resource)).isEqualTo(INDEX_CONTENT);
+	}
+
+	@Test
+	public void missingResourceReturnsNull() {
+		PackageRepositoryMirror mirror = new PackageRepositoryMirror(this.temporaryFolder.getRoot(), 5000, 5000);
+		assertThat(mirror.getResource(this.baseUrl + "missing/missing-1.0.0.zip")).isNull();
+	}
+
+	private String readContent(Resource resource) throws IOException {
+		return StreamUtils.copyToString(resource.getInputStream(), StandardCharsets.UTF_8);
+	}
+}
@@ -0,0 +1,135 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.cloud.skipper.server.service;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.autoconfigure.jdbc.EmbeddedDataSourceConfiguration;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernateJpaAutoConfiguration;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cloud.skipper.domain.PackageMetadata;
+import org.springframework.cloud.skipper.domain.PackageSearchResult;
+import org.springframework.cloud.skipper.domain.Repository;
+import org.springframework.cloud.skipper.server.config.SkipperServerConfiguration;
+import org.springframework.cloud.skipper.server.repository.PackageMetadataRepository;
+import org.springframework.cloud.skipper.server.repository.RepositoryRepository;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.statemachine.boot.autoconfigure.StateMachineJpaRepositoriesAutoConfiguration;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.cloud.skipper.server.service.PackageSearchIndexTests.TestConfig;
+
+/**
+ * Tests for {@link PackageSearchIndex}.
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(classes = TestConfig.class)
+public class PackageSearchIndexTests {
+
+	@Autowired
+	private PackageSearchIndex packageSearchIndex;
+
+	@Autowired
+	private PackageMetadataRepository packageMetadataRepository;
+
+	@Autowired
+	private RepositoryRepository repositoryRepository;
+
+	@Test
+	public void searchRanksAndGroupsPackages() {
+		Repository repository = new Repository();
+		repository.setName("search-test");
+		repository.setUrl("http://example.com/search-test");
+		repository = this.repositoryRepository.save(repository);
+		save(repository.getId(), "zebra-sink", "1.9.0", "Writes to a sink", null, null);
+		save(repository.getId(), "zebra-sink", "1.10.0", "Writes to a sink", null, null);
+		save(repository.getId(), "zebra-sink", "1.10.0-M1", "Writes to a sink", null, null);
+		save(repository.getId(), "zebra-source", "1.0.0", "Reads from a source", "zoo,stream", null);
+		PackageMetadata okapi = save(repository.getId(), "okapi", "1.0.0", "Feeds the zebras", null, "keeper");
+		this.packageSearchIndex.reindexRepository(repository.getId());
+
+		Page<PackageSearchResult> results = this.packageSearchIndex.search("zebra", new PageRequest(0, 10));
+		assertThat(results.getTotalElements()).isEqualTo(3);
+		assertThat(results.getContent()).extracting(PackageSearchResult::getName)
+				.containsExactly("zebra-sink", "zebra-source", "okapi");
+		PackageSearchResult zebraSink = results.getContent().get(0);
+		assertThat(zebraSink.getLatestVersion()).isEqualTo("1.10.0");
+		assertThat(zebraSink.getVersions()).containsExactly("1.10.0", "1.10.0-M1", "1.9.0");
+
+		assertThat(this.packageSearchIndex.search("zebra zoo", new PageRequest(0, 10)).getContent())
+				.extracting(PackageSearchResult::getName).containsExactly("zebra-source");
+		assertThat(this.packageSearchIndex.search("ok", new PageRequest(0, 10)).getContent())
+				.extracting(PackageSearchResult::getName).containsExactly("okapi");
+		assertThat(this.packageSearchIndex.search("keep", new PageRequest(0, 10)).getContent())
+				.extracting(PackageSearchResult::getName).containsExactly("okapi");
+
+		Page<PackageSearchResult> secondPage = this.packageSearchIndex.search("zebra", new PageRequest(1, 1));
+		assertThat(secondPage.getTotalElements()).isEqualTo(3);
+		assertThat(secondPage.getContent()).extracting(PackageSearchResult::getName).containsExactly("zebra-source");
+
+		// Stale package metadata is removed from the index
+		okapi.setStale(true);
+		this.packageSearchIndex.index(this.packageMetadataRepository.save(okapi));
+		assertThat(this.packageSearchIndex.search("zebra", new PageRequest(0, 10)).getContent())
+				.extracting(PackageSearchResult::getName).containsExactly("zebra-sink", "zebra-source");
+	}
+
+	@Test
+	public void removedAndRebuiltPackagesAreSearchable() {
+		Repository repository = new Repository();
+		repository.setName("rebuild-test");
+		repository.setUrl("http://example.com/rebuild-test");
+		repository = this.repositoryRepository.save(repository);
+		PackageMetadata yakSink = save(repository.getId(), "yak-sink", "1.0.0", "Writes to a sink", null, null);
+		save(repository.getId(), "yak-source", "1.0.0", "Reads from a source", null, null);
+		this.packageSearchIndex.rebuild();
+		assertThat(this.packageSearchIndex.search("yak", new PageRequest(0, 10)).getContent())
+				.extracting(PackageSearchResult::getName).containsExactly("yak-sink", "yak-source");
+
+		this.packageSearchIndex.remove(yakSink);
+		assertThat(this.packageSearchIndex.search("yak", new PageRequest(0, 10)).getContent())
+				.extracting(PackageSearchResult::getName).containsExactly("yak-source");
+	}
+
+	private PackageMetadata save(Long repositoryId, String name, String version, String description, String tags,
+			String maintainer) {
+		PackageMetadata packageMetadata = new PackageMetadata();
+		packageMetadata.setApiVersion("skipper.spring.io/v1");
+		packageMetadata.setKind("SkipperPackageMetadata");
+		packageMetadata.setRepositoryId(repositoryId);
+		packageMetadata.setName(name);
+		packageMetadata.setVersion(version);
+		packageMetadata.setDescription(description);
+		packageMetadata.setTags(tags);
+		packageMetadata.setMaintainer(maintainer);
+		return this.packageMetadataRepository.save(packageMetadata);
+	}
+
+	@Configuration
+	@ImportAutoConfiguration(classes = { JacksonAutoConfiguration.class, EmbeddedDataSourceConfiguration.class,
+			HibernateJpaAutoConfiguration.class, StateMachineJpaRepositoriesAutoConfiguration.class })
+	@Import(SkipperServerConfiguration.class)
+	static class TestConfig {
+	}
+}
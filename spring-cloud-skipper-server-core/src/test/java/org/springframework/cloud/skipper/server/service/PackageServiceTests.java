@@ -107,6 +107,43 @@ public class PackageServiceTests extends AbstractIntegrationTest {
 		assertThat(packageMetadata.getPackageFileBytes()).isNotNull();
 	}
 
+	@Test
+	public void downloadRejectsDigestMismatch() {
+		PackageMetadata packageMetadata = packageMetadataRepository.findByNameAndVersionByMaxRepoOrder("log", "1.0.0");
+		packageMetadata.setPackageFileBytes(null);
+		packageMetadata.setSha256("0000000000000000000000000000000000000000000000000000000000000000");
+		assertThatThrownBy(() -> packageService.downloadPackage(packageMetadata))
+				.isInstanceOf(SkipperException.class)
+				.hasStackTraceContaining("but the package index declares");
+	}
+
+	@Test
+	public void downloadReusesPackageFileWithSameDigest() {
+		PackageMetadata packageMetadata = packageMetadataRepository.findByNameAndVersionByMaxRepoOrder("log", "1.0.0");
+		Package downloadedPackage = packageService.downloadPackage(packageMetadata);
+		String sha256 = downloadedPackage.getMetadata().getSha256();
+		assertThat(sha256).hasSize(64);
+
+		// the repository of the copy can't serve the file, it has to come from the database
+		Repository repository = new Repository();
+		repository.setName("unreachable-repo");
+		repository.setUrl("http://unreachable.example.com/repository");
+		this.repositoryRepository.save(repository);
+		PackageMetadata copy = new PackageMetadata();
+		copy.setApiVersion(packageMetadata.getApiVersion());
+		copy.setKind(packageMetadata.getKind());
+		copy.setName("log");
+		copy.setVersion("1.0.0");
+		copy.setRepositoryId(repository.getId());
+		copy.setSha256(sha256);
+		copy = packageMetadataRepository.save(copy);
+
+		Package reusedPackage = packageService.downloadPackage(copy);
+		assertThat(reusedPackage.getMetadata().getPackageFileBytes())
+				.isEqualTo(downloadedPackage.getMetadata().getPackageFileBytes());
+		assertThat(reusedPackage.getTemplates()).hasSize(1);
+	}
+
 	@Test
 	public void upload() throws Exception {
 		// Create throw away repository, treated to be a 'local' database repo by default for now.
@@ -154,6 +191,11 @@ public class PackageServiceTests extends AbstractIntegrationTest {
 		assertThat(downloadedPackage.getTemplates()).isNotNull();
 		assertThat(downloadedPackage.getConfigValues()).isNotNull();
 
+		// Uploading identical content again only returns the existing metadata
+		assertThat(retrievedPackageMetadata.getSha256()).hasSize(64);
+		PackageMetadata reuploadedPackageMetadata = this.packageService.upload(uploadProperties);
+		assertThat(reuploadedPackageMetadata.getId()).isEqualTo(retrievedPackageMetadata.getId());
+		assertThat(packageMetadataRepository.findByNameAndVersionOrderByApiVersionDesc("log", "9.9.9")).hasSize(1);
 	}
 
 	@Test
@@ -15,6 +15,9 @@
  */
 package org.springframework.cloud.skipper.server.service;
 
+import java.util.LinkedHashMap;
+import java.util.Map;
+
 import org.junit.Test;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -30,6 +33,8 @@ import org.springframework.cloud.skipper.server.AbstractIntegrationTest;
 import org.springframework.cloud.skipper.server.deployer.ReleaseAnalysisReport;
 import org.springframework.cloud.skipper.server.deployer.ReleaseAnalyzer;
 import org.springframework.cloud.skipper.server.deployer.strategies.HealthCheckProperties;
+import org.springframework.cloud.skipper.server.domain.SpringCloudDeployerApplicationManifest;
+import org.springframework.cloud.skipper.server.domain.SpringCloudDeployerApplicationManifestReader;
 import org.springframework.cloud.skipper.server.repository.DeployerRepository;
 import org.springframework.cloud.skipper.server.repository.ReleaseRepository;
 import org.springframework.test.context.ActiveProfiles;
@@ -59,6 +64,9 @@ public class ReleaseAnalyzerTests extends AbstractIntegrationTest {
 	@Autowired
 	ReleaseAnalyzer releaseAnalyzer;
 
+	@Autowired
+	SpringCloudDeployerApplicationManifestReader applicationManifestReader;
+
 	@Autowired
 	private HealthCheckProperties healthCheckProperties;
 
@@ -107,4 +115,88 @@ public class ReleaseAnalyzerTests extends AbstractIntegrationTest {
 		assertThat("1").isNotEmpty();
 	}
 
+	@Test
+	public void releaseAnalyzerMatchesAppsByName() {
+		Release existingRelease = new Release();
+		existingRelease.setManifest(manifest("time", "1.2.0.RELEASE", "5") + manifest("log", "1.2.0.RELEASE", "1")
+				+ manifest("transform", "1.2.0.RELEASE", "1"));
+		Release replacingRelease = new Release();
+		replacingRelease.setManifest(manifest("log", "1.2.0.RELEASE", "3") + manifest("time", "1.3.0.RELEASE", "5")
+				+ manifest("filter", "1.2.0.RELEASE", "1"));
+
+		ReleaseAnalysisReport releaseAnalysisReport = this.releaseAnalyzer.analyze(existingRelease, replacingRelease);
+
+		// log only differs by its count
+		assertThat(releaseAnalysisReport.getApplicationNamesToUpgrade()).containsExactly("time", "transform",
+				"filter");
+		assertThat(releaseAnalysisReport.getReleaseDifference().getDifferenceSummary())
+				.contains("time-source-rabbit:1.2.0.RELEASE")
+				.contains("Only in existing release =[transform]")
+				.contains("Only in replacing release =[filter]");
+	}
+
+	@Test
+	public void releaseAnalyzerComparesStoredFingerprints() {
+		Release existingRelease = new Release();
+		existingRelease.setManifest(manifest("time", "1.2.0.RELEASE", "5") + manifest("log", "1.2.0.RELEASE", "1")
+				+ manifest("transform", "1.2.0.RELEASE", "1"));
+		Release replacingRelease = new Release();
+		replacingRelease.setManifest(manifest("log", "1.2.0.RELEASE", "3") + manifest("time", "1.3.0.RELEASE", "5")
+				+ manifest("filter", "1.2.0.RELEASE", "1"));
+		Map<String, String> existingSpecFingerprints = new LinkedHashMap<>();
+		for (SpringCloudDeployerApplicationManifest applicationManifest : this.applicationManifestReader
+				.read(existingRelease.getManifest())) {
+			existingSpecFingerprints.put(applicationManifest.getApplicationName(),
+					ReleaseAnalyzer.fingerprint(applicationManifest));
+		}
+
+		ReleaseAnalysisReport releaseAnalysisReport = this.releaseAnalyzer.analyze(existingRelease,
+				existingSpecFingerprints, replacingRelease,
+				this.applicationManifestReader.readRenderedManifest(replacingRelease.getManifest()));
+
+		assertThat(releaseAnalysisReport.getApplicationNamesToUpgrade()).containsExactly("time", "transform",
+				"filter");
+		assertThat(releaseAnalysisReport.getReleaseDifference().getDifferenceSummary())
+				.contains("time-source-rabbit:1.2.0.RELEASE")
+				.contains("Only in existing release =[transform]")
+				.contains("Only in replacing release =[filter]");
+		assertThat(ReleaseAnalyzer.fingerprint(this.applicationManifestReader
+				.read(manifest("log", "1.2.0.RELEASE", "1")).get(0)))
+				.isEqualTo(existingSpecFingerprints.get("log"))
+				.isNotEqualTo(existingSpecFingerprints.get("transform"));
+	}
+
+	@Test
+	public void releaseAnalyzerFallsBackToTheManifestForMissingFingerprints() {
+		Release existingRelease = new Release();
+		existingRelease.setManifest(manifest("time", "1.2.0.RELEASE", "5") + manifest("log", "1.2.0.RELEASE", "1"));
+		Release replacingRelease = new Release();
+		replacingRelease.setManifest(manifest("time", "1.3.0.RELEASE", "5") + manifest("log", "1.2.0.RELEASE", "3"));
+		Map<String, String> existingSpecFingerprints = new LinkedHashMap<>();
+		existingSpecFingerprints.put("time", null);
+		existingSpecFingerprints.put("log", ReleaseAnalyzer.fingerprint(this.applicationManifestReader
+				.read(manifest("log", "1.2.0.RELEASE", "1")).get(0)));
+
+		ReleaseAnalysisReport releaseAnalysisReport = this.releaseAnalyzer.analyze(existingRelease,
+				existingSpecFingerprints, replacingRelease,
+				this.applicationManifestReader.readRenderedManifest(replacingRelease.getManifest()));
+
+		// time has no stored fingerprint and is compared against the existing manifest
+		assertThat(releaseAnalysisReport.getApplicationNamesToUpgrade()).containsExactly("time");
+	}
+
+	private static String manifest(String name, String version, String count) {
+		return "\n---\napiVersion: skipper.spring.io/v1\n"
+				+ "kind: SpringCloudDeployerApplication\n"
+				+ "metadata:\n"
+				+ "  name: " + name + "\n"
+				+ "spec:\n"
+				+ "  resource: maven://org.springframework.cloud.stream.app:" + name + "-source-rabbit\n"
+				+ "  version: " + version + "\n"
+				+ "  applicationProperties:\n"
+				+ "    log.level: INFO\n"
+				+ "  deploymentProperties:\n"
+				+ "    spring.cloud.deployer.count: " + count + "\n";
+	}
+
 }
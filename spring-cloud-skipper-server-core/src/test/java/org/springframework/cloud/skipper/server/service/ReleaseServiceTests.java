@@ -178,7 +178,8 @@ public class ReleaseServiceTests extends AbstractIntegrationTest {
 	@Test
 	public void testLatestPackageByName() {
 		String packageName = "log";
-		PackageMetadata packageMetadata = this.packageMetadataRepository.findFirstByNameOrderByVersionDesc(packageName);
+		PackageMetadata packageMetadata = this.packageMetadataRepository
+				.findFirstByNameAndStaleFalseOrderByVersionSortKeyDesc(packageName);
 		PackageMetadata latestPackageMetadata = this.packageMetadataRepository
 				.findByNameAndOptionalVersionRequired(packageName, null);
 		assertThat(packageMetadata).isEqualTo(latestPackageMetadata);
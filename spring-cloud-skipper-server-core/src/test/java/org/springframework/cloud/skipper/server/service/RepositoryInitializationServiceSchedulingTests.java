@@ -0,0 +1,89 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.cloud.skipper.server.service;
+
+import java.util.Collections;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import org.springframework.cloud.skipper.domain.Repository;
+import org.springframework.cloud.skipper.server.config.SkipperServerProperties;
+import org.springframework.cloud.skipper.server.repository.PackageMetadataRepository;
+import org.springframework.cloud.skipper.server.repository.RepositoryRepository;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionSynchronizationUtils;
+
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Tests for the scheduling of the package index synchronization by
+ * {@link RepositoryInitializationService} on the default, non waiting, startup path.
+ */
+public class RepositoryInitializationServiceSchedulingTests {
+
+	private RepositoryRepository repositoryRepository;
+
+	private PackageIndexSynchronizationService packageIndexSynchronizationService;
+
+	private RepositoryPrecedence repositoryPrecedence;
+
+	private RepositoryInitializationService repositoryInitializationService;
+
+	@Before
+	public void setup() {
+		this.repositoryRepository = mock(RepositoryRepository.class);
+		PackageMetadataRepository packageMetadataRepository = mock(PackageMetadataRepository.class);
+		when(packageMetadataRepository.findByVersionSortKeyIsNull()).thenReturn(Collections.emptyList());
+		this.packageIndexSynchronizationService = mock(PackageIndexSynchronizationService.class);
+		this.repositoryPrecedence = mock(RepositoryPrecedence.class);
+		Repository repository = new Repository();
+		repository.setName("remote");
+		repository.setUrl("http://www.example.com/skipper/repository/remote");
+		SkipperServerProperties skipperServerProperties = new SkipperServerProperties();
+		skipperServerProperties.setPackageRepositories(Collections.singletonList(repository));
+		this.repositoryInitializationService = new RepositoryInitializationService(this.repositoryRepository,
+				packageMetadataRepository, this.packageIndexSynchronizationService, this.repositoryPrecedence,
+				skipperServerProperties);
+		TransactionSynchronizationManager.initSynchronization();
+	}
+
+	@After
+	public void teardown() {
+		if (TransactionSynchronizationManager.isSynchronizationActive()) {
+			TransactionSynchronizationManager.clearSynchronization();
+		}
+	}
+
+	@Test
+	public void synchronizationIsScheduledAfterCommit() {
+		this.repositoryInitializationService.initialize(null);
+		verify(this.repositoryRepository).save(any(Repository.class));
+		verify(this.packageIndexSynchronizationService, never()).schedule(anyLong(), anyLong());
+		verify(this.packageIndexSynchronizationService, never()).synchronize();
+
+		TransactionSynchronizationUtils.triggerAfterCommit();
+		verify(this.packageIndexSynchronizationService).schedule(0, 600000);
+		verify(this.packageIndexSynchronizationService, never()).synchronize();
+		verify(this.repositoryPrecedence).invalidate();
+	}
+}
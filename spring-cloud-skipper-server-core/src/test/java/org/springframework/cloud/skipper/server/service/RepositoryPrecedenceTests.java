@@ -0,0 +1,66 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.cloud.skipper.server.service;
+
+import java.util.Arrays;
+
+import org.junit.Test;
+
+import org.springframework.cloud.skipper.domain.Repository;
+import org.springframework.cloud.skipper.server.repository.RepositoryRepository;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Tests for {@link RepositoryPrecedence}.
+ */
+public class RepositoryPrecedenceTests {
+
+	@Test
+	public void ranksAreCachedUntilRepositoriesChange() {
+		RepositoryRepository repositoryRepository = mock(RepositoryRepository.class);
+		Repository remote = repository(1L, 1);
+		Repository local = repository(2L, 0);
+		when(repositoryRepository.findAllByOrderByRepoOrderDesc()).thenReturn(Arrays.asList(remote, local),
+				Arrays.asList(repository(3L, 2), remote, local));
+		RepositoryPrecedence repositoryPrecedence = new RepositoryPrecedence(repositoryRepository);
+
+		assertThat(repositoryPrecedence.rank(1L)).isEqualTo(0);
+		assertThat(repositoryPrecedence.rank(2L)).isEqualTo(1);
+		assertThat(repositoryPrecedence.rank(3L)).isEqualTo(Integer.MAX_VALUE);
+		assertThat(repositoryPrecedence.rank(null)).isEqualTo(Integer.MAX_VALUE);
+		verify(repositoryRepository, times(1)).findAllByOrderByRepoOrderDesc();
+
+		repositoryPrecedence.onRepositoryChanged(remote);
+		assertThat(repositoryPrecedence.rank(3L)).isEqualTo(0);
+		assertThat(repositoryPrecedence.rank(1L)).isEqualTo(1);
+		verify(repositoryRepository, times(2)).findAllByOrderByRepoOrderDesc();
+	}
+
+	private static Repository repository(Long id, int repoOrder) {
+		Repository repository = new Repository();
+		repository.setName("repo" + id);
+		repository.setRepoOrder(repoOrder);
+		// the id is generated when the entity is persisted
+		ReflectionTestUtils.setField(repository, "id", id);
+		return repository;
+	}
+}
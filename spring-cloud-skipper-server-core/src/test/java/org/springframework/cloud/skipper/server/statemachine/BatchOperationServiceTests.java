@@ -0,0 +1,202 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.cloud.skipper.server.statemachine;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import org.springframework.cloud.skipper.OperationRejectedException;
+import org.springframework.cloud.skipper.ReleaseNotOwnedException;
+import org.springframework.cloud.skipper.SkipperException;
+import org.springframework.cloud.skipper.domain.BatchOperationRequest;
+import org.springframework.cloud.skipper.domain.BatchRequest;
+import org.springframework.cloud.skipper.domain.Operation;
+import org.springframework.cloud.skipper.domain.OperationState;
+import org.springframework.util.concurrent.SettableListenableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.cloud.skipper.server.statemachine.ReleaseFixtures.operation;
+
+/**
+ * Tests for {@link BatchOperationService}.
+ */
+public class BatchOperationServiceTests {
+
+	private SkipperStateMachineService skipperStateMachineService;
+
+	private BatchOperationService batchOperationService;
+
+	private final Map<String, SettableListenableFuture<Operation>> completions = new HashMap<>();
+
+	private final List<Operation> results = new CopyOnWriteArrayList<>();
+
+	private final CountDownLatch done = new CountDownLatch(1);
+
+	private final Map<String, CountDownLatch> started = new HashMap<>();
+
+	private final AtomicInteger running = new AtomicInteger();
+
+	private final AtomicInteger maxRunning = new AtomicInteger();
+
+	@Before
+	public void setup() {
+		this.skipperStateMachineService = Mockito.mock(SkipperStateMachineService.class);
+		this.batchOperationService = new BatchOperationService(this.skipperStateMachineService, 1, 2, 2, 60000);
+		for (String releaseName : new String[] { "log1", "log2", "log3" }) {
+			Operation operation = operation(releaseName, BatchOperationRequest.DELETE, OperationState.PENDING);
+			SettableListenableFuture<Operation> completion = new SettableListenableFuture<>();
+			CountDownLatch operationStarted = new CountDownLatch(1);
+			this.completions.put(releaseName, completion);
+			this.started.put(releaseName, operationStarted);
+			when(this.skipperStateMachineService.deleteReleaseAsync(releaseName)).thenAnswer(invocation -> {
+				this.maxRunning.accumulateAndGet(this.running.incrementAndGet(), Math::max);
+				operationStarted.countDown();
+				return operation;
+			});
+			when(this.skipperStateMachineService.getOperationCompletion(operation.getId())).thenReturn(completion);
+		}
+	}
+
+	@After
+	public void teardown() {
+		this.batchOperationService.destroy();
+	}
+
+	@Test
+	public void operationsRunUpToParallelism() throws Exception {
+		this.batchOperationService.execute(batch("log1", "log2", "log3"), this.results::add, this.done::countDown);
+		awaitStarted("log1");
+		awaitStarted("log2");
+
+		complete("log2", OperationState.COMPLETED);
+		awaitStarted("log3");
+		complete("log1", OperationState.COMPLETED);
+		complete("log3", OperationState.FAILED);
+
+		assertThat(this.done.await(5, TimeUnit.SECONDS)).isTrue();
+		assertThat(this.maxRunning.get()).isEqualTo(2);
+		assertThat(this.results).extracting(Operation::getReleaseName).containsExactly("log2", "log1", "log3");
+		assertThat(this.results).extracting(Operation::getState).containsExactly(OperationState.COMPLETED,
+				OperationState.COMPLETED, OperationState.FAILED);
+	}
+
+	@Test
+	public void operationsNotStartedAreReportedAsFailed() throws Exception {
+		when(this.skipperStateMachineService.deleteReleaseAsync("log1"))
+				.thenThrow(new SkipperException("Statemachine is not in state ready to do DELETE"));
+		this.completions.get("log2").set(operation("log2", BatchOperationRequest.DELETE, OperationState.COMPLETED));
+		this.batchOperationService.execute(batch("log1", "log2"), this.results::add, this.done::countDown);
+
+		assertThat(this.done.await(5, TimeUnit.SECONDS)).isTrue();
+		assertThat(this.results).hasSize(2);
+		assertThat(this.results.get(0).getReleaseName()).isEqualTo("log1");
+		assertThat(this.results.get(0).getState()).isEqualTo(OperationState.FAILED);
+		assertThat(this.results.get(0).getMessage()).contains("not in state ready");
+		assertThat(this.results.get(1).getState()).isEqualTo(OperationState.COMPLETED);
+	}
+
+	@Test
+	public void rejectedOperationsAreRetried() throws Exception {
+		Operation operation = operation("log1", BatchOperationRequest.DELETE, OperationState.PENDING);
+		when(this.skipperStateMachineService.deleteReleaseAsync("log1"))
+				.thenThrow(new OperationRejectedException("The deployments executor is saturated"))
+				.thenReturn(operation);
+		this.completions.get("log1").set(operation("log1", BatchOperationRequest.DELETE, OperationState.COMPLETED));
+		this.batchOperationService.execute(batch("log1"), this.results::add, this.done::countDown);
+
+		assertThat(this.done.await(5, TimeUnit.SECONDS)).isTrue();
+		verify(this.skipperStateMachineService, times(2)).deleteReleaseAsync("log1");
+		assertThat(this.results).extracting(Operation::getState).containsExactly(OperationState.COMPLETED);
+	}
+
+	@Test
+	public void operationsOnReleasesOfOtherNodesFail() throws Exception {
+		when(this.skipperStateMachineService.deleteReleaseAsync("log1"))
+				.thenThrow(new ReleaseNotOwnedException("log1", "http://node2:7577"));
+		this.batchOperationService.execute(batch("log1"), this.results::add, this.done::countDown);
+
+		assertThat(this.done.await(5, TimeUnit.SECONDS)).isTrue();
+		verify(this.skipperStateMachineService, times(1)).deleteReleaseAsync("log1");
+		assertThat(this.results).extracting(Operation::getState).containsExactly(OperationState.FAILED);
+		assertThat(this.results.get(0).getMessage()).contains("http://node2:7577");
+	}
+
+	@Test
+	public void unexpectedFailuresAreReportedPerOperation() throws Exception {
+		when(this.skipperStateMachineService.deleteReleaseAsync("log1")).thenThrow(new IllegalStateException("boom"));
+		this.completions.get("log2").set(operation("log2", BatchOperationRequest.DELETE, OperationState.COMPLETED));
+		this.batchOperationService.execute(batch("log1", "log2"), this.results::add, this.done::countDown);
+
+		assertThat(this.done.await(5, TimeUnit.SECONDS)).isTrue();
+		assertThat(this.results).extracting(Operation::getReleaseName).containsExactly("log1", "log2");
+		assertThat(this.results).extracting(Operation::getState).containsExactly(OperationState.FAILED,
+				OperationState.COMPLETED);
+		assertThat(this.results.get(0).getMessage()).contains("boom");
+	}
+
+	@Test
+	public void batchesShareCapacity() throws Exception {
+		this.batchOperationService.destroy();
+		this.batchOperationService = new BatchOperationService(this.skipperStateMachineService, 2, 2, 1, 60000);
+		CountDownLatch otherDone = new CountDownLatch(1);
+		this.batchOperationService.execute(batch("log1"), this.results::add, this.done::countDown);
+		awaitStarted("log1");
+		this.batchOperationService.execute(batch("log2"), this.results::add, otherDone::countDown);
+
+		complete("log1", OperationState.COMPLETED);
+		awaitStarted("log2");
+		complete("log2", OperationState.COMPLETED);
+		assertThat(this.done.await(5, TimeUnit.SECONDS)).isTrue();
+		assertThat(otherDone.await(5, TimeUnit.SECONDS)).isTrue();
+		// the second batch only started once the operation of the first one was done
+		assertThat(this.maxRunning.get()).isEqualTo(1);
+	}
+
+	@Test(expected = SkipperException.class)
+	public void operationsOnSameReleaseAreRejected() {
+		this.batchOperationService.execute(batch("log1", "log1"), this.results::add, this.done::countDown);
+	}
+
+	private void awaitStarted(String releaseName) throws InterruptedException {
+		assertThat(this.started.get(releaseName).await(5, TimeUnit.SECONDS)).isTrue();
+	}
+
+	private void complete(String releaseName, OperationState state) {
+		this.running.decrementAndGet();
+		this.completions.get(releaseName).set(operation(releaseName, BatchOperationRequest.DELETE, state));
+	}
+
+	private static BatchRequest batch(String... releaseNames) {
+		BatchRequest batchRequest = new BatchRequest();
+		for (String releaseName : releaseNames) {
+			batchRequest.getOperations().add(BatchOperationRequest.delete(releaseName));
+		}
+		return batchRequest;
+	}
+}
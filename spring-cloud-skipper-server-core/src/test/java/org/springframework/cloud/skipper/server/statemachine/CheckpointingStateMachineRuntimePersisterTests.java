@@ -0,0 +1,93 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.cloud.skipper.server.statemachine;
+
+import java.util.Collections;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import org.springframework.cloud.skipper.server.statemachine.SkipperStateMachineService.SkipperEvents;
+import org.springframework.cloud.skipper.server.statemachine.SkipperStateMachineService.SkipperStates;
+import org.springframework.statemachine.StateMachineContext;
+import org.springframework.statemachine.StateMachinePersist;
+import org.springframework.statemachine.support.DefaultExtendedState;
+import org.springframework.statemachine.support.DefaultStateMachineContext;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+/**
+ * Tests for {@link CheckpointingStateMachineRuntimePersister}.
+ */
+@SuppressWarnings("unchecked")
+public class CheckpointingStateMachineRuntimePersisterTests {
+
+	private StateMachinePersist<SkipperStates, SkipperEvents, String> delegate;
+
+	private CheckpointingStateMachineRuntimePersister<SkipperStates, SkipperEvents, String> persister;
+
+	@Before
+	public void setup() {
+		this.delegate = Mockito.mock(StateMachinePersist.class);
+		this.persister = new CheckpointingStateMachineRuntimePersister<>(this.delegate, SkipperStates.INITIAL,
+				Collections.singletonList(SkipperStates.UPGRADE_WAIT_TARGET_APPS));
+	}
+
+	@Test
+	public void intermediateStatesAreCoalesced() throws Exception {
+		this.persister.write(context(SkipperStates.INSTALL, SkipperStates.INSTALL_INSTALL), "release1");
+		this.persister.write(context(SkipperStates.INSTALL, SkipperStates.INSTALL_EXIT), "release1");
+		verify(this.delegate, never()).write(any(StateMachineContext.class), anyString());
+
+		StateMachineContext<SkipperStates, SkipperEvents> initial = context(SkipperStates.INITIAL, null);
+		this.persister.write(initial, "release1");
+		verify(this.delegate).write(initial, "release1");
+		assertThat(this.persister.getWriteCount()).isEqualTo(1);
+		assertThat(this.persister.getCoalescedCount()).isEqualTo(2);
+	}
+
+	@Test
+	public void checkpointSubstatesAreWritten() throws Exception {
+		StateMachineContext<SkipperStates, SkipperEvents> waiting = context(SkipperStates.UPGRADE,
+				SkipperStates.UPGRADE_WAIT_TARGET_APPS);
+		this.persister.write(context(SkipperStates.UPGRADE, SkipperStates.UPGRADE_DEPLOY_TARGET_APPS), "release1");
+		this.persister.write(waiting, "release1");
+		verify(this.delegate).write(waiting, "release1");
+		assertThat(this.persister.getWriteCount()).isEqualTo(1);
+	}
+
+	@Test
+	public void readsFromDelegate() throws Exception {
+		this.persister.read("release1");
+		verify(this.delegate).read("release1");
+	}
+
+	private static StateMachineContext<SkipperStates, SkipperEvents> context(SkipperStates state,
+			SkipperStates substate) {
+		if (substate == null) {
+			return new DefaultStateMachineContext<>(state, null, null, new DefaultExtendedState());
+		}
+		StateMachineContext<SkipperStates, SkipperEvents> child = new DefaultStateMachineContext<>(substate, null,
+				null, new DefaultExtendedState());
+		return new DefaultStateMachineContext<>(Collections.singletonList(child), state, null, null,
+				new DefaultExtendedState());
+	}
+}
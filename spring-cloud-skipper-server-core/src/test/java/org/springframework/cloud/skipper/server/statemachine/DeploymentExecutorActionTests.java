@@ -0,0 +1,157 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.cloud.skipper.server.statemachine;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import org.springframework.cloud.skipper.OperationRejectedException;
+import org.springframework.cloud.skipper.SkipperException;
+import org.springframework.cloud.skipper.server.statemachine.SkipperStateMachineService.SkipperEvents;
+import org.springframework.cloud.skipper.server.statemachine.SkipperStateMachineService.SkipperStates;
+import org.springframework.cloud.skipper.server.statemachine.SkipperStateMachineService.SkipperVariables;
+import org.springframework.statemachine.ExtendedState;
+import org.springframework.statemachine.StateContext;
+import org.springframework.statemachine.StateMachine;
+import org.springframework.statemachine.support.DefaultExtendedState;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Tests for {@link DeploymentExecutorAction}.
+ */
+public class DeploymentExecutorActionTests {
+
+	private final CountDownLatch release = new CountDownLatch(1);
+
+	private final CountDownLatch completed = new CountDownLatch(1);
+
+	private final AtomicInteger completions = new AtomicInteger();
+
+	private MonitoredThreadPoolTaskExecutor executor;
+
+	private ExtendedState extendedState;
+
+	private StateMachine<SkipperStates, SkipperEvents> stateMachine;
+
+	private StateContext<SkipperStates, SkipperEvents> context;
+
+	@Before
+	@SuppressWarnings("unchecked")
+	public void setup() throws Exception {
+		this.executor = new MonitoredThreadPoolTaskExecutor("deployments", 1, 1, 0, false);
+		this.executor.initialize();
+		CountDownLatch started = new CountDownLatch(1);
+		this.executor.execute(() -> {
+			started.countDown();
+			try {
+				this.release.await();
+			}
+			catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		});
+		assertThat(started.await(10, TimeUnit.SECONDS)).isTrue();
+		this.extendedState = new DefaultExtendedState();
+		this.stateMachine = mock(StateMachine.class);
+		this.context = mock(StateContext.class);
+		when(this.context.getExtendedState()).thenReturn(this.extendedState);
+		when(this.context.getStateMachine()).thenReturn(this.stateMachine);
+	}
+
+	@After
+	public void teardown() {
+		this.release.countDown();
+		this.executor.shutdown();
+	}
+
+	@Test
+	public void actionIsRejectedWhenExecutorIsFull() {
+		Thread[] runner = new Thread[1];
+		new DeploymentExecutorAction(stateContext -> runner[0] = Thread.currentThread(), this.executor, this::complete)
+				.execute(this.context);
+		assertThat(runner[0]).isNull();
+		assertThat(this.extendedState.getVariables().get(SkipperVariables.ERROR))
+				.isInstanceOf(OperationRejectedException.class);
+		assertThat(this.completions.get()).isEqualTo(0);
+	}
+
+	@Test
+	public void compensatingActionRunsInlineWhenExecutorIsFull() {
+		Thread[] runner = new Thread[1];
+		new DeploymentExecutorAction(stateContext -> runner[0] = Thread.currentThread(), this.executor, this::complete,
+				true).execute(this.context);
+		assertThat(runner[0]).isSameAs(Thread.currentThread());
+		assertThat(this.extendedState.getVariables()).doesNotContainKey(SkipperVariables.ERROR);
+		assertThat(this.completions.get()).isEqualTo(1);
+	}
+
+	@Test
+	public void actionDoesNotHoldUpTheTransitionThread() throws Exception {
+		MonitoredThreadPoolTaskExecutor deployments = new MonitoredThreadPoolTaskExecutor("deployments", 1, 1, 0, false);
+		deployments.initialize();
+		try {
+			CountDownLatch finish = new CountDownLatch(1);
+			new DeploymentExecutorAction(stateContext -> {
+				try {
+					finish.await();
+				}
+				catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+			}, deployments, this::complete).execute(this.context);
+			assertThat(this.completions.get()).isEqualTo(0);
+
+			finish.countDown();
+			assertThat(this.completed.await(10, TimeUnit.SECONDS)).isTrue();
+			assertThat(this.extendedState.getVariables()).doesNotContainKey(SkipperVariables.ERROR);
+		}
+		finally {
+			deployments.shutdown();
+		}
+	}
+
+	@Test
+	public void failedActionIsCompletedWithAnError() throws Exception {
+		MonitoredThreadPoolTaskExecutor deployments = new MonitoredThreadPoolTaskExecutor("deployments", 1, 1, 0, false);
+		deployments.initialize();
+		try {
+			new DeploymentExecutorAction(stateContext -> {
+				throw new IllegalStateException("Deployer unavailable");
+			}, deployments, this::complete).execute(this.context);
+
+			assertThat(this.completed.await(10, TimeUnit.SECONDS)).isTrue();
+			assertThat(this.extendedState.getVariables().get(SkipperVariables.ERROR))
+					.isInstanceOf(SkipperException.class);
+		}
+		finally {
+			deployments.shutdown();
+		}
+	}
+
+	private void complete(StateMachine<SkipperStates, SkipperEvents> stateMachine) {
+		assertThat(stateMachine).isSameAs(this.stateMachine);
+		this.completions.incrementAndGet();
+		this.completed.countDown();
+	}
+}
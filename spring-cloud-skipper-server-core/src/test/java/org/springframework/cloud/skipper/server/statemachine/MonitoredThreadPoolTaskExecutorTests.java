@@ -0,0 +1,138 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.cloud.skipper.server.statemachine;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+import org.springframework.boot.actuate.metrics.Metric;
+import org.springframework.core.task.TaskRejectedException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.fail;
+
+/**
+ * Tests for {@link MonitoredThreadPoolTaskExecutor}.
+ */
+public class MonitoredThreadPoolTaskExecutorTests {
+
+	@Test
+	public void saturatedExecutorRejectsTasks() throws Exception {
+		MonitoredThreadPoolTaskExecutor executor = new MonitoredThreadPoolTaskExecutor("test", 1, 1, 1, false);
+		executor.initialize();
+		CountDownLatch started = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		try {
+			executor.execute(() -> {
+				started.countDown();
+				await(release);
+			});
+			assertThat(started.await(10, TimeUnit.SECONDS)).isTrue();
+			assertThat(executor.isSaturated()).isFalse();
+			Future<?> queued = executor.submit(() -> {
+			});
+			assertThat(executor.isSaturated()).isTrue();
+			try {
+				executor.execute(() -> {
+				});
+				fail("Expected TaskRejectedException");
+			}
+			catch (TaskRejectedException e) {
+				assertThat(executor.getRejectedCount()).isEqualTo(1);
+			}
+			release.countDown();
+			queued.get(10, TimeUnit.SECONDS);
+			awaitCompleted(executor, 2);
+		}
+		finally {
+			release.countDown();
+			executor.shutdown();
+		}
+	}
+
+	@Test
+	public void callerRunsWhenSaturated() throws Exception {
+		MonitoredThreadPoolTaskExecutor executor = new MonitoredThreadPoolTaskExecutor("test", 1, 1, 0, true);
+		executor.initialize();
+		CountDownLatch started = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		try {
+			executor.execute(() -> {
+				started.countDown();
+				await(release);
+			});
+			assertThat(started.await(10, TimeUnit.SECONDS)).isTrue();
+			Thread caller = Thread.currentThread();
+			Thread[] runner = new Thread[1];
+			executor.execute(() -> runner[0] = Thread.currentThread());
+			assertThat(runner[0]).isSameAs(caller);
+			assertThat(executor.getRejectedCount()).isEqualTo(1);
+		}
+		finally {
+			release.countDown();
+			executor.shutdown();
+		}
+	}
+
+	@Test
+	public void metricsAreNamedAfterExecutor() throws Exception {
+		MonitoredThreadPoolTaskExecutor executor = new MonitoredThreadPoolTaskExecutor("test", 2, 2, 10, false);
+		executor.initialize();
+		try {
+			executor.submit(() -> sleep(20)).get(10, TimeUnit.SECONDS);
+			awaitCompleted(executor, 1);
+			assertThat(executor.metrics()).extracting(Metric::getName).containsOnly("skipper.executor.test.active",
+					"skipper.executor.test.pool", "skipper.executor.test.queue", "skipper.executor.test.completed",
+					"skipper.executor.test.rejected", "skipper.executor.test.latency.avg",
+					"skipper.executor.test.latency.max");
+			assertThat(executor.getMaxLatency()).isGreaterThanOrEqualTo(20);
+			assertThat(executor.getAverageLatency()).isGreaterThanOrEqualTo(20);
+		}
+		finally {
+			executor.shutdown();
+		}
+	}
+
+	private static void awaitCompleted(MonitoredThreadPoolTaskExecutor executor, long count) {
+		// latency is recorded right after the future of a task completes
+		long deadline = System.currentTimeMillis() + 10000;
+		while (executor.getCompletedCount() < count && System.currentTimeMillis() < deadline) {
+			sleep(10);
+		}
+		assertThat(executor.getCompletedCount()).isEqualTo(count);
+	}
+
+	private static void await(CountDownLatch latch) {
+		try {
+			latch.await(10, TimeUnit.SECONDS);
+		}
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	private static void sleep(long millis) {
+		try {
+			Thread.sleep(millis);
+		}
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+}
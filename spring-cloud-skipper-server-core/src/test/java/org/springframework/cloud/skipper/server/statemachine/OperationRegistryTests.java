@@ -0,0 +1,66 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.cloud.skipper.server.statemachine;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+import org.springframework.cloud.skipper.domain.Release;
+import org.springframework.cloud.skipper.server.statemachine.OperationRegistry.TrackedOperation;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests for {@link OperationRegistry}.
+ */
+public class OperationRegistryTests {
+
+	private final OperationRegistry operationRegistry = new OperationRegistry(2, TimeUnit.HOURS.toMillis(1));
+
+	@Test
+	public void pendingOperationsAreNotEvicted() {
+		List<TrackedOperation> trackedOperations = new ArrayList<>();
+		for (int i = 0; i < 10; i++) {
+			trackedOperations.add(this.operationRegistry.register("install", "release" + i));
+		}
+
+		for (TrackedOperation trackedOperation : trackedOperations) {
+			assertThat(this.operationRegistry.get(trackedOperation.getId())).isSameAs(trackedOperation);
+		}
+		assertThat(this.operationRegistry.getPendingReleaseNames()).hasSize(10);
+		assertThat(this.operationRegistry.hasPendingOperation("release9")).isTrue();
+	}
+
+	@Test
+	public void onlyFinishedOperationsAreBounded() {
+		TrackedOperation pending = this.operationRegistry.register("upgrade", "pending");
+		List<TrackedOperation> finished = new ArrayList<>();
+		for (int i = 0; i < 10; i++) {
+			TrackedOperation trackedOperation = this.operationRegistry.register("install", "release" + i);
+			trackedOperation.complete(new Release());
+			finished.add(trackedOperation);
+		}
+
+		assertThat(this.operationRegistry.get(pending.getId())).isSameAs(pending);
+		assertThat(this.operationRegistry.get(finished.get(9).getId())).isSameAs(finished.get(9));
+		assertThat(this.operationRegistry.get(finished.get(0).getId())).isNull();
+		assertThat(this.operationRegistry.getPendingReleaseNames()).containsExactly("pending");
+		assertThat(this.operationRegistry.hasPendingOperation("release9")).isFalse();
+	}
+}
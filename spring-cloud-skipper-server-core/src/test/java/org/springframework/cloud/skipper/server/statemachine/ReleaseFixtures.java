@@ -0,0 +1,72 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.cloud.skipper.server.statemachine;
+
+import org.springframework.cloud.skipper.domain.ConfigValues;
+import org.springframework.cloud.skipper.domain.Info;
+import org.springframework.cloud.skipper.domain.Operation;
+import org.springframework.cloud.skipper.domain.OperationState;
+import org.springframework.cloud.skipper.domain.Package;
+import org.springframework.cloud.skipper.domain.PackageMetadata;
+import org.springframework.cloud.skipper.domain.Release;
+import org.springframework.cloud.skipper.domain.StatusCode;
+
+/**
+ * Releases, package metadata and operations used by the tests of the services driving
+ * the state machines.
+ */
+final class ReleaseFixtures {
+
+	private ReleaseFixtures() {
+	}
+
+	static Release release(String name, int version) {
+		Release release = new Release();
+		release.setName(name);
+		release.setVersion(version);
+		return release;
+	}
+
+	static Release release(String name, String packageName, String packageVersion, StatusCode statusCode) {
+		Package pkg = new Package();
+		pkg.setMetadata(packageMetadata(packageName, packageVersion));
+		Info info = Info.createNewInfo("Install complete");
+		info.getStatus().setStatusCode(statusCode);
+		ConfigValues configValues = new ConfigValues();
+		configValues.setRaw(name + ": true");
+		Release release = release(name, 1);
+		release.setPkg(pkg);
+		release.setInfo(info);
+		release.setConfigValues(configValues);
+		return release;
+	}
+
+	static PackageMetadata packageMetadata(String name, String version) {
+		PackageMetadata packageMetadata = new PackageMetadata();
+		packageMetadata.setName(name);
+		packageMetadata.setVersion(version);
+		return packageMetadata;
+	}
+
+	static Operation operation(String releaseName, String type, OperationState state) {
+		Operation operation = new Operation();
+		operation.setId("op-" + releaseName);
+		operation.setType(type);
+		operation.setReleaseName(releaseName);
+		operation.setState(state);
+		return operation;
+	}
+}
@@ -0,0 +1,103 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.cloud.skipper.server.statemachine;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import org.springframework.cloud.skipper.domain.Info;
+import org.springframework.cloud.skipper.domain.Release;
+import org.springframework.cloud.skipper.domain.Status;
+import org.springframework.cloud.skipper.domain.StatusCode;
+import org.springframework.cloud.skipper.server.repository.ReleaseRepository;
+import org.springframework.cloud.skipper.server.statemachine.SkipperStateMachineService.SkipperEventHeaders;
+import org.springframework.cloud.skipper.server.statemachine.SkipperStateMachineService.SkipperEvents;
+import org.springframework.cloud.skipper.server.statemachine.SkipperStateMachineService.SkipperStates;
+import org.springframework.cloud.skipper.server.statemachine.SkipperStateMachineService.SkipperVariables;
+import org.springframework.messaging.MessageHeaders;
+import org.springframework.statemachine.ExtendedState;
+import org.springframework.statemachine.StateContext;
+import org.springframework.statemachine.support.DefaultExtendedState;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Tests for {@link RollbackStartAction}.
+ */
+public class RollbackStartActionTests {
+
+	private final ReleaseRepository releaseRepository = Mockito.mock(ReleaseRepository.class);
+
+	@Test
+	@SuppressWarnings("unchecked")
+	public void rollbackReleaseIsResolvedAfterTheReferencesAreCleared() {
+		Release current = release(2L, 2, StatusCode.DEPLOYED);
+		Release previous = release(1L, 1, StatusCode.DELETED);
+		previous.setManifest("manifest of version 1");
+		when(this.releaseRepository.findLatestReleaseForUpdate("log")).thenReturn(current);
+		when(this.releaseRepository.findReleaseToRollback("log")).thenReturn(previous);
+		Release[] saved = new Release[1];
+		when(this.releaseRepository.save(any(Release.class))).thenAnswer(invocation -> {
+			saved[0] = (Release) invocation.getArguments()[0];
+			ReflectionTestUtils.setField(saved[0], "id", 3L);
+			return saved[0];
+		});
+
+		Map<String, Object> headers = new HashMap<>();
+		headers.put(SkipperEventHeaders.RELEASE_NAME, "log");
+		headers.put(SkipperEventHeaders.ROLLBACK_VERSION, 0);
+		ExtendedState extendedState = new DefaultExtendedState();
+		StateContext<SkipperStates, SkipperEvents> context = mock(StateContext.class);
+		when(context.getMessageHeaders()).thenReturn(new MessageHeaders(headers));
+		when(context.getExtendedState()).thenReturn(extendedState);
+
+		new RollbackStartAction(this.releaseRepository, new StateMachineReferences()).execute(context);
+		assertThat(extendedState.getVariables()).doesNotContainKey(SkipperVariables.ERROR);
+
+		// the next action runs with nothing cached, for example after a restart
+		StateMachineReferences references = new StateMachineReferences(this.releaseRepository, null);
+		when(this.releaseRepository.findOne(3L)).thenReturn(saved[0]);
+		Release target = references.resolve(extendedState.get(SkipperVariables.TARGET_RELEASE, ReleaseReference.class));
+
+		assertThat(target).isSameAs(saved[0]);
+		assertThat(target.getVersion()).isEqualTo(3);
+		assertThat(target.getManifest()).isEqualTo("manifest of version 1");
+		assertThat(references.resolve(extendedState.get(SkipperVariables.SOURCE_RELEASE, ReleaseReference.class)))
+				.isSameAs(current);
+	}
+
+	private Release release(Long id, int version, StatusCode statusCode) {
+		Release release = new Release();
+		// the id is generated by the database
+		ReflectionTestUtils.setField(release, "id", id);
+		release.setName("log");
+		release.setVersion(version);
+		Status status = new Status();
+		status.setStatusCode(statusCode);
+		Info info = Info.createNewInfo("xxx");
+		info.setStatus(status);
+		release.setInfo(info);
+		when(this.releaseRepository.findOne(id)).thenReturn(release);
+		return release;
+	}
+}
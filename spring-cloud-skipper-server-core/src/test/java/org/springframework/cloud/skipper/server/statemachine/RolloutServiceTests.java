@@ -0,0 +1,258 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.cloud.skipper.server.statemachine;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import org.springframework.cloud.skipper.SkipperException;
+import org.springframework.cloud.skipper.domain.BatchOperationRequest;
+import org.springframework.cloud.skipper.domain.BatchRequest;
+import org.springframework.cloud.skipper.domain.Operation;
+import org.springframework.cloud.skipper.domain.OperationState;
+import org.springframework.cloud.skipper.domain.Rollout;
+import org.springframework.cloud.skipper.domain.RolloutItem;
+import org.springframework.cloud.skipper.domain.RolloutRequest;
+import org.springframework.cloud.skipper.domain.RolloutState;
+import org.springframework.cloud.skipper.domain.StatusCode;
+import org.springframework.cloud.skipper.domain.UpgradeRequest;
+import org.springframework.cloud.skipper.server.repository.PackageMetadataRepository;
+import org.springframework.cloud.skipper.server.repository.ReleaseRepository;
+import org.springframework.cloud.skipper.server.service.ReleaseReportService;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.when;
+import static org.springframework.cloud.skipper.server.statemachine.ReleaseFixtures.operation;
+import static org.springframework.cloud.skipper.server.statemachine.ReleaseFixtures.packageMetadata;
+import static org.springframework.cloud.skipper.server.statemachine.ReleaseFixtures.release;
+
+/**
+ * Tests for {@link RolloutService}.
+ */
+public class RolloutServiceTests {
+
+	private ReleaseReportService releaseReportService;
+
+	private RolloutService rolloutService;
+
+	private final List<List<String>> waves = new CopyOnWriteArrayList<>();
+
+	private final List<UpgradeRequest> upgradeRequests = new CopyOnWriteArrayList<>();
+
+	private Set<String> failingReleases = Collections.emptySet();
+
+	private Set<String> unhealthyReleases = Collections.emptySet();
+
+	private volatile boolean outcomesPending;
+
+	private final CountDownLatch outcomePolled = new CountDownLatch(1);
+
+	@Before
+	@SuppressWarnings("unchecked")
+	public void setup() {
+		ReleaseRepository releaseRepository = Mockito.mock(ReleaseRepository.class);
+		when(releaseRepository.findLatestRelease(anyString())).thenAnswer(invocation -> {
+			String releaseName = (String) invocation.getArguments()[0];
+			StatusCode statusCode = this.unhealthyReleases.contains(releaseName) ? StatusCode.FAILED
+					: StatusCode.DEPLOYED;
+			if (this.outcomesPending) {
+				// the upgraded apps are still being checked
+				this.outcomePolled.countDown();
+				statusCode = StatusCode.UNKNOWN;
+			}
+			return release(releaseName, "log", "1.1.0", statusCode);
+		});
+		when(releaseRepository.findLatestDeployedOrFailed()).thenReturn(Arrays.asList(
+				release("log4", "log", "1.0.0", StatusCode.DEPLOYED), release("log1", "log", "1.0.0", StatusCode.DEPLOYED),
+				release("log2", "log", "1.0.0", StatusCode.DEPLOYED), release("log3", "log", "1.0.0", StatusCode.DEPLOYED),
+				release("log5", "log", "1.0.0", StatusCode.DEPLOYED), release("log6", "log", "1.1.0", StatusCode.DEPLOYED),
+				release("log7", "log", "1.0.0", StatusCode.FAILED), release("time", "time", "1.0.0", StatusCode.DEPLOYED)));
+		PackageMetadataRepository packageMetadataRepository = Mockito.mock(PackageMetadataRepository.class);
+		when(packageMetadataRepository.findByNameAndOptionalVersionRequired("log", null))
+				.thenReturn(packageMetadata("log", "1.1.0"));
+		this.releaseReportService = Mockito.mock(ReleaseReportService.class);
+		when(this.releaseReportService.getApplicationNamesToUpgrade(any(UpgradeRequest.class))).thenAnswer(invocation -> {
+			UpgradeRequest upgradeRequest = (UpgradeRequest) invocation.getArguments()[0];
+			// log5 is configured so that the new version doesn't change its application
+			return "log5".equals(upgradeRequest.getUpgradeProperties().getReleaseName())
+					? Collections.emptyList()
+					: Collections.singletonList("log");
+		});
+		BatchOperationService batchOperationService = Mockito.mock(BatchOperationService.class);
+		doAnswer(invocation -> {
+			BatchRequest batchRequest = (BatchRequest) invocation.getArguments()[0];
+			Consumer<Operation> resultConsumer = (Consumer<Operation>) invocation.getArguments()[1];
+			List<String> wave = new ArrayList<>();
+			for (BatchOperationRequest request : batchRequest.getOperations()) {
+				String releaseName = request.getUpgradeRequest().getUpgradeProperties().getReleaseName();
+				wave.add(releaseName);
+				this.upgradeRequests.add(request.getUpgradeRequest());
+				resultConsumer.accept(operation(releaseName, BatchOperationRequest.UPGRADE,
+						this.failingReleases.contains(releaseName) ? OperationState.FAILED : OperationState.COMPLETED));
+			}
+			this.waves.add(wave);
+			((Runnable) invocation.getArguments()[2]).run();
+			return null;
+		}).when(batchOperationService).execute(any(BatchRequest.class), any(Consumer.class), any(Runnable.class));
+		this.rolloutService = new RolloutService(releaseRepository, packageMetadataRepository,
+				this.releaseReportService, batchOperationService, 1);
+		this.rolloutService.setOutcomePollInterval(10);
+	}
+
+	@After
+	public void teardown() {
+		this.rolloutService.destroy();
+	}
+
+	@Test
+	public void releasesAreUpgradedInWaves() throws Exception {
+		Rollout rollout = this.rolloutService.start(rolloutRequest(2, 0, false));
+		assertThat(rollout.getPackageVersion()).isEqualTo("1.1.0");
+		assertThat(rollout.getWaveCount()).isEqualTo(2);
+		assertThat(rollout.getUpToDateReleases()).containsExactly("log5", "log6");
+		assertThat(rollout.getSkippedReleases()).containsExactly("log7");
+		assertThat(rollout.getItems()).extracting(RolloutItem::getReleaseName).containsExactly("log1", "log2",
+				"log3", "log4");
+
+		rollout = awaitState(rollout.getId(), RolloutState.COMPLETED);
+		assertThat(this.waves).containsExactly(Arrays.asList("log1", "log2"), Arrays.asList("log3", "log4"));
+		assertThat(rollout.getCurrentWave()).isEqualTo(2);
+		assertThat(rollout.getItems()).extracting(item -> item.getOperation().getState())
+				.containsOnly(OperationState.COMPLETED);
+		UpgradeRequest upgradeRequest = this.upgradeRequests.get(0);
+		assertThat(upgradeRequest.getPackageIdentifier().getPackageVersion()).isEqualTo("1.1.0");
+		assertThat(upgradeRequest.getUpgradeProperties().getConfigValues().getRaw()).isEqualTo("log1: true");
+	}
+
+	@Test
+	public void failedWavePausesRollout() throws Exception {
+		this.failingReleases = Collections.singleton("log2");
+		Rollout rollout = this.rolloutService.start(rolloutRequest(2, 0.4, false));
+		rollout = awaitState(rollout.getId(), RolloutState.PAUSED);
+		assertThat(rollout.getMessage()).isEqualTo("1 of 2 upgrades of wave 1 failed");
+		assertThat(this.waves).hasSize(1);
+
+		this.rolloutService.resume(rollout.getId());
+		awaitState(rollout.getId(), RolloutState.COMPLETED);
+		assertThat(this.waves).hasSize(2);
+	}
+
+	@Test
+	public void upgradesRolledBackCountAsFailed() throws Exception {
+		this.unhealthyReleases = Collections.singleton("log1");
+		Rollout rollout = this.rolloutService.start(rolloutRequest(2, 0.4, false));
+		rollout = awaitState(rollout.getId(), RolloutState.PAUSED);
+		assertThat(rollout.getMessage()).isEqualTo("1 of 2 upgrades of wave 1 failed");
+		assertThat(rollout.getItems().get(0).getOperation().getState()).isEqualTo(OperationState.FAILED);
+		assertThat(rollout.getItems().get(0).getOperation().getMessage()).contains("failed after the upgrade");
+	}
+
+	@Test
+	public void wavesWaitForTheOutcomeOfTheirUpgrades() throws Exception {
+		this.outcomesPending = true;
+		Rollout rollout = this.rolloutService.start(rolloutRequest(4, 0, false));
+		assertThat(this.outcomePolled.await(5, TimeUnit.SECONDS)).isTrue();
+		assertThat(this.rolloutService.getRollout(rollout.getId()).getState()).isEqualTo(RolloutState.RUNNING);
+		assertThat(this.rolloutService.getRollout(rollout.getId()).getCurrentWave()).isEqualTo(1);
+
+		this.outcomesPending = false;
+		rollout = awaitState(rollout.getId(), RolloutState.COMPLETED);
+		assertThat(rollout.getItems()).extracting(item -> item.getOperation().getState())
+				.containsOnly(OperationState.COMPLETED);
+	}
+
+	@Test
+	public void failureRateWithinLimitKeepsRolloutRunning() throws Exception {
+		this.failingReleases = Collections.singleton("log2");
+		Rollout rollout = this.rolloutService.start(rolloutRequest(2, 0.5, false));
+		awaitState(rollout.getId(), RolloutState.COMPLETED);
+		assertThat(this.waves).hasSize(2);
+	}
+
+	@Test
+	public void failedWaveAbortsRollout() throws Exception {
+		this.failingReleases = Collections.singleton("log1");
+		Rollout rollout = this.rolloutService.start(rolloutRequest(3, 0, true));
+		awaitState(rollout.getId(), RolloutState.ABORTED);
+		assertThat(this.waves).containsExactly(Arrays.asList("log1", "log2", "log3"));
+		Throwable thrown = null;
+		try {
+			this.rolloutService.resume(rollout.getId());
+		}
+		catch (SkipperException e) {
+			thrown = e;
+		}
+		assertThat(thrown).isNotNull();
+	}
+
+	@Test(expected = SkipperException.class)
+	public void unplannableUpgradeRejectsRollout() {
+		doThrow(new SkipperException("Package not found")).when(this.releaseReportService)
+				.getApplicationNamesToUpgrade(any(UpgradeRequest.class));
+		try {
+			this.rolloutService.start(rolloutRequest(2, 0, false));
+		}
+		finally {
+			assertThat(this.rolloutService.getRollouts()).isEmpty();
+		}
+	}
+
+	@Test(expected = SkipperException.class)
+	public void rolloutsAreRejectedWhenTheClusterIsEnabled() {
+		this.rolloutService.setClusterEnabled(true);
+		try {
+			this.rolloutService.start(rolloutRequest(2, 0, false));
+		}
+		finally {
+			assertThat(this.rolloutService.getRollouts()).isEmpty();
+		}
+	}
+
+	private Rollout awaitState(String id, RolloutState state) throws InterruptedException {
+		Rollout rollout = this.rolloutService.getRollout(id);
+		for (int i = 0; i < 100 && rollout.getState() != state; i++) {
+			Thread.sleep(50);
+			rollout = this.rolloutService.getRollout(id);
+		}
+		assertThat(rollout.getState()).isEqualTo(state);
+		return rollout;
+	}
+
+	private static RolloutRequest rolloutRequest(int waveSize, double maxFailureRate, boolean abortOnFailure) {
+		RolloutRequest rolloutRequest = new RolloutRequest();
+		rolloutRequest.setPackageName("log");
+		rolloutRequest.setWaveSize(waveSize);
+		rolloutRequest.setMaxFailureRate(maxFailureRate);
+		rolloutRequest.setAbortOnFailure(abortOnFailure);
+		return rolloutRequest;
+	}
+}
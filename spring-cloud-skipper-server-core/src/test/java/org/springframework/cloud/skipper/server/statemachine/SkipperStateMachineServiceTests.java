@@ -0,0 +1,113 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.cloud.skipper.server.statemachine;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import org.springframework.cloud.skipper.SkipperException;
+import org.springframework.cloud.skipper.server.statemachine.SkipperStateMachineService.SkipperEvents;
+import org.springframework.cloud.skipper.server.statemachine.SkipperStateMachineService.SkipperStates;
+import org.springframework.messaging.Message;
+import org.springframework.statemachine.StateMachine;
+import org.springframework.statemachine.service.StateMachineService;
+import org.springframework.statemachine.state.State;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyBoolean;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Tests for {@link SkipperStateMachineService}.
+ */
+@SuppressWarnings("unchecked")
+public class SkipperStateMachineServiceTests {
+
+	private StateMachineService<SkipperStates, SkipperEvents> stateMachineService;
+
+	private StateMachine<SkipperStates, SkipperEvents> stateMachine;
+
+	private State<SkipperStates, SkipperEvents> state;
+
+	private SkipperStateMachineService skipperStateMachineService;
+
+	@Before
+	public void setup() {
+		this.stateMachineService = Mockito.mock(StateMachineService.class);
+		this.stateMachine = Mockito.mock(StateMachine.class);
+		this.state = Mockito.mock(State.class);
+		when(this.stateMachineService.acquireStateMachine(anyString())).thenReturn(this.stateMachine);
+		when(this.stateMachineService.acquireStateMachine(anyString(), anyBoolean())).thenReturn(this.stateMachine);
+		when(this.stateMachine.getState()).thenReturn(this.state);
+		when(this.state.getId()).thenReturn(SkipperStates.INITIAL);
+		this.skipperStateMachineService = new SkipperStateMachineService(this.stateMachineService);
+	}
+
+	@Test
+	public void idleMachinesInInitialStateAreEvicted() {
+		deleteRejected("release1");
+		assertThat(this.skipperStateMachineService.getStateMachineCount()).isEqualTo(1);
+		assertThat(this.skipperStateMachineService.evictIdleStateMachines(60000, 100)).isEqualTo(0);
+		assertThat(this.skipperStateMachineService.evictIdleStateMachines(0, 100)).isEqualTo(1);
+		verify(this.stateMachineService).releaseStateMachine("release1", true);
+		assertThat(this.skipperStateMachineService.getStateMachineCount()).isEqualTo(0);
+	}
+
+	@Test
+	public void leastRecentlyUsedMachinesAreEvictedAboveMaximum() {
+		deleteRejected("release1");
+		deleteRejected("release2");
+		deleteRejected("release3");
+		deleteRejected("release1");
+		assertThat(this.skipperStateMachineService.evictIdleStateMachines(60000, 1)).isEqualTo(2);
+		verify(this.stateMachineService).releaseStateMachine("release2", true);
+		verify(this.stateMachineService).releaseStateMachine("release3", true);
+		verify(this.stateMachineService, never()).releaseStateMachine("release1", true);
+	}
+
+	@Test
+	public void busyMachinesAreNotEvicted() {
+		when(this.stateMachine.sendEvent(any(Message.class))).thenReturn(true);
+		this.skipperStateMachineService.deleteReleaseAsync("pending");
+		assertThat(this.skipperStateMachineService.evictIdleStateMachines(0, 0)).isEqualTo(0);
+
+		deleteRejected("upgrading");
+		when(this.state.getId()).thenReturn(SkipperStates.UPGRADE_WAIT_TARGET_APPS);
+		assertThat(this.skipperStateMachineService.evictIdleStateMachines(0, 0)).isEqualTo(0);
+
+		// the pending machine is in its initial state while its event is queued
+		when(this.state.getId()).thenReturn(SkipperStates.INITIAL);
+		assertThat(this.skipperStateMachineService.evictStateMachines(releaseName -> releaseName.equals("pending")))
+				.containsExactly("pending");
+		verify(this.stateMachineService, never()).releaseStateMachine(anyString(), anyBoolean());
+		assertThat(this.skipperStateMachineService.getStateMachineCount()).isEqualTo(2);
+	}
+
+	private void deleteRejected(String releaseName) {
+		// the mocked machine doesn't accept events, so the operation fails right away
+		try {
+			this.skipperStateMachineService.deleteReleaseAsync(releaseName);
+		}
+		catch (SkipperException e) {
+			assertThat(e.getMessage()).contains("not in state ready");
+		}
+	}
+}
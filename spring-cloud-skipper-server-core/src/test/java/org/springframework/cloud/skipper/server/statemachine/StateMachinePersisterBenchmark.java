@@ -0,0 +1,133 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.cloud.skipper.server.statemachine;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.jdbc.EmbeddedDataSourceConfiguration;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernateJpaAutoConfiguration;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.cloud.skipper.server.statemachine.SkipperStateMachineService.SkipperEvents;
+import org.springframework.cloud.skipper.server.statemachine.SkipperStateMachineService.SkipperStates;
+import org.springframework.cloud.skipper.server.statemachine.SkipperStateMachineService.SkipperVariables;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.statemachine.StateMachineContext;
+import org.springframework.statemachine.StateMachinePersist;
+import org.springframework.statemachine.boot.autoconfigure.StateMachineJpaRepositoriesAutoConfiguration;
+import org.springframework.statemachine.data.jpa.JpaPersistingStateMachineInterceptor;
+import org.springframework.statemachine.data.jpa.JpaStateMachineRepository;
+import org.springframework.statemachine.support.DefaultExtendedState;
+import org.springframework.statemachine.support.DefaultStateMachineContext;
+
+/**
+ * Install operations per second persisted to H2 by the write-through JPA persister,
+ * against the {@link CheckpointingStateMachineRuntimePersister} with the default
+ * checkpoint states. Each operation writes the contexts of the states an install goes
+ * through. Not run as part of the build, run {@link #main(String[])} from the test
+ * classpath.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class StateMachinePersisterBenchmark {
+
+	private static final int RELEASES = 100;
+
+	@Param({ "writeThrough", "checkpoint" })
+	private String persister;
+
+	private ConfigurableApplicationContext context;
+
+	private StateMachinePersist<SkipperStates, SkipperEvents, String> stateMachinePersist;
+
+	private List<StateMachineContext<SkipperStates, SkipperEvents>> installContexts;
+
+	private int release;
+
+	@Setup
+	public void setup() {
+		this.context = new SpringApplicationBuilder(BenchmarkConfig.class).web(false).run();
+		JpaPersistingStateMachineInterceptor<SkipperStates, SkipperEvents, String> jpaPersister =
+				new JpaPersistingStateMachineInterceptor<>(this.context.getBean(JpaStateMachineRepository.class));
+		this.stateMachinePersist = "checkpoint".equals(this.persister)
+				? new CheckpointingStateMachineRuntimePersister<>(jpaPersister, SkipperStates.INITIAL,
+						Arrays.asList(SkipperStates.UPGRADE_WAIT_TARGET_APPS, SkipperStates.UPGRADE_DELETE_SOURCE_APPS))
+				: jpaPersister;
+		this.installContexts = Arrays.asList(context(SkipperStates.INSTALL, null),
+				context(SkipperStates.INSTALL, SkipperStates.INSTALL_INSTALL),
+				context(SkipperStates.INSTALL, SkipperStates.INSTALL_EXIT),
+				context(SkipperStates.INITIAL, null));
+	}
+
+	@TearDown
+	public void teardown() {
+		this.context.close();
+	}
+
+	@Benchmark
+	public void install() throws Exception {
+		String machineId = "release" + (this.release++ % RELEASES);
+		for (StateMachineContext<SkipperStates, SkipperEvents> installContext : this.installContexts) {
+			this.stateMachinePersist.write(installContext, machineId);
+		}
+	}
+
+	private static StateMachineContext<SkipperStates, SkipperEvents> context(SkipperStates state,
+			SkipperStates substate) {
+		DefaultExtendedState extendedState = new DefaultExtendedState();
+		extendedState.getVariables().put(SkipperVariables.RELEASE, new ReleaseReference("release", 1L, "release", 1));
+		if (substate == null) {
+			return new DefaultStateMachineContext<>(state, null, null, extendedState);
+		}
+		StateMachineContext<SkipperStates, SkipperEvents> child = new DefaultStateMachineContext<>(substate, null,
+				null, extendedState);
+		return new DefaultStateMachineContext<>(Collections.singletonList(child), state, null, null, extendedState);
+	}
+
+	public static void main(String[] args) throws RunnerException {
+		new Runner(new OptionsBuilder().include(StateMachinePersisterBenchmark.class.getSimpleName()).build()).run();
+	}
+
+	@Configuration
+	@ImportAutoConfiguration(classes = { EmbeddedDataSourceConfiguration.class, HibernateJpaAutoConfiguration.class,
+			StateMachineJpaRepositoriesAutoConfiguration.class })
+	static class BenchmarkConfig {
+	}
+}
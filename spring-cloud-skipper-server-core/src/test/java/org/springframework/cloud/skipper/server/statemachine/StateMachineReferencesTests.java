@@ -0,0 +1,115 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.cloud.skipper.server.statemachine;
+
+import java.util.Collections;
+
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import org.springframework.cloud.skipper.SkipperException;
+import org.springframework.cloud.skipper.domain.Release;
+import org.springframework.cloud.skipper.server.deployer.ReleaseAnalysisReport;
+import org.springframework.cloud.skipper.server.deployer.ReleaseDifference;
+import org.springframework.cloud.skipper.server.domain.SpringCloudDeployerApplicationManifestReader;
+import org.springframework.cloud.skipper.server.repository.ReleaseRepository;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyZeroInteractions;
+import static org.mockito.Mockito.when;
+
+/**
+ * Tests for {@link StateMachineReferences}.
+ */
+public class StateMachineReferencesTests {
+
+	private final ReleaseRepository releaseRepository = Mockito.mock(ReleaseRepository.class);
+
+	private final SpringCloudDeployerApplicationManifestReader applicationManifestReader = new SpringCloudDeployerApplicationManifestReader();
+
+	@Test
+	public void cachedObjectsAreResolvedWithoutLoading() {
+		StateMachineReferences references = new StateMachineReferences(this.releaseRepository,
+				this.applicationManifestReader);
+		Release release = release(null, "log", 2);
+		ReleaseAnalysisReport report = new ReleaseAnalysisReport(Collections.singletonList("log"),
+				new ReleaseDifference(false), release(1L, "log", 1), release);
+
+		ReleaseReference releaseReference = references.reference(release);
+		ReleaseAnalysisReportReference reportReference = references.reference(report);
+
+		assertThat(releaseReference.getName()).isEqualTo("log");
+		assertThat(releaseReference.getVersion()).isEqualTo(2);
+		assertThat(reportReference.getExistingRelease().getId()).isEqualTo(1L);
+		assertThat(references.resolve(releaseReference)).isSameAs(release);
+		assertThat(references.resolve(reportReference)).isSameAs(report);
+		assertThat(references.resolve((ReleaseReference) null)).isNull();
+		verifyZeroInteractions(this.releaseRepository);
+	}
+
+	@Test
+	public void evictedObjectsAreLoaded() {
+		Release existing = release(1L, "log", 1);
+		Release replacing = release(2L, "log", 2);
+		replacing.setManifest("\n---\n# Source: log.yml\n"
+				+ "apiVersion: skipper.spring.io/v1\n"
+				+ "kind: SpringCloudDeployerApplication\n"
+				+ "metadata:\n"
+				+ "  name: log\n"
+				+ "  count: 2\n"
+				+ "spec:\n"
+				+ "  resource: maven://org.springframework.cloud.stream.app:log-sink-rabbit\n"
+				+ "  version: 1.2.0.RELEASE\n");
+		ReleaseAnalysisReport report = new ReleaseAnalysisReport(Collections.singletonList("log"),
+				new ReleaseDifference(false), existing, replacing);
+		ReleaseAnalysisReportReference reportReference = new StateMachineReferences().reference(report);
+
+		// references restored from a persisted context after a restart
+		StateMachineReferences references = new StateMachineReferences(this.releaseRepository,
+				this.applicationManifestReader);
+		when(this.releaseRepository.findOne(1L)).thenReturn(existing);
+		when(this.releaseRepository.findOne(2L)).thenReturn(replacing);
+
+		ReleaseAnalysisReport rebuilt = references.resolve(reportReference);
+		assertThat(rebuilt.getApplicationNamesToUpgrade()).containsExactly("log");
+		assertThat(rebuilt.getExistingRelease()).isSameAs(existing);
+		assertThat(rebuilt.getReplacingRelease()).isSameAs(replacing);
+		assertThat(rebuilt.getReplacingManifest().isRenderedFrom(replacing.getManifest())).isTrue();
+		assertThat(rebuilt.getReplacingManifest().getApplicationManifests()).hasSize(1);
+		assertThat(references.resolve(reportReference)).isSameAs(rebuilt);
+		assertThat(references.resolve(reportReference.getReplacingRelease())).isSameAs(replacing);
+		verify(this.releaseRepository, never()).save(any(Release.class));
+	}
+
+	@Test(expected = SkipperException.class)
+	public void unknownReleaseFailsToResolve() {
+		ReleaseReference reference = new StateMachineReferences().reference(release(null, "log", 2));
+		new StateMachineReferences().resolve(reference);
+	}
+
+	private static Release release(Long id, String name, int version) {
+		Release release = new Release();
+		// the id is generated by the database
+		ReflectionTestUtils.setField(release, "id", id);
+		release.setName(name);
+		release.setVersion(version);
+		return release;
+	}
+}
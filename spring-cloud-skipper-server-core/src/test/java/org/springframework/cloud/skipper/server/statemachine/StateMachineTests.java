@@ -311,6 +311,8 @@ public class StateMachineTests {
 		release.setInfo(info);
 		Mockito.when(releaseRepository.findLatestReleaseForUpdate(any())).thenReturn(release);
 		Mockito.when(releaseRepository.findReleaseToRollback(any())).thenReturn(release);
+		Mockito.when(releaseRepository.save(any(Release.class)))
+				.thenAnswer(invocation -> invocation.getArguments()[0]);
 		Mockito.when(releaseService.install(any(Release.class))).thenReturn(release);
 
 
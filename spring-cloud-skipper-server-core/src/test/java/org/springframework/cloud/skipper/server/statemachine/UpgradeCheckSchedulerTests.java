@@ -0,0 +1,143 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.cloud.skipper.server.statemachine;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import org.springframework.cloud.skipper.OperationRejectedException;
+import org.springframework.cloud.skipper.ReleaseNotOwnedException;
+import org.springframework.cloud.skipper.server.service.ReleaseStatusEvent;
+import org.springframework.cloud.skipper.server.statemachine.SkipperStateMachineService.SkipperEvents;
+import org.springframework.cloud.skipper.server.statemachine.SkipperStateMachineService.SkipperStates;
+import org.springframework.cloud.skipper.server.statemachine.SkipperStateMachineService.SkipperVariables;
+import org.springframework.statemachine.ExtendedState;
+import org.springframework.statemachine.StateMachine;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.cloud.skipper.server.statemachine.ReleaseFixtures.release;
+
+/**
+ * Tests for {@link UpgradeCheckScheduler}.
+ */
+@SuppressWarnings("unchecked")
+public class UpgradeCheckSchedulerTests {
+
+	private final SkipperStateMachineService skipperStateMachineService = Mockito.mock(SkipperStateMachineService.class);
+
+	private UpgradeCheckScheduler upgradeCheckScheduler;
+
+	private StateMachine<SkipperStates, SkipperEvents> stateMachine;
+
+	private ExtendedState extendedState;
+
+	@Before
+	public void setup() {
+		this.upgradeCheckScheduler = new UpgradeCheckScheduler(60000, 120000,
+				this.skipperStateMachineService::checkUpgrade);
+		this.stateMachine = Mockito.mock(StateMachine.class);
+		this.extendedState = Mockito.mock(ExtendedState.class);
+		when(this.stateMachine.getId()).thenReturn("log");
+		when(this.stateMachine.getExtendedState()).thenReturn(this.extendedState);
+		ReleaseAnalysisReportReference report = new ReleaseAnalysisReportReference("report",
+				new ReleaseReference("existing", 1L, "log", 1), new ReleaseReference("replacing", 2L, "log", 2));
+		when(this.extendedState.get(SkipperVariables.RELEASE_ANALYSIS_REPORT, ReleaseAnalysisReportReference.class))
+				.thenReturn(report);
+	}
+
+	@After
+	public void teardown() {
+		this.upgradeCheckScheduler.destroy();
+	}
+
+	@Test
+	public void checkIsDelayedUntilTriggered() {
+		this.upgradeCheckScheduler.schedule(this.stateMachine);
+		assertThat(this.upgradeCheckScheduler.getPendingCheckCount()).isEqualTo(1);
+		verify(this.skipperStateMachineService, never()).checkUpgrade(this.stateMachine);
+
+		assertThat(this.upgradeCheckScheduler.checkNow("log")).isTrue();
+		verify(this.skipperStateMachineService, timeout(5000)).checkUpgrade(this.stateMachine);
+		assertThat(this.upgradeCheckScheduler.getPendingCheckCount()).isEqualTo(0);
+		assertThat(this.upgradeCheckScheduler.checkNow("log")).isFalse();
+	}
+
+	@Test
+	public void checkRunsRightAwayWhenUpgradeIsDecided() {
+		when(this.extendedState.get(SkipperVariables.UPGRADE_STATUS, Integer.class)).thenReturn(1);
+		this.upgradeCheckScheduler.schedule(this.stateMachine);
+		verify(this.skipperStateMachineService, timeout(5000)).checkUpgrade(this.stateMachine);
+	}
+
+	@Test
+	public void statusOfReplacingReleaseTriggersCheck() {
+		this.upgradeCheckScheduler.schedule(this.stateMachine);
+		this.upgradeCheckScheduler.onApplicationEvent(new ReleaseStatusEvent(release("log", 1)));
+		this.upgradeCheckScheduler.onApplicationEvent(new ReleaseStatusEvent(release("time", 2)));
+		assertThat(this.upgradeCheckScheduler.getPendingCheckCount()).isEqualTo(1);
+
+		this.upgradeCheckScheduler.onApplicationEvent(new ReleaseStatusEvent(release("log", 2)));
+		verify(this.skipperStateMachineService, timeout(5000)).checkUpgrade(this.stateMachine);
+	}
+
+	@Test
+	public void cancelledCheckIsNotRun() {
+		this.upgradeCheckScheduler.schedule(this.stateMachine);
+		this.upgradeCheckScheduler.cancel("log");
+		assertThat(this.upgradeCheckScheduler.getPendingCheckCount()).isEqualTo(0);
+		assertThat(this.upgradeCheckScheduler.checkNow("log")).isFalse();
+		verify(this.skipperStateMachineService, never()).checkUpgrade(this.stateMachine);
+	}
+
+	@Test
+	public void rejectedCheckIsRetried() {
+		this.upgradeCheckScheduler.destroy();
+		this.upgradeCheckScheduler = new UpgradeCheckScheduler(10, 10, this.skipperStateMachineService::checkUpgrade);
+		doThrow(new OperationRejectedException("Executor is saturated")).doNothing()
+				.when(this.skipperStateMachineService).checkUpgrade(this.stateMachine);
+
+		this.upgradeCheckScheduler.schedule(this.stateMachine);
+		verify(this.skipperStateMachineService, timeout(5000).times(2)).checkUpgrade(this.stateMachine);
+	}
+
+	@Test
+	public void checkOfReleaseOwnedByAnotherNodeIsDropped() {
+		doThrow(new ReleaseNotOwnedException("log", "http://node2:7577"))
+				.when(this.skipperStateMachineService).checkUpgrade(this.stateMachine);
+		StateMachine<SkipperStates, SkipperEvents> other = Mockito.mock(StateMachine.class);
+		ExtendedState otherExtendedState = Mockito.mock(ExtendedState.class);
+		when(other.getId()).thenReturn("time");
+		when(other.getExtendedState()).thenReturn(otherExtendedState);
+		when(otherExtendedState.get(SkipperVariables.UPGRADE_STATUS, Integer.class)).thenReturn(1);
+
+		this.upgradeCheckScheduler.schedule(this.stateMachine);
+		assertThat(this.upgradeCheckScheduler.checkNow("log")).isTrue();
+		// checks run one after the other, the rejected check is done once the next one runs
+		this.upgradeCheckScheduler.schedule(other);
+		verify(this.skipperStateMachineService, timeout(5000)).checkUpgrade(other);
+
+		assertThat(this.upgradeCheckScheduler.getPendingCheckCount()).isEqualTo(0);
+		verify(this.skipperStateMachineService, times(1)).checkUpgrade(this.stateMachine);
+	}
+}
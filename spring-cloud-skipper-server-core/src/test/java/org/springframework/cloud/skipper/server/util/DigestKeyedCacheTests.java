@@ -0,0 +1,78 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.cloud.skipper.server.util;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.fail;
+
+/**
+ * Tests for {@link DigestKeyedCache}.
+ */
+public class DigestKeyedCacheTests {
+
+	private final AtomicInteger parsed = new AtomicInteger();
+
+	@Test
+	public void identicalTextIsParsedOnce() {
+		DigestKeyedCache<String> cache = new DigestKeyedCache<>(2);
+		String value = cache.get("name: log", this::parse);
+
+		assertThat(cache.get(new String("name: log"), this::parse)).isSameAs(value);
+		assertThat(cache.get("name: time", this::parse)).isEqualTo("NAME: TIME");
+		assertThat(this.parsed.get()).isEqualTo(2);
+		assertThat(cache.size()).isEqualTo(2);
+	}
+
+	@Test
+	public void cacheIsBounded() {
+		DigestKeyedCache<String> cache = new DigestKeyedCache<>(2);
+		for (int i = 0; i < 10; i++) {
+			cache.get("name: log-" + i, this::parse);
+		}
+		assertThat(cache.size()).isLessThanOrEqualTo(2);
+	}
+
+	@Test
+	public void failedParsesAreNotCached() {
+		DigestKeyedCache<String> cache = new DigestKeyedCache<>(2);
+		try {
+			cache.get("name: log", text -> {
+				throw new IllegalArgumentException("Invalid " + text);
+			});
+			fail("Expected the parser exception to be propagated");
+		}
+		catch (IllegalArgumentException e) {
+			assertThat(e.getMessage()).isEqualTo("Invalid name: log");
+		}
+		assertThat(cache.size()).isEqualTo(0);
+		assertThat(cache.get("name: log", this::parse)).isEqualTo("NAME: LOG");
+	}
+
+	@Test
+	public void digestIsLowerCaseHex() {
+		assertThat(Sha256Digests.digest("abc"))
+				.isEqualTo("ba7816bf8f01cfea414140de5dae2223b00361a396177a9cb410ff61f20015ad");
+	}
+
+	private String parse(String text) {
+		this.parsed.incrementAndGet();
+		return text.toUpperCase();
+	}
+}
@@ -0,0 +1,173 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.cloud.skipper.shell.command;
+
+import java.util.List;
+
+import javax.validation.constraints.NotNull;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cloud.skipper.client.SkipperClient;
+import org.springframework.cloud.skipper.domain.Operation;
+import org.springframework.cloud.skipper.domain.Rollout;
+import org.springframework.cloud.skipper.domain.RolloutItem;
+import org.springframework.cloud.skipper.domain.RolloutRequest;
+import org.springframework.cloud.skipper.domain.RolloutState;
+import org.springframework.cloud.skipper.shell.command.support.TableUtils;
+import org.springframework.http.HttpStatus;
+import org.springframework.shell.standard.ShellComponent;
+import org.springframework.shell.standard.ShellMethod;
+import org.springframework.shell.standard.ShellOption;
+import org.springframework.shell.table.ArrayTableModel;
+import org.springframework.shell.table.Table;
+import org.springframework.shell.table.TableBuilder;
+import org.springframework.util.StringUtils;
+import org.springframework.web.client.HttpStatusCodeException;
+
+import static org.springframework.shell.standard.ShellOption.NULL;
+
+/**
+ * Commands to upgrade all releases of a package in waves.
+ */
+@ShellComponent
+public class RolloutCommands extends AbstractSkipperCommand {
+
+	@Autowired
+	public RolloutCommands(SkipperClient skipperClient) {
+		this.skipperClient = skipperClient;
+	}
+
+	@ShellMethod(key = "rollout start", value = "Upgrade all deployed releases of a package in waves.")
+	public String start(
+			@ShellOption(help = "the name of the package whose releases are upgraded") @NotNull String packageName,
+			@ShellOption(help = "the version to upgrade to, if not specified latest version will be used", defaultValue = NULL) String packageVersion,
+			@ShellOption(help = "the number of releases upgraded in a wave", defaultValue = "5") int waveSize,
+			@ShellOption(help = "the maximum number of releases of a wave upgraded at the same time, "
+					+ "defaults to the wave size", defaultValue = NULL) Integer parallelism,
+			@ShellOption(help = "the rate of failed upgrades of a wave, between 0 and 1, above which the "
+					+ "rollout stops", defaultValue = "0") double maxFailureRate,
+			@ShellOption(help = "abort instead of pausing the rollout when a wave exceeds the failure rate") boolean abortOnFailure) {
+		RolloutRequest rolloutRequest = new RolloutRequest();
+		rolloutRequest.setPackageName(packageName);
+		rolloutRequest.setPackageVersion(packageVersion);
+		rolloutRequest.setWaveSize(waveSize);
+		rolloutRequest.setParallelism(parallelism);
+		rolloutRequest.setMaxFailureRate(maxFailureRate);
+		rolloutRequest.setAbortOnFailure(abortOnFailure);
+		return summary(this.skipperClient.rollout(rolloutRequest));
+	}
+
+	@ShellMethod(key = "rollout status", value = "Show the progress of the releases of a rollout.")
+	public Object status(@ShellOption(help = "the rollout id") @NotNull String id) {
+		Rollout rollout;
+		try {
+			rollout = this.skipperClient.getRollout(id);
+		}
+		catch (HttpStatusCodeException e) {
+			return notFound(id, e);
+		}
+		List<RolloutItem> items = rollout.getItems();
+		Object[][] data = new Object[items.size() + 1][];
+		data[0] = new Object[] { "Release Name", "Wave", "From Version", "Applications", "State", "Message" };
+		for (int i = 0; i < items.size(); i++) {
+			RolloutItem item = items.get(i);
+			Operation operation = item.getOperation();
+			data[i + 1] = new Object[] { item.getReleaseName(), item.getWave(), item.getPackageVersion(),
+					StringUtils.collectionToCommaDelimitedString(item.getApplicationNames()),
+					operation != null ? operation.getState().name() : itemState(rollout, item),
+					operation != null ? operation.getMessage() : null };
+		}
+		TableBuilder tableBuilder = new TableBuilder(new ArrayTableModel(data));
+		TableUtils.applyStyle(tableBuilder);
+		return tableBuilder.build();
+	}
+
+	@ShellMethod(key = "rollout list", value = "List the rollouts.")
+	public Table list() {
+		List<Rollout> rollouts = this.skipperClient.listRollouts();
+		Object[][] data = new Object[rollouts.size() + 1][];
+		data[0] = new Object[] { "Id", "Package Name", "Version", "State", "Wave", "Message" };
+		for (int i = 0; i < rollouts.size(); i++) {
+			Rollout rollout = rollouts.get(i);
+			data[i + 1] = new Object[] { rollout.getId(), rollout.getPackageName(), rollout.getPackageVersion(),
+					rollout.getState().name(), rollout.getCurrentWave() + "/" + rollout.getWaveCount(),
+					rollout.getMessage() };
+		}
+		TableBuilder tableBuilder = new TableBuilder(new ArrayTableModel(data));
+		TableUtils.applyStyle(tableBuilder);
+		return tableBuilder.build();
+	}
+
+	@ShellMethod(key = "rollout resume", value = "Resume a paused rollout.")
+	public String resume(@ShellOption(help = "the rollout id") @NotNull String id) {
+		try {
+			return summary(this.skipperClient.resumeRollout(id));
+		}
+		catch (HttpStatusCodeException e) {
+			return notFound(id, e);
+		}
+	}
+
+	@ShellMethod(key = "rollout abort", value = "Abort a rollout once its current wave is done.")
+	public String abort(@ShellOption(help = "the rollout id") @NotNull String id) {
+		try {
+			return summary(this.skipperClient.abortRollout(id));
+		}
+		catch (HttpStatusCodeException e) {
+			return notFound(id, e);
+		}
+	}
+
+	private String summary(Rollout rollout) {
+		StringBuilder sb = new StringBuilder();
+		sb.append("Rollout " + rollout.getId() + " of package " + rollout.getPackageName() + " to version "
+				+ rollout.getPackageVersion() + " is " + rollout.getState().name().toLowerCase());
+		if (rollout.getWaveCount() > 0) {
+			sb.append(", wave " + rollout.getCurrentWave() + " of " + rollout.getWaveCount());
+		}
+		sb.append(".");
+		if (StringUtils.hasText(rollout.getMessage())) {
+			sb.append(" " + rollout.getMessage() + ".");
+		}
+		if (!rollout.getUpToDateReleases().isEmpty()) {
+			sb.append("\nUp to date releases: "
+					+ StringUtils.collectionToCommaDelimitedString(rollout.getUpToDateReleases()));
+		}
+		if (!rollout.getSkippedReleases().isEmpty()) {
+			sb.append("\nSkipped failed releases: "
+					+ StringUtils.collectionToCommaDelimitedString(rollout.getSkippedReleases()));
+		}
+		return sb.toString();
+	}
+
+	private String itemState(Rollout rollout, RolloutItem item) {
+		String state = "WAITING";
+		if (rollout.getState() == RolloutState.ABORTED) {
+			state = "SKIPPED";
+		}
+		else if (rollout.getState() == RolloutState.RUNNING && item.getWave() == rollout.getCurrentWave()) {
+			state = "UPGRADING";
+		}
+		return state;
+	}
+
+	private String notFound(String id, HttpStatusCodeException e) {
+		if (e.getStatusCode() == HttpStatus.NOT_FOUND) {
+			return "Rollout with id '" + id + "' not found";
+		}
+		throw e;
+	}
+}
@@ -38,19 +38,24 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.cloud.deployer.spi.app.DeploymentState;
 import org.springframework.cloud.skipper.ReleaseNotFoundException;
 import org.springframework.cloud.skipper.client.SkipperClient;
+import org.springframework.cloud.skipper.domain.BatchRequest;
 import org.springframework.cloud.skipper.domain.ConfigValues;
 import org.springframework.cloud.skipper.domain.Info;
 import org.springframework.cloud.skipper.domain.InstallProperties;
 import org.springframework.cloud.skipper.domain.InstallRequest;
+import org.springframework.cloud.skipper.domain.Operation;
 import org.springframework.cloud.skipper.domain.PackageIdentifier;
 import org.springframework.cloud.skipper.domain.PackageMetadata;
+import org.springframework.cloud.skipper.domain.PackageSearchResult;
 import org.springframework.cloud.skipper.domain.Release;
 import org.springframework.cloud.skipper.domain.UpgradeProperties;
 import org.springframework.cloud.skipper.domain.UpgradeRequest;
 import org.springframework.cloud.skipper.domain.UploadRequest;
+import org.springframework.cloud.skipper.shell.command.support.BatchFileUtils;
 import org.springframework.cloud.skipper.shell.command.support.DeploymentStateDisplay;
 import org.springframework.cloud.skipper.shell.command.support.TableUtils;
 import org.springframework.cloud.skipper.shell.command.support.YmlUtils;
+import org.springframework.hateoas.PagedResources;
 import org.springframework.hateoas.Resources;
 import org.springframework.shell.standard.ShellComponent;
 import org.springframework.shell.standard.ShellMethod;
@@ -76,6 +81,8 @@ public class SkipperCommands extends AbstractSkipperCommand {
 
 	private static final Logger logger = LoggerFactory.getLogger(SkipperCommands.class);
 
+	private static final int SEARCH_PAGE_SIZE = 100;
+
 	@Autowired
 	public SkipperCommands(SkipperClient skipperClient) {
 		this.skipperClient = skipperClient;
@@ -136,21 +143,31 @@ public class SkipperCommands extends AbstractSkipperCommand {
 
 	@ShellMethod(key = "search", value = "Search for the packages.")
 	public Object search(
-			@ShellOption(help = "wildcard expression to search for the package name", defaultValue = NULL) String name,
+			@ShellOption(help = "terms to search for in the package name, description, tags and maintainer, "
+					+ "only the package name is matched for detailed package metadata", defaultValue = NULL) String name,
 			@ShellOption(help = "boolean to set for more detailed package metadata") boolean details)
 			throws Exception {
-		Resources<PackageMetadata> resources = skipperClient.search(name, details);
 		if (!details) {
+			List<PackageSearchResult> results = new ArrayList<>();
+			PagedResources<PackageSearchResult> page;
+			int pageNumber = 0;
+			do {
+				page = skipperClient.search(name, pageNumber++, SEARCH_PAGE_SIZE);
+				results.addAll(page.getContent());
+			}
+			while (page.getMetadata() != null && pageNumber < page.getMetadata().getTotalPages());
 			LinkedHashMap<String, Object> headers = new LinkedHashMap<>();
 			headers.put("name", "Name");
-			headers.put("version", "Version");
+			headers.put("latestVersion", "Version");
+			headers.put("versions", "All Versions");
 			headers.put("description", "Description");
-			TableModel model = new BeanListTableModel<>(resources.getContent(), headers);
+			TableModel model = new BeanListTableModel<>(results, headers);
 			TableBuilder tableBuilder = new TableBuilder(model);
 			TableUtils.applyStyle(tableBuilder);
 			return tableBuilder.build();
 		}
 		else {
+			Resources<PackageMetadata> resources = skipperClient.search(name, details);
 			ObjectMapper mapper = new ObjectMapper();
 			mapper.configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
 			PackageMetadata[] packageMetadataResources = resources.getContent().toArray(new PackageMetadata[0]);
@@ -300,6 +317,31 @@ public class SkipperCommands extends AbstractSkipperCommand {
 		return sb.toString();
 	}
 
+	@ShellMethod(key = "batch", value = "Install, upgrade and delete the releases listed in a YAML batch file.")
+	public Table batch(
+			@ShellOption(help = "the YAML batch file") File file,
+			@ShellOption(help = "the maximum number of operations running at the same time, "
+					+ "overrides the parallelism of the batch file", defaultValue = NULL) Integer parallelism)
+			throws IOException {
+		BatchRequest batchRequest = BatchFileUtils.getBatchRequest(file);
+		if (parallelism != null) {
+			batchRequest.setParallelism(parallelism);
+		}
+		List<Operation> operations = this.skipperClient.batch(batchRequest);
+		Object[][] data = new Object[operations.size() + 1][];
+		data[0] = new Object[] { "Release Name", "Operation", "State", "Version", "Message" };
+		for (int i = 0; i < operations.size(); i++) {
+			Operation operation = operations.get(i);
+			// failed operations have no release
+			Release release = operation.getRelease();
+			data[i + 1] = new Object[] { operation.getReleaseName(), operation.getType(), operation.getState(),
+					release != null ? release.getVersion() : null, operation.getMessage() };
+		}
+		TableBuilder tableBuilder = new TableBuilder(new ArrayTableModel(data));
+		TableUtils.applyStyle(tableBuilder);
+		return tableBuilder.build();
+	}
+
 	@ShellMethod(key = "upload", value = "Upload a package.")
 	public String upload(@ShellOption(help = "the package to be uploaded") String path,
 			@ShellOption(help = "the local repository name to upload to", defaultValue = NULL) String repoName) {
@@ -0,0 +1,158 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.cloud.skipper.shell.command.support;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+import java.util.Map;
+
+import org.yaml.snakeyaml.Yaml;
+
+import org.springframework.cloud.skipper.SkipperException;
+import org.springframework.cloud.skipper.domain.BatchOperationRequest;
+import org.springframework.cloud.skipper.domain.BatchRequest;
+import org.springframework.cloud.skipper.domain.ConfigValues;
+import org.springframework.cloud.skipper.domain.InstallProperties;
+import org.springframework.cloud.skipper.domain.InstallRequest;
+import org.springframework.cloud.skipper.domain.PackageIdentifier;
+import org.springframework.cloud.skipper.domain.UpgradeProperties;
+import org.springframework.cloud.skipper.domain.UpgradeRequest;
+import org.springframework.util.StringUtils;
+
+/**
+ * Utility for reading a {@link BatchRequest} from a YAML batch file of the form
+ *
+ * <pre>
+ * parallelism: 4
+ * operations:
+ * - type: install
+ *   releaseName: log1
+ *   packageName: log
+ *   packageVersion: 1.0.0
+ *   platformName: default
+ *   values:
+ *     spec:
+ *       applicationProperties:
+ *         log.level: DEBUG
+ * - type: upgrade
+ *   releaseName: log2
+ *   packageName: log
+ *   properties: spec.applicationProperties.log.level=INFO
+ * - type: delete
+ *   releaseName: log3
+ * </pre>
+ *
+ * Values of an operation are either given as YAML or as comma separated properties.
+ */
+public abstract class BatchFileUtils {
+
+	public static BatchRequest getBatchRequest(File batchFile) throws IOException {
+		try (InputStream inputStream = new FileInputStream(batchFile)) {
+			return getBatchRequest(inputStream);
+		}
+		catch (FileNotFoundException e) {
+			throw new SkipperException("Could not find file " + batchFile.toString());
+		}
+	}
+
+	@SuppressWarnings("unchecked")
+	public static BatchRequest getBatchRequest(InputStream inputStream) throws IOException {
+		Object batch = new Yaml().load(inputStream);
+		if (!(batch instanceof Map) || !(((Map<String, Object>) batch).get("operations") instanceof List)) {
+			throw new SkipperException("The batch file must contain a list of operations");
+		}
+		Map<String, Object> batchMap = (Map<String, Object>) batch;
+		BatchRequest batchRequest = new BatchRequest();
+		if (batchMap.get("parallelism") != null) {
+			batchRequest.setParallelism(Integer.valueOf(batchMap.get("parallelism").toString()));
+		}
+		for (Object operation : (List<Object>) batchMap.get("operations")) {
+			if (!(operation instanceof Map)) {
+				throw new SkipperException("Invalid batch operation " + operation);
+			}
+			batchRequest.getOperations().add(getBatchOperationRequest((Map<String, Object>) operation));
+		}
+		return batchRequest;
+	}
+
+	private static BatchOperationRequest getBatchOperationRequest(Map<String, Object> operation) throws IOException {
+		String type = getString(operation, "type");
+		String releaseName = getString(operation, "releaseName");
+		if (!StringUtils.hasText(releaseName)) {
+			throw new SkipperException("Batch operation " + operation + " has no releaseName");
+		}
+		if (BatchOperationRequest.INSTALL.equals(type)) {
+			InstallProperties installProperties = new InstallProperties();
+			installProperties.setReleaseName(releaseName);
+			String platformName = getString(operation, "platformName");
+			installProperties.setPlatformName(platformName != null ? platformName : "default");
+			installProperties.setConfigValues(getConfigValues(operation));
+			InstallRequest installRequest = new InstallRequest();
+			installRequest.setInstallProperties(installProperties);
+			installRequest.setPackageIdentifier(getPackageIdentifier(operation));
+			return BatchOperationRequest.install(installRequest);
+		}
+		else if (BatchOperationRequest.UPGRADE.equals(type)) {
+			UpgradeProperties upgradeProperties = new UpgradeProperties();
+			upgradeProperties.setReleaseName(releaseName);
+			upgradeProperties.setConfigValues(getConfigValues(operation));
+			UpgradeRequest upgradeRequest = new UpgradeRequest();
+			upgradeRequest.setUpgradeProperties(upgradeProperties);
+			upgradeRequest.setPackageIdentifier(getPackageIdentifier(operation));
+			return BatchOperationRequest.upgrade(upgradeRequest);
+		}
+		else if (BatchOperationRequest.DELETE.equals(type)) {
+			return BatchOperationRequest.delete(releaseName);
+		}
+		throw new SkipperException("Batch operation " + operation + " must be of type install, upgrade or delete");
+	}
+
+	private static PackageIdentifier getPackageIdentifier(Map<String, Object> operation) {
+		String packageName = getString(operation, "packageName");
+		if (!StringUtils.hasText(packageName)) {
+			throw new SkipperException("Batch operation " + operation + " has no packageName");
+		}
+		PackageIdentifier packageIdentifier = new PackageIdentifier();
+		packageIdentifier.setPackageName(packageName);
+		packageIdentifier.setPackageVersion(getString(operation, "packageVersion"));
+		return packageIdentifier;
+	}
+
+	private static ConfigValues getConfigValues(Map<String, Object> operation) throws IOException {
+		String configValuesYML = null;
+		if (operation.get("values") != null) {
+			configValuesYML = new Yaml().dump(operation.get("values"));
+		}
+		else if (operation.get("properties") != null) {
+			configValuesYML = YmlUtils.getYamlConfigValues(null, getString(operation, "properties"));
+		}
+		if (!StringUtils.hasText(configValuesYML)) {
+			return null;
+		}
+		ConfigValues configValues = new ConfigValues();
+		configValues.setRaw(configValuesYML);
+		return configValues;
+	}
+
+	private static String getString(Map<String, Object> operation, String key) {
+		Object value = operation.get(key);
+		return value != null ? value.toString() : null;
+	}
+}
@@ -0,0 +1,89 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.cloud.skipper.shell.command;
+
+import java.io.File;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.util.Arrays;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.mockito.Mockito;
+
+import org.springframework.cloud.skipper.client.SkipperClient;
+import org.springframework.cloud.skipper.domain.BatchRequest;
+import org.springframework.cloud.skipper.domain.Operation;
+import org.springframework.cloud.skipper.domain.OperationState;
+import org.springframework.cloud.skipper.domain.Release;
+import org.springframework.shell.table.Table;
+import org.springframework.shell.table.TableModel;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.when;
+
+/**
+ * Tests for {@link SkipperCommands}.
+ */
+public class SkipperCommandsTests {
+
+	@Rule
+	public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+	private final SkipperClient skipperClient = Mockito.mock(SkipperClient.class);
+
+	private final SkipperCommands skipperCommands = new SkipperCommands(this.skipperClient);
+
+	@Test
+	public void batchListsFailedOperationsWithoutVersion() throws Exception {
+		File file = this.temporaryFolder.newFile("batch.yml");
+		Files.write(file.toPath(), ("operations:\n"
+				+ "- type: delete\n"
+				+ "  releaseName: log1\n"
+				+ "- type: delete\n"
+				+ "  releaseName: log2\n").getBytes(Charset.forName("UTF-8")));
+		Release release = new Release();
+		release.setName("log1");
+		release.setVersion(2);
+		when(this.skipperClient.batch(any(BatchRequest.class))).thenReturn(Arrays.asList(
+				operation("log1", OperationState.COMPLETED, release, null),
+				operation("log2", OperationState.FAILED, null, "Release 'log2' not found")));
+
+		Table table = this.skipperCommands.batch(file, 1);
+
+		TableModel model = table.getModel();
+		assertThat(model.getRowCount()).isEqualTo(3);
+		assertThat(model.getValue(1, 0)).isEqualTo("log1");
+		assertThat(model.getValue(1, 2)).isEqualTo(OperationState.COMPLETED);
+		assertThat(model.getValue(1, 3)).isEqualTo(2);
+		assertThat(model.getValue(2, 0)).isEqualTo("log2");
+		assertThat(model.getValue(2, 2)).isEqualTo(OperationState.FAILED);
+		assertThat(model.getValue(2, 3)).isNull();
+		assertThat(model.getValue(2, 4)).isEqualTo("Release 'log2' not found");
+	}
+
+	private static Operation operation(String releaseName, OperationState state, Release release, String message) {
+		Operation operation = new Operation();
+		operation.setType("delete");
+		operation.setReleaseName(releaseName);
+		operation.setState(state);
+		operation.setRelease(release);
+		operation.setMessage(message);
+		return operation;
+	}
+}
@@ -0,0 +1,65 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.cloud.skipper.shell.command.support;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.Charset;
+
+import org.junit.Test;
+
+import org.springframework.cloud.skipper.SkipperException;
+import org.springframework.cloud.skipper.domain.BatchOperationRequest;
+import org.springframework.cloud.skipper.domain.BatchRequest;
+import org.springframework.core.io.ClassPathResource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests for {@link BatchFileUtils}.
+ */
+public class BatchFileUtilsTests {
+
+	@Test
+	public void readBatchFile() throws IOException {
+		BatchRequest batchRequest = BatchFileUtils.getBatchRequest(new ClassPathResource(
+				"/org/springframework/cloud/skipper/shell/command/support/batch.yml").getInputStream());
+		assertThat(batchRequest.getParallelism()).isEqualTo(4);
+		assertThat(batchRequest.getOperations()).extracting(BatchOperationRequest::getType)
+				.containsExactly("install", "upgrade", "delete");
+
+		BatchOperationRequest install = batchRequest.getOperations().get(0);
+		assertThat(install.getInstallRequest().getInstallProperties().getReleaseName()).isEqualTo("log1");
+		assertThat(install.getInstallRequest().getInstallProperties().getPlatformName()).isEqualTo("default");
+		assertThat(install.getInstallRequest().getPackageIdentifier().getPackageVersion()).isEqualTo("1.0.0");
+		assertThat(install.getInstallRequest().getInstallProperties().getConfigValues().getRaw())
+				.contains("log.level: DEBUG");
+
+		BatchOperationRequest upgrade = batchRequest.getOperations().get(1);
+		assertThat(upgrade.getUpgradeRequest().getUpgradeProperties().getReleaseName()).isEqualTo("log2");
+		assertThat(upgrade.getUpgradeRequest().getPackageIdentifier().getPackageVersion()).isNull();
+		assertThat(upgrade.getUpgradeRequest().getUpgradeProperties().getConfigValues().getRaw())
+				.contains("log.level: INFO");
+
+		assertThat(batchRequest.getOperations().get(2).getReleaseName()).isEqualTo("log3");
+	}
+
+	@Test(expected = SkipperException.class)
+	public void unknownOperationTypeIsRejected() throws IOException {
+		String batch = "operations:\n- type: rollback\n  releaseName: log1\n";
+		BatchFileUtils.getBatchRequest(new ByteArrayInputStream(batch.getBytes(Charset.forName("UTF-8"))));
+	}
+}
@@ -0,0 +1,43 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.cloud.skipper;
+
+/**
+ * Exception thrown when the server has no capacity left to handle a release operation.
+ * The operation was not started and can be retried later.
+ */
+@SuppressWarnings("serial")
+public class OperationRejectedException extends SkipperException {
+
+	/**
+	 * Instantiates a new {@code OperationRejectedException}.
+	 *
+	 * @param message the message
+	 */
+	public OperationRejectedException(String message) {
+		super(message);
+	}
+
+	/**
+	 * Instantiates a new {@code OperationRejectedException}.
+	 *
+	 * @param message the message
+	 * @param cause the cause
+	 */
+	public OperationRejectedException(String message, Throwable cause) {
+		super(message, cause);
+	}
+}
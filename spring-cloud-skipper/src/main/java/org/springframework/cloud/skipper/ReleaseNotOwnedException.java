@@ -0,0 +1,51 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.cloud.skipper;
+
+/**
+ * Exception thrown by a node of a Skipper cluster for an operation of a release whose
+ * state machine is handled by another node. The operation was not started and can be
+ * retried against the owning node or once ownership has settled.
+ */
+@SuppressWarnings("serial")
+public class ReleaseNotOwnedException extends OperationRejectedException {
+
+	private final String releaseName;
+
+	private final String ownerUrl;
+
+	/**
+	 * Instantiates a new {@code ReleaseNotOwnedException}.
+	 *
+	 * @param releaseName the release name
+	 * @param ownerUrl the url of the owning node, {@literal null} if no node holds the
+	 * release right now
+	 */
+	public ReleaseNotOwnedException(String releaseName, String ownerUrl) {
+		super(ownerUrl != null ? String.format("Release '%s' is handled by the node at %s", releaseName, ownerUrl)
+				: String.format("Release '%s' is currently not handled by any node, retry later", releaseName));
+		this.releaseName = releaseName;
+		this.ownerUrl = ownerUrl;
+	}
+
+	public String getReleaseName() {
+		return releaseName;
+	}
+
+	public String getOwnerUrl() {
+		return ownerUrl;
+	}
+}
@@ -0,0 +1,126 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.cloud.skipper.domain;
+
+/**
+ * A single operation of a {@link BatchRequest}. Depending on the type, either the
+ * install request, the upgrade request or the release name to delete is set.
+ */
+public class BatchOperationRequest {
+
+	/**
+	 * Type of the install operation.
+	 */
+	public static final String INSTALL = "install";
+
+	/**
+	 * Type of the upgrade operation.
+	 */
+	public static final String UPGRADE = "upgrade";
+
+	/**
+	 * Type of the delete operation.
+	 */
+	public static final String DELETE = "delete";
+
+	/**
+	 * The kind of operation, one of install, upgrade or delete.
+	 */
+	private String type;
+
+	private InstallRequest installRequest;
+
+	private UpgradeRequest upgradeRequest;
+
+	/**
+	 * The name of the release to delete.
+	 */
+	private String releaseName;
+
+	public BatchOperationRequest() {
+	}
+
+	public String getType() {
+		return type;
+	}
+
+	public void setType(String type) {
+		this.type = type;
+	}
+
+	public InstallRequest getInstallRequest() {
+		return installRequest;
+	}
+
+	public void setInstallRequest(InstallRequest installRequest) {
+		this.installRequest = installRequest;
+	}
+
+	public UpgradeRequest getUpgradeRequest() {
+		return upgradeRequest;
+	}
+
+	public void setUpgradeRequest(UpgradeRequest upgradeRequest) {
+		this.upgradeRequest = upgradeRequest;
+	}
+
+	public String getReleaseName() {
+		return releaseName;
+	}
+
+	public void setReleaseName(String releaseName) {
+		this.releaseName = releaseName;
+	}
+
+	/**
+	 * Create a request installing a release.
+	 *
+	 * @param installRequest the install request
+	 * @return the batch operation request
+	 */
+	public static BatchOperationRequest install(InstallRequest installRequest) {
+		BatchOperationRequest request = new BatchOperationRequest();
+		request.setType(INSTALL);
+		request.setInstallRequest(installRequest);
+		return request;
+	}
+
+	/**
+	 * Create a request upgrading a release.
+	 *
+	 * @param upgradeRequest the upgrade request
+	 * @return the batch operation request
+	 */
+	public static BatchOperationRequest upgrade(UpgradeRequest upgradeRequest) {
+		BatchOperationRequest request = new BatchOperationRequest();
+		request.setType(UPGRADE);
+		request.setUpgradeRequest(upgradeRequest);
+		return request;
+	}
+
+	/**
+	 * Create a request deleting a release.
+	 *
+	 * @param releaseName the name of the release to delete
+	 * @return the batch operation request
+	 */
+	public static BatchOperationRequest delete(String releaseName) {
+		BatchOperationRequest request = new BatchOperationRequest();
+		request.setType(DELETE);
+		request.setReleaseName(releaseName);
+		return request;
+	}
+}
@@ -0,0 +1,50 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.cloud.skipper.domain;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A batch of install, upgrade and delete operations handled concurrently by the server.
+ * Every operation of a batch must be on a different release.
+ */
+public class BatchRequest {
+
+	/**
+	 * The maximum number of operations of the batch running at the same time, capped by
+	 * the server. The server maximum is used if not set.
+	 */
+	private Integer parallelism;
+
+	private List<BatchOperationRequest> operations = new ArrayList<>();
+
+	public Integer getParallelism() {
+		return parallelism;
+	}
+
+	public void setParallelism(Integer parallelism) {
+		this.parallelism = parallelism;
+	}
+
+	public List<BatchOperationRequest> getOperations() {
+		return operations;
+	}
+
+	public void setOperations(List<BatchOperationRequest> operations) {
+		this.operations = operations;
+	}
+}
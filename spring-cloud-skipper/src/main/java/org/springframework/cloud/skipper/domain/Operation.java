@@ -0,0 +1,150 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.cloud.skipper.domain;
+
+import java.util.Date;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+/**
+ * An install, upgrade, delete or rollback of a release that is handled asynchronously by
+ * the server. Clients poll the operation until it is no longer
+ * {@link OperationState#PENDING} to get the resulting release.
+ */
+public class Operation {
+
+	/**
+	 * The id of the operation.
+	 */
+	private String id;
+
+	/**
+	 * The kind of operation, e.g. install, upgrade, delete or rollback.
+	 */
+	private String type;
+
+	/**
+	 * The name of the release the operation is handling.
+	 */
+	private String releaseName;
+
+	private OperationState state = OperationState.PENDING;
+
+	/**
+	 * The last state entered by the state machine handling the release.
+	 */
+	private String machineState;
+
+	/**
+	 * Description of the failure if the operation failed.
+	 */
+	private String message;
+
+	private Date created;
+
+	private Date lastUpdated;
+
+	/**
+	 * The resulting release once the operation has completed.
+	 */
+	private Release release;
+
+	public Operation() {
+	}
+
+	public String getId() {
+		return id;
+	}
+
+	public void setId(String id) {
+		this.id = id;
+	}
+
+	public String getType() {
+		return type;
+	}
+
+	public void setType(String type) {
+		this.type = type;
+	}
+
+	public String getReleaseName() {
+		return releaseName;
+	}
+
+	public void setReleaseName(String releaseName) {
+		this.releaseName = releaseName;
+	}
+
+	public OperationState getState() {
+		return state;
+	}
+
+	public void setState(OperationState state) {
+		this.state = state;
+	}
+
+	public String getMachineState() {
+		return machineState;
+	}
+
+	public void setMachineState(String machineState) {
+		this.machineState = machineState;
+	}
+
+	public String getMessage() {
+		return message;
+	}
+
+	public void setMessage(String message) {
+		this.message = message;
+	}
+
+	public Date getCreated() {
+		return created;
+	}
+
+	public void setCreated(Date created) {
+		this.created = created;
+	}
+
+	public Date getLastUpdated() {
+		return lastUpdated;
+	}
+
+	public void setLastUpdated(Date lastUpdated) {
+		this.lastUpdated = lastUpdated;
+	}
+
+	public Release getRelease() {
+		return release;
+	}
+
+	public void setRelease(Release release) {
+		this.release = release;
+	}
+
+	@JsonIgnore
+	public boolean isDone() {
+		return this.state != OperationState.PENDING;
+	}
+
+	@Override
+	public String toString() {
+		return "Operation{" + "id='" + id + '\'' + ", type='" + type + '\'' + ", releaseName='" + releaseName + '\''
+				+ ", state=" + state + ", machineState='" + machineState + '\'' + '}';
+	}
+}
@@ -0,0 +1,32 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.cloud.skipper.domain;
+
+/**
+ * State of an asynchronous release {@link Operation}.
+ */
+public enum OperationState {
+
+	// PENDING indicates that the operation was accepted but the release has not been handled yet.
+	PENDING,
+
+	// COMPLETED indicates that the release was handled and the resulting release is available.
+	COMPLETED,
+
+	// FAILED indicates that handling the release failed, the message describes the cause.
+	FAILED
+
+}
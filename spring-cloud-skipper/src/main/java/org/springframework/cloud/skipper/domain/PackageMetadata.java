@@ -15,8 +15,12 @@
  */
 package org.springframework.cloud.skipper.domain;
 
+import javax.persistence.Column;
 import javax.persistence.Entity;
+import javax.persistence.Index;
 import javax.persistence.Lob;
+import javax.persistence.PrePersist;
+import javax.persistence.PreUpdate;
 import javax.persistence.Table;
 import javax.validation.constraints.NotNull;
 
@@ -29,7 +33,8 @@ import com.fasterxml.jackson.annotation.JsonIgnore;
  * @author Gunnar Hillert
  */
 @Entity
-@Table(name = "SkipperPackageMetadata")
+@Table(name = "SkipperPackageMetadata", indexes = @Index(name = "idx_pkg_name_version_sort_key",
+		columnList = "name,versionSortKey"))
 public class PackageMetadata extends AbstractEntity {
 
 	/**
@@ -67,6 +72,15 @@ public class PackageMetadata extends AbstractEntity {
 	@NotNull
 	private String version;
 
+	/**
+	 * The version in a form whose lexical order is the semantic version precedence, set
+	 * whenever the package metadata is stored.
+	 * @see SemanticVersion#toSortKey()
+	 */
+	@JsonIgnore
+	@Column(length = SemanticVersion.SORT_KEY_LENGTH)
+	private String versionSortKey;
+
 	/**
 	 * Location to source code for this package.
 	 */
@@ -110,6 +124,13 @@ public class PackageMetadata extends AbstractEntity {
 	 */
 	private String iconUrl;
 
+	/**
+	 * Whether the package is no longer listed in the index of its repository. Stale
+	 * entries are kept since existing releases may still refer to them.
+	 */
+	@JsonIgnore
+	private boolean stale;
+
 	public PackageMetadata() {
 	}
 
@@ -219,6 +240,30 @@ public class PackageMetadata extends AbstractEntity {
 		this.iconUrl = iconUrl;
 	}
 
+	public boolean isStale() {
+		return stale;
+	}
+
+	public void setStale(boolean stale) {
+		this.stale = stale;
+	}
+
+	public String getVersionSortKey() {
+		return versionSortKey;
+	}
+
+	public void setVersionSortKey(String versionSortKey) {
+		this.versionSortKey = versionSortKey;
+	}
+
+	@PrePersist
+	@PreUpdate
+	private void updateVersionSortKey() {
+		if (this.version != null) {
+			this.versionSortKey = SemanticVersion.parse(this.version).toSortKey();
+		}
+	}
+
 	public Long getRepositoryId() {
 		return repositoryId;
 	}
@@ -312,6 +357,7 @@ public class PackageMetadata extends AbstractEntity {
 				", description='" + description + '\'' +
 				", sha256='" + sha256 + '\'' +
 				", iconUrl='" + iconUrl + '\'' +
+				", stale=" + stale +
 				'}';
 	}
 }
@@ -0,0 +1,126 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.cloud.skipper.domain;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A package matching a search, grouping all matching versions of the package with the
+ * newest version first.
+ */
+public class PackageSearchResult {
+
+	/**
+	 * The name of the package.
+	 */
+	private String name;
+
+	/**
+	 * The newest matching version of the package.
+	 */
+	private String latestVersion;
+
+	/**
+	 * The id of the package metadata of the newest matching version.
+	 */
+	private Long packageMetadataId;
+
+	/**
+	 * All matching versions of the package, newest first.
+	 */
+	private List<String> versions = new ArrayList<>();
+
+	/**
+	 * Brief description of the newest matching version of the package.
+	 */
+	private String description;
+
+	/**
+	 * Url location of a icon of the newest matching version of the package.
+	 */
+	private String iconUrl;
+
+	/**
+	 * The relevance of the package to the search, higher is more relevant.
+	 */
+	private double score;
+
+	public PackageSearchResult() {
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	public void setName(String name) {
+		this.name = name;
+	}
+
+	public String getLatestVersion() {
+		return latestVersion;
+	}
+
+	public void setLatestVersion(String latestVersion) {
+		this.latestVersion = latestVersion;
+	}
+
+	public Long getPackageMetadataId() {
+		return packageMetadataId;
+	}
+
+	public void setPackageMetadataId(Long packageMetadataId) {
+		this.packageMetadataId = packageMetadataId;
+	}
+
+	public List<String> getVersions() {
+		return versions;
+	}
+
+	public void setVersions(List<String> versions) {
+		this.versions = versions;
+	}
+
+	public String getDescription() {
+		return description;
+	}
+
+	public void setDescription(String description) {
+		this.description = description;
+	}
+
+	public String getIconUrl() {
+		return iconUrl;
+	}
+
+	public void setIconUrl(String iconUrl) {
+		this.iconUrl = iconUrl;
+	}
+
+	public double getScore() {
+		return score;
+	}
+
+	public void setScore(double score) {
+		this.score = score;
+	}
+
+	@Override
+	public String toString() {
+		return "PackageSearchResult{" + "name='" + name + '\'' + ", latestVersion='" + latestVersion + '\''
+				+ ", versions=" + versions + ", score=" + score + '}';
+	}
+}
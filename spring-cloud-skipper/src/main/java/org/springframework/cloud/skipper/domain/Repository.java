@@ -15,6 +15,8 @@
  */
 package org.springframework.cloud.skipper.domain;
 
+import java.util.Date;
+
 import javax.persistence.Column;
 import javax.persistence.Entity;
 import javax.persistence.Table;
@@ -65,6 +67,16 @@ public class Repository extends AbstractEntity {
 	 */
 	private Integer repoOrder;
 
+	/**
+	 * When the index of the repository was last synchronized successfully.
+	 */
+	private Date lastSynchronized;
+
+	/**
+	 * How long, in milliseconds, the last successful synchronization of the index took.
+	 */
+	private Long lastSynchronizationDuration;
+
 	// TODO security/checksum fields of referenced index file.
 
 	public Repository() {
@@ -118,6 +130,22 @@ public class Repository extends AbstractEntity {
 		this.repoOrder = repoOrder;
 	}
 
+	public Date getLastSynchronized() {
+		return lastSynchronized;
+	}
+
+	public void setLastSynchronized(Date lastSynchronized) {
+		this.lastSynchronized = lastSynchronized;
+	}
+
+	public Long getLastSynchronizationDuration() {
+		return lastSynchronizationDuration;
+	}
+
+	public void setLastSynchronizationDuration(Long lastSynchronizationDuration) {
+		this.lastSynchronizationDuration = lastSynchronizationDuration;
+	}
+
 	@Override
 	public String toString() {
 		return "Repository{" +
@@ -0,0 +1,178 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.cloud.skipper.domain;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Progress of the upgrade of all deployed releases of a package to another version of
+ * it. The releases are planned upfront and upgraded wave after wave, releases already
+ * matching the target version are left out and failed releases are skipped.
+ */
+public class Rollout {
+
+	private String id;
+
+	private String packageName;
+
+	/**
+	 * The version the releases are upgraded to.
+	 */
+	private String packageVersion;
+
+	private RolloutState state = RolloutState.RUNNING;
+
+	/**
+	 * Why the rollout has been paused or aborted.
+	 */
+	private String message;
+
+	/**
+	 * The number of waves started so far.
+	 */
+	private int currentWave;
+
+	private int waveCount;
+
+	private List<RolloutItem> items = new ArrayList<>();
+
+	/**
+	 * Releases of the package left out as upgrading them would not change any application.
+	 */
+	private List<String> upToDateReleases = new ArrayList<>();
+
+	/**
+	 * Releases of the package left out as their latest version failed.
+	 */
+	private List<String> skippedReleases = new ArrayList<>();
+
+	private Date created;
+
+	private Date lastUpdated;
+
+	public Rollout() {
+	}
+
+	public String getId() {
+		return id;
+	}
+
+	public void setId(String id) {
+		this.id = id;
+	}
+
+	public String getPackageName() {
+		return packageName;
+	}
+
+	public void setPackageName(String packageName) {
+		this.packageName = packageName;
+	}
+
+	public String getPackageVersion() {
+		return packageVersion;
+	}
+
+	public void setPackageVersion(String packageVersion) {
+		this.packageVersion = packageVersion;
+	}
+
+	public RolloutState getState() {
+		return state;
+	}
+
+	public void setState(RolloutState state) {
+		this.state = state;
+	}
+
+	public String getMessage() {
+		return message;
+	}
+
+	public void setMessage(String message) {
+		this.message = message;
+	}
+
+	public int getCurrentWave() {
+		return currentWave;
+	}
+
+	public void setCurrentWave(int currentWave) {
+		this.currentWave = currentWave;
+	}
+
+	public int getWaveCount() {
+		return waveCount;
+	}
+
+	public void setWaveCount(int waveCount) {
+		this.waveCount = waveCount;
+	}
+
+	public List<RolloutItem> getItems() {
+		return items;
+	}
+
+	public void setItems(List<RolloutItem> items) {
+		this.items = items;
+	}
+
+	public List<String> getUpToDateReleases() {
+		return upToDateReleases;
+	}
+
+	public void setUpToDateReleases(List<String> upToDateReleases) {
+		this.upToDateReleases = upToDateReleases;
+	}
+
+	public List<String> getSkippedReleases() {
+		return skippedReleases;
+	}
+
+	public void setSkippedReleases(List<String> skippedReleases) {
+		this.skippedReleases = skippedReleases;
+	}
+
+	public Date getCreated() {
+		return created;
+	}
+
+	public void setCreated(Date created) {
+		this.created = created;
+	}
+
+	public Date getLastUpdated() {
+		return lastUpdated;
+	}
+
+	public void setLastUpdated(Date lastUpdated) {
+		this.lastUpdated = lastUpdated;
+	}
+
+	@Override
+	public String toString() {
+		return "Rollout{" +
+				"id='" + id + '\'' +
+				", packageName='" + packageName + '\'' +
+				", packageVersion='" + packageVersion + '\'' +
+				", state=" + state +
+				", currentWave=" + currentWave +
+				", waveCount=" + waveCount +
+				'}';
+	}
+}
@@ -0,0 +1,97 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.cloud.skipper.domain;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The upgrade of a single release by a {@link Rollout}.
+ */
+public class RolloutItem {
+
+	private String releaseName;
+
+	/**
+	 * The package version the release is upgraded from.
+	 */
+	private String packageVersion;
+
+	/**
+	 * The number of the wave upgrading the release, starting at 1.
+	 */
+	private int wave;
+
+	/**
+	 * The applications of the release the upgrade plan redeploys.
+	 */
+	private List<String> applicationNames = new ArrayList<>();
+
+	/**
+	 * The upgrade operation, {@literal null} until the wave of the release has started.
+	 */
+	private Operation operation;
+
+	public RolloutItem() {
+	}
+
+	public RolloutItem(String releaseName, String packageVersion, int wave, List<String> applicationNames) {
+		this.releaseName = releaseName;
+		this.packageVersion = packageVersion;
+		this.wave = wave;
+		this.applicationNames = applicationNames;
+	}
+
+	public String getReleaseName() {
+		return releaseName;
+	}
+
+	public void setReleaseName(String releaseName) {
+		this.releaseName = releaseName;
+	}
+
+	public String getPackageVersion() {
+		return packageVersion;
+	}
+
+	public void setPackageVersion(String packageVersion) {
+		this.packageVersion = packageVersion;
+	}
+
+	public int getWave() {
+		return wave;
+	}
+
+	public void setWave(int wave) {
+		this.wave = wave;
+	}
+
+	public List<String> getApplicationNames() {
+		return applicationNames;
+	}
+
+	public void setApplicationNames(List<String> applicationNames) {
+		this.applicationNames = applicationNames;
+	}
+
+	public Operation getOperation() {
+		return operation;
+	}
+
+	public void setOperation(Operation operation) {
+		this.operation = operation;
+	}
+}
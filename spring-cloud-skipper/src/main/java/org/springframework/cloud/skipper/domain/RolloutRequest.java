@@ -0,0 +1,107 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.cloud.skipper.domain;
+
+/**
+ * Request to upgrade all deployed releases of a package to another version of it, in
+ * waves of releases upgraded concurrently.
+ */
+public class RolloutRequest {
+
+	/**
+	 * The name of the package whose releases are upgraded.
+	 */
+	private String packageName;
+
+	/**
+	 * The version to upgrade the releases to, the latest version if not set.
+	 */
+	private String packageVersion;
+
+	/**
+	 * The number of releases upgraded in a wave.
+	 */
+	private int waveSize = 5;
+
+	/**
+	 * The maximum number of releases of a wave upgraded at the same time, the wave size if
+	 * not set.
+	 */
+	private Integer parallelism;
+
+	/**
+	 * The rate of failed upgrades of a wave, between 0 and 1, above which the rollout stops
+	 * before the next wave.
+	 */
+	private double maxFailureRate = 0;
+
+	/**
+	 * Whether the rollout is aborted rather than paused when a wave exceeds the failure
+	 * rate.
+	 */
+	private boolean abortOnFailure = false;
+
+	public RolloutRequest() {
+	}
+
+	public String getPackageName() {
+		return packageName;
+	}
+
+	public void setPackageName(String packageName) {
+		this.packageName = packageName;
+	}
+
+	public String getPackageVersion() {
+		return packageVersion;
+	}
+
+	public void setPackageVersion(String packageVersion) {
+		this.packageVersion = packageVersion;
+	}
+
+	public int getWaveSize() {
+		return waveSize;
+	}
+
+	public void setWaveSize(int waveSize) {
+		this.waveSize = waveSize;
+	}
+
+	public Integer getParallelism() {
+		return parallelism;
+	}
+
+	public void setParallelism(Integer parallelism) {
+		this.parallelism = parallelism;
+	}
+
+	public double getMaxFailureRate() {
+		return maxFailureRate;
+	}
+
+	public void setMaxFailureRate(double maxFailureRate) {
+		this.maxFailureRate = maxFailureRate;
+	}
+
+	public boolean isAbortOnFailure() {
+		return abortOnFailure;
+	}
+
+	public void setAbortOnFailure(boolean abortOnFailure) {
+		this.abortOnFailure = abortOnFailure;
+	}
+}
@@ -0,0 +1,35 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.cloud.skipper.domain;
+
+/**
+ * State of a package {@link Rollout}.
+ */
+public enum RolloutState {
+
+	// RUNNING indicates that the waves of the rollout are being upgraded.
+	RUNNING,
+
+	// PAUSED indicates that a wave exceeded the failure rate, the rollout can be resumed or aborted.
+	PAUSED,
+
+	// ABORTED indicates that the remaining waves of the rollout will not be upgraded.
+	ABORTED,
+
+	// COMPLETED indicates that all waves of the rollout have been upgraded.
+	COMPLETED
+
+}
@@ -0,0 +1,296 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.cloud.skipper.domain;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.springframework.util.Assert;
+import org.springframework.util.StringUtils;
+
+/**
+ * A package version ordered by semantic versioning precedence rather than lexically, so
+ * that {@literal 1.10.0} is newer than {@literal 1.9.0} and a pre-release is older than
+ * its release.
+ *
+ * Parsing is lenient to accept the versions found in package repositories. Missing minor
+ * and patch numbers default to zero, build metadata after a {@literal +} is ignored and a
+ * qualifier appended with a dot, as in {@literal 1.0.0.M1}, is treated like a pre-release
+ * unless it is {@literal RELEASE}, {@literal FINAL} or {@literal GA}. A version that does
+ * not start with a number orders before all numbered versions.
+ */
+public final class SemanticVersion implements Comparable<SemanticVersion> {
+
+	/**
+	 * The maximum length of the key returned by {@link #toSortKey()}.
+	 */
+	public static final int SORT_KEY_LENGTH = 255;
+
+	private static final int NUMBER_LENGTH = 10;
+
+	private static final int IDENTIFIER_LENGTH = 20;
+
+	private final String version;
+
+	private final int major;
+
+	private final int minor;
+
+	private final int patch;
+
+	private final List<String> preRelease;
+
+	private SemanticVersion(String version, int major, int minor, int patch, List<String> preRelease) {
+		this.version = version;
+		this.major = major;
+		this.minor = minor;
+		this.patch = patch;
+		this.preRelease = preRelease;
+	}
+
+	/**
+	 * Parse the given version string.
+	 * @param version the version, must not be {@literal null}
+	 * @return the parsed version
+	 */
+	public static SemanticVersion parse(String version) {
+		Assert.notNull(version, "'version' must not be null");
+		String trimmed = version.trim();
+		int buildStart = trimmed.indexOf('+');
+		String withoutBuild = (buildStart >= 0) ? trimmed.substring(0, buildStart) : trimmed;
+		String core = withoutBuild;
+		String qualifier = null;
+		int preReleaseStart = withoutBuild.indexOf('-');
+		if (preReleaseStart >= 0) {
+			core = withoutBuild.substring(0, preReleaseStart);
+			qualifier = withoutBuild.substring(preReleaseStart + 1);
+		}
+		String[] parts = StringUtils.delimitedListToStringArray(core, ".");
+		int[] numbers = new int[3];
+		int numbered = 0;
+		while (numbered < parts.length && numbered < numbers.length && isNumeric(parts[numbered])) {
+			numbers[numbered] = parseNumber(parts[numbered]);
+			numbered++;
+		}
+		if (numbered == 0) {
+			return new SemanticVersion(version, 0, 0, 0, Collections.singletonList(trimmed));
+		}
+		if (numbered < parts.length) {
+			String dottedQualifier = StringUtils.arrayToDelimitedString(
+					Arrays.copyOfRange(parts, numbered, parts.length), ".");
+			qualifier = (qualifier != null) ? dottedQualifier + "-" + qualifier : dottedQualifier;
+		}
+		return new SemanticVersion(version, numbers[0], numbers[1], numbers[2], preReleaseIdentifiers(qualifier));
+	}
+
+	private static List<String> preReleaseIdentifiers(String qualifier) {
+		if (!StringUtils.hasText(qualifier) || qualifier.equalsIgnoreCase("RELEASE")
+				|| qualifier.equalsIgnoreCase("FINAL") || qualifier.equalsIgnoreCase("GA")) {
+			return Collections.emptyList();
+		}
+		List<String> identifiers = new ArrayList<>();
+		for (String identifier : StringUtils.tokenizeToStringArray(qualifier, ".-")) {
+			identifiers.add(identifier);
+		}
+		return Collections.unmodifiableList(identifiers);
+	}
+
+	private static boolean isNumeric(String value) {
+		if (value.isEmpty()) {
+			return false;
+		}
+		for (int i = 0; i < value.length(); i++) {
+			if (!Character.isDigit(value.charAt(i))) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private static int parseNumber(String value) {
+		try {
+			return Integer.parseInt(value);
+		}
+		catch (NumberFormatException e) {
+			return Integer.MAX_VALUE;
+		}
+	}
+
+	public String getVersion() {
+		return version;
+	}
+
+	public int getMajor() {
+		return major;
+	}
+
+	public int getMinor() {
+		return minor;
+	}
+
+	public int getPatch() {
+		return patch;
+	}
+
+	public List<String> getPreRelease() {
+		return preRelease;
+	}
+
+	public boolean isPreRelease() {
+		return !this.preRelease.isEmpty();
+	}
+
+	/**
+	 * Return a key whose lexical order is the precedence order of the versions, so that
+	 * versions can be ordered and compared by a database index. The key only contains
+	 * digits and lower case letters to sort the same under any collation.
+	 *
+	 * The major, minor and patch numbers are zero padded, followed by {@literal 1} for a
+	 * release or {@literal 0} and the pre-release identifiers for a pre-release. Numeric
+	 * identifiers are prefixed with {@literal 0} and zero padded, alphanumeric ones are
+	 * prefixed with {@literal 1}, padded to {@value #IDENTIFIER_LENGTH} characters and
+	 * followed by their two digit length, so that an identifier orders before the longer
+	 * identifiers it is a prefix of, as in {@literal alpha} and {@literal alpha0}.
+	 * Alphanumeric identifiers longer than that and keys longer than
+	 * {@value #SORT_KEY_LENGTH} characters are truncated.
+	 * @return the sort key of this version
+	 */
+	public String toSortKey() {
+		StringBuilder key = new StringBuilder();
+		appendNumber(key, Integer.toString(this.major));
+		appendNumber(key, Integer.toString(this.minor));
+		appendNumber(key, Integer.toString(this.patch));
+		if (this.preRelease.isEmpty()) {
+			key.append('1');
+		}
+		else {
+			key.append('0');
+			for (String identifier : this.preRelease) {
+				if (isNumeric(identifier)) {
+					key.append('0');
+					appendNumber(key, stripLeadingZeros(identifier));
+				}
+				else {
+					key.append('1');
+					int start = key.length();
+					for (int i = 0; i < identifier.length() && key.length() - start < IDENTIFIER_LENGTH; i++) {
+						char c = Character.toLowerCase(identifier.charAt(i));
+						key.append((c >= 'a' && c <= 'z') || (c >= '0' && c <= '9') ? c : '0');
+					}
+					while (key.length() - start < IDENTIFIER_LENGTH) {
+						key.append('0');
+					}
+					int length = Math.min(identifier.length(), IDENTIFIER_LENGTH);
+					key.append(length / 10).append(length % 10);
+				}
+			}
+		}
+		return (key.length() > SORT_KEY_LENGTH) ? key.substring(0, SORT_KEY_LENGTH) : key.toString();
+	}
+
+	private static void appendNumber(StringBuilder key, String digits) {
+		if (digits.length() > NUMBER_LENGTH) {
+			// larger than fits the key, order it after all numbers that do
+			for (int i = 0; i < NUMBER_LENGTH; i++) {
+				key.append('9');
+			}
+			return;
+		}
+		for (int i = digits.length(); i < NUMBER_LENGTH; i++) {
+			key.append('0');
+		}
+		key.append(digits);
+	}
+
+	@Override
+	public int compareTo(SemanticVersion other) {
+		int result = Integer.compare(this.major, other.major);
+		if (result == 0) {
+			result = Integer.compare(this.minor, other.minor);
+		}
+		if (result == 0) {
+			result = Integer.compare(this.patch, other.patch);
+		}
+		if (result == 0) {
+			result = comparePreRelease(this.preRelease, other.preRelease);
+		}
+		if (result == 0) {
+			result = this.version.compareTo(other.version);
+		}
+		return result;
+	}
+
+	private static int comparePreRelease(List<String> left, List<String> right) {
+		if (left.isEmpty() || right.isEmpty()) {
+			// a release has higher precedence than any of its pre-releases
+			return Boolean.compare(left.isEmpty(), right.isEmpty());
+		}
+		for (int i = 0; i < Math.min(left.size(), right.size()); i++) {
+			int result = compareIdentifier(left.get(i), right.get(i));
+			if (result != 0) {
+				return result;
+			}
+		}
+		return Integer.compare(left.size(), right.size());
+	}
+
+	private static int compareIdentifier(String left, String right) {
+		boolean leftNumeric = isNumeric(left);
+		boolean rightNumeric = isNumeric(right);
+		if (leftNumeric && rightNumeric) {
+			String leftDigits = stripLeadingZeros(left);
+			String rightDigits = stripLeadingZeros(right);
+			int result = Integer.compare(leftDigits.length(), rightDigits.length());
+			return (result != 0) ? result : leftDigits.compareTo(rightDigits);
+		}
+		if (leftNumeric != rightNumeric) {
+			// numeric identifiers have lower precedence than alphanumeric ones
+			return leftNumeric ? -1 : 1;
+		}
+		return left.compareToIgnoreCase(right);
+	}
+
+	private static String stripLeadingZeros(String digits) {
+		int start = 0;
+		while (start < digits.length() - 1 && digits.charAt(start) == '0') {
+			start++;
+		}
+		return digits.substring(start);
+	}
+
+	@Override
+	public boolean equals(Object o) {
+		if (this == o) {
+			return true;
+		}
+		if (o == null || getClass() != o.getClass()) {
+			return false;
+		}
+		return this.version.equals(((SemanticVersion) o).version);
+	}
+
+	@Override
+	public int hashCode() {
+		return this.version.hashCode();
+	}
+
+	@Override
+	public String toString() {
+		return this.version;
+	}
+}
@@ -0,0 +1,70 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.cloud.skipper.domain;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests for {@link SemanticVersion}.
+ */
+public class SemanticVersionTests {
+
+	private static final List<String> ORDERED_VERSIONS = Arrays.asList("snapshot", "1.0.0-alpha", "1.0.0-alpha.1",
+			"1.0.0-alpha.beta", "1.0.0-alpha0", "1.0.0-alpha00", "1.0.0-alpha01", "1.0.0-alphaa", "1.0.0-beta.2",
+			"1.0.0-beta.11", "1.0.0-rc.1", "1.0.0", "1.2.0.BUILD-SNAPSHOT",
+			"1.2.0.M1", "1.2.0.RC1", "1.2.0.RELEASE", "1.9.0", "1.10.0", "2", "10.0.0");
+
+	@Test
+	public void versionsAreOrderedByPrecedence() {
+		List<SemanticVersion> versions = new ArrayList<>();
+		for (String version : ORDERED_VERSIONS) {
+			versions.add(SemanticVersion.parse(version));
+		}
+		Collections.shuffle(versions);
+		Collections.sort(versions);
+		assertThat(versions).extracting(SemanticVersion::getVersion).containsExactlyElementsOf(ORDERED_VERSIONS);
+	}
+
+	@Test
+	public void sortKeysAreOrderedByPrecedence() {
+		List<String> sortKeys = new ArrayList<>();
+		for (String version : ORDERED_VERSIONS) {
+			sortKeys.add(SemanticVersion.parse(version).toSortKey());
+		}
+		List<String> sortedKeys = new ArrayList<>(sortKeys);
+		Collections.sort(sortedKeys);
+		assertThat(sortedKeys).containsExactlyElementsOf(sortKeys);
+		assertThat(sortKeys).doesNotHaveDuplicates();
+	}
+
+	@Test
+	public void parseLenientVersions() {
+		SemanticVersion version = SemanticVersion.parse("1.2.0.BUILD-SNAPSHOT+20171010");
+		assertThat(version.getMajor()).isEqualTo(1);
+		assertThat(version.getMinor()).isEqualTo(2);
+		assertThat(version.getPatch()).isEqualTo(0);
+		assertThat(version.getPreRelease()).containsExactly("BUILD", "SNAPSHOT");
+		assertThat(SemanticVersion.parse("1.0.0.RELEASE").isPreRelease()).isFalse();
+		assertThat(SemanticVersion.parse("2").toSortKey()).isEqualTo(SemanticVersion.parse("2.0.0").toSortKey());
+	}
+}